@@ -2,9 +2,12 @@
 #include <string>
 #include <vector>
 #include <memory>
+#include <filesystem>
 #include <sys/resource.h>
 
 // --- Abstract Interface ---
+// File names are relative to the submission's working directory, which the
+// worker creates per submission and removes afterwards.
 class LanguageStrategy {
 public:
     virtual ~LanguageStrategy() = default;
@@ -12,11 +15,20 @@ public:
     virtual std::string get_src_filename(const std::string& id) = 0;
     virtual bool needs_compilation() = 0;
     virtual std::vector<std::string> get_compile_args(const std::string& id) = 0;
+    // Files a successful compile leaves in the working directory, for the compile cache.
+    virtual std::vector<std::string> get_compile_outputs(const std::string& id, const std::string& workdir) { return {}; }
+    // Command printing the compiler version; part of the compile cache key.
+    virtual std::vector<std::string> get_version_args() { return {}; }
 
     virtual std::string get_run_cmd(const std::string& id) = 0;
     virtual std::vector<std::string> get_run_args(const std::string& id, int memory_limit_mb) = 0;    
     virtual rlim_t get_rlimit_as(int memory_limit_mb) = 0;    
-    virtual void cleanup(const std::string& id) = 0;
+
+    // A runtime that boots before loading the submission may write the user CPU
+    // time of that boot, in clock ticks, to STARTUP_REPORT_FD; the sandbox then
+    // leaves it out of the measured time.
+    static constexpr int STARTUP_REPORT_FD = 3;
+    virtual bool reports_startup() { return false; }
 };
 
 // --- C++ Strategy ---
@@ -28,6 +40,9 @@ public:
     std::vector<std::string> get_compile_args(const std::string& id) override {
         return {"g++", "-O2", get_src_filename(id), "-o", "./bin_" + id};
     }
+
+    std::vector<std::string> get_compile_outputs(const std::string& id, const std::string& workdir) override { return {"bin_" + id}; }
+    std::vector<std::string> get_version_args() override { return {"g++", "-dumpfullversion"}; }
     
     std::string get_run_cmd(const std::string& id) override { return "./bin_" + id; }
     
@@ -38,11 +53,6 @@ public:
     rlim_t get_rlimit_as(int memory_limit_mb) override {
         return (rlim_t)memory_limit_mb * 1024 * 1024;
     }
-
-    void cleanup(const std::string& id) override {
-        std::string bin = "bin_" + id;
-        remove(bin.c_str());
-    }
 };
 
 // --- Python Strategy ---
@@ -60,42 +70,70 @@ public:
     rlim_t get_rlimit_as(int memory_limit_mb) override {
         return (rlim_t)(memory_limit_mb + 50) * 1024 * 1024; 
     }
-
-    void cleanup(const std::string& id) override {}
 };
 
 // --- Java Strategy ---
 class JavaStrategy : public LanguageStrategy {
 public:
+    // Set once at startup; empty turns them off. The CDS archive preloads the
+    // JDK classes submissions commonly use, and the launcher directory holds
+    // JudgeLauncher, which reports the JVM's startup time before running Main.
+    inline static std::string cds_archive;
+    inline static std::string launcher_dir;
+
     std::string get_src_filename(const std::string& id) override { return "Main.java"; }
     bool needs_compilation() override { return true; }
     
     std::vector<std::string> get_compile_args(const std::string& id) override {
         return {"javac", get_src_filename(id)};
     }
+
+    // javac writes one file per class, so nested classes produce more than Main.class.
+    std::vector<std::string> get_compile_outputs(const std::string& id, const std::string& workdir) override {
+        std::vector<std::string> outputs;
+        std::error_code ec;
+        for (const auto& entry : std::filesystem::directory_iterator(workdir, ec)) {
+            if (entry.path().extension() == ".class") outputs.push_back(entry.path().filename().string());
+        }
+        return outputs;
+    }
+    std::vector<std::string> get_version_args() override { return {"javac", "-version"}; }
     
     std::string get_run_cmd(const std::string& id) override { return "/usr/bin/java"; }
     
     std::vector<std::string> get_run_args(const std::string& id, int memory_limit_mb) override {
-        return {
+        std::vector<std::string> args = {
             "java",
             "-Xmx" + std::to_string(memory_limit_mb) + "m", // Max Heap
             "-Xms16m",
             "-XX:+UseSerialGC",
             "-Xss64m",
-            "-XX:+ExitOnOutOfMemoryError",
-            "-cp", ".", 
-            "Main"
+            "-XX:+ExitOnOutOfMemoryError"
         };
+        if (!cds_archive.empty()) {
+            // auto: a stale or foreign archive is ignored instead of failing the run.
+            args.push_back("-XX:SharedArchiveFile=" + cds_archive);
+            args.push_back("-Xshare:auto");
+        }
+        if (reports_startup()) {
+            args.insert(args.end(), {
+                "-Djudge.startup.fd=" + std::to_string(STARTUP_REPORT_FD),
+                // Lets JudgeLauncher close the report descriptor once it has written it.
+                "--add-opens=java.base/java.io=ALL-UNNAMED",
+                "-cp", launcher_dir + ":.",
+                "JudgeLauncher", "Main"
+            });
+        } else {
+            args.insert(args.end(), {"-cp", ".", "Main"});
+        }
+        return args;
     }
     
     rlim_t get_rlimit_as(int memory_limit_mb) override {
         return RLIM_INFINITY;
     }
 
-    void cleanup(const std::string& id) override {
-        remove("Main.class");
-    }
+    bool reports_startup() override { return !launcher_dir.empty(); }
 };
 
 // --- Factory ---
@@ -0,0 +1,55 @@
+// Per-test overhead of the sandbox. Runs /bin/true through Sandbox::run with a
+// cgroup created and removed per run (the fallback path) and with pooled
+// cgroups and clone3, and prints the wall time per run of each.
+//
+//   make bench_spawn && sudo ./bench_spawn [runs] [cgroup v2 root]
+#include "sandbox.h"
+
+#include <algorithm>
+#include <chrono>
+#include <cstdio>
+#include <cstdlib>
+#include <iostream>
+#include <vector>
+
+class TrueStrategy : public LanguageStrategy {
+public:
+    std::string get_src_filename(const std::string& id) override { return ""; }
+    bool needs_compilation() override { return false; }
+    std::vector<std::string> get_compile_args(const std::string& id) override { return {}; }
+    std::string get_run_cmd(const std::string& id) override { return "/bin/true"; }
+    std::vector<std::string> get_run_args(const std::string& id, int memory_limit_mb) override { return {"/bin/true"}; }
+    rlim_t get_rlimit_as(int memory_limit_mb) override { return RLIM_INFINITY; }
+};
+
+static void measure(const char* label, Sandbox& sandbox, int runs) {
+    TrueStrategy strategy;
+    std::vector<double> micros;
+    for (int i = 0; i < runs; i++) {
+        auto start = std::chrono::steady_clock::now();
+        ExecutionResult result = sandbox.run(strategy, "bench", "/dev/null", "bench_out.txt", "", 1, 256);
+        micros.push_back(std::chrono::duration<double, std::micro>(std::chrono::steady_clock::now() - start).count());
+        if (result.verdict != ACCEPTED) {
+            std::cerr << label << ": run " << i << " failed: " << result.stderr_output << std::endl;
+            return;
+        }
+    }
+    std::remove("bench_out.txt");
+    std::sort(micros.begin(), micros.end());
+    double total = 0;
+    for (double m : micros) total += m;
+    std::printf("%-28s mean %8.0f us   p50 %8.0f us   p99 %8.0f us\n", label, total / runs,
+                micros[runs / 2], micros[runs * 99 / 100]);
+}
+
+int main(int argc, char** argv) {
+    int runs = argc > 1 ? std::atoi(argv[1]) : 500;
+    std::string root = argc > 2 ? argv[2] : "/sys/fs/cgroup";
+    if (runs <= 0) runs = 500;
+
+    Sandbox per_run(0);
+    measure("cgroup per run, fork", per_run, runs);
+    Sandbox pooled(1, root);
+    measure("pooled cgroup, clone3", pooled, runs);
+    return 0;
+}
@@ -0,0 +1,199 @@
+#include "cgroup_pool.h"
+
+#include <cerrno>
+#include <cstdlib>
+#include <cstring>
+#include <dirent.h>
+#include <fcntl.h>
+#include <iostream>
+#include <signal.h>
+#include <sys/stat.h>
+#include <unistd.h>
+
+static const char *NAME_PREFIX = "pool-";
+// How long a release waits for killed leftovers to exit before giving the group up.
+static const int RESET_WAIT_MS = 50;
+
+static bool write_value(int dir_fd, const char *file, const std::string &value) {
+    int fd = openat(dir_fd, file, O_WRONLY | O_CLOEXEC);
+    if (fd < 0) return false;
+    bool ok = write(fd, value.data(), value.size()) == static_cast<ssize_t>(value.size());
+    close(fd);
+    return ok;
+}
+
+static std::string read_value(int dir_fd, const char *file) {
+    int fd = openat(dir_fd, file, O_RDONLY | O_CLOEXEC);
+    if (fd < 0) return "";
+    char buffer[256];
+    ssize_t got = read(fd, buffer, sizeof(buffer) - 1);
+    close(fd);
+    return got > 0 ? std::string(buffer, got) : "";
+}
+
+static bool populated(int dir_fd) {
+    return read_value(dir_fd, "cgroup.events").find("populated 1") != std::string::npos;
+}
+
+// Moves every process out of `root` into a leaf group. Cgroup v2 only lets a
+// group with no processes of its own delegate controllers to its children,
+// and inside a container the worker itself sits in the root.
+static void evacuate_root(const std::string &root) {
+    std::string service = root + "/worker_service";
+    mkdir(service.c_str(), 0755);
+    int root_fd = open(root.c_str(), O_RDONLY | O_DIRECTORY | O_CLOEXEC);
+    int service_fd = open(service.c_str(), O_RDONLY | O_DIRECTORY | O_CLOEXEC);
+    if (root_fd >= 0 && service_fd >= 0) {
+        std::string procs = read_value(root_fd, "cgroup.procs");
+        for (size_t start = 0, end; start < procs.size(); start = end + 1) {
+            end = procs.find('\n', start);
+            if (end == std::string::npos) end = procs.size();
+            if (end > start) write_value(service_fd, "cgroup.procs", procs.substr(start, end - start));
+        }
+        write_value(service_fd, "cgroup.procs", "0");
+    }
+    if (root_fd >= 0) close(root_fd);
+    if (service_fd >= 0) close(service_fd);
+}
+
+// Removes groups left behind by workers that are gone.
+static void remove_stale(const std::string &judges) {
+    DIR *dir = opendir(judges.c_str());
+    if (!dir) return;
+    size_t prefix = strlen(NAME_PREFIX);
+    while (dirent *entry = readdir(dir)) {
+        std::string name = entry->d_name;
+        if (name.compare(0, prefix, NAME_PREFIX) != 0) continue;
+        pid_t owner = static_cast<pid_t>(std::atol(name.c_str() + prefix));
+        if (owner > 0 && (kill(owner, 0) == 0 || errno != ESRCH)) continue;
+        rmdir((judges + "/" + name).c_str());
+    }
+    closedir(dir);
+}
+
+CgroupPool::Lease &CgroupPool::Lease::operator=(Lease &&other) noexcept {
+    if (this != &other) {
+        if (pool_) pool_->release(index_);
+        pool_ = other.pool_;
+        index_ = other.index_;
+        other.pool_ = nullptr;
+    }
+    return *this;
+}
+
+CgroupPool::Lease::~Lease() {
+    if (pool_) pool_->release(index_);
+}
+
+int CgroupPool::Lease::fd() const {
+    std::lock_guard<std::mutex> lock(pool_->mutex_);
+    return pool_->groups_[index_].fd;
+}
+
+CgroupPool::CgroupPool(std::string root, size_t size) : root_(std::move(root)), judges_(root_ + "/judges") {
+    struct stat st;
+    if (stat((root_ + "/cgroup.controllers").c_str(), &st) != 0) return;
+
+    evacuate_root(root_);
+    int root_fd = open(root_.c_str(), O_RDONLY | O_DIRECTORY | O_CLOEXEC);
+    if (root_fd >= 0) {
+        write_value(root_fd, "cgroup.subtree_control", "+memory +cpu");
+        close(root_fd);
+    }
+    mkdir(judges_.c_str(), 0755);
+    int judges_fd = open(judges_.c_str(), O_RDONLY | O_DIRECTORY | O_CLOEXEC);
+    if (judges_fd < 0) return;
+    write_value(judges_fd, "cgroup.subtree_control", "+memory +cpu");
+    close(judges_fd);
+    remove_stale(judges_);
+
+    groups_.resize(size);
+    for (auto &group : groups_) {
+        if (!create(group)) {
+            std::cerr << "[CgroupPool] Cannot create groups in " << judges_ << ": " << strerror(errno) << std::endl;
+            for (auto &created : groups_) retire(created);
+            groups_.clear();
+            return;
+        }
+    }
+    available_ = true;
+}
+
+CgroupPool::~CgroupPool() {
+    for (auto &group : groups_) retire(group);
+}
+
+bool CgroupPool::create(Group &group) {
+    group.path = judges_ + "/" + NAME_PREFIX + std::to_string(getpid()) + "-" + std::to_string(created_++);
+    if (mkdir(group.path.c_str(), 0755) != 0 && errno != EEXIST) return false;
+    group.fd = open(group.path.c_str(), O_RDONLY | O_DIRECTORY | O_CLOEXEC);
+    if (group.fd < 0) return false;
+    write_value(group.fd, "memory.swap.max", "0");
+    group.memory_mb = -1;
+    return true;
+}
+
+bool CgroupPool::reset(Group &group) {
+    if (populated(group.fd)) {
+        // Something the program started outlived it.
+        write_value(group.fd, "cgroup.kill", "1");
+        for (int waited = 0; populated(group.fd); waited++) {
+            if (waited == RESET_WAIT_MS) return false;
+            usleep(1000);
+        }
+    }
+    // Page cache the run left charged here would count against the next run's limit.
+    std::string charged = read_value(group.fd, "memory.current");
+    if (std::atoll(charged.c_str()) > 0) write_value(group.fd, "memory.reclaim", charged);
+    return true;
+}
+
+void CgroupPool::retire(Group &group) {
+    if (group.fd >= 0) close(group.fd);
+    group.fd = -1;
+    if (!group.path.empty()) rmdir(group.path.c_str());
+}
+
+CgroupPool::Lease CgroupPool::acquire(long memory_mb) {
+    std::lock_guard<std::mutex> lock(mutex_);
+    if (!available_) return Lease();
+    size_t index = 0;
+    while (index < groups_.size() && (groups_[index].busy || groups_[index].fd < 0)) index++;
+    if (index == groups_.size()) {
+        Group group;
+        if (!create(group)) return Lease();
+        groups_.push_back(std::move(group));
+    }
+    Group &group = groups_[index];
+    if (group.memory_mb != memory_mb) {
+        std::string limit = std::to_string(memory_mb * 1024 * 1024);
+        // Without the limit the group would run the program under the previous one; leave the
+        // group idle and let the caller fall back to running without a pooled cgroup.
+        if (!write_value(group.fd, "memory.max", limit)) {
+            group.memory_mb = -1;
+            return Lease();
+        }
+        group.memory_mb = memory_mb;
+    }
+    group.busy = true;
+    return Lease(this, index);
+}
+
+void CgroupPool::release(size_t index) {
+    // The group stays busy while it is reset, so the lock is only needed to
+    // find it: other slots keep acquiring meanwhile.
+    Group group;
+    {
+        std::lock_guard<std::mutex> lock(mutex_);
+        group = groups_[index];
+    }
+    bool clean = reset(group);
+    std::lock_guard<std::mutex> lock(mutex_);
+    Group &slot = groups_[index];
+    if (!clean) {
+        // Leftovers that would not die; give the group up and start over with a fresh one.
+        retire(slot);
+        create(slot);
+    }
+    slot.busy = false;
+}
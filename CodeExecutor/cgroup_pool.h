@@ -0,0 +1,69 @@
+#pragma once
+#include <cstddef>
+#include <mutex>
+#include <string>
+#include <vector>
+
+// Cgroup v2 groups for test runs, created once per worker and reused. A run
+// borrows a group, its program is spawned straight into it with
+// clone3(CLONE_INTO_CGROUP), and on release whatever the program left running
+// is killed and its page cache reclaimed, so the next run starts from an empty
+// group. That replaces a mkdir, the limit writes, a pid move and an rmdir per
+// test, and the program never runs outside its group, not even briefly.
+class CgroupPool {
+public:
+    class Lease {
+    public:
+        Lease() = default;
+        Lease(Lease&& other) noexcept : pool_(other.pool_), index_(other.index_) { other.pool_ = nullptr; }
+        Lease& operator=(Lease&& other) noexcept;
+        Lease(const Lease&) = delete;
+        Lease& operator=(const Lease&) = delete;
+        ~Lease();
+
+        bool valid() const { return pool_ != nullptr; }
+        // Directory descriptor of the group, for clone3.
+        int fd() const;
+
+    private:
+        friend class CgroupPool;
+        Lease(CgroupPool* pool, size_t index) : pool_(pool), index_(index) {}
+
+        CgroupPool* pool_ = nullptr;
+        size_t index_ = 0;
+    };
+
+    // Pre-creates `size` groups below `root`. available() is false when there
+    // is no writable cgroup v2 hierarchy at `root`.
+    CgroupPool(std::string root, size_t size);
+    ~CgroupPool();
+
+    CgroupPool(const CgroupPool&) = delete;
+    CgroupPool& operator=(const CgroupPool&) = delete;
+
+    bool available() const { return available_; }
+
+    // A free group limited to `memory_mb`, creating one if all are busy. The
+    // lease is empty if no group could be created.
+    Lease acquire(long memory_mb);
+
+private:
+    struct Group {
+        std::string path;
+        int fd = -1;
+        long memory_mb = -1;
+        bool busy = false;
+    };
+
+    bool create(Group& group);
+    bool reset(Group& group);
+    void retire(Group& group);
+    void release(size_t index);
+
+    std::string root_;
+    std::string judges_;
+    bool available_ = false;
+    size_t created_ = 0;
+    std::vector<Group> groups_;
+    std::mutex mutex_;
+};
@@ -0,0 +1,125 @@
+#include "comparator.h"
+
+#include <algorithm>
+#include <cerrno>
+#include <cmath>
+#include <cstdlib>
+#include <fcntl.h>
+#include <sys/stat.h>
+#include <unistd.h>
+
+static const size_t READ_CHUNK = 64 * 1024;
+// Output may exceed the expected size by this much, or by the expected size
+// itself if that is larger (CRLF line endings, padding), before it is rejected.
+static const size_t OUTPUT_SLACK_BYTES = 1024 * 1024;
+// Longest output token still considered for a numeric comparison.
+static const size_t MAX_NUMBER_LENGTH = 1024;
+
+static bool is_space(char c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\v' || c == '\f';
+}
+
+static bool parse_number(const std::string& token, double& value) {
+    if (token.empty()) return false;
+    char* end = nullptr;
+    errno = 0;
+    value = std::strtod(token.c_str(), &end);
+    return errno == 0 && end == token.c_str() + token.size() && std::isfinite(value);
+}
+
+OutputComparator::OutputComparator(const std::string& expected_path, const CompareOptions& options)
+    : options_(options) {
+    buffer_.resize(READ_CHUNK);
+    fd_ = open(expected_path.c_str(), O_RDONLY | O_CLOEXEC);
+    if (fd_ < 0) return;
+    size_t expected_bytes = 0;
+    if (options_.fingerprint) {
+        expected_bytes = static_cast<size_t>(options_.fingerprint->bytes);
+    } else {
+        struct stat st;
+        if (fstat(fd_, &st) == 0) expected_bytes = static_cast<size_t>(st.st_size);
+    }
+    output_limit_ = expected_bytes + std::max(expected_bytes, OUTPUT_SLACK_BYTES);
+}
+
+OutputComparator::~OutputComparator() {
+    if (fd_ >= 0) close(fd_);
+}
+
+bool OutputComparator::next_expected(std::string& token) {
+    token.clear();
+    while (true) {
+        if (buffer_pos_ == buffer_len_) {
+            if (expected_eof_) return !token.empty();
+            ssize_t got = read(fd_, buffer_.data(), buffer_.size());
+            if (got < 0 && errno == EINTR) continue;
+            if (got <= 0) {
+                expected_eof_ = true;
+                return !token.empty();
+            }
+            buffer_pos_ = 0;
+            buffer_len_ = static_cast<size_t>(got);
+        }
+        char c = buffer_[buffer_pos_];
+        if (is_space(c)) {
+            if (!token.empty()) return true;
+        } else {
+            token += c;
+        }
+        buffer_pos_++;
+    }
+}
+
+bool OutputComparator::end_token() {
+    in_token_ = false;
+    if (exact_ && matched_ == expected_token_.size()) return true;
+    if (!numeric_) return false;
+    double actual, expected;
+    if (!parse_number(output_token_, actual) || !parse_number(expected_token_, expected)) return false;
+    double diff = std::fabs(actual - expected);
+    return diff <= options_.tolerance || diff <= options_.tolerance * std::fabs(expected);
+}
+
+bool OutputComparator::feed(const char* data, size_t size) {
+    if (failed_) return false;
+    output_bytes_ += size;
+    if (output_bytes_ > output_limit_) return fail();
+
+    for (size_t i = 0; i < size; i++) {
+        char c = data[i];
+        if (is_space(c)) {
+            if (in_token_ && !end_token()) return fail();
+            continue;
+        }
+        if (!in_token_) {
+            // Output has more tokens than expected.
+            if (!next_expected(expected_token_)) return fail();
+            in_token_ = true;
+            exact_ = true;
+            numeric_ = options_.mode == CompareMode::FLOAT;
+            matched_ = 0;
+            output_token_.clear();
+        }
+        exact_ = exact_ && matched_ < expected_token_.size() && expected_token_[matched_] == c;
+        matched_++;
+        if (numeric_) {
+            numeric_ = output_token_.size() < MAX_NUMBER_LENGTH;
+            if (numeric_) output_token_ += c;
+        }
+        if (!exact_ && !numeric_) return fail();
+    }
+    return true;
+}
+
+bool OutputComparator::fail() {
+    failed_ = true;
+    return false;
+}
+
+bool OutputComparator::finish() {
+    if (failed_) return false;
+    if (fd_ < 0) return false;
+    if (in_token_ && !end_token()) return false;
+    std::string extra;
+    return !next_expected(extra);
+}
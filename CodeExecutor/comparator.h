@@ -0,0 +1,71 @@
+#pragma once
+#include "fingerprint.h"
+
+#include <cstddef>
+#include <optional>
+#include <string>
+#include <vector>
+
+enum class CompareMode {
+    // Whitespace-separated tokens must match exactly.
+    TOKENS,
+    // Like TOKENS, but numeric tokens only need to agree within a tolerance.
+    FLOAT
+};
+
+struct CompareOptions {
+    CompareMode mode = CompareMode::TOKENS;
+    // Absolute or relative error allowed in FLOAT mode.
+    double tolerance = 1e-6;
+    // Precomputed summary of the expected output. It supplies the expected size
+    // without a stat; tokens are still compared against the expected file.
+    std::optional<OutputFingerprint> fingerprint;
+};
+
+// Checks a program's output against the expected file while the program is
+// still writing it. The first wrong or extra token, or output growing far past
+// the expected size, settles the verdict, so the sandbox can kill a wrong
+// program instead of waiting for the rest of its output.
+class OutputComparator {
+public:
+    OutputComparator(const std::string& expected_path, const CompareOptions& options);
+    ~OutputComparator();
+
+    OutputComparator(const OutputComparator&) = delete;
+    OutputComparator& operator=(const OutputComparator&) = delete;
+
+    // False if the expected file could not be opened.
+    bool ok() const { return fd_ >= 0; }
+
+    // Feeds the next chunk of output. Returns false once the output is known to be wrong.
+    bool feed(const char* data, size_t size);
+
+    // Call once the output has ended. Returns true if it matches.
+    bool finish();
+
+private:
+    bool next_expected(std::string& token);
+    bool end_token();
+    bool fail();
+
+    int fd_ = -1;
+    CompareOptions options_;
+    size_t output_limit_ = 0;
+    size_t output_bytes_ = 0;
+
+    std::vector<char> buffer_;
+    size_t buffer_pos_ = 0;
+    size_t buffer_len_ = 0;
+    bool expected_eof_ = false;
+
+    // The expected token the current output token is matched against.
+    std::string expected_token_;
+    // FLOAT mode keeps the output token for a numeric comparison until it grows
+    // too long to be a number.
+    std::string output_token_;
+    bool in_token_ = false;
+    bool exact_ = true;
+    bool numeric_ = false;
+    size_t matched_ = 0;
+    bool failed_ = false;
+};
@@ -0,0 +1,204 @@
+#include "compile_cache.h"
+
+#include <algorithm>
+#include <filesystem>
+#include <fstream>
+#include <iostream>
+#include <sstream>
+#include <unistd.h>
+
+namespace fs = std::filesystem;
+
+static const std::string ID_PLACEHOLDER = "{id}";
+static const std::string TEMP_PREFIX = ".tmp-";
+
+static std::string replace_all(std::string text, const std::string& from, const std::string& to) {
+    if (from.empty()) return text;
+    for (size_t pos = text.find(from); pos != std::string::npos; pos = text.find(from, pos + to.size())) {
+        text.replace(pos, from.size(), to);
+    }
+    return text;
+}
+
+// Directory name for a key. Keys are long, so entries are named by a hash and
+// the full key is kept in the entry's meta file to catch collisions.
+static std::string entry_name(const std::string& key) {
+    std::uint64_t hash = 1469598103934665603ULL;
+    for (unsigned char c : key) {
+        hash ^= c;
+        hash *= 1099511628211ULL;
+    }
+    static const char digits[] = "0123456789abcdef";
+    std::string name(16, '0');
+    for (int i = 15; i >= 0; i--, hash >>= 4) name[i] = digits[hash & 0xf];
+    return name;
+}
+
+static std::int64_t now_ns() {
+    return fs::file_time_type::clock::now().time_since_epoch().count();
+}
+
+CompileCache::CompileCache(std::string root, size_t max_bytes)
+    : root_(std::move(root)), max_bytes_(max_bytes) {
+    if (!enabled()) return;
+    std::error_code ec;
+    fs::create_directories(root_, ec);
+    if (ec) {
+        std::cerr << "[CompileCache] Disabled, cannot create " << root_ << ": " << ec.message() << std::endl;
+        max_bytes_ = 0;
+        return;
+    }
+    for (const auto& dir : fs::directory_iterator(root_, ec)) {
+        std::string name = dir.path().filename().string();
+        if (name.rfind(TEMP_PREFIX, 0) == 0) {
+            // Left behind by a worker that died while storing.
+            fs::remove_all(dir.path(), ec);
+            continue;
+        }
+        if (!dir.is_directory(ec)) continue;
+        Entry entry;
+        for (const auto& file : fs::recursive_directory_iterator(dir.path(), ec)) {
+            if (file.is_regular_file(ec)) entry.bytes += file.file_size(ec);
+        }
+        entry.last_used = fs::last_write_time(dir.path(), ec).time_since_epoch().count();
+        used_bytes_ += entry.bytes;
+        entries_[name] = entry;
+    }
+    evict_until_fits(0);
+}
+
+std::string CompileCache::make_key(const std::string& language, const std::string& toolchain,
+                                   const std::vector<std::string>& compile_args,
+                                   const std::string& id, const std::string& source_hash) {
+    // Fields are joined with a unit separator. The key is the first line of the
+    // meta file, so any newline (compilers end their version output with one) goes.
+    std::string key = language + '\x1f' + toolchain + '\x1f' + source_hash;
+    for (const auto& arg : compile_args) key += '\x1f' + replace_all(arg, id, ID_PLACEHOLDER);
+    std::replace(key.begin(), key.end(), '\n', ' ');
+    return key;
+}
+
+bool CompileCache::lookup(const std::string& key, const std::string& id, const std::string& workdir,
+                          bool& success, std::string& error) {
+    if (!enabled()) return false;
+    std::lock_guard<std::mutex> lock(mutex_);
+    std::string name = entry_name(key);
+    auto it = entries_.find(name);
+    if (it == entries_.end()) {
+        misses_++;
+        return false;
+    }
+
+    fs::path dir = fs::path(root_) / name;
+    std::ifstream meta(dir / "meta");
+    std::string stored_key, status;
+    std::getline(meta, stored_key);
+    std::getline(meta, status);
+    if (!meta || stored_key != key) {
+        misses_++;
+        return false;
+    }
+
+    std::error_code ec;
+    std::vector<std::string> restored;
+    bool intact = status == "ok" || status == "error";
+    if (status == "ok") {
+        std::string name_template;
+        for (int index = 0; std::getline(meta, name_template); index++) {
+            std::string target = workdir + "/" + replace_all(name_template, ID_PLACEHOLDER, id);
+            fs::copy_file(dir / "files" / std::to_string(index), target, fs::copy_options::overwrite_existing, ec);
+            if (ec) {
+                intact = false;
+                break;
+            }
+            restored.push_back(target);
+        }
+    } else if (status == "error") {
+        std::ifstream in(dir / "error", std::ios::binary);
+        std::ostringstream content;
+        content << in.rdbuf();
+        intact = static_cast<bool>(in);
+        error = content.str();
+    }
+
+    if (!intact) {
+        // Damaged on disk; forget it and let the caller compile.
+        for (const auto& path : restored) fs::remove(path, ec);
+        drop(name);
+        misses_++;
+        return false;
+    }
+
+    success = status == "ok";
+    it->second.last_used = now_ns();
+    fs::last_write_time(dir, fs::file_time_type(fs::file_time_type::duration(it->second.last_used)), ec);
+    hits_++;
+    return true;
+}
+
+void CompileCache::store(const std::string& key, const std::string& id, const std::string& workdir, bool success,
+                         const std::string& error, const std::vector<std::string>& outputs) {
+    if (!enabled()) return;
+    std::lock_guard<std::mutex> lock(mutex_);
+    std::string name = entry_name(key);
+    fs::path temp = fs::path(root_) / (TEMP_PREFIX + std::to_string(getpid()) + "-" + name);
+    std::error_code ec;
+    fs::remove_all(temp, ec);
+    fs::create_directories(temp / "files", ec);
+    if (ec) return;
+
+    // Built under a temporary name and renamed into place, so a crash never
+    // leaves a half-written entry behind a valid name.
+    size_t bytes = 0;
+    bool complete = true;
+    {
+        std::ofstream meta(temp / "meta");
+        meta << key << '\n' << (success ? "ok" : "error") << '\n';
+        if (success) {
+            for (size_t index = 0; index < outputs.size() && complete; index++) {
+                fs::path copy = temp / "files" / std::to_string(index);
+                complete = fs::copy_file(fs::path(workdir) / outputs[index], copy, ec) && !ec;
+                bytes += complete ? fs::file_size(copy, ec) : 0;
+                meta << replace_all(outputs[index], id, ID_PLACEHOLDER) << '\n';
+            }
+        } else {
+            std::ofstream(temp / "error", std::ios::binary) << error;
+            bytes += error.size();
+        }
+        complete = complete && static_cast<bool>(meta.flush());
+    }
+    bytes += fs::file_size(temp / "meta", ec);
+
+    if (!complete || (success && outputs.empty()) || bytes > max_bytes_) {
+        fs::remove_all(temp, ec);
+        return;
+    }
+    if (entries_.count(name)) drop(name);
+    evict_until_fits(bytes);
+    fs::rename(temp, fs::path(root_) / name, ec);
+    if (ec) {
+        fs::remove_all(temp, ec);
+        return;
+    }
+    entries_[name] = Entry{bytes, now_ns()};
+    used_bytes_ += bytes;
+}
+
+void CompileCache::drop(const std::string& name) {
+    auto it = entries_.find(name);
+    if (it == entries_.end()) return;
+    std::error_code ec;
+    fs::remove_all(fs::path(root_) / name, ec);
+    used_bytes_ -= it->second.bytes;
+    entries_.erase(it);
+}
+
+void CompileCache::evict_until_fits(size_t incoming) {
+    while (!entries_.empty() && used_bytes_ + incoming > max_bytes_) {
+        auto oldest = entries_.begin();
+        for (auto it = entries_.begin(); it != entries_.end(); ++it) {
+            if (it->second.last_used < oldest->second.last_used) oldest = it;
+        }
+        drop(oldest->first);
+    }
+}
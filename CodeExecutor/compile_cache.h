@@ -0,0 +1,62 @@
+#pragma once
+#include <cstddef>
+#include <cstdint>
+#include <map>
+#include <mutex>
+#include <string>
+#include <vector>
+
+// On-disk cache of compile results keyed by language, toolchain version,
+// compiler flags and source hash. Successful compiles keep their artifacts and
+// failed ones keep the compiler output, so rejudges and identical resubmissions
+// skip the compiler either way. Each entry is a directory under the cache root;
+// entries are evicted LRU-first once the byte budget is exceeded. An entry's
+// mtime records its last use, so the order survives a worker restart. Safe to
+// share between the slots of a worker.
+class CompileCache {
+public:
+    CompileCache(std::string root, size_t max_bytes);
+
+    CompileCache(const CompileCache&) = delete;
+    CompileCache& operator=(const CompileCache&) = delete;
+
+    bool enabled() const { return max_bytes_ > 0; }
+
+    // The submission id is replaced by a placeholder in the arguments, so the
+    // key only changes when the flags do.
+    static std::string make_key(const std::string& language, const std::string& toolchain,
+                                const std::vector<std::string>& compile_args,
+                                const std::string& id, const std::string& source_hash);
+
+    // On a hit, copies the artifacts into `workdir` under the names they would
+    // have for `id` and sets `success`; a cached failure returns the compiler
+    // output through `error` instead.
+    bool lookup(const std::string& key, const std::string& id, const std::string& workdir,
+                bool& success, std::string& error);
+
+    // Records a compile outcome. `outputs` are the artifact names for `id`, relative to `workdir`.
+    void store(const std::string& key, const std::string& id, const std::string& workdir, bool success,
+               const std::string& error, const std::vector<std::string>& outputs);
+
+    size_t hits() const { std::lock_guard<std::mutex> lock(mutex_); return hits_; }
+    size_t misses() const { std::lock_guard<std::mutex> lock(mutex_); return misses_; }
+    size_t entries() const { std::lock_guard<std::mutex> lock(mutex_); return entries_.size(); }
+    size_t used_bytes() const { std::lock_guard<std::mutex> lock(mutex_); return used_bytes_; }
+
+private:
+    struct Entry {
+        size_t bytes = 0;
+        std::int64_t last_used = 0;
+    };
+
+    void drop(const std::string& name);
+    void evict_until_fits(size_t incoming);
+
+    std::string root_;
+    size_t max_bytes_;
+    size_t used_bytes_ = 0;
+    size_t hits_ = 0;
+    size_t misses_ = 0;
+    std::map<std::string, Entry> entries_;
+    mutable std::mutex mutex_;
+};
@@ -0,0 +1,73 @@
+#include "fingerprint.h"
+
+#include <cstring>
+#include <fstream>
+
+static const std::uint64_t MODULUS = (1ULL << 61) - 1;
+static const std::uint64_t BASE = 1099511628211ULL;
+static const char MAGIC[4] = {'J', 'F', 'P', '1'};
+static const size_t SIDECAR_BYTES = 40;
+static const int WORD_BYTES = 7;
+
+static std::uint64_t read_u64(const unsigned char* p) {
+    std::uint64_t value = 0;
+    for (int i = 7; i >= 0; i--) value = (value << 8) | p[i];
+    return value;
+}
+
+bool OutputFingerprint::load(const std::string& path, std::uint64_t expected_bytes, OutputFingerprint& fingerprint) {
+    std::ifstream in(path, std::ios::binary);
+    unsigned char data[SIDECAR_BYTES + 1];
+    in.read(reinterpret_cast<char*>(data), sizeof(data));
+    // Layout (little-endian): magic, version u16, flags u16, bytes, tokens, normalized bytes, hash.
+    if (in.gcount() != static_cast<std::streamsize>(SIDECAR_BYTES) || std::memcmp(data, MAGIC, sizeof(MAGIC)) != 0 ||
+        data[4] != 1 || data[5] != 0) {
+        return false;
+    }
+    fingerprint.bytes = read_u64(data + 8);
+    fingerprint.tokens = read_u64(data + 16);
+    fingerprint.normalized_bytes = read_u64(data + 24);
+    fingerprint.hash = read_u64(data + 32);
+    return fingerprint.bytes == expected_bytes && fingerprint.hash < MODULUS;
+}
+
+static bool is_space(char c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\v' || c == '\f';
+}
+
+// hash * BASE + word mod 2^61-1; a word is below 2^56, so one fold suffices.
+static std::uint64_t combine(std::uint64_t hash, std::uint64_t word) {
+    unsigned __int128 product = static_cast<unsigned __int128>(hash) * BASE + word;
+    std::uint64_t folded = static_cast<std::uint64_t>(product & MODULUS) + static_cast<std::uint64_t>(product >> 61);
+    return folded >= MODULUS ? folded - MODULUS : folded;
+}
+
+void NormalizedHasher::add(unsigned char c) {
+    word_ = (word_ << 8) | c;
+    normalized_bytes_++;
+    if (++word_bytes_ == WORD_BYTES) {
+        hash_ = combine(hash_, word_);
+        word_ = 0;
+        word_bytes_ = 0;
+    }
+}
+
+std::uint64_t NormalizedHasher::hash() const {
+    return word_bytes_ > 0 ? combine(hash_, word_) : hash_;
+}
+
+void NormalizedHasher::feed(const char* data, size_t size) {
+    for (size_t i = 0; i < size; i++) {
+        char c = data[i];
+        if (is_space(c)) {
+            in_token_ = false;
+            continue;
+        }
+        if (!in_token_) {
+            if (tokens_ > 0) add(' ');
+            tokens_++;
+            in_token_ = true;
+        }
+        add(static_cast<unsigned char>(c));
+    }
+}
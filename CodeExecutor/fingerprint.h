@@ -0,0 +1,45 @@
+#pragma once
+#include <cstdint>
+#include <string>
+
+// Summary of an expected output, written next to it as N_out.fp when test data
+// is uploaded. An output's normalized form is its whitespace-separated tokens
+// joined by single spaces. The hash reads that form as big-endian 7-byte words
+// (the last one possibly shorter) and is a polynomial hash of them modulo
+// 2^61-1. The API computes the same values (OutputFingerprint.java).
+struct OutputFingerprint {
+    // Size of the expected file the fingerprint describes.
+    std::uint64_t bytes = 0;
+    std::uint64_t tokens = 0;
+    std::uint64_t normalized_bytes = 0;
+    std::uint64_t hash = 0;
+
+    // False if the sidecar is missing, malformed, or describes a file of another size.
+    static bool load(const std::string& path, std::uint64_t expected_bytes, OutputFingerprint& fingerprint);
+};
+
+// Computes the fingerprint values of a stream fed in arbitrary chunks.
+class NormalizedHasher {
+public:
+    void feed(const char* data, size_t size);
+
+    std::uint64_t tokens() const { return tokens_; }
+    std::uint64_t normalized_bytes() const { return normalized_bytes_; }
+    std::uint64_t hash() const;
+
+    bool matches(const OutputFingerprint& fingerprint) const {
+        return tokens_ == fingerprint.tokens && normalized_bytes_ == fingerprint.normalized_bytes &&
+               hash() == fingerprint.hash;
+    }
+
+private:
+    void add(unsigned char c);
+
+    std::uint64_t tokens_ = 0;
+    std::uint64_t normalized_bytes_ = 0;
+    std::uint64_t hash_ = 0;
+    // Bytes of the word being filled; one multiplication per word instead of per byte.
+    std::uint64_t word_ = 0;
+    int word_bytes_ = 0;
+    bool in_token_ = false;
+};
@@ -0,0 +1,85 @@
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*
+ * A stand-in for typical submissions, run while building the JVM's class data sharing archive so
+ * that the classes solutions usually touch (input parsing, collections, streams, lambdas,
+ * formatted output) are preloaded for every Java test run.
+ */
+public class CdsWarmup {
+    public static void main(String[] args) throws IOException {
+        StringBuilder input = new StringBuilder("5\n3 1 4 1 5\n2.5 hello\n");
+        for (int i = 0; i < 1000; i++) input.append(i).append(i % 10 == 9 ? '\n' : ' ');
+        byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+
+        Scanner scanner = new Scanner(new ByteArrayInputStream(bytes));
+        int n = scanner.nextInt();
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) values[i] = scanner.nextLong();
+        double d = scanner.nextDouble();
+        String word = scanner.next();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes)));
+        StringTokenizer tokenizer = new StringTokenizer(reader.readLine() + " " + reader.readLine());
+        int sum = 0;
+        while (tokenizer.hasMoreTokens()) sum += Integer.parseInt(tokenizer.nextToken());
+        String[] parts = reader.readLine().trim().split("\\s+");
+        sum += (int) Double.parseDouble(parts[0]);
+
+        StreamTokenizer stream = new StreamTokenizer(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes))));
+        while (stream.nextToken() != StreamTokenizer.TT_EOF) sum += (int) stream.nval;
+
+        List<Integer> list = new ArrayList<>();
+        Map<Integer, Integer> counts = new HashMap<>();
+        TreeMap<Integer, Integer> sorted = new TreeMap<>();
+        Set<Long> seen = new HashSet<>();
+        TreeSet<String> words = new TreeSet<>();
+        Deque<Integer> deque = new ArrayDeque<>();
+        PriorityQueue<int[]> heap = new PriorityQueue<>((a, b) -> Integer.compare(a[0], b[0]));
+        LinkedList<Integer> linked = new LinkedList<>();
+        for (int i = 0; i < 200; i++) {
+            list.add(i * 7 % 13);
+            counts.merge(i % 5, 1, Integer::sum);
+            sorted.put(i % 17, i);
+            seen.add((long) i * i);
+            words.add(Integer.toString(i, 16));
+            deque.offerLast(i);
+            heap.add(new int[]{i % 11, i});
+            linked.addFirst(i);
+        }
+        Collections.sort(list);
+        list.sort(Comparator.reverseOrder());
+        Arrays.sort(values);
+        Integer[] boxed = list.toArray(new Integer[0]);
+        Arrays.sort(boxed, Comparator.comparingInt(x -> -x));
+        int[][] grid = new int[10][10];
+        for (int[] row : grid) Arrays.fill(row, 1);
+        Arrays.sort(grid, (a, b) -> a[0] - b[0]);
+        while (!heap.isEmpty()) sum += heap.poll()[0];
+        sum += sorted.firstKey() + sorted.ceilingKey(3) + deque.pollFirst() + linked.getLast();
+
+        Map<Integer, List<Integer>> grouped = list.stream().collect(Collectors.groupingBy(x -> x % 3));
+        String joined = IntStream.rangeClosed(1, 20).filter(x -> x % 2 == 0).mapToObj(Integer::toString)
+                .collect(Collectors.joining(" "));
+        long total = Arrays.stream(values).sum() + list.stream().mapToInt(Integer::intValue).max().orElse(0);
+        Function<Integer, Integer> square = x -> x * x;
+        Optional<String> longest = words.stream().max(Comparator.comparing(String::length));
+
+        BigInteger big = BigInteger.valueOf(2).pow(100).mod(BigInteger.valueOf(1_000_000_007));
+        BigDecimal decimal = new BigDecimal("1.5").multiply(BigDecimal.valueOf(d));
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        out.println(sum + " " + total + " " + word + " " + grouped.size() + " " + joined);
+        out.printf("%.6f %d %s%n", Math.sqrt(d) + Math.abs(-d) + Math.pow(d, 2), square.apply(n), longest.orElse(""));
+        out.println(String.format("%s %s %08.3f", big, decimal, d) + String.valueOf(seen.contains(4L)));
+        out.flush();
+        System.out.println(new StringBuilder(word).reverse().toString().toUpperCase() + Long.MAX_VALUE);
+        System.out.printf("%d%n", Math.max(Long.parseLong("12"), Math.min(3, 4)));
+    }
+}
@@ -0,0 +1,51 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/*
+ * Starts a Java submission: java ... JudgeLauncher Main [args]. Before the submission's class is
+ * loaded, the user CPU time spent booting the JVM is written, in clock ticks, to the descriptor
+ * named by -Djudge.startup.fd, so the sandbox can leave it out of the measured time. The descriptor
+ * is closed right after that write and before the submission runs, so the submission can neither
+ * change what was reported nor write a report of its own.
+ */
+public final class JudgeLauncher {
+    public static void main(String[] args) throws Throwable {
+        reportStartup();
+        MethodHandle main = MethodHandles.publicLookup().findStatic(
+                Class.forName(args[0]), "main", MethodType.methodType(void.class, String[].class));
+        main.invokeExact(Arrays.copyOfRange(args, 1, args.length));
+    }
+
+    private static void reportStartup() {
+        String fd = System.getProperty("judge.startup.fd");
+        if (fd == null) return;
+        try {
+            // Fields after the command name start at field 3 (state); utime is field 14.
+            String stat = Files.readString(Path.of("/proc/self/stat"));
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            // Writing through the inherited descriptor itself means closing the stream closes it.
+            try (FileOutputStream out = new FileOutputStream(descriptor(Integer.parseInt(fd)))) {
+                out.write((fields[11] + "\n").getBytes(StandardCharsets.US_ASCII));
+            }
+        } catch (Exception e) {
+            // Without a report the startup simply counts towards the measured time.
+        }
+    }
+
+    // Needs --add-opens java.base/java.io: there is no public way to wrap a raw descriptor number.
+    private static FileDescriptor descriptor(int fd) throws ReflectiveOperationException {
+        FileDescriptor descriptor = new FileDescriptor();
+        Field field = FileDescriptor.class.getDeclaredField("fd");
+        field.setAccessible(true);
+        field.setInt(descriptor, fd);
+        return descriptor;
+    }
+}
@@ -1,6 +1,11 @@
 #include "sandbox.h"
 #include "LanguageStrategy.hpp"
 #include "utils.h"
+#include "protocol.h"
+#include "testdata_cache.h"
+#include "retry.h"
+#include "compile_cache.h"
+#include "slots.h"
 #include <algorithm>
 #include <iostream>
 #include <fstream>
@@ -9,191 +14,645 @@
 #include <filesystem>
 #include <SimpleAmqpClient/SimpleAmqpClient.h>
 #include <nlohmann/json.hpp>
+#include <chrono>
+#include <functional>
+#include <map>
+#include <mutex>
+#include <optional>
+#include <thread>
+#include <atomic>
 #include <unistd.h>
 
 using json = nlohmann::json;
 using namespace AmqpClient;
 namespace fs = std::filesystem;
 
-int main()
+static const std::string SUBMISSION_QUEUE = "submission_queue";
+static const std::string SUBMISSION_SHARD_QUEUE_PREFIX = "submission_queue.shard.";
+static const std::string RESULT_QUEUE = "result_queue";
+static const std::string RUN_QUEUE = "run_queue";
+static const std::string PROGRESS_QUEUE = "judge_progress";
+// Must match RabbitMQConfig.PROGRESS_TTL_MS.
+static const std::int32_t PROGRESS_TTL_MS = 30000;
+// Fanout exchange; every API node binds its own queue to it.
+static const std::string WORKER_STATUS_EXCHANGE = "judge_workers";
+
+// Reports judging progress to the API, which renews the submission's lease on every message.
+using ProgressFn = std::function<void(const std::string &phase, int test)>;
+
+// Resolves JUDGE_SHARD to a shard index, or -1 when the worker only serves the
+// shared queue. "auto" derives a stable index from the container hostname.
+static int resolve_shard(int shard_count)
 {
-    Sandbox worker;
-    Channel::ptr_t channel;
-    std::string consumer_tag;
+    const char *shard_env = std::getenv("JUDGE_SHARD");
+    if (shard_count <= 0 || !shard_env) return -1;
+    std::string shard = shard_env;
+    if (shard != "auto") return std::atoi(shard_env) % shard_count;
 
-    const char *rabbit_host = std::getenv("RABBITMQ_HOST");
-    if (!rabbit_host) rabbit_host = "localhost";
+    char host[256] = {0};
+    gethostname(host, sizeof(host) - 1);
+    std::uint64_t hash = 1469598103934665603ULL;
+    for (const char *c = host; *c; ++c) {
+        hash ^= static_cast<unsigned char>(*c);
+        hash *= 1099511628211ULL;
+    }
+    return static_cast<int>(hash % shard_count);
+}
 
-    const char *rabbit_user = std::getenv("RABBITMQ_USER");
-    if (!rabbit_user) rabbit_user = "guest";
+static const char *verdict_name(Verdict verdict)
+{
+    static const char *names[] = {
+        "ACCEPTED",
+        "WRONG_ANSWER",
+        "TIME_LIMIT_EXCEEDED",
+        "MEMORY_LIMIT_EXCEEDED",
+        "RUNTIME_ERROR",
+        "INTERNAL_ERROR",
+        "COMPILATION_ERROR"
+    };
+    return names[verdict];
+}
 
-    const char *rabbit_pass = std::getenv("RABBITMQ_PASS");
-    if (!rabbit_pass) rabbit_pass = "guest";
+// A subtask as sent by the API: the 1-based tests it covers and the points it is worth.
+struct TestGroup
+{
+    std::string name;
+    int points = 0;
+    std::vector<int> tests;
+};
 
-    const char *rabbit_port_env = std::getenv("RABBITMQ_PORT");
-    int rabbit_port = rabbit_port_env ? std::atoi(rabbit_port_env) : 5672;
+// Reads the submission's subtasks. Problems without them are judged as one unscored group
+// holding every test, which keeps the old stop-at-first-failure behaviour.
+static std::vector<TestGroup> read_groups(const json &j, int tc_count, bool &scored)
+{
+    std::vector<TestGroup> groups;
+    scored = j.contains("groups") && j["groups"].is_array();
+    if (!scored)
+    {
+        TestGroup all;
+        for (int i = 1; i <= tc_count; i++) all.tests.push_back(i);
+        groups.push_back(std::move(all));
+        return groups;
+    }
+    for (const auto &g : j["groups"])
+    {
+        TestGroup group;
+        group.name = g.value("name", "");
+        group.points = g.value("points", 0);
+        for (int test : g.at("tests").get<std::vector<int>>())
+        {
+            if (test < 1 || test > tc_count)
+            {
+                throw protocol::protocol_error("Group " + group.name + " refers to missing test " + std::to_string(test));
+            }
+            group.tests.push_back(test);
+        }
+        groups.push_back(std::move(group));
+    }
+    return groups;
+}
 
-    const char *data_dir_env = std::getenv("JUDGE_DATA_DIR");
-    std::string base_data_path = data_dir_env ? data_dir_env : "./judge_data";
+// How the output is checked. Messages without "compare" use exact token matching.
+static CompareOptions read_compare(const json &j)
+{
+    CompareOptions compare;
+    std::string mode = j.value("compare", "tokens");
+    if (mode == "float") compare.mode = CompareMode::FLOAT;
+    else if (mode != "tokens") throw protocol::protocol_error("Unsupported compare mode: " + mode);
+    compare.tolerance = j.value("float_tolerance", compare.tolerance);
+    return compare;
+}
 
-    try
+// State shared by the slots of one worker process.
+struct WorkerContext
+{
+    Sandbox sandbox;
+    TestDataCache &test_data;
+    CompileCache &compile_cache;
+    SlotPool &slots;
+    std::string base_data_path;
+    std::string source_dir;
+    std::string work_root;
+    std::atomic<std::uint64_t> next_workdir{0};
+    std::atomic<int> in_flight{0};
+    std::atomic<std::uint64_t> handled{0};
+
+    // Every message gets a fresh directory, so a submission that is redelivered while an
+    // earlier copy is still running on another slot cannot trample it.
+    std::string workdir_for(const std::string &id)
     {
-        Channel::OpenOpts opts;
-        opts.host = rabbit_host;
-        opts.port = rabbit_port;
-        opts.auth = Channel::OpenOpts::BasicAuth(rabbit_user, rabbit_pass);
-        channel = Channel::Open(opts);
-        channel->DeclareQueue("submission_queue", false, true, false, false);
-        channel->DeclareQueue("result_queue", false, true, false, false);
-        consumer_tag = channel->BasicConsume("submission_queue", "", false, false, false);
-        channel->BasicQos(consumer_tag, 1);
-        std::cout << "[*] Worker Started." << std::endl;
+        return work_root + "/" + id + "-" + std::to_string(next_workdir++);
     }
-    catch (...)
+};
+
+// Compiles the source already written to the strategy's source file. On
+// failure the compiler output is returned through error, and cacheable tells
+// whether the compiler itself rejected the source (as opposed to failing to run).
+static bool compile_source(LanguageStrategy &strategy, const std::string &id, const std::string &workdir,
+                           int cpu, std::string &error, bool *cacheable = nullptr)
+{
+    if (!strategy.needs_compilation()) return true;
+
+    std::string err_path = workdir + "/compile_err.txt";
+    ScopedFile err_guard(err_path);
+
+    auto compile_args = strategy.get_compile_args(id);
+    int rc = run_command(compile_args, &err_guard.path(), workdir, cpu);
+    if (cacheable) *cacheable = rc >= 0 && rc != 127;
+    if (rc != 0)
     {
-        std::cerr << "[!] RabbitMQ Connect Failed" << std::endl;
-        return 1;
+        error = read_file_limited(err_path);
+        return false;
     }
+    return true;
+}
 
-    while (true)
+// Compiler version per language, looked up once per worker.
+static std::string toolchain_version(LanguageStrategy &strategy, const std::string &lang)
+{
+    static std::mutex mutex;
+    static std::map<std::string, std::string> versions;
+    std::lock_guard<std::mutex> lock(mutex);
+    auto it = versions.find(lang);
+    if (it == versions.end())
     {
-        auto envelope = channel->BasicConsumeMessage(consumer_tag);
-        std::string payload = envelope->Message()->Body();
-        std::cout << "[Received] " << payload << std::endl;
+        it = versions.emplace(lang, capture_command(strategy.get_version_args())).first;
+    }
+    return it->second;
+}
 
-        bool should_ack = false;
-        bool should_requeue = true;
+// Compiles through the compile cache when the submission carries a source hash.
+// cache_status is set to "hit" or "miss", and left empty when the cache is not used.
+static bool compile_cached(LanguageStrategy &strategy, CompileCache &cache, const std::string &lang,
+                           const std::string &id, const std::string &workdir, int cpu,
+                           const std::string &source_hash, std::string &error, std::string &cache_status)
+{
+    if (!strategy.needs_compilation() || !cache.enabled() || source_hash.empty())
+    {
+        return compile_source(strategy, id, workdir, cpu, error);
+    }
+    std::string key = CompileCache::make_key(lang, toolchain_version(strategy, lang),
+                                             strategy.get_compile_args(id), id, source_hash);
+    bool success = false;
+    if (cache.lookup(key, id, workdir, success, error))
+    {
+        cache_status = "hit";
+        return success;
+    }
+    cache_status = "miss";
+    bool cacheable = false;
+    success = compile_source(strategy, id, workdir, cpu, error, &cacheable);
+    if (cacheable)
+    {
+        cache.store(key, id, workdir, success, error,
+                    success ? strategy.get_compile_outputs(id, workdir) : std::vector<std::string>{});
+    }
+    return success;
+}
+
+using TestOutcomes = std::vector<std::optional<ExecutionResult>>;
+
+// Runs the tests of a group that have not run yet, up to `parallelism` at a time. Tests start
+// in order and none starts after a failure earlier in the group, so every test before the
+// group's first failure has run and that failure is the one sequential judging would find.
+// Later tests that were already running just finish and are not counted.
+static void run_group(const TestGroup &group, TestOutcomes &outcomes,
+                      const std::function<void(int)> &run_test, int parallelism)
+{
+    std::vector<int> todo;
+    for (int i : group.tests)
+    {
+        if (!outcomes[i]) todo.push_back(i);
+        else if (outcomes[i]->verdict != ACCEPTED) break;
+    }
 
+    std::atomic<size_t> next{0};
+    std::atomic<size_t> stop{todo.size()};
+    std::exception_ptr error;
+    std::mutex error_mutex;
+    auto drain = [&]
+    {
         try
         {
-            auto j = json::parse(payload);
-            std::string id = j.value("id", "0");
-            std::string code = j.value("code", "");
-            std::string lang = j.value("language", "cpp");
-            std::string problem_id = std::to_string(j.value("problem_id", 0));
-            int tc_count = j.value("test_case_count", 0);
-
-            double time_lim = j.value("time_limit", 1.0);
-            int mem_lim = j.value("memory_limit", 256);
-
-            auto strategy = LanguageFactory::create(lang);
-            json res_json;
-            res_json["id"] = id;
-            res_json["error"] = nullptr;
-            if (!strategy)
+            for (size_t k = next++; k < stop.load(); k = next++)
             {
-                res_json["verdict"] = "INTERNAL_ERROR";
-                res_json["error"] = "Unsupported language: " + lang;
+                run_test(todo[k]);
+                if (outcomes[todo[k]]->verdict == ACCEPTED) continue;
+                size_t current = stop.load();
+                while (k < current && !stop.compare_exchange_weak(current, k)) {}
             }
-            else
-            {
-                std::string src_file = strategy->get_src_filename(id);
-                std::ofstream(src_file) << code;
-                ScopedFile src_guard(src_file);
+        }
+        catch (...)
+        {
+            std::lock_guard<std::mutex> lock(error_mutex);
+            if (!error) error = std::current_exception();
+            stop = 0;
+        }
+    };
 
-                bool compile_ok = true;
+    int threads = std::min(parallelism, static_cast<int>(todo.size()));
+    std::vector<std::thread> helpers;
+    for (int t = 1; t < threads; t++) helpers.emplace_back(drain);
+    drain();
+    for (auto &helper : helpers) helper.join();
+    if (error) std::rethrow_exception(error);
+}
 
-                if (strategy->needs_compilation())
-                {
-                    std::string err_path = "compile_err_" + id + ".txt";
-                    ScopedFile err_guard(err_path);
+static json judge_submission(const json &j, WorkerContext &ctx, const ProgressFn &progress)
+{
+    std::string id = j.value("id", "0");
+    std::string code = protocol::load_source(j, ctx.source_dir);
+    std::string lang = j.value("language", "cpp");
+    std::string problem_id = std::to_string(j.value("problem_id", 0));
+    int tc_count = j.value("test_case_count", 0);
+    bool scored = false;
+    std::vector<TestGroup> groups = read_groups(j, tc_count, scored);
 
-                    auto compile_args = strategy->get_compile_args(id);
-                    int rc = run_command(compile_args, &err_guard.path());
-                    if (rc != 0)
-                    {
-                        res_json["verdict"] = "COMPILATION_ERROR";
-                        res_json["error"] = read_file_limited(err_path);
-                        compile_ok = false;
-                    }
-                }
+    double time_lim = j.value("time_limit", 1.0);
+    int mem_lim = j.value("memory_limit", 256);
+    CompareOptions compare = read_compare(j);
 
-                if (compile_ok)
-                {
-                    long max_time = 0, max_mem = 0;
-                    std::string final_verdict = "ACCEPTED";
-                    std::string runtime_error_msg = "";
-                    std::string problem_dir = base_data_path + "/" + problem_id + "/";
-
-                    if (tc_count <= 0) {
-                        final_verdict = "INTERNAL_ERROR";
-                        runtime_error_msg = "No test cases found in request";
-                    }
+    auto strategy = LanguageFactory::create(lang);
+    json res_json;
+    res_json["id"] = id;
+    res_json["error"] = nullptr;
+    if (scored) res_json["score"] = 0;
+    if (!strategy)
+    {
+        res_json["verdict"] = "INTERNAL_ERROR";
+        res_json["error"] = "Unsupported language: " + lang;
+        return res_json;
+    }
 
-                    for (int i = 1; i <= tc_count; i++)
-                    {
-                        std::string in_file = problem_dir + std::to_string(i) + "_in.txt";
-                        std::string exp_file = problem_dir + std::to_string(i) + "_out.txt";
-                        std::string user_out_file = "out_" + id + "_" + std::to_string(i) + ".txt";
-
-                        if (!fs::exists(in_file)) {
-                            final_verdict = "INTERNAL_ERROR";
-                            runtime_error_msg = "Test case input file missing: " + in_file;
-                            break;
-                        }
-                        if (!fs::exists(exp_file)) {
-                            final_verdict = "INTERNAL_ERROR";
-                            runtime_error_msg = "Test case output file missing: " + exp_file;
-                            break;
-                        }
-
-                        ExecutionResult res = worker.run(*strategy, id, in_file, user_out_file, exp_file, static_cast<long>(std::ceil(time_lim)), mem_lim);
-
-                        max_time = std::max(max_time, res.time_used_ms);
-                        max_mem = std::max(max_mem, res.memory_used_kb);
-
-                        remove(user_out_file.c_str());
-
-                        if (res.verdict != ACCEPTED)
-                        {
-                            const char *v_str[] = {
-                                "ACCEPTED", 
-                                "WRONG_ANSWER", 
-                                "TIME_LIMIT_EXCEEDED",
-                                "MEMORY_LIMIT_EXCEEDED",
-                                "RUNTIME_ERROR", 
-                                "INTERNAL_ERROR", 
-                                "COMPILATION_ERROR"
-                            };
-                            final_verdict = v_str[res.verdict];
-                            
-                            if (res.verdict == RUNTIME_ERROR || res.verdict == INTERNAL_ERROR) {
-                                runtime_error_msg = res.stderr_output;
-                            }
-                            
-                            break; 
-                        }
-                    }
+    progress("started", 0);
+    ScopedDir workdir(ctx.workdir_for(id));
+    std::ofstream(workdir.file(strategy->get_src_filename(id))) << code;
 
-                    res_json["verdict"] = final_verdict;
-                    res_json["time_ms"] = max_time;
-                    res_json["memory_kb"] = max_mem;
+    // The API sends the SHA-256 of the source, so large sources are never hashed twice.
+    std::string compile_error, cache_status;
+    bool compiled;
+    {
+        SlotPool::Lease slot = ctx.slots.acquire();
+        compiled = compile_cached(*strategy, ctx.compile_cache, lang, id, workdir.path(), slot.cpu(),
+                                  j.value("code_hash", ""), compile_error, cache_status);
+    }
+    if (!cache_status.empty()) res_json["compile_cache"] = cache_status;
+    if (!compiled)
+    {
+        res_json["verdict"] = "COMPILATION_ERROR";
+        res_json["error"] = compile_error;
+        return res_json;
+    }
 
-                    if (!runtime_error_msg.empty()) {
-                        res_json["error"] = runtime_error_msg;
-                    }
+    progress("compiled", 0);
+    long max_time = 0, max_mem = 0;
+    std::string final_verdict = "ACCEPTED";
+    std::string runtime_error_msg = "";
+    std::string problem_dir = ctx.base_data_path + "/" + problem_id + "/";
+
+    if (tc_count <= 0) {
+        final_verdict = "INTERNAL_ERROR";
+        runtime_error_msg = "No test cases found in request";
+    }
+
+    std::vector<TestCaseFiles> tests;
+    std::shared_ptr<const void> test_data_pin;
+    std::string data_error;
+    if (tc_count > 0 && !ctx.test_data.get(problem_dir, tc_count, tests, data_error, test_data_pin)) {
+        final_verdict = "INTERNAL_ERROR";
+        runtime_error_msg = data_error;
+        tests.clear();
+    }
+
+    TestOutcomes outcomes(tests.size() + 1);
+    auto run_test = [&](int i)
+    {
+        SlotPool::Lease slot = ctx.slots.acquire();
+        // Output is compared as it is produced; the name only places the stderr capture.
+        std::string user_out_file = workdir.file("out_" + std::to_string(i) + ".txt");
+        progress("test", i);
+        CompareOptions test_compare = compare;
+        test_compare.fingerprint = tests[i - 1].fingerprint;
+        outcomes[i] = ctx.sandbox.run(*strategy, id, tests[i - 1].input_path, user_out_file, tests[i - 1].expected_path,
+                                      static_cast<long>(std::ceil(time_lim)), mem_lim, workdir.path(), slot.cpu(),
+                                      test_compare);
+    };
+
+    // Each test runs at most once even when groups share it. A failing test skips the rest of its
+    // group, but the later groups still run so that they can earn their points. Time, memory and
+    // errors are taken from the tests sequential judging would have run, so parallel runs report
+    // the same result.
+    std::vector<bool> counted(tests.size() + 1, false);
+    int score = 0;
+    json group_results = json::array();
+    for (const TestGroup &group : groups)
+    {
+        if (tests.empty()) break;
+        run_group(group, outcomes, run_test, ctx.slots.size());
+        Verdict group_verdict = ACCEPTED;
+        int failed_test = 0;
+        for (int i : group.tests)
+        {
+            const ExecutionResult &res = *outcomes[i];
+            if (!counted[i])
+            {
+                counted[i] = true;
+                max_time = std::max(max_time, res.time_used_ms);
+                max_mem = std::max(max_mem, res.memory_used_kb);
+                if ((res.verdict == RUNTIME_ERROR || res.verdict == INTERNAL_ERROR) && runtime_error_msg.empty()) {
+                    runtime_error_msg = res.stderr_output;
                 }
+            }
 
-                strategy->cleanup(id);
+            if (res.verdict != ACCEPTED)
+            {
+                group_verdict = res.verdict;
+                failed_test = i;
+                break;
             }
+        }
+
+        if (group_verdict != ACCEPTED && final_verdict == "ACCEPTED") {
+            final_verdict = verdict_name(group_verdict);
+        }
+        int group_score = group_verdict == ACCEPTED ? group.points : 0;
+        score += group_score;
+        group_results.push_back({{"name", group.name},
+                                 {"points", group.points},
+                                 {"score", group_score},
+                                 {"verdict", verdict_name(group_verdict)},
+                                 {"test", failed_test > 0 ? json(failed_test) : json(nullptr)}});
+    }
+
+    if (scored) {
+        res_json["score"] = score;
+        res_json["groups"] = group_results;
+    }
+    res_json["verdict"] = final_verdict;
+    res_json["time_ms"] = max_time;
+    res_json["memory_kb"] = max_mem;
+
+    if (!runtime_error_msg.empty()) {
+        res_json["error"] = runtime_error_msg;
+    }
+
+    return res_json;
+}
+
+// Runs a "run with custom input" request: one execution against the stdin the
+// user supplied, no expected output and nothing persisted.
+static json run_custom_input(const json &j, WorkerContext &ctx)
+{
+    std::string id = j.value("id", "0");
+    std::string lang = j.value("language", "cpp");
+    double time_lim = j.value("time_limit", 2.0);
+    int mem_lim = j.value("memory_limit", 256);
+    size_t output_limit = j.value("output_limit", 65536);
+
+    json res_json;
+    res_json["id"] = id;
+    res_json["error"] = nullptr;
+
+    auto strategy = LanguageFactory::create(lang);
+    if (!strategy)
+    {
+        res_json["verdict"] = "INTERNAL_ERROR";
+        res_json["error"] = "Unsupported language: " + lang;
+        return res_json;
+    }
+
+    ScopedDir workdir(ctx.workdir_for(id));
+    std::ofstream(workdir.file(strategy->get_src_filename(id))) << j.value("code", "");
+    SlotPool::Lease slot = ctx.slots.acquire();
+
+    std::string compile_error;
+    if (!compile_source(*strategy, id, workdir.path(), slot.cpu(), compile_error))
+    {
+        res_json["verdict"] = "COMPILATION_ERROR";
+        res_json["error"] = compile_error;
+        return res_json;
+    }
+
+    std::string in_file = workdir.file("input.txt");
+    std::ofstream(in_file) << j.value("input", "");
+    std::string out_file = workdir.file("output.txt");
+
+    ExecutionResult res = ctx.sandbox.run(*strategy, id, in_file, out_file, "", static_cast<long>(std::ceil(time_lim)),
+                                          mem_lim, workdir.path(), slot.cpu());
+
+    std::string output = read_file_limited(out_file, output_limit + 1);
+    bool truncated = output.size() > output_limit;
+    if (truncated) output.resize(output_limit);
+
+    res_json["verdict"] = verdict_name(res.verdict);
+    res_json["stdout"] = output;
+    res_json["stdout_truncated"] = truncated;
+    res_json["stderr"] = res.stderr_output;
+    res_json["time_ms"] = res.time_used_ms;
+    res_json["memory_kb"] = res.memory_used_kb;
+    return res_json;
+}
+
+// Queue settings every slot's connection declares and consumes with.
+struct QueueConfig
+{
+    bool run_mode = false;
+    std::int32_t run_max_length = 100;
+    int shard = -1;
+    std::int32_t shard_ttl_ms = 5000;
+    std::vector<std::int32_t> retry_delays;
+    long heartbeat_ms = 5000;
+};
+
+// Opens a connection and starts consuming one message at a time. Each slot has its own,
+// since a channel must not be shared between threads.
+static Channel::ptr_t open_consumer(const Channel::OpenOpts &opts, const QueueConfig &cfg,
+                                    std::vector<std::string> &consumer_tags)
+{
+    Channel::ptr_t channel = Channel::Open(opts);
+    if (cfg.run_mode)
+    {
+        // Must match the arguments the API declares in RabbitMQConfig.runQueue.
+        Table run_args;
+        run_args.insert(TableEntry(TableKey("x-max-length"), TableValue(cfg.run_max_length)));
+        run_args.insert(TableEntry(TableKey("x-overflow"), TableValue("reject-publish")));
+        channel->DeclareQueue(RUN_QUEUE, false, false, false, false, run_args);
+        consumer_tags.push_back(channel->BasicConsume(RUN_QUEUE, "", false, false, false));
+    }
+    else
+    {
+        channel->DeclareQueue(SUBMISSION_QUEUE, false, true, false, false);
+        channel->DeclareQueue(RESULT_QUEUE, false, true, false, false);
+        retry::declare(channel, SUBMISSION_QUEUE, cfg.retry_delays);
+        // Must match the arguments the API declares in RabbitMQConfig.progressQueue.
+        Table progress_args;
+        progress_args.insert(TableEntry(TableKey("x-message-ttl"), TableValue(PROGRESS_TTL_MS)));
+        channel->DeclareQueue(PROGRESS_QUEUE, false, false, false, false, progress_args);
+        if (cfg.shard >= 0)
+        {
+            // Must match the arguments the API declares in RabbitMQConfig.submissionShardQueues.
+            Table shard_args;
+            shard_args.insert(TableEntry(TableKey("x-message-ttl"), TableValue(cfg.shard_ttl_ms)));
+            shard_args.insert(TableEntry(TableKey("x-dead-letter-exchange"), TableValue("")));
+            shard_args.insert(TableEntry(TableKey("x-dead-letter-routing-key"), TableValue(SUBMISSION_QUEUE)));
+            std::string shard_queue = SUBMISSION_SHARD_QUEUE_PREFIX + std::to_string(cfg.shard);
+            channel->DeclareQueue(shard_queue, false, true, false, false, shard_args);
+            consumer_tags.push_back(channel->BasicConsume(shard_queue, "", false, false, false));
+        }
+        consumer_tags.push_back(channel->BasicConsume(SUBMISSION_QUEUE, "", false, false, false));
+    }
+    for (const auto &tag : consumer_tags) channel->BasicQos(tag, 1);
+    return channel;
+}
 
-            channel->BasicPublish("", "result_queue", BasicMessage::Create(res_json.dump()));
-            std::cout << "[DONE] " << id << ": " << res_json["verdict"] << std::endl;
+// Consume loop of one slot.
+static void serve(Channel::ptr_t channel, const std::vector<std::string> &consumer_tags,
+                  const QueueConfig &cfg, WorkerContext &ctx)
+{
+    const bool run_mode = cfg.run_mode;
+    const std::vector<std::int32_t> &retry_delays = cfg.retry_delays;
+    while (true)
+    {
+        auto envelope = channel->BasicConsumeMessage(consumer_tags);
+        bool should_ack = false;
+        bool should_requeue = true;
+        bool permanent = false;
+        std::string failure;
+        protocol::WireFormat format = protocol::WireFormat::JSON;
+        std::string id;
+
+        try
+        {
+            auto j = protocol::decode(envelope->Message(), format);
+            id = j.value("id", "0");
+            std::cout << "[Received] " << id << std::endl;
+            ctx.in_flight++;
+            struct InFlight { WorkerContext &ctx; ~InFlight() { ctx.in_flight--; ctx.handled++; } } in_flight{ctx};
+
+            if (run_mode)
+            {
+                // The caller waits on a direct reply-to queue; if it is gone the
+                // result is simply dropped, so runs are never requeued.
+                json res_json = run_custom_input(j, ctx);
+                auto request = envelope->Message();
+                if (request->ReplyToIsSet())
+                {
+                    auto reply = protocol::encode(res_json, format);
+                    if (request->CorrelationIdIsSet()) reply->CorrelationId(request->CorrelationId());
+                    channel->BasicPublish("", request->ReplyTo(), reply);
+                }
+                std::cout << "[RUN] " << id << ": " << res_json["verdict"] << std::endl;
+            }
+            else if (envelope->Redelivered())
+            {
+                // A previous worker took this message and died or lost its connection
+                // before acking. It may be what killed that worker, so it counts as a
+                // failed attempt and goes through the retry tiers instead of straight back in.
+                throw std::runtime_error("Redelivered after the previous attempt did not finish");
+            }
+            else
+            {
+                auto started = std::chrono::steady_clock::now();
+                // Heartbeats are throttled to one per JUDGE_HEARTBEAT_MS; the first one always goes out
+                // so the API switches the lease from queued to running as soon as judging starts.
+                // Tests running in parallel report through the same channel, hence the lock.
+                auto last_beat = std::chrono::steady_clock::time_point::min();
+                std::mutex beat_mutex;
+                ProgressFn progress = [&](const std::string &phase, int test)
+                {
+                    std::lock_guard<std::mutex> lock(beat_mutex);
+                    auto now = std::chrono::steady_clock::now();
+                    if (last_beat != std::chrono::steady_clock::time_point::min() &&
+                        now - last_beat < std::chrono::milliseconds(cfg.heartbeat_ms))
+                        return;
+                    last_beat = now;
+                    json beat = {{"id", id}, {"phase", phase}, {"test", test}};
+                    try
+                    {
+                        channel->BasicPublish("", PROGRESS_QUEUE, protocol::encode(beat, format));
+                    }
+                    catch (const std::exception &e)
+                    {
+                        std::cerr << "[Warn] Heartbeat failed: " << e.what() << std::endl;
+                    }
+                };
+                json res_json = judge_submission(j, ctx, progress);
+                // Wall time spent on the submission; the API's capacity controller uses it as service time.
+                res_json["judge_ms"] = std::chrono::duration_cast<std::chrono::milliseconds>(
+                    std::chrono::steady_clock::now() - started).count();
+                channel->BasicPublish("", RESULT_QUEUE, protocol::encode(res_json, format));
+                std::cout << "[DONE] " << id << ": " << res_json["verdict"] << std::endl;
+                size_t hits = ctx.compile_cache.hits();
+                size_t lookups = hits + ctx.compile_cache.misses();
+                if (res_json.contains("compile_cache") && lookups % 100 == 0)
+                {
+                    std::cout << "[CompileCache] hits=" << hits << " misses=" << (lookups - hits)
+                              << " hit_rate=" << (100 * hits / lookups) << "%"
+                              << " entries=" << ctx.compile_cache.entries() << " bytes=" << ctx.compile_cache.used_bytes() << std::endl;
+                }
+            }
 
             should_ack = true;
             should_requeue = false;
         }
-        catch (const json::parse_error &e)
+        catch (const protocol::protocol_error &e)
+        {
+            std::cerr << "[Error] " << e.what() << std::endl;
+            failure = e.what();
+            permanent = true;
+            should_requeue = false;
+        }
+        catch (const json::exception &e)
         {
             std::cerr << "[Error] Invalid JSON payload: " << e.what() << std::endl;
-            should_ack = false;
+            failure = std::string("Invalid payload: ") + e.what();
+            permanent = true;
             should_requeue = false;
         }
         catch (const std::exception &e)
         {
             std::cerr << "[Error] " << e.what() << std::endl;
-            should_ack = false;
-            should_requeue = true;
+            failure = e.what();
+            should_requeue = false;
+        }
+
+        if (!should_ack && !run_mode)
+        {
+            // Submissions are never rejected back onto the queue: a message that keeps
+            // failing would otherwise loop forever. It is republished to a delayed retry
+            // tier instead, or parked in the dead-letter queue once retries run out.
+            try
+            {
+                // Shard queues dead-letter into the shared queue anyway, so retries all go through it.
+                int attempt = retry::retries(envelope->Message());
+                bool parked = retry::retry_or_dead_letter(channel, SUBMISSION_QUEUE, envelope->Message(),
+                                                          retry_delays, failure, permanent);
+                std::cerr << (parked ? "[DLQ] " : "[RETRY] ") << (id.empty() ? "?" : id) << std::endl;
+                if (parked && !id.empty())
+                {
+                    json res_json;
+                    res_json["id"] = id;
+                    res_json["verdict"] = "INTERNAL_ERROR";
+                    res_json["error"] = "Judging failed: " + failure;
+                    res_json["time_ms"] = 0;
+                    res_json["memory_kb"] = 0;
+                    channel->BasicPublish("", RESULT_QUEUE, protocol::encode(res_json, format));
+                }
+                else if (!parked && !id.empty() && attempt < static_cast<int>(retry_delays.size()))
+                {
+                    // Tell the API the submission is waiting out a retry delay so its lease is not
+                    // mistaken for a lost one.
+                    json beat = {{"id", id}, {"phase", "retry"}, {"extend_ms", retry_delays[attempt]}};
+                    channel->BasicPublish("", PROGRESS_QUEUE, protocol::encode(beat, format));
+                }
+                should_ack = true;
+            }
+            catch (const std::exception &e)
+            {
+                // Could not park it; fall back to a plain requeue so the message is not lost.
+                std::cerr << "[Error] Failed to schedule retry: " << e.what() << std::endl;
+                should_requeue = true;
+            }
         }
 
         try
@@ -208,4 +667,176 @@ int main()
             std::cerr << "[Error] Failed to ACK/NACK message: " << e.what() << std::endl;
         }
     }
-}
\ No newline at end of file
+}
+
+// Reports slot usage to the API every interval so it can show per-worker utilization.
+// Uses its own connection; a failed report is retried with a new one next time.
+static void report_status(const Channel::OpenOpts &opts, WorkerContext &ctx, const std::string &worker_id,
+                          bool run_mode, long interval_ms)
+{
+    auto started = std::chrono::steady_clock::now();
+    Channel::ptr_t channel;
+    while (true)
+    {
+        try
+        {
+            if (!channel)
+            {
+                channel = Channel::Open(opts);
+                // Must match RabbitMQConfig.workerStatusExchange: non-durable, not auto-delete.
+                channel->DeclareExchange(WORKER_STATUS_EXCHANGE, Channel::EXCHANGE_TYPE_FANOUT, false, false, false);
+            }
+            json status = {{"worker", worker_id},
+                           {"mode", run_mode ? "run" : "judge"},
+                           {"slots", ctx.slots.size()},
+                           {"busy_slots", ctx.slots.busy()},
+                           {"busy_ms", ctx.slots.busy_ms()},
+                           {"uptime_ms", std::chrono::duration_cast<std::chrono::milliseconds>(
+                                             std::chrono::steady_clock::now() - started).count()},
+                           {"in_flight", ctx.in_flight.load()},
+                           {"handled", ctx.handled.load()}};
+            channel->BasicPublish(WORKER_STATUS_EXCHANGE, "", protocol::encode(status, protocol::WireFormat::JSON));
+        }
+        catch (const std::exception &e)
+        {
+            std::cerr << "[Warn] Status report failed: " << e.what() << std::endl;
+            channel.reset();
+        }
+        std::this_thread::sleep_for(std::chrono::milliseconds(interval_ms));
+    }
+}
+
+int main()
+{
+    const char *rabbit_host = std::getenv("RABBITMQ_HOST");
+    if (!rabbit_host) rabbit_host = "localhost";
+
+    const char *rabbit_user = std::getenv("RABBITMQ_USER");
+    if (!rabbit_user) rabbit_user = "guest";
+
+    const char *rabbit_pass = std::getenv("RABBITMQ_PASS");
+    if (!rabbit_pass) rabbit_pass = "guest";
+
+    const char *rabbit_port_env = std::getenv("RABBITMQ_PORT");
+    int rabbit_port = rabbit_port_env ? std::atoi(rabbit_port_env) : 5672;
+
+    const char *data_dir_env = std::getenv("JUDGE_DATA_DIR");
+    std::string base_data_path = data_dir_env ? data_dir_env : "./judge_data";
+
+    const char *source_dir_env = std::getenv("JUDGE_SOURCE_DIR");
+    std::string source_dir = source_dir_env ? source_dir_env : base_data_path + "/sources";
+
+    const char *work_dir_env = std::getenv("JUDGE_WORK_DIR");
+    std::string work_root = work_dir_env ? work_dir_env : "./work";
+
+    QueueConfig cfg;
+
+    // "run" workers are reserved capacity for interactive runs and never judge.
+    const char *mode_env = std::getenv("JUDGE_MODE");
+    cfg.run_mode = mode_env && std::string(mode_env) == "run";
+    bool run_mode = cfg.run_mode;
+
+    const char *run_max_length_env = std::getenv("JUDGE_RUN_QUEUE_MAX_LENGTH");
+    cfg.run_max_length = run_max_length_env ? std::atoi(run_max_length_env) : 100;
+
+    const char *shard_count_env = std::getenv("JUDGE_SHARD_COUNT");
+    int shard_count = shard_count_env ? std::atoi(shard_count_env) : 0;
+    cfg.shard = run_mode ? -1 : resolve_shard(shard_count);
+
+    const char *shard_ttl_env = std::getenv("JUDGE_SHARD_TTL_MS");
+    cfg.shard_ttl_ms = shard_ttl_env ? std::atoi(shard_ttl_env) : 5000;
+
+    const char *cache_env = std::getenv("JUDGE_TESTDATA_CACHE_MB");
+    size_t cache_mb = cache_env ? std::strtoul(cache_env, nullptr, 10) : 256;
+    TestDataCache test_data(cache_mb * 1024 * 1024);
+
+    const char *compile_cache_dir_env = std::getenv("JUDGE_COMPILE_CACHE_DIR");
+    const char *compile_cache_env = std::getenv("JUDGE_COMPILE_CACHE_MB");
+    size_t compile_cache_mb = compile_cache_env ? std::strtoul(compile_cache_env, nullptr, 10) : 512;
+    CompileCache compile_cache(compile_cache_dir_env ? compile_cache_dir_env : "./compile_cache",
+                               run_mode ? 0 : compile_cache_mb * 1024 * 1024);
+
+    // Java startup aids built into the image. Paths that do not exist leave them off.
+    const char *java_cds_env = std::getenv("JUDGE_JAVA_CDS_ARCHIVE");
+    if (java_cds_env && fs::exists(java_cds_env)) JavaStrategy::cds_archive = java_cds_env;
+    const char *java_launcher_env = std::getenv("JUDGE_JAVA_LAUNCHER");
+    if (java_launcher_env && fs::exists(fs::path(java_launcher_env) / "JudgeLauncher.class"))
+    {
+        JavaStrategy::launcher_dir = java_launcher_env;
+    }
+
+    const char *heartbeat_env = std::getenv("JUDGE_HEARTBEAT_MS");
+    cfg.heartbeat_ms = heartbeat_env ? std::atol(heartbeat_env) : 5000;
+
+    const char *retry_delays_env = std::getenv("JUDGE_RETRY_DELAYS_MS");
+    cfg.retry_delays = retry::parse_delays(retry_delays_env ? retry_delays_env : "5000,30000,120000");
+
+    // JUDGE_SLOTS execution slots, each on its own CPU. JUDGE_SLOT_CPUS picks the CPUs
+    // (e.g. "2-9", one logical CPU per physical core); by default they come from the CPUs
+    // the worker may use. A single slot is not pinned unless JUDGE_SLOT_CPUS asks for it.
+    const char *slots_env = std::getenv("JUDGE_SLOTS");
+    int slot_count = std::max(1, slots_env ? std::atoi(slots_env) : 1);
+    const char *slot_cpus_env = std::getenv("JUDGE_SLOT_CPUS");
+    std::vector<int> slot_cpus = slot_cpus_env ? SlotPool::parse_cpus(slot_cpus_env) : SlotPool::allowed_cpus();
+    if (slot_cpus.empty())
+    {
+        std::cerr << "[!] Invalid JUDGE_SLOT_CPUS: " << slot_cpus_env << std::endl;
+        return 1;
+    }
+    if (slot_count > static_cast<int>(slot_cpus.size()))
+    {
+        std::cerr << "[Warn] Only " << slot_cpus.size() << " CPUs for " << slot_count << " slots" << std::endl;
+        slot_count = static_cast<int>(slot_cpus.size());
+    }
+    slot_cpus.resize(slot_count);
+    SlotPool slots(slot_cpus, slot_count > 1 || slot_cpus_env);
+
+    const char *status_env = std::getenv("JUDGE_STATUS_MS");
+    long status_ms = status_env ? std::atol(status_env) : 5000;
+    const char *worker_id_env = std::getenv("JUDGE_WORKER_ID");
+    char host[256] = {0};
+    gethostname(host, sizeof(host) - 1);
+    std::string worker_id = worker_id_env ? worker_id_env : host;
+
+    WorkerContext ctx{Sandbox(slots.size()), test_data, compile_cache, slots, base_data_path, source_dir, work_root};
+
+    Channel::OpenOpts opts;
+    opts.host = rabbit_host;
+    opts.port = rabbit_port;
+    opts.auth = Channel::OpenOpts::BasicAuth(rabbit_user, rabbit_pass);
+
+    // One consumer per slot, each taking one message at a time: up to JUDGE_SLOTS submissions
+    // are judged at once, and a submission alone on the worker spreads its tests over all slots.
+    std::vector<Channel::ptr_t> channels;
+    std::vector<std::vector<std::string>> consumer_tags(slot_count);
+    try
+    {
+        for (int slot = 0; slot < slot_count; slot++)
+        {
+            channels.push_back(open_consumer(opts, cfg, consumer_tags[slot]));
+        }
+        std::cout << "[*] Worker Started";
+        if (run_mode) std::cout << " (run mode)";
+        if (cfg.shard >= 0) std::cout << " (shard " << cfg.shard << "/" << shard_count << ")";
+        std::cout << " (" << slot_count << " slot" << (slot_count == 1 ? "" : "s") << ")";
+        std::cout << "." << std::endl;
+    }
+    catch (...)
+    {
+        std::cerr << "[!] RabbitMQ Connect Failed" << std::endl;
+        return 1;
+    }
+
+    if (status_ms > 0)
+    {
+        std::thread(report_status, opts, std::ref(ctx), worker_id, run_mode, status_ms).detach();
+    }
+    std::vector<std::thread> servers;
+    for (int slot = 1; slot < slot_count; slot++)
+    {
+        servers.emplace_back(serve, channels[slot], std::cref(consumer_tags[slot]), std::cref(cfg), std::ref(ctx));
+    }
+    serve(channels[0], consumer_tags[0], cfg, ctx);
+    for (auto &server : servers) server.join();
+    return 0;
+}
@@ -0,0 +1,61 @@
+#include "protocol.h"
+#include <cctype>
+#include <fstream>
+#include <sstream>
+#include <stdexcept>
+#include <vector>
+
+using json = nlohmann::json;
+using namespace AmqpClient;
+
+namespace protocol {
+
+json decode(const BasicMessage::ptr_t& message, WireFormat& format) {
+    const std::string& body = message->Body();
+    if (!message->ContentTypeIsSet() || message->ContentType() != CONTENT_TYPE_CBOR) {
+        format = WireFormat::JSON;
+        return json::parse(body);
+    }
+    format = WireFormat::CBOR;
+    if (body.empty() || static_cast<unsigned char>(body[0]) != WIRE_VERSION) {
+        throw protocol_error("Unsupported wire version");
+    }
+    return json::from_cbor(body.begin() + 1, body.end());
+}
+
+BasicMessage::ptr_t encode(const json& payload, WireFormat format) {
+    if (format == WireFormat::JSON) {
+        auto message = BasicMessage::Create(payload.dump());
+        message->ContentType(CONTENT_TYPE_JSON);
+        return message;
+    }
+    std::vector<std::uint8_t> encoded = json::to_cbor(payload);
+    std::string body;
+    body.reserve(encoded.size() + 1);
+    body.push_back(static_cast<char>(WIRE_VERSION));
+    body.append(encoded.begin(), encoded.end());
+    auto message = BasicMessage::Create(body);
+    message->ContentType(CONTENT_TYPE_CBOR);
+    return message;
+}
+
+std::string load_source(const json& submission, const std::string& source_dir) {
+    if (!submission.contains("code_ref")) {
+        return submission.value("code", "");
+    }
+    std::string ref = submission["code_ref"].get<std::string>();
+    for (char c : ref) {
+        if (!std::isxdigit(static_cast<unsigned char>(c))) {
+            throw protocol_error("Invalid source reference: " + ref);
+        }
+    }
+    std::ifstream in(source_dir + "/" + ref, std::ios::binary);
+    if (!in.is_open()) {
+        throw std::runtime_error("Source not found in shared store: " + ref);
+    }
+    std::ostringstream content;
+    content << in.rdbuf();
+    return content.str();
+}
+
+}
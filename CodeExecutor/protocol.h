@@ -0,0 +1,35 @@
+#pragma once
+#include <stdexcept>
+#include <string>
+#include <SimpleAmqpClient/SimpleAmqpClient.h>
+#include <nlohmann/json.hpp>
+
+// Wire format shared with the Spring API (see JudgeMessageConverter).
+// Binary payloads are CBOR prefixed with a single wire version byte; anything
+// without the CBOR content type is treated as plain JSON.
+namespace protocol {
+
+const std::string CONTENT_TYPE_JSON = "application/json";
+const std::string CONTENT_TYPE_CBOR = "application/cbor";
+const unsigned char WIRE_VERSION = 1;
+
+enum class WireFormat { JSON, CBOR };
+
+// A payload that can never be processed (unsupported wire version, bad source
+// reference). Retrying it is pointless, so it goes straight to the dead-letter queue.
+class protocol_error : public std::runtime_error {
+public:
+    using std::runtime_error::runtime_error;
+};
+
+// Decodes a message body and reports the format it arrived in, so replies
+// can be sent back in the same format.
+nlohmann::json decode(const AmqpClient::BasicMessage::ptr_t& message, WireFormat& format);
+
+AmqpClient::BasicMessage::ptr_t encode(const nlohmann::json& payload, WireFormat format);
+
+// Returns the submission source, reading it from the shared source store when
+// the API sent it by content hash ("code_ref") instead of inline.
+std::string load_source(const nlohmann::json& submission, const std::string& source_dir);
+
+}
@@ -0,0 +1,99 @@
+#include "retry.h"
+#include <cstdio>
+#include <random>
+#include <sstream>
+
+using namespace AmqpClient;
+
+namespace retry {
+
+static const size_t MAX_ERROR_LENGTH = 2000;
+
+std::vector<std::int32_t> parse_delays(const std::string& spec) {
+    std::vector<std::int32_t> delays;
+    std::stringstream in(spec);
+    std::string item;
+    while (std::getline(in, item, ',')) {
+        if (item.find_first_not_of(" \t") == std::string::npos) continue;
+        delays.push_back(static_cast<std::int32_t>(std::stol(item)));
+    }
+    return delays;
+}
+
+std::string retry_queue(const std::string& queue, size_t tier) {
+    return queue + ".retry." + std::to_string(tier);
+}
+
+std::string dead_letter_queue(const std::string& queue) {
+    return queue + ".dlq";
+}
+
+// Random version 4 UUID, for parked messages that were published without a message id.
+static std::string random_message_id() {
+    static thread_local std::mt19937_64 rng(std::random_device{}());
+    std::uint64_t hi = (rng() & 0xFFFFFFFFFFFF0FFFULL) | 0x0000000000004000ULL;
+    std::uint64_t lo = (rng() & 0x3FFFFFFFFFFFFFFFULL) | 0x8000000000000000ULL;
+    char id[37];
+    std::snprintf(id, sizeof(id), "%08x-%04x-%04x-%04x-%012llx",
+                  static_cast<unsigned>(hi >> 32), static_cast<unsigned>((hi >> 16) & 0xFFFF),
+                  static_cast<unsigned>(hi & 0xFFFF), static_cast<unsigned>(lo >> 48),
+                  static_cast<unsigned long long>(lo & 0xFFFFFFFFFFFFULL));
+    return id;
+}
+
+void declare(Channel::ptr_t channel, const std::string& queue, const std::vector<std::int32_t>& delays_ms) {
+    for (size_t tier = 1; tier <= delays_ms.size(); ++tier) {
+        Table args;
+        args.insert(TableEntry(TableKey("x-message-ttl"), TableValue(delays_ms[tier - 1])));
+        args.insert(TableEntry(TableKey("x-dead-letter-exchange"), TableValue("")));
+        args.insert(TableEntry(TableKey("x-dead-letter-routing-key"), TableValue(queue)));
+        channel->DeclareQueue(retry_queue(queue, tier), false, true, false, false, args);
+    }
+    channel->DeclareQueue(dead_letter_queue(queue), false, true, false, false);
+}
+
+int retries(const BasicMessage::ptr_t& message) {
+    if (!message->HeaderTableIsSet()) return 0;
+    const Table& headers = message->HeaderTable();
+    auto it = headers.find(RETRY_HEADER);
+    if (it == headers.end()) return 0;
+    switch (it->second.GetType()) {
+        case TableValue::VT_int8: case TableValue::VT_int16: case TableValue::VT_int32: case TableValue::VT_int64:
+        case TableValue::VT_uint8: case TableValue::VT_uint16: case TableValue::VT_uint32:
+            return static_cast<int>(it->second.GetInteger());
+        default:
+            return 0;
+    }
+}
+
+bool retry_or_dead_letter(Channel::ptr_t channel, const std::string& queue, const BasicMessage::ptr_t& message,
+                          const std::vector<std::int32_t>& delays_ms, const std::string& reason, bool permanent) {
+    auto copy = BasicMessage::Create(message->Body());
+    if (message->ContentTypeIsSet()) copy->ContentType(message->ContentType());
+    if (message->MessageIdIsSet()) copy->MessageId(message->MessageId());
+    if (message->CorrelationIdIsSet()) copy->CorrelationId(message->CorrelationId());
+    copy->DeliveryMode(BasicMessage::dm_persistent);
+
+    Table headers;
+    if (message->HeaderTableIsSet()) headers = message->HeaderTable();
+    int attempt = retries(message);
+    headers.erase(RETRY_HEADER);
+
+    if (!permanent && attempt < static_cast<int>(delays_ms.size())) {
+        headers.insert(TableEntry(TableKey(RETRY_HEADER), TableValue(static_cast<std::int32_t>(attempt + 1))));
+        copy->HeaderTable(headers);
+        channel->BasicPublish("", retry_queue(queue, attempt + 1), copy);
+        return false;
+    }
+
+    headers.insert(TableEntry(TableKey(RETRY_HEADER), TableValue(static_cast<std::int32_t>(attempt))));
+    headers.erase(ERROR_HEADER);
+    headers.insert(TableEntry(TableKey(ERROR_HEADER), TableValue(reason.substr(0, MAX_ERROR_LENGTH))));
+    copy->HeaderTable(headers);
+    // Replay selects a single dead letter by its message id, so every parked message needs one.
+    if (!copy->MessageIdIsSet()) copy->MessageId(random_message_id());
+    channel->BasicPublish("", dead_letter_queue(queue), copy);
+    return true;
+}
+
+}
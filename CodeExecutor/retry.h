@@ -0,0 +1,37 @@
+#pragma once
+#include <cstdint>
+#include <string>
+#include <vector>
+#include <SimpleAmqpClient/SimpleAmqpClient.h>
+
+// Delayed retries and dead-lettering, mirroring RabbitMQConfig.retryQueues and
+// DeadLetterService on the API side. A failed message is republished to
+// <queue>.retry.N, a TTL queue that dead-letters back to <queue>, with the
+// attempt count in the x-judge-retries header. Once the retries are used up,
+// or the failure is permanent, it is parked in <queue>.dlq.
+namespace retry {
+
+const std::string RETRY_HEADER = "x-judge-retries";
+const std::string ERROR_HEADER = "x-judge-error";
+
+// Parses a comma-separated list of delays in milliseconds ("5000,30000,120000").
+std::vector<std::int32_t> parse_delays(const std::string& spec);
+
+std::string retry_queue(const std::string& queue, size_t tier);
+std::string dead_letter_queue(const std::string& queue);
+
+// Declares the retry tiers and dead-letter queue for queue. The arguments must
+// match the API's declaration or RabbitMQ rejects the redeclaration.
+void declare(AmqpClient::Channel::ptr_t channel, const std::string& queue,
+             const std::vector<std::int32_t>& delays_ms);
+
+int retries(const AmqpClient::BasicMessage::ptr_t& message);
+
+// Republishes a copy of message to the next retry tier, or to the dead-letter
+// queue. Returns true when the message was dead-lettered.
+bool retry_or_dead_letter(AmqpClient::Channel::ptr_t channel, const std::string& queue,
+                          const AmqpClient::BasicMessage::ptr_t& message,
+                          const std::vector<std::int32_t>& delays_ms,
+                          const std::string& reason, bool permanent);
+
+}
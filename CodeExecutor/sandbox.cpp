@@ -2,10 +2,18 @@
 #include "utils.h"
 
 #include <unistd.h>
+#include <poll.h>
+#include <signal.h>
+#include <sys/syscall.h>
+#include <linux/sched.h>
 #include <sys/wait.h>
 #include <sys/resource.h>
 #include <sys/stat.h>
 #include <fcntl.h>
+#include <algorithm>
+#include <cerrno>
+#include <chrono>
+#include <cstdlib>
 #include <cstring>
 #include <fstream>
 #include <iostream>
@@ -100,9 +108,10 @@ std::vector<char *> to_c_args(const std::vector<std::string> &args) {
     return c_args;
 }
 
-void redirect_std_streams(const std::string &in, const std::string &out, const std::string &err) {
+// A non-negative stdout_fd (the comparator pipe) replaces the output file.
+void redirect_std_streams(const std::string &in, const std::string &out, const std::string &err, int stdout_fd) {
     int in_fd = open(in.c_str(), O_RDONLY);
-    int out_fd = open(out.c_str(), O_WRONLY | O_CREAT | O_TRUNC, 0644);
+    int out_fd = stdout_fd >= 0 ? stdout_fd : open(out.c_str(), O_WRONLY | O_CREAT | O_TRUNC, 0644);
     int err_fd = open(err.c_str(), O_WRONLY | O_CREAT | O_TRUNC, 0644);
 
     if (in_fd < 0 || out_fd < 0 || err_fd < 0) _exit(INTERNAL_ERROR);
@@ -114,77 +123,257 @@ void redirect_std_streams(const std::string &in, const std::string &out, const s
     close(in_fd); close(out_fd); close(err_fd);
 }
 
+// Extra CPU seconds a program that reports its startup may use: the startup is
+// left out of the measured time, so it must not eat into the limit either.
+static const long STARTUP_ALLOWANCE_SEC = 1;
 
-bool Sandbox::is_correct_answer(const std::string &out_path, const std::string &exp_path) {
-    std::vector<std::string> args = {"diff", "-w", "-B", out_path, exp_path};
-    int rc = run_command(args, nullptr);
-    return (rc == 0);
+static void close_pipe(int fds[2]) {
+    if (fds[0] >= 0) close(fds[0]);
+    if (fds[1] >= 0) close(fds[1]);
+    fds[0] = fds[1] = -1;
 }
 
+// Startup CPU time the program reported, in milliseconds; 0 without a report.
+// Only the first line counts: the submission runs after the report is written.
+// Never more than the allowance, so a forged report cannot buy extra time.
+static long read_startup_ms(int fd) {
+    char buffer[64];
+    ssize_t got = read(fd, buffer, sizeof(buffer) - 1);
+    if (got <= 0) return 0;
+    buffer[got] = '\0';
+    char *end = nullptr;
+    long ticks = strtol(buffer, &end, 10);
+    if (end == buffer || ticks < 0 || (*end != '\n' && *end != '\0')) return 0;
+    return std::min(ticks * 1000 / sysconf(_SC_CLK_TCK), STARTUP_ALLOWANCE_SEC * 1000);
+}
+
+// A program blocked on I/O or sleeping uses no CPU time, so RLIMIT_CPU never
+// fires. It is killed once it has been running for this many times its limit.
+static const long WALL_TIME_FACTOR = 2;
+static const long WALL_TIME_SLACK_MS = 1000;
+
+enum class StopReason { NONE, MISMATCH, WALL_TIME, INTERNAL };
+
+// Starts the child directly inside the cgroup behind `cgroup_fd`, so it is
+// limited from its first instruction and needs no attach afterwards. Returns
+// -1 if the kernel cannot do that (clone3 and CLONE_INTO_CGROUP need 5.7).
+// Like fork, but without glibc's fork handlers: the child may only make plain
+// system calls until it execs.
+static pid_t clone_into_cgroup(int cgroup_fd, int &pid_fd) {
+    clone_args args;
+    memset(&args, 0, sizeof(args));
+    args.flags = CLONE_INTO_CGROUP | CLONE_PIDFD;
+    args.pidfd = reinterpret_cast<uintptr_t>(&pid_fd);
+    args.exit_signal = SIGCHLD;
+    args.cgroup = static_cast<uint64_t>(cgroup_fd);
+    return static_cast<pid_t>(syscall(SYS_clone3, &args, sizeof(args)));
+}
+
+// Reads the program's stdout into the comparator until the program exits,
+// killing it at the first mismatch or when its wall time runs out. Takes
+// ownership of `pid_fd`, or opens one if it is -1.
+static StopReason supervise(pid_t pid, int pid_fd, int out_fd, OutputComparator *comparator, long wall_limit_ms) {
+    if (pid_fd < 0) pid_fd = static_cast<int>(syscall(SYS_pidfd_open, pid, 0));
+    if (pid_fd < 0) {
+        kill(pid, SIGKILL);
+        return StopReason::INTERNAL;
+    }
+
+    auto deadline = std::chrono::steady_clock::now() + std::chrono::milliseconds(wall_limit_ms);
+    StopReason reason = StopReason::NONE;
+    std::vector<char> buffer(64 * 1024);
+    while (true) {
+        auto remaining = std::chrono::duration_cast<std::chrono::milliseconds>(
+            deadline - std::chrono::steady_clock::now()).count();
+        if (remaining <= 0) {
+            reason = StopReason::WALL_TIME;
+            break;
+        }
+
+        pollfd fds[2] = {{pid_fd, POLLIN, 0}, {out_fd, POLLIN, 0}};
+        int ready = poll(fds, out_fd >= 0 ? 2 : 1, static_cast<int>(remaining));
+        if (ready < 0) {
+            if (errno == EINTR) continue;
+            reason = StopReason::INTERNAL;
+            break;
+        }
+
+        // Output is drained before the exit is noticed, so none of it is lost.
+        if (out_fd >= 0 && fds[1].revents) {
+            ssize_t got = read(out_fd, buffer.data(), buffer.size());
+            if (got < 0 && (errno == EINTR || errno == EAGAIN)) continue;
+            if (got <= 0) {
+                out_fd = -1;
+                continue;
+            }
+            if (!comparator->feed(buffer.data(), static_cast<size_t>(got))) {
+                reason = StopReason::MISMATCH;
+                break;
+            }
+            continue;
+        }
+        if (fds[0].revents) break;
+    }
+
+    if (reason != StopReason::NONE) kill(pid, SIGKILL);
+    close(pid_fd);
+    return reason;
+}
+
+Sandbox::Sandbox(size_t cgroup_slots, const std::string &cgroup_root) {
+    if (cgroup_slots == 0) return;
+    cgroups_ = std::make_unique<CgroupPool>(cgroup_root, cgroup_slots);
+    if (!cgroups_->available()) cgroups_.reset();
+}
+
+Sandbox::~Sandbox() = default;
+
 ExecutionResult Sandbox::run(LanguageStrategy &strategy,
                              const std::string &id,
                              const std::string &input_file,
                              const std::string &output_file,
                              const std::string &expected_file,
                              long time_limit_sec,
-                             long memory_limit_mb) 
+                             long memory_limit_mb,
+                             const std::string &workdir,
+                             int cpu,
+                             const CompareOptions &compare)
 {
-    std::string error_file = "err_" + id + ".txt";
+    // Several tests of one submission may run at once, so names follow the output file.
+    std::string error_file = output_file + ".err";
     ScopedFile err_guard(error_file);
 
-    int pipe_fd[2];
-    if (pipe(pipe_fd) == -1) return {INTERNAL_ERROR, 0, 0, -1, "Pipe failed"};
+    // Built before forking: other threads may hold allocator locks at fork time.
+    auto args = strategy.get_run_args(id, memory_limit_mb);
+    auto c_args = to_c_args(args);
+    rlim_t as_limit = strategy.get_rlimit_as(memory_limit_mb);
+
+    std::unique_ptr<OutputComparator> comparator;
+    int out_pipe[2] = {-1, -1};
+    if (!expected_file.empty()) {
+        comparator = std::make_unique<OutputComparator>(expected_file, compare);
+        if (!comparator->ok()) return {INTERNAL_ERROR, 0, 0, -1, "Cannot open expected output"};
+        if (pipe2(out_pipe, O_CLOEXEC) == -1) return {INTERNAL_ERROR, 0, 0, -1, "Pipe failed"};
+    }
 
-    pid_t pid = fork();
-    if (pid < 0) return {INTERNAL_ERROR, 0, 0, -1, "Fork failed"};
+    bool reports_startup = strategy.reports_startup();
+    long cpu_limit_sec = time_limit_sec + (reports_startup ? STARTUP_ALLOWANCE_SEC : 0);
+    int startup_pipe[2] = {-1, -1};
+    if (reports_startup && pipe2(startup_pipe, O_CLOEXEC | O_NONBLOCK) == -1) {
+        close_pipe(out_pipe);
+        return {INTERNAL_ERROR, 0, 0, -1, "Pipe failed"};
+    }
+
+    // Released after the child is reaped, when this function returns.
+    CgroupPool::Lease cgroup;
+    if (cgroups_ && clone3_usable_) cgroup = cgroups_->acquire(memory_limit_mb);
+
+    pid_t pid = -1;
+    int pid_fd = -1;
+    int pipe_fd[2] = {-1, -1};
+    if (cgroup.valid()) {
+        pid = clone_into_cgroup(cgroup.fd(), pid_fd);
+        if (pid < 0 && (errno == ENOSYS || errno == EINVAL || errno == E2BIG)) {
+            std::cerr << "[Sandbox] clone3 into a cgroup is not supported, creating a cgroup per run" << std::endl;
+            clone3_usable_ = false;
+        }
+    }
+    bool in_cgroup = pid >= 0;
+    if (!in_cgroup) {
+        // The child waits on this pipe until the parent has moved it into its new cgroup.
+        if (pipe2(pipe_fd, O_CLOEXEC) == -1) {
+            close_pipe(out_pipe);
+            close_pipe(startup_pipe);
+            return {INTERNAL_ERROR, 0, 0, -1, "Pipe failed"};
+        }
+        pid = fork();
+    }
+    if (pid < 0) {
+        close_pipe(pipe_fd);
+        close_pipe(out_pipe);
+        close_pipe(startup_pipe);
+        return {INTERNAL_ERROR, 0, 0, -1, "Fork failed"};
+    }
 
     if (pid == 0) {
         // --- CHILD PROCESS ---
-        close(pipe_fd[1]);
-        
-        char buffer;
-        if (read(pipe_fd[0], &buffer, 1) <= 0) _exit(INTERNAL_ERROR);
-        close(pipe_fd[0]);
+        if (!in_cgroup) {
+            close(pipe_fd[1]);
+
+            char buffer;
+            if (read(pipe_fd[0], &buffer, 1) <= 0) _exit(INTERNAL_ERROR);
+            close(pipe_fd[0]);
+        }
 
         unshare(CLONE_NEWNET);
-        redirect_std_streams(input_file, output_file, error_file);
+        pin_to_cpu(cpu);
+        redirect_std_streams(input_file, output_file, error_file, out_pipe[1]);
+        if (chdir(workdir.c_str()) != 0) _exit(INTERNAL_ERROR);
+        int first_free_fd = 3;
+        if (startup_pipe[1] >= 0) {
+            // dup2 clears close-on-exec. The write end is non-blocking, but the
+            // report is a few bytes into an empty pipe.
+            if (dup2(startup_pipe[1], LanguageStrategy::STARTUP_REPORT_FD) < 0) _exit(INTERNAL_ERROR);
+            first_free_fd = LanguageStrategy::STARTUP_REPORT_FD + 1;
+        }
+        // Descriptors another thread had open when we forked must not reach the program.
+        close_range(first_free_fd, ~0U, 0);
         
-        rlimit cpu = {(rlim_t)time_limit_sec, (rlim_t)time_limit_sec + 1};
-        setrlimit(RLIMIT_CPU, &cpu);
+        rlimit cpu_lim = {(rlim_t)cpu_limit_sec, (rlim_t)cpu_limit_sec + 1};
+        setrlimit(RLIMIT_CPU, &cpu_lim);
         
         rlimit fsize = {10 * 1024 * 1024, 10 * 1024 * 1024};
         setrlimit(RLIMIT_FSIZE, &fsize);
 
-        rlimit as_lim = { strategy.get_rlimit_as(memory_limit_mb), strategy.get_rlimit_as(memory_limit_mb) };
+        rlimit as_lim = { as_limit, as_limit };
         setrlimit(RLIMIT_AS, &as_lim);
 
-        auto args = strategy.get_run_args(id, memory_limit_mb);
-        auto c_args = to_c_args(args);
         execvp(c_args[0], c_args.data());
         
-        perror("Exec failed");
+        // No stdio here: after clone3 its locks may be held by threads that do not exist in the child.
+        static const char exec_failed[] = "Exec failed\n";
+        write(STDERR_FILENO, exec_failed, sizeof(exec_failed) - 1);
         _exit(INTERNAL_ERROR);
     } 
     else {
         // --- PARENT PROCESS ---
-        close(pipe_fd[0]);
+        if (out_pipe[1] >= 0) close(out_pipe[1]);
+        if (startup_pipe[1] >= 0) close(startup_pipe[1]);
+
+        if (!in_cgroup) {
+            close(pipe_fd[0]);
+            CgroupUtils::setup(pid, memory_limit_mb);
+            write(pipe_fd[1], "X", 1);
+            close(pipe_fd[1]);
+        }
 
-        CgroupUtils::setup(pid, memory_limit_mb);
+        long wall_limit_ms = cpu_limit_sec * 1000 * WALL_TIME_FACTOR + WALL_TIME_SLACK_MS;
+        StopReason stop = supervise(pid, pid_fd, out_pipe[0], comparator.get(), wall_limit_ms);
+        if (out_pipe[0] >= 0) close(out_pipe[0]);
 
-        write(pipe_fd[1], "X", 1);
-        close(pipe_fd[1]);
         int status;
         struct rusage usage;
         wait4(pid, &status, 0, &usage);
 
-        CgroupUtils::cleanup(pid);
+        if (!in_cgroup) CgroupUtils::cleanup(pid);
 
         ExecutionResult result;
         result.time_used_ms = (usage.ru_utime.tv_sec * 1000) + (usage.ru_utime.tv_usec / 1000);
         result.memory_used_kb = usage.ru_maxrss;
         result.stderr_output = read_file_limited(error_file);
+        if (startup_pipe[0] >= 0) {
+            result.time_used_ms = std::max(0L, result.time_used_ms - read_startup_ms(startup_pipe[0]));
+            close(startup_pipe[0]);
+        }
 
-        if (WIFSIGNALED(status)) {
+        if (stop == StopReason::WALL_TIME) {
+            result.verdict = TIME_LIMIT_EXCEEDED;
+        } else if (stop == StopReason::MISMATCH) {
+            // Killed by us, so the SIGKILL below must not read as a memory limit.
+            result.verdict = WRONG_ANSWER;
+        } else if (stop == StopReason::INTERNAL) {
+            result.verdict = INTERNAL_ERROR;
+        } else if (WIFSIGNALED(status)) {
             int sig = WTERMSIG(status);
             if (sig == SIGXCPU) result.verdict = TIME_LIMIT_EXCEEDED;
             else if (sig == SIGKILL) result.verdict = MEMORY_LIMIT_EXCEEDED;
@@ -192,7 +381,9 @@ ExecutionResult Sandbox::run(LanguageStrategy &strategy,
         } else if (WIFEXITED(status)) {
             result.exit_code = WEXITSTATUS(status);
             if (result.exit_code == 0) {
-                result.verdict = is_correct_answer(output_file, expected_file) ? ACCEPTED : WRONG_ANSWER;
+                // Without an expected file (custom input runs) a clean exit is all we check.
+                bool correct = !comparator || comparator->finish();
+                result.verdict = correct ? ACCEPTED : WRONG_ANSWER;
             } else {
                 result.verdict = RUNTIME_ERROR;
             }
@@ -200,6 +391,13 @@ ExecutionResult Sandbox::run(LanguageStrategy &strategy,
             result.verdict = INTERNAL_ERROR;
         }
 
+        // The startup allowance only keeps RLIMIT_CPU from firing early; the limit
+        // itself still applies to the time that is measured.
+        bool over_limit = reports_startup && result.time_used_ms > time_limit_sec * 1000;
+        if (over_limit && (result.verdict == ACCEPTED || result.verdict == WRONG_ANSWER)) {
+            result.verdict = TIME_LIMIT_EXCEEDED;
+        }
+
         remove(error_file.c_str());
         return result;
     }
@@ -1,21 +1,38 @@
 #pragma once
 #include "defs.h"
 #include "LanguageStrategy.hpp"
+#include "comparator.h"
+#include "cgroup_pool.h"
+#include <atomic>
 #include <cstddef>
+#include <memory>
 #include <string>
 
 class Sandbox {
 public:
+    // Pre-creates `cgroup_slots` cgroups below `cgroup_root` for runs to borrow,
+    // one per slot. With 0, or without a usable cgroup v2 hierarchy there, every
+    // run gets a fresh cgroup.
+    explicit Sandbox(size_t cgroup_slots = 0, const std::string& cgroup_root = "/sys/fs/cgroup");
+    ~Sandbox();
+
+    // With an expected file, stdout is streamed through an OutputComparator and
+    // the program is killed at the first mismatch; `output_file` is then only
+    // the stem of the stderr capture. Without one, stdout goes to `output_file`.
     ExecutionResult run(LanguageStrategy& strategy,
                         const std::string& id,
                         const std::string& input_file,
                         const std::string& output_file,
                         const std::string& expected_file,
                         long time_limit_sec,
-                        long memory_limit_mb);
+                        long memory_limit_mb,
+                        const std::string& workdir = ".",
+                        int cpu = -1,
+                        const CompareOptions& compare = {});
 
 private:
-    bool is_correct_answer(const std::string& out_path, const std::string& exp_path);
+    std::unique_ptr<CgroupPool> cgroups_;
+    std::atomic<bool> clone3_usable_{true};
 };
 
 std::string read_file_limited(const std::string& filename, size_t max_bytes = 4096);
\ No newline at end of file
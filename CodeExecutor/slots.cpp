@@ -0,0 +1,87 @@
+#include "slots.h"
+
+#include <sched.h>
+#include <sstream>
+#include <stdexcept>
+
+SlotPool::SlotPool(std::vector<int> cpus, bool pin)
+    : cpus_(std::move(cpus)), pin_(pin), held_(cpus_.size(), false),
+      held_since_(cpus_.size()), free_(static_cast<int>(cpus_.size())) {}
+
+SlotPool::Lease SlotPool::acquire() {
+    std::unique_lock<std::mutex> lock(mutex_);
+    std::uint64_t ticket = next_ticket_++;
+    available_.wait(lock, [&] { return ticket == serving_ && free_ > 0; });
+    serving_++;
+    free_--;
+    int slot = 0;
+    while (held_[slot]) slot++;
+    held_[slot] = true;
+    held_since_[slot] = Clock::now();
+    // The next ticket may be waiting for exactly the slot that is still free.
+    available_.notify_all();
+    return Lease(this, slot);
+}
+
+void SlotPool::release(int slot) {
+    std::lock_guard<std::mutex> lock(mutex_);
+    held_[slot] = false;
+    busy_total_ += Clock::now() - held_since_[slot];
+    free_++;
+    available_.notify_all();
+}
+
+SlotPool::Lease::~Lease() {
+    if (pool_) pool_->release(slot_);
+}
+
+int SlotPool::Lease::cpu() const {
+    return pool_->pin_ ? pool_->cpus_[slot_] : -1;
+}
+
+int SlotPool::busy() const {
+    std::lock_guard<std::mutex> lock(mutex_);
+    return size() - free_;
+}
+
+std::uint64_t SlotPool::busy_ms() const {
+    std::lock_guard<std::mutex> lock(mutex_);
+    Clock::duration total = busy_total_;
+    Clock::time_point now = Clock::now();
+    for (size_t slot = 0; slot < held_.size(); slot++) {
+        if (held_[slot]) total += now - held_since_[slot];
+    }
+    return std::chrono::duration_cast<std::chrono::milliseconds>(total).count();
+}
+
+std::vector<int> SlotPool::allowed_cpus() {
+    std::vector<int> cpus;
+    cpu_set_t set;
+    CPU_ZERO(&set);
+    if (sched_getaffinity(0, sizeof(set), &set) == 0) {
+        for (int cpu = 0; cpu < CPU_SETSIZE; cpu++) {
+            if (CPU_ISSET(cpu, &set)) cpus.push_back(cpu);
+        }
+    }
+    if (cpus.empty()) cpus.push_back(0);
+    return cpus;
+}
+
+std::vector<int> SlotPool::parse_cpus(const std::string& spec) {
+    std::vector<int> cpus;
+    std::stringstream ss(spec);
+    std::string part;
+    while (std::getline(ss, part, ',')) {
+        if (part.empty()) continue;
+        size_t dash = part.find('-');
+        try {
+            int from = std::stoi(part.substr(0, dash));
+            int to = dash == std::string::npos ? from : std::stoi(part.substr(dash + 1));
+            if (from < 0 || to < from || to >= CPU_SETSIZE) return {};
+            for (int cpu = from; cpu <= to; cpu++) cpus.push_back(cpu);
+        } catch (const std::exception&) {
+            return {};
+        }
+    }
+    return cpus;
+}
@@ -0,0 +1,69 @@
+#pragma once
+#include <chrono>
+#include <condition_variable>
+#include <cstdint>
+#include <mutex>
+#include <string>
+#include <vector>
+
+// Execution slots of a worker. Each slot owns one CPU, and whoever holds the
+// slot runs its compiler, program and checker pinned there. Concurrent test
+// runs never share a core, so their CPU times match a run on an idle machine.
+// Slots are granted in request order, so one submission fanning out over many
+// tests cannot starve the others.
+class SlotPool {
+public:
+    class Lease {
+    public:
+        Lease(Lease&& other) noexcept : pool_(other.pool_), slot_(other.slot_) { other.pool_ = nullptr; }
+        Lease(const Lease&) = delete;
+        Lease& operator=(const Lease&) = delete;
+        Lease& operator=(Lease&&) = delete;
+        ~Lease();
+
+        // CPU to pin to, or -1 when the pool does not pin.
+        int cpu() const;
+
+    private:
+        friend class SlotPool;
+        Lease(SlotPool* pool, int slot) : pool_(pool), slot_(slot) {}
+
+        SlotPool* pool_;
+        int slot_;
+    };
+
+    // One slot per entry of `cpus`. With `pin` unset the slots only bound concurrency.
+    SlotPool(std::vector<int> cpus, bool pin);
+
+    SlotPool(const SlotPool&) = delete;
+    SlotPool& operator=(const SlotPool&) = delete;
+
+    // Blocks until a slot is free.
+    Lease acquire();
+
+    int size() const { return static_cast<int>(cpus_.size()); }
+    int busy() const;
+    // Slot-milliseconds spent busy since the pool was created, including slots held right now.
+    std::uint64_t busy_ms() const;
+
+    // CPUs this process may run on.
+    static std::vector<int> allowed_cpus();
+    // Parses a CPU list such as "0-3,8"; returns an empty list if it is malformed.
+    static std::vector<int> parse_cpus(const std::string& spec);
+
+private:
+    using Clock = std::chrono::steady_clock;
+
+    void release(int slot);
+
+    std::vector<int> cpus_;
+    bool pin_;
+    std::vector<bool> held_;
+    std::vector<Clock::time_point> held_since_;
+    Clock::duration busy_total_ = Clock::duration::zero();
+    std::uint64_t next_ticket_ = 0;
+    std::uint64_t serving_ = 0;
+    int free_ = 0;
+    mutable std::mutex mutex_;
+    std::condition_variable available_;
+};
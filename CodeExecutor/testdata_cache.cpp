@@ -0,0 +1,193 @@
+#include "testdata_cache.h"
+
+#include <fcntl.h>
+#include <sys/mman.h>
+#include <sys/sendfile.h>
+#include <sys/stat.h>
+#include <unistd.h>
+
+TestDataCache::TestDataCache(size_t max_bytes) : max_bytes_(max_bytes) {}
+
+TestDataCache::~TestDataCache() = default;
+
+TestDataCache::Entry::~Entry() {
+    for (auto& f : files) {
+        if (f.fd >= 0) close(f.fd);
+    }
+}
+
+static std::vector<std::string> test_paths(const std::string& problem_dir, int count) {
+    std::vector<std::string> paths;
+    paths.reserve(count * 2);
+    for (int i = 1; i <= count; i++) {
+        paths.push_back(problem_dir + std::to_string(i) + "_in.txt");
+        paths.push_back(problem_dir + std::to_string(i) + "_out.txt");
+    }
+    return paths;
+}
+
+static std::optional<OutputFingerprint> load_fingerprint(const std::string& expected_path, off_t expected_bytes) {
+    static const std::string suffix = ".txt";
+    std::string path = expected_path.substr(0, expected_path.size() - suffix.size()) + ".fp";
+    OutputFingerprint fingerprint;
+    if (!OutputFingerprint::load(path, static_cast<std::uint64_t>(expected_bytes), fingerprint)) return std::nullopt;
+    return fingerprint;
+}
+
+bool TestDataCache::get(const std::string& problem_dir, int count,
+                        std::vector<TestCaseFiles>& tests, std::string& error,
+                        std::shared_ptr<const void>& pin) {
+    std::vector<std::string> paths = test_paths(problem_dir, count);
+    tests.clear();
+    pin.reset();
+
+    std::shared_ptr<Entry> entry = lookup(problem_dir, paths);
+    if (!entry) {
+        // Not cacheable (disabled, too large, or unreadable): hand out the files on disk.
+        for (size_t i = 0; i < paths.size(); i += 2) {
+            if (access(paths[i].c_str(), R_OK) != 0) {
+                error = "Test case input file missing: " + paths[i];
+                return false;
+            }
+            if (access(paths[i + 1].c_str(), R_OK) != 0) {
+                error = "Test case output file missing: " + paths[i + 1];
+                return false;
+            }
+            struct stat st;
+            std::optional<OutputFingerprint> fingerprint;
+            if (stat(paths[i + 1].c_str(), &st) == 0) fingerprint = load_fingerprint(paths[i + 1], st.st_size);
+            tests.push_back({paths[i], paths[i + 1], fingerprint});
+        }
+        return true;
+    }
+
+    pin = entry;
+    const auto& files = entry->files;
+    for (size_t i = 0; i < files.size(); i += 2) {
+        tests.push_back({fd_path(files[i].fd), fd_path(files[i + 1].fd), entry->fingerprints[i / 2]});
+    }
+    return true;
+}
+
+std::shared_ptr<TestDataCache::Entry> TestDataCache::lookup(const std::string& problem_dir,
+                                                            const std::vector<std::string>& paths) {
+    std::unique_lock<std::mutex> lock(mutex_);
+    if (max_bytes_ == 0) {
+        misses_++;
+        return nullptr;
+    }
+    auto it = entries_.find(problem_dir);
+    std::shared_ptr<Entry> cached = it != entries_.end() ? it->second : nullptr;
+    lock.unlock();
+
+    // The freshness check stats the shared volume, so it runs unlocked too.
+    if (cached && cached->files.size() == paths.size() && is_fresh(*cached, paths)) {
+        lock.lock();
+        hits_++;
+        cached->last_used = ++clock_;
+        return cached;
+    }
+
+    lock.lock();
+    misses_++;
+    auto pending = loading_.find(problem_dir);
+    if (pending != loading_.end()) {
+        std::shared_future<std::shared_ptr<Entry>> result = pending->second;
+        lock.unlock();
+        std::shared_ptr<Entry> loaded = result.get();
+        return loaded && loaded->files.size() == paths.size() ? loaded : nullptr;
+    }
+    std::promise<std::shared_ptr<Entry>> promise;
+    loading_.emplace(problem_dir, promise.get_future().share());
+    lock.unlock();
+
+    auto entry = std::make_shared<Entry>();
+    std::string ignored;
+    bool loaded = load(paths, *entry, ignored);
+
+    lock.lock();
+    loading_.erase(problem_dir);
+    it = entries_.find(problem_dir);
+    if (it != entries_.end()) {
+        used_bytes_ -= it->second->bytes;
+        entries_.erase(it);
+    }
+    std::shared_ptr<Entry> published;
+    if (loaded) {
+        evict_until_fits(entry->bytes, problem_dir);
+        if (used_bytes_ + entry->bytes <= max_bytes_) {
+            used_bytes_ += entry->bytes;
+            entry->last_used = ++clock_;
+            entries_.emplace(problem_dir, entry);
+            published = entry;
+        }
+    }
+    lock.unlock();
+    promise.set_value(published);
+    return published;
+}
+
+bool TestDataCache::is_fresh(const Entry& entry, const std::vector<std::string>& paths) const {
+    for (size_t i = 0; i < paths.size(); i++) {
+        struct stat st;
+        if (stat(paths[i].c_str(), &st) != 0) return false;
+        const CachedFile& f = entry.files[i];
+        if (st.st_size != f.size || st.st_mtim.tv_sec != f.mtime.tv_sec || st.st_mtim.tv_nsec != f.mtime.tv_nsec) {
+            return false;
+        }
+    }
+    return true;
+}
+
+bool TestDataCache::load(const std::vector<std::string>& paths, Entry& entry, std::string& error) {
+    for (const auto& path : paths) {
+        int src = open(path.c_str(), O_RDONLY | O_CLOEXEC);
+        if (src < 0) {
+            error = "Test case file missing: " + path;
+            return false;
+        }
+        struct stat st;
+        fstat(src, &st);
+        if (entry.bytes + static_cast<size_t>(st.st_size) > max_bytes_) {
+            close(src);
+            return false;
+        }
+
+        CachedFile file;
+        file.fd = memfd_create("judge-test", MFD_CLOEXEC);
+        file.size = st.st_size;
+        file.mtime = st.st_mtim;
+        bool ok = file.fd >= 0;
+        off_t offset = 0;
+        while (ok && offset < st.st_size) {
+            ssize_t n = sendfile(file.fd, src, &offset, st.st_size - offset);
+            if (n <= 0) ok = false;
+        }
+        close(src);
+        entry.files.push_back(file);
+        entry.bytes += st.st_size;
+        if (!ok) {
+            error = "Failed to cache test file: " + path;
+            return false;
+        }
+        if (entry.files.size() % 2 == 0) entry.fingerprints.push_back(load_fingerprint(path, st.st_size));
+    }
+    return true;
+}
+
+void TestDataCache::evict_until_fits(size_t incoming, const std::string& keep) {
+    while (used_bytes_ + incoming > max_bytes_) {
+        auto victim = entries_.end();
+        for (auto it = entries_.begin(); it != entries_.end(); ++it) {
+            if (it->first == keep) continue;
+            if (victim == entries_.end() || it->second->last_used < victim->second->last_used) victim = it;
+        }
+        if (victim == entries_.end()) return;
+        used_bytes_ -= victim->second->bytes;
+        entries_.erase(victim);
+    }
+}
+
+std::string TestDataCache::fd_path(int fd) const {
+    return "/proc/" + std::to_string(getpid()) + "/fd/" + std::to_string(fd);
+}
@@ -0,0 +1,85 @@
+#pragma once
+#include "fingerprint.h"
+
+#include <cstddef>
+#include <cstdint>
+#include <future>
+#include <map>
+#include <memory>
+#include <mutex>
+#include <optional>
+#include <string>
+#include <vector>
+#include <sys/types.h>
+#include <time.h>
+
+struct TestCaseFiles {
+    std::string input_path;
+    std::string expected_path;
+    // From the N_out.fp sidecar written at upload; absent for older test data.
+    std::optional<OutputFingerprint> fingerprint;
+};
+
+// Keeps recently used problems' test data in memory (memfd-backed) so that
+// workers pinned to a shard don't go back to the shared volume for every test.
+// Cached files are exposed as /proc/<pid>/fd/<n> paths: every open() of such a
+// path gets its own file offset, so the sandbox and the checker can use them
+// exactly like regular files. Entries are evicted LRU-first once the byte
+// budget is exceeded, and reloaded when a file's size or mtime changes.
+// Safe to share between the slots of a worker: an evicted entry keeps its
+// files open until every submission that pinned it is done. Files are copied
+// outside the lock; other problems stay servable meanwhile, and concurrent
+// requests for the problem being loaded wait for that one load.
+class TestDataCache {
+public:
+    explicit TestDataCache(size_t max_bytes);
+    ~TestDataCache();
+
+    TestDataCache(const TestDataCache&) = delete;
+    TestDataCache& operator=(const TestDataCache&) = delete;
+
+    // Fills `tests` with the files of tests 1..count. Returns false and sets
+    // `error` if any input or expected output is missing. The paths stay valid
+    // for as long as the caller holds `pin`.
+    bool get(const std::string& problem_dir, int count,
+             std::vector<TestCaseFiles>& tests, std::string& error,
+             std::shared_ptr<const void>& pin);
+
+    size_t hits() const { std::lock_guard<std::mutex> lock(mutex_); return hits_; }
+    size_t misses() const { std::lock_guard<std::mutex> lock(mutex_); return misses_; }
+
+private:
+    struct CachedFile {
+        int fd = -1;
+        off_t size = 0;
+        struct timespec mtime = {0, 0};
+    };
+
+    struct Entry {
+        std::vector<CachedFile> files;
+        std::vector<std::optional<OutputFingerprint>> fingerprints;
+        size_t bytes = 0;
+        std::uint64_t last_used = 0;
+
+        Entry() = default;
+        Entry(const Entry&) = delete;
+        Entry& operator=(const Entry&) = delete;
+        ~Entry();
+    };
+
+    std::shared_ptr<Entry> lookup(const std::string& problem_dir, const std::vector<std::string>& paths);
+    bool is_fresh(const Entry& entry, const std::vector<std::string>& paths) const;
+    bool load(const std::vector<std::string>& paths, Entry& entry, std::string& error);
+    void evict_until_fits(size_t incoming, const std::string& keep);
+    std::string fd_path(int fd) const;
+
+    size_t max_bytes_;
+    size_t used_bytes_ = 0;
+    std::uint64_t clock_ = 0;
+    size_t hits_ = 0;
+    size_t misses_ = 0;
+    std::map<std::string, std::shared_ptr<Entry>> entries_;
+    // Problems whose files are being copied; resolves to the published entry, or null.
+    std::map<std::string, std::shared_future<std::shared_ptr<Entry>>> loading_;
+    mutable std::mutex mutex_;
+};
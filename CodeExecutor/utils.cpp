@@ -4,8 +4,46 @@
 #include <fcntl.h>
 #include <cstring>
 #include <errno.h>
+#include <algorithm>
+#include <filesystem>
+#include <sched.h>
+#include <stdexcept>
 
-int run_command(const std::vector<std::string>& args, const std::string* stderr_path) {
+[[noreturn]] static void exec_args(const std::vector<std::string>& args) {
+    std::vector<char*> cargs;
+    cargs.reserve(args.size() + 1);
+    for (const auto& s : args) {
+        cargs.push_back(const_cast<char*>(s.c_str()));
+    }
+    cargs.push_back(nullptr);
+
+    execvp(cargs[0], cargs.data());
+    perror("execvp");
+    _exit(127);
+}
+
+ScopedDir::ScopedDir(std::string path) : path_(std::move(path)) {
+    std::error_code ec;
+    std::filesystem::remove_all(path_, ec);
+    std::filesystem::create_directories(path_, ec);
+    if (ec) throw std::runtime_error("Cannot create work directory " + path_ + ": " + ec.message());
+}
+
+ScopedDir::~ScopedDir() {
+    std::error_code ec;
+    std::filesystem::remove_all(path_, ec);
+}
+
+void pin_to_cpu(int cpu) {
+    if (cpu < 0) return;
+    cpu_set_t set;
+    CPU_ZERO(&set);
+    CPU_SET(cpu, &set);
+    sched_setaffinity(0, sizeof(set), &set);
+}
+
+int run_command(const std::vector<std::string>& args, const std::string* stderr_path,
+                const std::string& cwd, int cpu) {
     if (args.empty()) return -1;
 
     pid_t pid = fork();
@@ -21,17 +59,10 @@ int run_command(const std::vector<std::string>& args, const std::string* stderr_
                 close(fd);
             }
         }
+        pin_to_cpu(cpu);
+        if (!cwd.empty() && chdir(cwd.c_str()) != 0) _exit(127);
 
-        std::vector<char*> cargs;
-        cargs.reserve(args.size() + 1);
-        for (const auto& s : args) {
-            cargs.push_back(const_cast<char*>(s.c_str()));
-        }
-        cargs.push_back(nullptr);
-
-        execvp(cargs[0], cargs.data());
-        perror("execvp");
-        _exit(127);
+        exec_args(args);
     } else {
         int status;
         if (waitpid(pid, &status, 0) < 0) {
@@ -43,3 +74,44 @@ int run_command(const std::vector<std::string>& args, const std::string* stderr_
         return -1;
     }
 }
+
+std::string capture_command(const std::vector<std::string>& args, size_t max_bytes) {
+    if (args.empty()) return "";
+
+    int pipefd[2];
+    if (pipe(pipefd) < 0) return "";
+
+    pid_t pid = fork();
+    if (pid < 0) {
+        close(pipefd[0]);
+        close(pipefd[1]);
+        return "";
+    }
+
+    if (pid == 0) {
+        close(pipefd[0]);
+        dup2(pipefd[1], STDOUT_FILENO);
+        dup2(pipefd[1], STDERR_FILENO);
+        close(pipefd[1]);
+        exec_args(args);
+    }
+
+    close(pipefd[1]);
+    std::string output;
+    char buffer[512];
+    ssize_t n;
+    // Keep draining past the limit so the child never blocks on a full pipe.
+    while ((n = read(pipefd[0], buffer, sizeof(buffer))) != 0) {
+        if (n < 0) {
+            if (errno == EINTR) continue;
+            break;
+        }
+        if (output.size() < max_bytes) {
+            output.append(buffer, std::min(static_cast<size_t>(n), max_bytes - output.size()));
+        }
+    }
+    close(pipefd[0]);
+    int status;
+    waitpid(pid, &status, 0);
+    return output;
+}
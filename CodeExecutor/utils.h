@@ -37,7 +37,35 @@ private:
     std::string path_;
 };
 
+// RAII helper that creates a directory and removes it, with everything in it,
+// when it goes out of scope.
+class ScopedDir {
+public:
+    explicit ScopedDir(std::string path);
+    ~ScopedDir();
+
+    ScopedDir(const ScopedDir&) = delete;
+    ScopedDir& operator=(const ScopedDir&) = delete;
+
+    const std::string& path() const { return path_; }
+    // Path of a file inside the directory.
+    std::string file(const std::string& name) const { return path_ + "/" + name; }
+
+private:
+    std::string path_;
+};
+
+// Restricts the calling process to one CPU. Meant for forked children; a
+// negative cpu leaves the affinity alone.
+void pin_to_cpu(int cpu);
+
 // Execute the given command (arguments include program name).
 // If stderr_path is non-null, the child's stderr is redirected to that
-// file. Returns exit status (or -1 on fork/exec failure).
-int run_command(const std::vector<std::string>& args, const std::string* stderr_path = nullptr);
+// file. A non-empty cwd is the child's working directory, and a cpu of 0 or
+// more pins the child to that CPU. Returns exit status (or -1 on fork/exec failure).
+int run_command(const std::vector<std::string>& args, const std::string* stderr_path = nullptr,
+                const std::string& cwd = "", int cpu = -1);
+
+// Execute the given command and return at most max_bytes of its combined
+// stdout and stderr. Returns an empty string if it cannot be started.
+std::string capture_command(const std::vector<std::string>& args, size_t max_bytes = 4096);
@@ -0,0 +1,147 @@
+package com.project.code_judge.Config;
+
+import com.project.code_judge.Dto.AuthenticatedUser;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Session attribute codec. The values every request reads (session timestamps, the write LSN and
+ * a security context holding an AuthenticatedUser) are written as a one-byte tag plus their
+ * fields; anything else falls back to JDK serialization. JDK streams always start with 0xAC, which
+ * no tag uses, so sessions written before this codec still load.
+ */
+public class CompactSessionSerializer implements RedisSerializer<Object> {
+    private static final byte LONG = 1;
+    private static final byte INTEGER = 2;
+    private static final byte STRING = 3;
+    private static final byte SECURITY_CONTEXT = 4;
+
+    private final SerializingConverter jdkWriter = new SerializingConverter();
+    private final DeserializingConverter jdkReader = new DeserializingConverter();
+    private final Timer compactWrites;
+    private final Timer compactReads;
+    private final Timer jdkWrites;
+    private final Timer jdkReads;
+    private final DistributionSummary attributeBytes;
+
+    public CompactSessionSerializer(MeterRegistry meterRegistry){
+        compactWrites = timer(meterRegistry, "write", "compact");
+        compactReads = timer(meterRegistry, "read", "compact");
+        jdkWrites = timer(meterRegistry, "write", "jdk");
+        jdkReads = timer(meterRegistry, "read", "jdk");
+        attributeBytes = DistributionSummary.builder("judge.session.attribute.bytes")
+                .description("Serialized size of session attributes written to Redis")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String op, String format){
+        return Timer.builder("judge.session.codec")
+                .description("Time spent encoding and decoding session attributes")
+                .tags("op", op, "format", format)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException{
+        if(value == null) return new byte[0];
+        long start = System.nanoTime();
+        byte[] compact = writeCompact(value);
+        byte[] bytes = compact != null ? compact : jdkWriter.convert(value);
+        (compact != null ? compactWrites : jdkWrites).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        attributeBytes.record(bytes.length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException{
+        if(bytes == null || bytes.length == 0) return null;
+        long start = System.nanoTime();
+        boolean compact = bytes[0] != (byte) 0xAC;
+        try{
+            return compact ? readCompact(bytes) : jdkReader.convert(bytes);
+        }catch (IOException | RuntimeException e){
+            throw new SerializationException("Cannot deserialize session attribute", e);
+        }finally {
+            (compact ? compactReads : jdkReads).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static byte[] writeCompact(Object value){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try(DataOutputStream out = new DataOutputStream(bytes)){
+            switch (value){
+                case Long l -> {
+                    out.writeByte(LONG);
+                    out.writeLong(l);
+                }
+                case Integer i -> {
+                    out.writeByte(INTEGER);
+                    out.writeInt(i);
+                }
+                case String s -> {
+                    out.writeByte(STRING);
+                    out.writeUTF(s);
+                }
+                case SecurityContext context when compactUser(context) instanceof AuthenticatedUser user -> {
+                    out.writeByte(SECURITY_CONTEXT);
+                    out.writeLong(user.id());
+                    out.writeUTF(user.email());
+                    out.writeUTF(user.role());
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }catch (IOException e){
+            throw new SerializationException("Cannot serialize session attribute", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Only a context whose authentication can be rebuilt exactly from the user is written compactly.
+    private static AuthenticatedUser compactUser(SecurityContext context){
+        if(context.getClass() != SecurityContextImpl.class
+                || !(context.getAuthentication() instanceof UsernamePasswordAuthenticationToken auth)
+                || auth.getClass() != UsernamePasswordAuthenticationToken.class
+                || !auth.isAuthenticated() || auth.getCredentials() != null || auth.getDetails() != null
+                || !(auth.getPrincipal() instanceof AuthenticatedUser user)) return null;
+        return auth.getAuthorities().equals(authorities(user.role())) ? user : null;
+    }
+
+    private static List<GrantedAuthority> authorities(String role){
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    private static Object readCompact(byte[] bytes) throws IOException{
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        return switch (in.readByte()){
+            case LONG -> in.readLong();
+            case INTEGER -> in.readInt();
+            case STRING -> in.readUTF();
+            case SECURITY_CONTEXT -> {
+                AuthenticatedUser user = new AuthenticatedUser(in.readLong(), in.readUTF(), in.readUTF());
+                yield new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(user, null, authorities(user.role())));
+            }
+            default -> throw new IOException("Unknown session attribute tag " + bytes[0]);
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package com.project.code_judge.Config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Fair semaphore in front of the connection pool. With virtual threads every request can reach
+ * getConnection() at once; the permits queue them in arrival order instead of letting them all
+ * spin against the pool, and a permit is held until the connection is closed.
+ */
+public class GatedDataSource extends DelegatingDataSource {
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+
+    public GatedDataSource(DataSource target, int permits, long acquireTimeoutMs){
+        super(target);
+        this.permits = new Semaphore(permits, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try{
+            return gate(super.getConnection());
+        }catch (SQLException | RuntimeException e){
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try{
+            return gate(super.getConnection(username, password));
+        }catch (SQLException | RuntimeException e){
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getAvailablePermits(){
+        return permits.availablePermits();
+    }
+
+    public int getQueueLength(){
+        return permits.getQueueLength();
+    }
+
+    private void acquire() throws SQLException {
+        try{
+            if(!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)){
+                throw new SQLTransientConnectionException("Timed out after " + acquireTimeoutMs + " ms waiting for a database permit");
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a database permit", e);
+        }
+    }
+
+    private Connection gate(Connection connection){
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    boolean closing = method.getName().equals("close") && method.getParameterCount() == 0;
+                    try{
+                        return method.invoke(connection, args);
+                    }catch (InvocationTargetException e){
+                        throw e.getCause();
+                    }finally {
+                        if(closing && released.compareAndSet(false, true)) permits.release();
+                    }
+                });
+    }
+}
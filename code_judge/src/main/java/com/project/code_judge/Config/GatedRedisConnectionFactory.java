@@ -0,0 +1,100 @@
+package com.project.code_judge.Config;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.redis.connection.ReactiveRedisClusterConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * RedisGate in front of the Lettuce connection factory, so Spring Session and every RedisTemplate
+ * wait for a permit before reaching Redis. Templates open and close a connection per operation; the
+ * permit is held until the close. The reactive side is only there for Boot's auto-configuration and
+ * passes straight through.
+ */
+public class GatedRedisConnectionFactory implements RedisConnectionFactory, ReactiveRedisConnectionFactory {
+    private final LettuceConnectionFactory target;
+    private final RedisGate redisGate;
+
+    public GatedRedisConnectionFactory(LettuceConnectionFactory target, RedisGate redisGate){
+        this.target = target;
+        this.redisGate = redisGate;
+    }
+
+    @Override
+    public RedisConnection getConnection(){
+        acquire();
+        try{
+            return gate(target.getConnection(), RedisConnection.class);
+        }catch (RuntimeException e){
+            redisGate.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection(){
+        acquire();
+        try{
+            return gate(target.getClusterConnection(), RedisClusterConnection.class);
+        }catch (RuntimeException e){
+            redisGate.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection(){
+        return target.getSentinelConnection();
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults(){
+        return target.getConvertPipelineAndTxResults();
+    }
+
+    @Override
+    public ReactiveRedisConnection getReactiveConnection(){
+        return target.getReactiveConnection();
+    }
+
+    @Override
+    public ReactiveRedisClusterConnection getReactiveClusterConnection(){
+        return target.getReactiveClusterConnection();
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex){
+        return target.translateExceptionIfPossible(ex);
+    }
+
+    private void acquire(){
+        if(!redisGate.tryAcquire()){
+            throw new TransientDataAccessResourceException("Timed out after " + redisGate.getAcquireTimeoutMs() + " ms waiting for a Redis permit");
+        }
+    }
+
+    private <T> T gate(T connection, Class<T> type){
+        AtomicBoolean released = new AtomicBoolean();
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    boolean closing = method.getName().equals("close") && method.getParameterCount() == 0;
+                    try{
+                        return method.invoke(connection, args);
+                    }catch (InvocationTargetException e){
+                        throw e.getCause();
+                    }finally {
+                        if(closing && released.compareAndSet(false, true)) redisGate.release();
+                    }
+                }));
+    }
+}
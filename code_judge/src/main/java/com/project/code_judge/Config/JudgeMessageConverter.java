@@ -0,0 +1,86 @@
+package com.project.code_judge.Config;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+import org.springframework.core.ParameterizedTypeReference;
+import tools.jackson.core.JacksonException;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/*
+ * Converter for the submission/result protocol. Outgoing messages use the configured format;
+ * incoming messages are decoded according to their content type, so JSON and CBOR peers can
+ * be mixed during a rollout. Binary payloads start with a single wire version byte.
+ */
+public class JudgeMessageConverter implements SmartMessageConverter {
+    public static final String CONTENT_TYPE_CBOR = "application/cbor";
+    public static final byte WIRE_VERSION = 1;
+
+    public enum WireFormat {
+        JSON,
+        CBOR
+    }
+
+    private final WireFormat format;
+    private final JacksonJsonMessageConverter json = new JacksonJsonMessageConverter();
+    private final CBORMapper cbor = CBORMapper.builder().build();
+
+    public JudgeMessageConverter(WireFormat format){
+        this.format = format;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        if(format == WireFormat.JSON){
+            return json.toMessage(object, messageProperties);
+        }
+        try{
+            byte[] encoded = cbor.writeValueAsBytes(object);
+            byte[] body = new byte[encoded.length + 1];
+            body[0] = WIRE_VERSION;
+            System.arraycopy(encoded, 0, body, 1, encoded.length);
+            messageProperties.setContentType(CONTENT_TYPE_CBOR);
+            messageProperties.setContentLength(body.length);
+            return new Message(body, messageProperties);
+        }catch (JacksonException e){
+            throw new MessageConversionException("Failed to encode " + object.getClass().getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        return fromMessage(message, null);
+    }
+
+    @Override
+    public Object fromMessage(Message message, Object conversionHint) throws MessageConversionException {
+        MessageProperties properties = message.getMessageProperties();
+        if(!CONTENT_TYPE_CBOR.equals(properties.getContentType())){
+            // The JSON converter only honours ParameterizedTypeReference hints, not plain types.
+            Object hint = conversionHint instanceof Type type && !(conversionHint instanceof ParameterizedTypeReference<?>)
+                    ? ParameterizedTypeReference.forType(type) : conversionHint;
+            return json.fromMessage(message, hint);
+        }
+        byte[] body = message.getBody();
+        if(body.length == 0 || body[0] != WIRE_VERSION){
+            throw new MessageConversionException("Unsupported wire version: " + (body.length == 0 ? "empty" : body[0]));
+        }
+        try{
+            return cbor.readValue(body, 1, body.length - 1, cbor.constructType(targetType(properties, conversionHint)));
+        }catch (JacksonException e){
+            throw new MessageConversionException("Failed to decode CBOR payload", e);
+        }
+    }
+
+    private static Type targetType(MessageProperties properties, Object conversionHint){
+        if(conversionHint instanceof ParameterizedTypeReference<?> reference) return reference.getType();
+        if(conversionHint instanceof Type type) return type;
+        if(properties.getInferredArgumentType() != null) return properties.getInferredArgumentType();
+        return Map.class;
+    }
+}
@@ -1,17 +1,52 @@
 package com.project.code_judge.Config;
 
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Base64UrlNamingStrategy;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 
 @Configuration
 public class RabbitMQConfig {
     public static final String SUBMISSION_QUEUE = "submission_queue";
     public static final String RESULT_QUEUE = "result_queue";
+    public static final String SUBMISSION_SHARD_QUEUE_PREFIX = SUBMISSION_QUEUE + ".shard.";
+    public static final String RUN_QUEUE = "run_queue";
+    public static final String PROGRESS_QUEUE = "judge_progress";
+    // Heartbeats are only useful while fresh; must match PROGRESS_TTL_MS in main.cpp.
+    public static final int PROGRESS_TTL_MS = 30000;
+    public static final String WORKER_STATUS_EXCHANGE = "judge_workers";
+    // Per-node queue TTL; a report older than this is useless anyway.
+    public static final int WORKER_STATUS_TTL_MS = 30000;
+    public static final String RETRY_HEADER = "x-judge-retries";
+    public static final String ERROR_HEADER = "x-judge-error";
+    public static final String FAILED_AT_HEADER = "x-judge-failed-at";
+
+    public static String submissionShardQueue(int shard){
+        return SUBMISSION_SHARD_QUEUE_PREFIX + shard;
+    }
+
+    public static String retryQueue(String queue, int tier){
+        return queue + ".retry." + tier;
+    }
+
+    public static String deadLetterQueue(String queue){
+        return queue + ".dlq";
+    }
 
     @Bean
     public Queue submissionQueue(){
@@ -23,15 +58,87 @@ public class RabbitMQConfig {
         return new Queue(RESULT_QUEUE, true);
     }
 
+    // Messages nobody on the shard picks up in time are dead-lettered back to the shared queue.
+    @Bean
+    public Declarables submissionShardQueues(@Value("${judge.routing.shards:0}") int shards,
+                                             @Value("${judge.routing.shard-ttl-ms:5000}") int shardTtlMs){
+        List<Declarable> queues = new ArrayList<>();
+        for(int shard = 0; shard < shards; shard++){
+            queues.add(QueueBuilder.durable(submissionShardQueue(shard))
+                    .ttl(shardTtlMs)
+                    .deadLetterExchange("")
+                    .deadLetterRoutingKey(SUBMISSION_QUEUE)
+                    .build());
+        }
+        return new Declarables(queues);
+    }
+
+    // Retry tier N holds a failed message for the Nth delay, then dead-letters it back to its source
+    // queue. Arguments must match what the worker declares for submission_queue (see retry.cpp).
+    @Bean
+    public Declarables retryQueues(@Value("${judge.retry.delays-ms:5000,30000,120000}") int[] retryDelaysMs){
+        List<Declarable> queues = new ArrayList<>();
+        for(String queue : List.of(SUBMISSION_QUEUE, RESULT_QUEUE)){
+            for(int tier = 1; tier <= retryDelaysMs.length; tier++){
+                queues.add(QueueBuilder.durable(retryQueue(queue, tier))
+                        .ttl(retryDelaysMs[tier - 1])
+                        .deadLetterExchange("")
+                        .deadLetterRoutingKey(queue)
+                        .build());
+            }
+            queues.add(QueueBuilder.durable(deadLetterQueue(queue)).build());
+        }
+        return new Declarables(queues);
+    }
+
+    // Worker heartbeats that renew submission leases; losing some on a broker restart is harmless.
+    @Bean
+    public Queue progressQueue(){
+        return QueueBuilder.nonDurable(PROGRESS_QUEUE)
+                .ttl(PROGRESS_TTL_MS)
+                .build();
+    }
+
+    // Periodic slot usage reports from workers, fanned out so every API node sees every worker.
+    // Must match the exchange the worker declares (see report_status in main.cpp).
+    @Bean
+    public FanoutExchange workerStatusExchange(){
+        return new FanoutExchange(WORKER_STATUS_EXCHANGE, false, false);
+    }
+
+    // This node's copy of the reports; exclusive and auto-delete, so it goes away with the node.
+    // Only the latest report per worker matters.
+    @Bean
+    public Queue workerStatusQueue(){
+        return new AnonymousQueue(new Base64UrlNamingStrategy(WORKER_STATUS_EXCHANGE + "."),
+                Map.of("x-message-ttl", WORKER_STATUS_TTL_MS));
+    }
+
+    @Bean
+    public Binding workerStatusBinding(FanoutExchange workerStatusExchange, Queue workerStatusQueue){
+        return BindingBuilder.bind(workerStatusQueue).to(workerStatusExchange);
+    }
+
+    // Interactive runs: bounded and transient, a full queue rejects new runs instead of backing up.
+    @Bean
+    public Queue runQueue(@Value("${judge.run.max-queue-length:100}") int maxQueueLength){
+        return QueueBuilder.nonDurable(RUN_QUEUE)
+                .withArgument("x-max-length", maxQueueLength)
+                .overflow(QueueBuilder.Overflow.rejectPublish)
+                .build();
+    }
+
     @Bean
-    public JacksonJsonMessageConverter producerJackson2MessageConverter(){
-        return new JacksonJsonMessageConverter();
+    public JudgeMessageConverter judgeMessageConverter(@Value("${judge.wire.format:cbor}") String format){
+        return new JudgeMessageConverter(JudgeMessageConverter.WireFormat.valueOf(format.toUpperCase()));
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory){
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, JudgeMessageConverter judgeMessageConverter,
+                                         @Value("${judge.run.reply-timeout-ms:5000}") long replyTimeoutMs){
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(producerJackson2MessageConverter());
+        rabbitTemplate.setMessageConverter(judgeMessageConverter);
+        rabbitTemplate.setReplyTimeout(replyTimeoutMs);
         return rabbitTemplate;
     }
 }
@@ -1,8 +1,10 @@
 package com.project.code_judge.Config;
 
+import com.project.code_judge.Service.StatelessTokenService;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
 import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
 import io.lettuce.core.RedisClient;
@@ -15,14 +17,26 @@ import jakarta.annotation.PreDestroy;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
+@RequiredArgsConstructor
 public class RateLimitFilter implements Filter {
+    // Past this many clients the local poll buckets are dropped and start over full.
+    private static final int MAX_LOCAL_BUCKETS = 10_000;
+
+    private final RedisGate redisGate;
+    private final StatelessTokenService statelessTokenService;
+    private final Map<String, Bucket> pollBuckets = new ConcurrentHashMap<>();
 
     @Value("${spring.data.redis.host:localhost}")
     private String redisHost;
@@ -30,6 +44,12 @@ public class RateLimitFilter implements Filter {
     @Value("${spring.data.redis.port:6379}")
     private int redisPort;
 
+    @Value("${judge.run.rate-limit-per-minute:30}")
+    private int runsPerMinute;
+
+    @Value("${judge.auth.stateless-poll-rate-limit-per-minute:120}")
+    private int pollsPerMinute;
+
     private RedisClient redisClient;
     private StatefulRedisConnection<String, byte[]> connection;
     private LettuceBasedProxyManager<String> proxyManager;
@@ -49,35 +69,75 @@ public class RateLimitFilter implements Filter {
         if(redisClient != null) redisClient.shutdown();
     }
 
-    private Bucket resolveBucket(String key){
+    private Bucket resolveBucket(String key, int perMinute){
         BucketConfiguration config = BucketConfiguration.builder()
                 .addLimit(Bandwidth.builder()
-                        .capacity(10)
-                        .refillGreedy(10, Duration.ofMinutes(1))
+                        .capacity(perMinute)
+                        .refillGreedy(perMinute, Duration.ofMinutes(1))
                         .build())
                 .build();
         return proxyManager.builder().build(key, config);
     }
 
+    // Token-authenticated polls are limited per node in memory; a shared Redis bucket would put back
+    // the round trip the token exists to avoid.
+    private Bucket resolveLocalBucket(String key){
+        if(pollBuckets.size() >= MAX_LOCAL_BUCKETS) pollBuckets.clear();
+        return pollBuckets.computeIfAbsent(key, k -> Bucket.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(pollsPerMinute)
+                        .refillGreedy(pollsPerMinute, Duration.ofMinutes(1))
+                        .build())
+                .build());
+    }
+
+    private boolean isStatelessPoll(HttpServletRequest request, String path){
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return header != null && header.startsWith("Bearer ")
+                && HttpMethod.GET.matches(request.getMethod())
+                && statelessTokenService.coversPath(path);
+    }
+
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
         HttpServletRequest request = (HttpServletRequest) servletRequest;
         HttpServletResponse response = (HttpServletResponse) servletResponse;
         String path = request.getRequestURI();
-        boolean isRateLimited = path.startsWith("/api/submissions");
+        boolean isRun = path.startsWith("/api/run");
+        boolean isRateLimited = isRun || path.startsWith("/api/submissions");
         if(!isRateLimited){
             filterChain.doFilter(request, response);
             return;
         }
         String client = request.getRemoteAddr();
-        String bucketKey = "rate_limit:" + client;
-        Bucket bucket = resolveBucket(bucketKey);
-
-        var probe = bucket.tryConsumeAndReturnRemaining(1);
+        if(isStatelessPoll(request, path)){
+            reply(resolveLocalBucket(client).tryConsumeAndReturnRemaining(1), request, response, filterChain);
+            return;
+        }
+        // Runs get their own bucket so debugging does not eat into the submission allowance.
+        Bucket bucket = isRun
+                ? resolveBucket("rate_limit:run:" + client, runsPerMinute)
+                : resolveBucket("rate_limit:" + client, 10);
 
+        // Bounds in-flight Redis calls so a burst of (virtual) request threads queues here
+        // instead of piling onto the single shared connection.
+        if(!redisGate.tryAcquire()){
+            response.setStatus(503);
+            response.getWriter().write("Server busy. Please retry.");
+            return;
+        }
+        ConsumptionProbe probe;
+        try{
+            probe = bucket.tryConsumeAndReturnRemaining(1);
+        }finally {
+            redisGate.release();
+        }
+        reply(probe, request, response, filterChain);
+    }
 
+    private void reply(ConsumptionProbe probe, HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws IOException, ServletException {
         if(probe.isConsumed()){
-            response.addHeader("X-Rate-Limit-Remaining", String.valueOf(bucket.getAvailableTokens()));
+            response.addHeader("X-Rate-Limit-Remaining", String.valueOf(probe.getRemainingTokens()));
             filterChain.doFilter(request, response);
         }else{
             long waitForRefill = probe.getNanosToWaitForRefill() / 1_000_000_000;
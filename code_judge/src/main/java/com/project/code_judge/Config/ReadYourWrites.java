@@ -0,0 +1,69 @@
+package com.project.code_judge.Config;
+
+import com.project.code_judge.Util.StatelessToken;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.sql.SQLException;
+
+/*
+ * Remembers, per session, the primary WAL position after the user's last write. Later requests
+ * from that session only read from replicas that have replayed up to it. Does nothing when no
+ * replicas are configured.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReadYourWrites implements HandlerInterceptor {
+    static final String SESSION_ATTRIBUTE = "judge.readYourWritesLsn";
+    private static final ThreadLocal<Long> REQUIRED_LSN = new ThreadLocal<>();
+
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRouting;
+
+    public static long requiredLsn(){
+        Long lsn = REQUIRED_LSN.get();
+        return lsn == null ? 0 : lsn;
+    }
+
+    public void recordWrite(){
+        ReplicaRoutingDataSource routing = replicaRouting.getIfAvailable();
+        if(routing == null || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) return;
+        HttpSession session = attributes.getRequest().getSession(false);
+        if(session == null) return;
+        try{
+            long lsn = routing.currentPrimaryLsn();
+            if(session.getAttribute(SESSION_ATTRIBUTE) instanceof Long previous) lsn = Math.max(lsn, previous);
+            session.setAttribute(SESSION_ATTRIBUTE, lsn);
+            REQUIRED_LSN.set(lsn);
+        }catch (SQLException e){
+            log.warn("Could not record write position: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler){
+        // Stateless requests have no session; their token carries the position it was issued at.
+        if(request.getAttribute(StatelessTokenFilter.CLAIMS_ATTRIBUTE) instanceof StatelessToken.Claims claims){
+            if(claims.lsn() > 0) REQUIRED_LSN.set(claims.lsn());
+            return true;
+        }
+        HttpSession session = request.getSession(false);
+        if(session != null && session.getAttribute(SESSION_ATTRIBUTE) instanceof Long lsn){
+            REQUIRED_LSN.set(lsn);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex){
+        REQUIRED_LSN.remove();
+    }
+}
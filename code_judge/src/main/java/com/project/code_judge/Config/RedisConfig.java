@@ -1,10 +1,12 @@
 package com.project.code_judge.Config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.JacksonJsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.session.data.redis.config.annotation.web.http.EnableRedisHttpSession;
 
@@ -25,4 +27,10 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    // Picked up by Spring Session by name for every session attribute it stores.
+    @Bean
+    public RedisSerializer<Object> springSessionDefaultRedisSerializer(MeterRegistry meterRegistry){
+        return new CompactSessionSerializer(meterRegistry);
+    }
 }
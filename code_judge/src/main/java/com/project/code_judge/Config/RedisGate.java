@@ -0,0 +1,50 @@
+package com.project.code_judge.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Fair semaphore bounding in-flight Redis calls. The rate limiter's own Lettuce client always goes
+ * through it; in virtual-thread mode GatedRedisConnectionFactory puts sessions, leases and the
+ * scaling counter behind the same permits.
+ */
+@Component
+public class RedisGate {
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+
+    public RedisGate(@Value("${judge.gate.redis-permits:64}") int permits,
+                     @Value("${judge.gate.redis-acquire-timeout-ms:2000}") long acquireTimeoutMs){
+        this.permits = new Semaphore(permits, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    // False when no permit came free within the timeout.
+    public boolean tryAcquire(){
+        try{
+            return permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release(){
+        permits.release();
+    }
+
+    public long getAcquireTimeoutMs(){
+        return acquireTimeoutMs;
+    }
+
+    public int getAvailablePermits(){
+        return permits.availablePermits();
+    }
+
+    public int getQueueLength(){
+        return permits.getQueueLength();
+    }
+}
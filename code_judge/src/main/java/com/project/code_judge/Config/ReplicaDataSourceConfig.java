@@ -0,0 +1,79 @@
+package com.project.code_judge.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Active when judge.datasource.replicas lists one or more replica JDBC URLs. Read-only
+ * transactions then go to ReplicaRoutingDataSource; everything else stays on the primary.
+ * The proxy fetches the physical connection lazily, after the transaction has marked it
+ * read-only, which is what lets it pick the side.
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnExpression("!'${judge.datasource.replicas:}'.isBlank()")
+public class ReplicaDataSourceConfig implements WebMvcConfigurer {
+    private final ReadYourWrites readYourWrites;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties){
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                             DataSourceProperties properties,
+                                                             @Value("${judge.datasource.replicas}") String replicaUrls,
+                                                             @Value("${judge.datasource.replica-pool-size:10}") int poolSize,
+                                                             @Value("${judge.datasource.replica-max-lag-bytes:16777216}") long maxLagBytes){
+        List<HikariDataSource> replicas = Arrays.stream(replicaUrls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> replica(properties, url, poolSize))
+                .toList();
+        return new ReplicaRoutingDataSource(primary, replicas, maxLagBytes);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary, ReplicaRoutingDataSource replicaRoutingDataSource){
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(replicaRoutingDataSource);
+        return proxy;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry){
+        registry.addInterceptor(readYourWrites);
+    }
+
+    private static HikariDataSource replica(DataSourceProperties properties, String url, int poolSize){
+        HikariDataSource replica = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        replica.setPoolName("replica-" + url.substring(url.lastIndexOf('/') + 1));
+        replica.setMaximumPoolSize(poolSize);
+        replica.setReadOnly(true);
+        // Fail over to the primary quickly instead of waiting on an unreachable replica.
+        replica.setConnectionTimeout(1000);
+        replica.setInitializationFailTimeout(-1);
+        return replica;
+    }
+}
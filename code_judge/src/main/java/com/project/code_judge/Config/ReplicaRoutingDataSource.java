@@ -0,0 +1,145 @@
+package com.project.code_judge.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Read-only side of the LazyConnectionDataSourceProxy: hands out connections from a healthy
+ * streaming replica, round robin, or from the primary when none qualifies.
+ *
+ * A replica qualifies when its last health check succeeded, it is still in recovery, it is
+ * within maxLagBytes of the primary and it has replayed at least the LSN the current request
+ * requires (see ReadYourWrites). LSNs come from the periodic check, so they only ever
+ * under-estimate how far a replica has got.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+    private static final int CHECK_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagBytes;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile long primaryLsn;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, long maxLagBytes){
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxLagBytes = maxLagBytes;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = choose(ReadYourWrites.requiredLsn());
+        if(replica == null) return primary.getConnection();
+        try{
+            return replica.dataSource.getConnection();
+        }catch (SQLException e){
+            replica.markDown(e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Scheduled(fixedDelayString = "${judge.datasource.replica-check-ms:2000}")
+    public void checkReplicas(){
+        try{
+            primaryLsn = currentPrimaryLsn();
+        }catch (SQLException e){
+            log.warn("Could not read primary WAL position: {}", e.getMessage());
+        }
+        for(Replica replica : replicas){
+            replica.check();
+        }
+    }
+
+    public long currentPrimaryLsn() throws SQLException {
+        try(Connection connection = primary.getConnection();
+            Statement statement = connection.createStatement()){
+            statement.setQueryTimeout(CHECK_TIMEOUT_SECONDS);
+            try(ResultSet rs = statement.executeQuery("SELECT pg_current_wal_lsn()::text")){
+                rs.next();
+                return parseLsn(rs.getString(1));
+            }
+        }
+    }
+
+    private Replica choose(long requiredLsn){
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for(int i = 0; i < size; i++){
+            Replica replica = replicas.get((start + i) % size);
+            if(replica.healthy && replica.replayLsn >= requiredLsn && primaryLsn - replica.replayLsn <= maxLagBytes){
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    // pg_lsn text is "hi/lo" in hex, each half 32 bits.
+    static long parseLsn(String lsn){
+        if(lsn == null) return 0;
+        int slash = lsn.indexOf('/');
+        return (Long.parseLong(lsn.substring(0, slash), 16) << 32) | Long.parseLong(lsn.substring(slash + 1), 16);
+    }
+
+    @Override
+    public void destroy(){
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long replayLsn;
+
+        private Replica(HikariDataSource dataSource){
+            this.dataSource = dataSource;
+        }
+
+        private void check(){
+            try(Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()){
+                statement.setQueryTimeout(CHECK_TIMEOUT_SECONDS);
+                try(ResultSet rs = statement.executeQuery("SELECT pg_is_in_recovery(), pg_last_wal_replay_lsn()::text")){
+                    rs.next();
+                    boolean inRecovery = rs.getBoolean(1);
+                    String lsn = rs.getString(2);
+                    if(!inRecovery || lsn == null){
+                        markDown("not replaying WAL from the primary");
+                        return;
+                    }
+                    replayLsn = parseLsn(lsn);
+                    if(!healthy) log.info("Replica {} is up at LSN {}", dataSource.getJdbcUrl(), lsn);
+                    healthy = true;
+                }
+            }catch (SQLException e){
+                markDown(e);
+            }
+        }
+
+        private void markDown(SQLException e){
+            markDown(e.getMessage());
+        }
+
+        private void markDown(String reason){
+            if(healthy) log.warn("Replica {} is down, reads fall back to the primary: {}", dataSource.getJdbcUrl(), reason);
+            healthy = false;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.project.code_judge.Config;
+
+import com.project.code_judge.Dto.AuthenticatedUser;
+import com.project.code_judge.Service.StatelessTokenService;
+import com.project.code_judge.Util.StatelessToken;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/*
+ * Authenticates GETs on judge.auth.stateless-paths from an "Authorization: Bearer" token instead
+ * of the session. Such requests never load or create a session, and RateLimitFilter limits them
+ * with a per-node in-memory bucket, so a status poll makes no Redis call at all. Requests without
+ * a bearer token fall through to the session as usual.
+ */
+@RequiredArgsConstructor
+public class StatelessTokenFilter extends OncePerRequestFilter {
+    public static final String CLAIMS_ATTRIBUTE = "judge.statelessClaims";
+    private static final String BEARER = "Bearer ";
+
+    private final StatelessTokenService tokenService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request){
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return header == null || !header.startsWith(BEARER)
+                || !HttpMethod.GET.matches(request.getMethod())
+                || !tokenService.coversPath(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException{
+        Optional<StatelessToken.Claims> verified = tokenService.verify(request.getHeader(HttpHeaders.AUTHORIZATION).substring(BEARER.length()).trim());
+        if(verified.isEmpty()){
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        StatelessToken.Claims claims = verified.get();
+        AuthenticatedUser principal = new AuthenticatedUser(claims.userId(), claims.email(), claims.role());
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, List.of(new SimpleGrantedAuthority("ROLE_" + claims.role()))));
+        SecurityContextHolder.setContext(context);
+        request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+        try{
+            chain.doFilter(new SessionlessRequest(request), response);
+        }finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // Keeps the security context out of the session store and fails loudly if anything downstream needs a session.
+    private static final class SessionlessRequest extends HttpServletRequestWrapper {
+        SessionlessRequest(HttpServletRequest request){
+            super(request);
+        }
+
+        @Override
+        public HttpSession getSession(){
+            return getSession(true);
+        }
+
+        @Override
+        public HttpSession getSession(boolean create){
+            if(create) throw new IllegalStateException("Stateless request cannot create a session");
+            return null;
+        }
+    }
+}
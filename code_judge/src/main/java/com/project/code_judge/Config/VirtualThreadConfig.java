@@ -0,0 +1,50 @@
+package com.project.code_judge.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+/*
+ * Active when spring.threads.virtual.enabled=true. Boot then runs Tomcat requests, the
+ * @RabbitListener containers and @Scheduled jobs on virtual threads; this adds the gates that
+ * keep them from stampeding the primary connection pool and Redis.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor gatedDataSourcePostProcessor(
+            @Value("${judge.gate.db-permits:10}") int permits,
+            @Value("${judge.gate.db-acquire-timeout-ms:30000}") long acquireTimeoutMs){
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName){
+                if(bean instanceof HikariDataSource pool){
+                    return new GatedDataSource(pool, permits, acquireTimeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Looked up lazily so the gate bean is not created ahead of the other post-processors.
+    @Bean
+    public static BeanPostProcessor gatedRedisConnectionFactoryPostProcessor(ObjectProvider<RedisGate> redisGate){
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName){
+                if(bean instanceof LettuceConnectionFactory factory){
+                    return new GatedRedisConnectionFactory(factory, redisGate.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
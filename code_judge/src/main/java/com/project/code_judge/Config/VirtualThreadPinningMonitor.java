@@ -0,0 +1,72 @@
+package com.project.code_judge.Config;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/*
+ * Streams jdk.VirtualThreadPinned from JFR and logs where a virtual thread blocked while pinned to
+ * its carrier. Since JDK 24 (JEP 491) synchronized no longer pins, so on the Java 25 target this
+ * mostly reports native frames and class initialisation; on JDK 21 it also catches monitors.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int REPORTED_FRAMES = 8;
+
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private RecordingStream stream;
+
+    @Value("${judge.virtual-threads.pinned-threshold-ms:20}")
+    private long thresholdMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start(){
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::report);
+        stream.startAsync();
+        log.info("Virtual threads enabled; reporting pinning longer than {} ms", thresholdMs);
+    }
+
+    public long getPinnedEvents(){
+        return pinnedEvents.get();
+    }
+
+    private void report(RecordedEvent event){
+        pinnedEvents.incrementAndGet();
+        log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), describe(event.getStackTrace()));
+    }
+
+    private static String describe(RecordedStackTrace stackTrace){
+        if(stackTrace == null) return "<no stack trace>";
+        return stackTrace.getFrames().stream()
+                .limit(REPORTED_FRAMES)
+                .map(VirtualThreadPinningMonitor::describe)
+                .collect(Collectors.joining(" <- "));
+    }
+
+    private static String describe(RecordedFrame frame){
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    @PreDestroy
+    public void stop(){
+        if(stream != null) stream.close();
+    }
+}
@@ -0,0 +1,143 @@
+package com.project.code_judge.Controller;
+
+import com.project.code_judge.Dto.AttachmentResponse;
+import com.project.code_judge.Exception.ResourceNotFoundException;
+import com.project.code_judge.Service.AttachmentService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.apache.catalina.Globals;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/*
+ * Attachments are written straight from the file to the socket. On Tomcat's NIO connector the
+ * response is handed to sendfile once the handler returns, so the bytes never enter the JVM; where
+ * sendfile is unavailable (TLS terminated by Tomcat, other containers) FileChannel.transferTo
+ * copies them without going through Spring's message converters.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api")
+public class AttachmentController {
+    // Below this size a plain write is cheaper than setting up sendfile; the same cut-off as Tomcat's DefaultServlet.
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private final AttachmentService attachmentService;
+
+    @Value("${judge.attachments.max-age-seconds:3600}")
+    private long maxAgeSeconds;
+
+    @GetMapping("/problems/{id}/attachments")
+    public ResponseEntity<List<AttachmentResponse>> list(@PathVariable Long id){
+        return ResponseEntity.ok(attachmentService.list(id));
+    }
+
+    /*
+     * `v` is the content version from the attachment's url; when it matches, the response may be
+     * cached for a year. Supports If-None-Match, single byte ranges and If-Range.
+     */
+    @GetMapping("/problems/{id}/attachments/{name}")
+    public void serve(@PathVariable Long id, @PathVariable String name, @RequestParam(required = false) String v,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AttachmentService.Stored stored = find(id, name);
+        if(!Files.exists(stored.file())){
+            // Replaced or deleted through another instance since it was cached.
+            attachmentService.evict(id, name);
+            stored = find(id, name);
+        }
+
+        try(FileChannel channel = FileChannel.open(stored.file(), StandardOpenOption.READ)){
+            String etag = "\"" + stored.sha256() + "\"";
+            boolean pinned = v != null && v.length() >= 8 && stored.sha256().startsWith(v);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, pinned ? IMMUTABLE : "public, max-age=" + maxAgeSeconds);
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if(new ServletWebRequest(request, response).checkNotModified(etag)) return;
+
+            long size = stored.size();
+            long start = 0, end = size;
+            String range = request.getHeader(HttpHeaders.RANGE);
+            String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+            List<HttpRange> ranges = range == null || (ifRange != null && !ifRange.equals(etag)) ? List.of() : parseRanges(range);
+            // Several ranges would need a multipart body; answering with the whole file is allowed instead.
+            if(ranges.size() == 1){
+                start = ranges.getFirst().getRangeStart(size);
+                end = ranges.getFirst().getRangeEnd(size) + 1;
+                if(start >= size || end <= start){
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+            }
+
+            response.setContentType(stored.contentType());
+            response.setContentLengthLong(end - start);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition(stored).toString());
+            response.setHeader("X-Content-Type-Options", "nosniff");
+            // Uploaded HTML or SVG must not run scripts with the site's origin.
+            response.setHeader("Content-Security-Policy", "sandbox");
+            if("HEAD".equals(request.getMethod()) || start == end) return;
+
+            if(end - start >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))){
+                request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, stored.file().toString());
+                request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, start);
+                request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, end);
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            for(long position = start; position < end; ){
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    @PostMapping("/admin/problems/{id}/attachments")
+    public ResponseEntity<AttachmentResponse> upload(@PathVariable Long id, @RequestParam("file") MultipartFile file,
+                                                     @RequestParam(required = false) String name) throws IOException {
+        return ResponseEntity.ok(attachmentService.store(id, name, file));
+    }
+
+    @DeleteMapping("/admin/problems/{id}/attachments/{name}")
+    public ResponseEntity<Void> delete(@PathVariable Long id, @PathVariable String name){
+        attachmentService.delete(id, name);
+        return ResponseEntity.noContent().build();
+    }
+
+    private AttachmentService.Stored find(Long id, String name){
+        return attachmentService.find(id, name).orElseThrow(() -> new ResourceNotFoundException("Attachment not found"));
+    }
+
+    // A malformed Range header is ignored rather than rejected.
+    private static List<HttpRange> parseRanges(String header){
+        try{
+            return HttpRange.parseRanges(header);
+        }catch (IllegalArgumentException e){
+            return List.of();
+        }
+    }
+
+    // Images, PDFs and text open in the browser; anything else is downloaded.
+    private static ContentDisposition disposition(AttachmentService.Stored stored){
+        String type = stored.contentType();
+        boolean inline = type.startsWith("image/") || type.startsWith("text/plain") || type.equals("application/pdf");
+        return (inline ? ContentDisposition.inline() : ContentDisposition.attachment()).filename(stored.name()).build();
+    }
+}
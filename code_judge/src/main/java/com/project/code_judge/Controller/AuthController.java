@@ -1,5 +1,7 @@
 package com.project.code_judge.Controller;
 
+import com.project.code_judge.Config.ReadYourWrites;
+import com.project.code_judge.Dto.AuthenticatedUser;
 import com.project.code_judge.Dto.LoginResponse;
 import com.project.code_judge.Dto.RegisterUser;
 import com.project.code_judge.Dto.UserLogin;
@@ -8,22 +10,20 @@ import com.project.code_judge.Entity.User;
 import com.project.code_judge.Repository.UserRepository;
 import com.project.code_judge.Service.AuthService;
 import com.project.code_judge.Service.OAuthService;
+import com.project.code_judge.Service.StatelessTokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import jakarta.transaction.Transactional;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Collection;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -34,35 +34,28 @@ public class AuthController {
     private final UserRepository userRepository;
     private final AuthenticationManager authenticationManager;
     private final OAuthService oAuthService;
+    private final StatelessTokenService statelessTokenService;
 
     @PostMapping("/register")
     @Transactional
     public ResponseEntity<UserResponse> registerUser(@RequestBody RegisterUser dto, HttpServletRequest request){
         UserResponse userResponse = authService.registerUser(dto);
-        Authentication auth = authService.authenticate(
+        authService.authenticate(
                 new UserLogin(dto.getEmail(), dto.getPassword())
         );
-        SecurityContextHolder.getContext().setAuthentication(auth);
-
-        request.getSession(true).setAttribute(
-                HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
-                SecurityContextHolder.getContext()
-        );
+        User user = userRepository.findByEmail(dto.getEmail()).orElseThrow();
+        storeInSession(authService.sessionAuthentication(user), request);
         return ResponseEntity.ok(userResponse);
     }
 
     @PostMapping("/login")
     public ResponseEntity<LoginResponse> login(@RequestBody UserLogin dto, HttpServletRequest request){
-        Authentication authentication = authenticationManager.authenticate(
+        authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(dto.getEmail(), dto.getPassword())
         );
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-
-        HttpSession session = request.getSession(true);
-        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, SecurityContextHolder.getContext());
-
         User user = userRepository.findByEmail(dto.getEmail()).orElseThrow();
+        storeInSession(authService.sessionAuthentication(user), request);
         return ResponseEntity.ok(new LoginResponse(user.getUsername(), user.getEmail()));
     }
 
@@ -72,20 +65,28 @@ public class AuthController {
 
         User user  = oAuthService.googleLogin(token);
 
-        Collection<GrantedAuthority> authorities = user.getRole() != null
-            ? List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
-            : List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        storeInSession(authService.sessionAuthentication(user), request);
 
-        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null, authorities);
+        return ResponseEntity.ok(new UserResponse(user.getUsername(), user.getEmail()));
+    }
 
-        SecurityContextHolder.getContext().setAuthentication(auth);
+    // Signed token for polling submission status without the session; see judge.auth.stateless-token.enabled.
+    @PostMapping("/token")
+    public ResponseEntity<Map<String, String>> statelessToken(){
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if(!statelessTokenService.isEnabled()) throw new IllegalArgumentException("Stateless tokens are disabled");
+        if(authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(Map.of("token", statelessTokenService.issue(user, ReadYourWrites.requiredLsn())));
+    }
 
+    private void storeInSession(Authentication authentication, HttpServletRequest request){
+        SecurityContextHolder.getContext().setAuthentication(authentication);
         request.getSession(true).setAttribute(
                 HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
                 SecurityContextHolder.getContext()
         );
-
-        return ResponseEntity.ok(new UserResponse(user.getUsername(), user.getEmail()));
     }
 
 
@@ -0,0 +1,34 @@
+package com.project.code_judge.Controller;
+
+import com.project.code_judge.Dto.DeadLetter;
+import com.project.code_judge.Service.DeadLetterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin/dead-letters")
+public class DeadLetterController {
+    private final DeadLetterService deadLetterService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Long>> counts(){
+        return ResponseEntity.ok(deadLetterService.counts());
+    }
+
+    @GetMapping("/{queue}")
+    public ResponseEntity<List<DeadLetter>> peek(@PathVariable String queue, @RequestParam(defaultValue = "20") int limit){
+        return ResponseEntity.ok(deadLetterService.peek(queue, limit));
+    }
+
+    @PostMapping("/{queue}/replay")
+    public ResponseEntity<Map<String, Integer>> replay(@PathVariable String queue,
+                                                       @RequestParam(required = false) String id,
+                                                       @RequestParam(defaultValue = "100") int limit){
+        return ResponseEntity.ok(Map.of("replayed", deadLetterService.replay(queue, id, limit)));
+    }
+}
@@ -0,0 +1,25 @@
+package com.project.code_judge.Controller;
+
+import com.project.code_judge.Dto.JournalBatch;
+import com.project.code_judge.Service.VerdictJournalService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin/journal")
+public class JournalController {
+    private final VerdictJournalService verdictJournalService;
+
+    // Tail the journal by passing each response's nextOffset back as `from`; waitMs long-polls for new events.
+    @GetMapping
+    public ResponseEntity<JournalBatch> read(@RequestParam(defaultValue = "0") long from,
+                                             @RequestParam(defaultValue = "500") int limit,
+                                             @RequestParam(defaultValue = "0") long waitMs){
+        return ResponseEntity.ok(verdictJournalService.read(from, Math.min(limit, 5000), waitMs));
+    }
+}
@@ -0,0 +1,36 @@
+package com.project.code_judge.Controller;
+
+import com.project.code_judge.Dto.SimilarityCluster;
+import com.project.code_judge.Service.PlagiarismService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin/plagiarism")
+public class PlagiarismController {
+    private final PlagiarismService plagiarismService;
+
+    @GetMapping("/problems/{problemId}")
+    public ResponseEntity<List<SimilarityCluster>> getClusters(@PathVariable Long problemId,
+                                                               @RequestParam(defaultValue = "0.8") double threshold,
+                                                               @RequestParam(defaultValue = "false") boolean includeSameUser){
+        return ResponseEntity.ok(plagiarismService.clusters(problemId, threshold, includeSameUser));
+    }
+
+    @GetMapping("/submissions/{id}")
+    public ResponseEntity<List<SimilarityCluster.Match>> getSimilar(@PathVariable UUID id,
+                                                                    @RequestParam(defaultValue = "0.8") double threshold){
+        return ResponseEntity.ok(plagiarismService.similarTo(id, threshold));
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuild(@RequestParam(required = false) Long problemId){
+        return ResponseEntity.ok(Map.of("indexed", plagiarismService.rebuild(problemId)));
+    }
+}
@@ -1,6 +1,9 @@
 package com.project.code_judge.Controller;
 
+import com.project.code_judge.Dto.ProblemSearchResult;
+import com.project.code_judge.Entity.Difficulty;
 import com.project.code_judge.Entity.Problem;
+import com.project.code_judge.Service.ProblemSearchService;
 import com.project.code_judge.Service.ProblemService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -9,6 +12,7 @@ import com.project.code_judge.Dto.CreateProblem;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api")
@@ -17,6 +21,8 @@ public class ProblemController {
     @Autowired
     ProblemService problemService;
 
+    @Autowired
+    ProblemSearchService problemSearchService;
 
     @PostMapping("/admin/problems")
     public ResponseEntity<Problem> createProblem(@RequestBody CreateProblem dto){
@@ -24,6 +30,23 @@ public class ProblemController {
         return ResponseEntity.ok(created);
     }
 
+    @PutMapping("/admin/problems/{id}")
+    public ResponseEntity<Problem> updateProblem(@PathVariable Long id, @RequestBody CreateProblem dto){
+        return ResponseEntity.ok(problemService.updateProblem(id, dto));
+    }
+
+    @GetMapping("/problems/search")
+    public ResponseEntity<List<ProblemSearchResult>> searchProblems(@RequestParam(defaultValue = "") String q,
+                                                                    @RequestParam(required = false) Set<Difficulty> difficulty,
+                                                                    @RequestParam(required = false) Double minTimeLimit,
+                                                                    @RequestParam(required = false) Double maxTimeLimit,
+                                                                    @RequestParam(required = false) Integer minMemoryLimit,
+                                                                    @RequestParam(required = false) Integer maxMemoryLimit,
+                                                                    @RequestParam(defaultValue = "20") int limit){
+        return ResponseEntity.ok(problemSearchService.search(q, difficulty, minTimeLimit, maxTimeLimit,
+                minMemoryLimit, maxMemoryLimit, limit));
+    }
+
     @GetMapping("/problems/")
     public ResponseEntity<List<Problem>> getProblems(){
         return ResponseEntity.ok(problemService.getAllProblems());
@@ -0,0 +1,44 @@
+package com.project.code_judge.Controller;
+
+import com.project.code_judge.Dto.ProblemImportProgress;
+import com.project.code_judge.Service.ProblemImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin/problems/import")
+public class ProblemImportController {
+    private final ProblemImportService problemImportService;
+
+    @PostMapping
+    public ResponseEntity<ProblemImportProgress> start(@RequestParam("file") MultipartFile file) throws IOException {
+        ProblemImportProgress progress = problemImportService.start(file);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Location", "/api/admin/problems/import/" + progress.getId())
+                .body(progress);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ProblemImportProgress> get(@PathVariable String id){
+        return ResponseEntity.ok(problemImportService.get(id));
+    }
+
+    // Server-sent "progress" events carrying the import state; the stream ends once it is COMPLETED or FAILED.
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable String id){
+        return problemImportService.events(id);
+    }
+}
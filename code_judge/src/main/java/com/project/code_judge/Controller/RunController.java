@@ -0,0 +1,21 @@
+package com.project.code_judge.Controller;
+
+import com.project.code_judge.Dto.RunRequest;
+import com.project.code_judge.Dto.RunResult;
+import com.project.code_judge.Service.RunService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/run")
+public class RunController {
+    private final RunService runService;
+
+    @PostMapping
+    public ResponseEntity<RunResult> run(@Valid @RequestBody RunRequest request){
+        return ResponseEntity.ok(runService.run(request));
+    }
+}
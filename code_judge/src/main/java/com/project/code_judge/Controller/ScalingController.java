@@ -0,0 +1,29 @@
+package com.project.code_judge.Controller;
+
+import com.project.code_judge.Dto.ScalingStatus;
+import com.project.code_judge.Service.ScalingService;
+import com.project.code_judge.Util.CapacitySimulator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin/scaling")
+public class ScalingController {
+    private final ScalingService scalingService;
+
+    @GetMapping
+    public ResponseEntity<ScalingStatus> getRecommendation(){
+        return ResponseEntity.ok(scalingService.getStatus());
+    }
+
+    @PostMapping("/simulate")
+    public ResponseEntity<CapacitySimulator.Result> simulate(@RequestParam("file") MultipartFile trace,
+                                                             @RequestParam(required = false) Long tickMs,
+                                                             @RequestParam(defaultValue = "15000") long startupMs,
+                                                             @RequestParam(required = false) Integer initialWorkers){
+        return ResponseEntity.ok(scalingService.simulate(trace, tickMs, startupMs, initialWorkers));
+    }
+}
@@ -0,0 +1,38 @@
+package com.project.code_judge.Controller;
+
+import com.project.code_judge.Entity.Verdict;
+import com.project.code_judge.Service.SubmissionExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin/submissions")
+public class SubmissionExportController {
+    private final SubmissionExportService submissionExportService;
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format,
+                                                        @RequestParam(required = false) Long problemId,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                        @RequestParam(required = false) Verdict verdict,
+                                                        @RequestParam(defaultValue = "false") boolean includeCode){
+        SubmissionExportService.Format exportFormat = SubmissionExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        SubmissionExportService.Filter filter = new SubmissionExportService.Filter(problemId, from, to, verdict, includeCode);
+        String filename = "submissions" + (problemId == null ? "" : "-" + problemId) + "." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(out -> submissionExportService.export(filter, exportFormat, out));
+    }
+}
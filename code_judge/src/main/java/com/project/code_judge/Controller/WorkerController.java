@@ -0,0 +1,23 @@
+package com.project.code_judge.Controller;
+
+import com.project.code_judge.Dto.WorkerStatus;
+import com.project.code_judge.Service.WorkerRegistryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin/workers")
+public class WorkerController {
+    private final WorkerRegistryService workerRegistryService;
+
+    @GetMapping
+    public ResponseEntity<List<WorkerStatus>> getWorkers(){
+        return ResponseEntity.ok(workerRegistryService.getWorkers());
+    }
+}
@@ -1,7 +1,10 @@
 package com.project.code_judge.Dto;
 
+import lombok.Getter;
+
 import java.time.LocalDateTime;
 
+@Getter
 public class ApiError {
     private LocalDateTime timestamp;
     private int status;
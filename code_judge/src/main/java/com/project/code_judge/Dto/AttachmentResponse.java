@@ -0,0 +1,20 @@
+package com.project.code_judge.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttachmentResponse {
+    private String name;
+    private String contentType;
+    private long size;
+    private String sha256;
+    // Includes a content version, so responses to it may be cached for good.
+    private String url;
+    private LocalDateTime uploadedAt;
+}
@@ -0,0 +1,17 @@
+package com.project.code_judge.Dto;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.io.Serializable;
+
+/*
+ * Principal of a logged-in user. It holds only what requests need, so the session stores a few
+ * bytes and ownership checks need no user lookup. getName() is the email, as before. It stays
+ * Serializable for contexts the compact session codec hands to JDK serialization.
+ */
+public record AuthenticatedUser(long id, String email, String role) implements AuthenticatedPrincipal, Serializable {
+    @Override
+    public String getName(){
+        return email;
+    }
+}
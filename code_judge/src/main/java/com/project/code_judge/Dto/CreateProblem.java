@@ -1,9 +1,11 @@
 package com.project.code_judge.Dto;
 
+import com.project.code_judge.Entity.CompareMode;
 import com.project.code_judge.Entity.Difficulty;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.Data;
 
 @Data
@@ -21,4 +23,8 @@ public class CreateProblem {
     private Double timeLimitSeconds;
     @Min(value = 64, message = "Memory limit must be at least 64Mb")
     private Integer memoryLimitMb;
+
+    private CompareMode compareMode;
+    @Positive(message = "Float tolerance must be positive")
+    private Double floatTolerance;
 }
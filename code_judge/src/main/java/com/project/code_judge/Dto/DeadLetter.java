@@ -0,0 +1,18 @@
+package com.project.code_judge.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeadLetter {
+    private String id;
+    private String sourceQueue;
+    private int retries;
+    private String error;
+    private String failedAt;
+    private String contentType;
+    private Object payload;
+}
@@ -8,6 +8,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -22,5 +24,16 @@ public class ExecutionResult {
     @JsonProperty
     private Long memory_kb;
 
+    @JsonProperty
+    private Long judge_ms;
+
+    // "hit" or "miss" when the worker went through its compile cache.
+    @JsonProperty
+    private String compile_cache;
+
     private String error;
+
+    // Only set for problems with subtasks.
+    private Integer score;
+    private List<GroupResult> groups;
 }
@@ -0,0 +1,20 @@
+package com.project.code_judge.Dto;
+
+import com.project.code_judge.Entity.Verdict;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Outcome of one subtask. test is the first failing test number, or null when the group passed.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GroupResult {
+    private String name;
+    private Integer points;
+    private Integer score;
+    private Verdict verdict;
+    private Integer test;
+}
@@ -0,0 +1,17 @@
+package com.project.code_judge.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JournalBatch {
+    private List<JournalEvent> events;
+    // Pass as `from` to continue after these events.
+    private long nextOffset;
+    private long endOffset;
+}
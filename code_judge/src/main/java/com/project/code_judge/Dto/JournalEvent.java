@@ -0,0 +1,38 @@
+package com.project.code_judge.Dto;
+
+import com.project.code_judge.Entity.SubmissionStatus;
+import com.project.code_judge.Entity.Verdict;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// One submission state change as recorded in the verdict journal, with the submission's state after it.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JournalEvent {
+    public enum Type {
+        SUBMITTED,
+        JUDGED,
+        // A result replaced an earlier final verdict.
+        REJUDGED,
+        // Sent back to the judge, e.g. a dead-lettered submission being replayed.
+        REQUEUED
+    }
+
+    private long offset;
+    private Type type;
+    private Instant time;
+    private UUID submissionId;
+    private Long userId;
+    private Long problemId;
+    private String language;
+    private SubmissionStatus status;
+    private Verdict verdict;
+    private Integer score;
+    private Long timeTaken;
+    private Long memoryUsed;
+}
@@ -0,0 +1,22 @@
+package com.project.code_judge.Dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JudgeProgress {
+    public static final String PHASE_RETRY = "retry";
+
+    private String id;
+    // "started", "compiled", "test" or "retry"
+    private String phase;
+    private Integer test;
+
+    // For "retry": how long the submission sits in the retry tier before it is queued again.
+    @JsonProperty
+    private Long extend_ms;
+}
@@ -0,0 +1,34 @@
+package com.project.code_judge.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// State of a bulk problem import, as returned by the import endpoints and sent on its event stream.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProblemImportProgress {
+    public enum Phase {
+        QUEUED,
+        // Problems are being extracted and validated.
+        PREPARING,
+        // Every problem passed; rows are being inserted and test data moved into place.
+        PUBLISHING,
+        COMPLETED,
+        // Nothing was published.
+        FAILED
+    }
+
+    private String id;
+    private Phase phase;
+    private int total;
+    private int prepared;
+    // Package directory of the problem that finished preparing last.
+    private String current;
+    // Problem ids in package order, once COMPLETED.
+    private List<Long> problemIds;
+    private List<String> errors;
+}
@@ -0,0 +1,19 @@
+package com.project.code_judge.Dto;
+
+import com.project.code_judge.Entity.Difficulty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProblemSearchResult {
+    private Long id;
+    private String title;
+    private String slug;
+    private Difficulty difficulty;
+    private Double timeLimitSeconds;
+    private Integer memoryLimitMb;
+    private int score;
+}
@@ -0,0 +1,25 @@
+package com.project.code_judge.Dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RunMessage {
+    private String id;
+    private String language;
+    private String code;
+    private String input;
+
+    @JsonProperty("time_limit")
+    private Double timeLimit;
+    @JsonProperty("memory_limit")
+    private Integer memoryLimit;
+    @JsonProperty("output_limit")
+    private Integer outputLimit;
+}
@@ -0,0 +1,20 @@
+package com.project.code_judge.Dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class RunRequest {
+    public static final int MAX_CODE_LENGTH = 64 * 1024;
+    public static final int MAX_INPUT_LENGTH = 64 * 1024;
+
+    @NotNull(message = "Source code cannot be empty")
+    @Size(max = MAX_CODE_LENGTH, message = "Source code is too large")
+    private String code;
+    @NotBlank(message = "Language is required")
+    private String language;
+    @Size(max = MAX_INPUT_LENGTH, message = "Input is too large")
+    private String input;
+}
@@ -0,0 +1,27 @@
+package com.project.code_judge.Dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.project.code_judge.Entity.Verdict;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RunResult {
+    private String id;
+    private Verdict verdict;
+
+    private String stdout;
+    @JsonProperty("stdout_truncated")
+    private boolean stdoutTruncated;
+    private String stderr;
+
+    @JsonProperty("time_ms")
+    private Long timeMs;
+    @JsonProperty("memory_kb")
+    private Long memoryKb;
+
+    private String error;
+}
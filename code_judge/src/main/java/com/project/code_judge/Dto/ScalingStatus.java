@@ -0,0 +1,20 @@
+package com.project.code_judge.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScalingStatus {
+    private int recommendedWorkers;
+    private int desiredWorkers;
+    private int currentWorkers;
+    private long queueDepth;
+    private double arrivalRatePerSecond;
+    private double serviceTimeMs;
+    private double utilization;
+    private double expectedWaitMs;
+    private long updatedAt;
+}
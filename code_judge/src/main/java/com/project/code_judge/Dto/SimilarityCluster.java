@@ -0,0 +1,35 @@
+package com.project.code_judge.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SimilarityCluster {
+    private List<Member> members;
+    private List<Match> matches;
+    private double maxSimilarity;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Member {
+        private UUID submissionId;
+        private Long userId;
+        private String language;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Match {
+        private UUID first;
+        private UUID second;
+        private double similarity;
+    }
+}
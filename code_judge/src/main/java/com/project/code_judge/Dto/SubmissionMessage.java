@@ -0,0 +1,38 @@
+package com.project.code_judge.Dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SubmissionMessage {
+    private String id;
+    private String language;
+
+    private String code;
+    @JsonProperty("code_ref")
+    private String codeRef;
+    @JsonProperty("code_hash")
+    private String codeHash;
+
+    @JsonProperty("time_limit")
+    private Double timeLimit;
+    @JsonProperty("memory_limit")
+    private Integer memoryLimit;
+    @JsonProperty("problem_id")
+    private Long problemId;
+    @JsonProperty("test_case_count")
+    private Integer testCaseCount;
+    private List<TestGroup> groups;
+    // "tokens" or "float"; workers default to tokens.
+    private String compare;
+    @JsonProperty("float_tolerance")
+    private Double floatTolerance;
+}
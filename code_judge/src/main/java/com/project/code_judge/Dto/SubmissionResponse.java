@@ -2,9 +2,11 @@ package com.project.code_judge.Dto;
 
 import com.project.code_judge.Entity.SubmissionStatus;
 import com.project.code_judge.Entity.Verdict;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Data
@@ -19,6 +21,13 @@ public class SubmissionResponse {
 
     private String error;
 
+    private Integer score;
+    private List<GroupResult> groupScores;
+
     private Long problemId;
     private String problemTitle;
+
+    // Bearer token for polling this submission without the session; only set on submit when enabled.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String statusToken;
 }
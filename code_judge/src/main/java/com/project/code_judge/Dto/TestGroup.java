@@ -0,0 +1,19 @@
+package com.project.code_judge.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+ * A subtask: the 1-based test numbers it covers and the points awarded when all of them pass.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TestGroup {
+    private String name;
+    private Integer points;
+    private List<Integer> tests;
+}
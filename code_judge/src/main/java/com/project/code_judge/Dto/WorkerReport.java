@@ -0,0 +1,34 @@
+package com.project.code_judge.Dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Slot usage a worker publishes on judge_workers every JUDGE_STATUS_MS. busy_ms and uptime_ms are
+ * cumulative since the worker started.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WorkerReport {
+    private String worker;
+    // "judge" or "run"
+    private String mode;
+    private Integer slots;
+
+    @JsonProperty
+    private Integer busy_slots;
+
+    @JsonProperty
+    private Long busy_ms;
+
+    @JsonProperty
+    private Long uptime_ms;
+
+    @JsonProperty
+    private Integer in_flight;
+
+    private Long handled;
+}
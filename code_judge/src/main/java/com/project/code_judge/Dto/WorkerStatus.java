@@ -0,0 +1,22 @@
+package com.project.code_judge.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WorkerStatus {
+    private String worker;
+    private String mode;
+    private int slots;
+    private int busySlots;
+    // Share of slot time spent busy between the last two reports.
+    private double utilization;
+    private int inFlight;
+    private long handled;
+    private Instant lastSeen;
+}
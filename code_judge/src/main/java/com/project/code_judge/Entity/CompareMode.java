@@ -0,0 +1,9 @@
+package com.project.code_judge.Entity;
+
+// How workers check output against the expected file.
+public enum CompareMode {
+    // Whitespace-separated tokens must match exactly.
+    TOKENS,
+    // Numeric tokens may differ by the problem's float tolerance, absolute or relative.
+    FLOAT
+}
@@ -0,0 +1,47 @@
+package com.project.code_judge.Entity;
+
+import com.project.code_judge.Dto.GroupResult;
+import com.project.code_judge.Dto.TestGroup;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+
+/*
+ * Stores a list of small value objects as JSON text, so subtask data does not need its own tables.
+ */
+public abstract class JsonListConverter<T> implements AttributeConverter<List<T>, String> {
+    private static final JsonMapper MAPPER = JsonMapper.builder().build();
+
+    private final TypeReference<List<T>> type;
+
+    protected JsonListConverter(TypeReference<List<T>> type){
+        this.type = type;
+    }
+
+    @Override
+    public String convertToDatabaseColumn(List<T> value){
+        return value == null ? null : MAPPER.writeValueAsString(value);
+    }
+
+    @Override
+    public List<T> convertToEntityAttribute(String column){
+        return column == null || column.isEmpty() ? null : MAPPER.readValue(column, type);
+    }
+
+    @Converter
+    public static class TestGroups extends JsonListConverter<TestGroup> {
+        public TestGroups(){
+            super(new TypeReference<>() {});
+        }
+    }
+
+    @Converter
+    public static class GroupResults extends JsonListConverter<GroupResult> {
+        public GroupResults(){
+            super(new TypeReference<>() {});
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.project.code_judge.Entity;
 
+import com.project.code_judge.Dto.TestGroup;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.util.List;
+
 @Entity
 @Getter
 @Setter
@@ -27,4 +30,14 @@ public class Problem {
     private Integer memoryLimitMb;
     @Enumerated(value = EnumType.STRING)
     private Difficulty difficulty;
+
+    // Null means TOKENS.
+    @Enumerated(value = EnumType.STRING)
+    private CompareMode compareMode;
+    private Double floatTolerance;
+
+    // Subtasks from the test data manifest; null when the problem is judged all-or-nothing.
+    @Column(columnDefinition = "TEXT")
+    @Convert(converter = JsonListConverter.TestGroups.class)
+    private List<TestGroup> testGroups;
 }
@@ -0,0 +1,37 @@
+package com.project.code_judge.Entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "problem_attachments", uniqueConstraints = @UniqueConstraint(columnNames = {"problem_id", "name"}))
+public class ProblemAttachment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "problem_id", nullable = false)
+    @JsonIgnore
+    private Problem problem;
+
+    @Column(nullable = false)
+    private String name;
+    @Column(nullable = false)
+    private String contentType;
+    private long size;
+
+    // Hex SHA-256 of the content: the file name on disk and the ETag.
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private LocalDateTime uploadedAt;
+}
@@ -1,10 +1,13 @@
 package com.project.code_judge.Entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.project.code_judge.Dto.GroupResult;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Entity
@@ -15,13 +18,14 @@ import java.util.UUID;
 @Table(name = "submissions")
 public class Submission {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
     private UUID id;
 
     @Column(columnDefinition = "TEXT")
     private String code;
     private String language;
 
+    @Column(nullable = false)
     private LocalDateTime submissionTime;
 
     @Enumerated(EnumType.STRING)
@@ -44,4 +48,9 @@ public class Submission {
 
     private Long timeTaken;
     private Long memoryUsed;
+
+    private Integer score;
+    @Column(columnDefinition = "TEXT")
+    @Convert(converter = JsonListConverter.GroupResults.class)
+    private List<GroupResult> groupScores;
 }
\ No newline at end of file
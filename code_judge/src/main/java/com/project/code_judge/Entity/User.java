@@ -3,8 +3,6 @@ package com.project.code_judge.Entity;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.io.Serial;
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,10 +12,7 @@ import java.util.List;
 @Table(name = "users")
 @NoArgsConstructor
 @AllArgsConstructor
-public class User implements Serializable {
-
-    @Serial
-    private static final long serialVersionUID=1L;
+public class User {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
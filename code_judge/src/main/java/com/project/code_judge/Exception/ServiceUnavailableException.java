@@ -0,0 +1,7 @@
+package com.project.code_judge.Exception;
+
+public class ServiceUnavailableException extends RuntimeException{
+    public ServiceUnavailableException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.project.code_judge.Repository;
+
+import com.project.code_judge.Entity.ProblemAttachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ProblemAttachmentRepository extends JpaRepository<ProblemAttachment, Long> {
+    List<ProblemAttachment> findByProblemIdOrderByName(Long problemId);
+    Optional<ProblemAttachment> findByProblemIdAndName(Long problemId, String name);
+    boolean existsByProblemIdAndSha256(Long problemId, String sha256);
+}
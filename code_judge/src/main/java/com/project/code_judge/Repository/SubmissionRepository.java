@@ -1,9 +1,25 @@
 package com.project.code_judge.Repository;
 
 import com.project.code_judge.Entity.Submission;
+import com.project.code_judge.Util.TimeOrderedIds;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface SubmissionRepository extends JpaRepository<Submission, UUID> {
+    Duration PARTITION_KEY_SLACK = Duration.ofMinutes(5);
+
+    Optional<Submission> findByIdAndSubmissionTimeBetween(UUID id, LocalDateTime from, LocalDateTime to);
+
+    // Time-ordered ids carry their creation time, so the lookup can be pruned to a single monthly partition.
+    default Optional<Submission> findHotById(UUID id){
+        if(!TimeOrderedIds.isTimeOrdered(id)){
+            return findById(id);
+        }
+        LocalDateTime createdAt = TimeOrderedIds.createdAt(id);
+        return findByIdAndSubmissionTimeBetween(id, createdAt.minus(PARTITION_KEY_SLACK), createdAt.plus(PARTITION_KEY_SLACK));
+    }
 }
@@ -0,0 +1,210 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Dto.AttachmentResponse;
+import com.project.code_judge.Entity.Problem;
+import com.project.code_judge.Entity.ProblemAttachment;
+import com.project.code_judge.Exception.ResourceNotFoundException;
+import com.project.code_judge.Repository.ProblemAttachmentRepository;
+import com.project.code_judge.Repository.ProblemRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/*
+ * Images, PDFs and sample files shown with a problem statement. Content is stored once per problem
+ * under judge.attachments.path/<problemId>/<sha256> and never changes in place: replacing an
+ * attachment writes a new file and removes the old one after the commit. Lookups for serving are
+ * cached; a cached entry whose file has been removed is dropped by the caller through evict().
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttachmentService {
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,127}");
+    private static final int MAX_CACHED = 10_000;
+
+    private final ProblemRepository problemRepository;
+    private final ProblemAttachmentRepository attachmentRepository;
+
+    @Value("${judge.attachments.path:${judge.data.path}/attachments}")
+    private String attachmentsPath;
+
+    @Value("${judge.attachments.max-mb:50}")
+    private long maxMb;
+
+    private final Map<String, Stored> cache = new ConcurrentHashMap<>();
+
+    private Path root;
+
+    // What the controller needs to serve an attachment; file is a canonical path.
+    public record Stored(Path file, String name, String contentType, long size, String sha256) {
+    }
+
+    @PostConstruct
+    public void init(){
+        try{
+            root = Files.createDirectories(Paths.get(attachmentsPath).toAbsolutePath().normalize()).toRealPath();
+        }catch (IOException e){
+            throw new UncheckedIOException("Cannot create attachment directory " + attachmentsPath, e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<AttachmentResponse> list(Long problemId){
+        if(!problemRepository.existsById(problemId)) throw new ResourceNotFoundException("Problem not found");
+        return attachmentRepository.findByProblemIdOrderByName(problemId).stream().map(this::toResponse).toList();
+    }
+
+    public Optional<Stored> find(Long problemId, String name){
+        String key = problemId + "/" + name;
+        Stored stored = cache.get(key);
+        if(stored != null) return Optional.of(stored);
+        Optional<Stored> found = attachmentRepository.findByProblemIdAndName(problemId, name)
+                .map(attachment -> new Stored(blob(problemId, attachment.getSha256()), attachment.getName(),
+                        attachment.getContentType(), attachment.getSize(), attachment.getSha256()));
+        if(found.isPresent()){
+            if(cache.size() >= MAX_CACHED) cache.clear();
+            cache.put(key, found.get());
+        }
+        return found;
+    }
+
+    public void evict(Long problemId, String name){
+        cache.remove(problemId + "/" + name);
+    }
+
+    // Adds the attachment, or replaces the one with the same name. The name defaults to the uploaded file name.
+    @Transactional
+    public AttachmentResponse store(Long problemId, String name, MultipartFile file) throws IOException {
+        Problem problem = problemRepository.findById(problemId)
+                .orElseThrow(() -> new ResourceNotFoundException("Problem not found"));
+        if(name == null || name.isBlank()) name = baseName(file.getOriginalFilename());
+        if(name == null || !NAME.matcher(name).matches()){
+            throw new IllegalArgumentException("Attachment names use letters, digits, '.', '_' and '-' and start with a letter or digit");
+        }
+        if(file.isEmpty()) throw new IllegalArgumentException("The attachment is empty");
+        if(file.getSize() > maxMb * 1024 * 1024){
+            throw new IllegalArgumentException("Attachments are limited to " + maxMb + " MB");
+        }
+
+        Path dir = Files.createDirectories(root.resolve(String.valueOf(problemId)));
+        Path upload = dir.resolve(".upload-" + UUID.randomUUID());
+        MessageDigest digest = sha256();
+        long size;
+        String hash;
+        boolean created;
+        try{
+            try(InputStream in = new DigestInputStream(file.getInputStream(), digest)){
+                size = Files.copy(in, upload);
+            }
+            hash = HexFormat.of().formatHex(digest.digest());
+            created = !Files.exists(dir.resolve(hash));
+            if(created) Files.move(upload, dir.resolve(hash), StandardCopyOption.ATOMIC_MOVE);
+        }finally {
+            Files.deleteIfExists(upload);
+        }
+
+        ProblemAttachment attachment = attachmentRepository.findByProblemIdAndName(problemId, name).orElseGet(ProblemAttachment::new);
+        String previous = attachment.getSha256();
+        attachment.setProblem(problem);
+        attachment.setName(name);
+        attachment.setContentType(MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        attachment.setSize(size);
+        attachment.setSha256(hash);
+        attachment.setUploadedAt(LocalDateTime.now());
+        ProblemAttachment saved = attachmentRepository.save(attachment);
+
+        String stored = name;
+        afterCompletion(committed -> {
+            evict(problemId, stored);
+            if(committed && previous != null && !previous.equals(hash)) deleteIfUnused(problemId, previous);
+            if(!committed && created) deleteIfUnused(problemId, hash);
+        });
+        return toResponse(saved);
+    }
+
+    @Transactional
+    public void delete(Long problemId, String name){
+        ProblemAttachment attachment = attachmentRepository.findByProblemIdAndName(problemId, name)
+                .orElseThrow(() -> new ResourceNotFoundException("Attachment not found"));
+        attachmentRepository.delete(attachment);
+        afterCompletion(committed -> {
+            evict(problemId, name);
+            if(committed) deleteIfUnused(problemId, attachment.getSha256());
+        });
+    }
+
+    private void afterCompletion(Consumer<Boolean> action){
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status){
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    // Several names of one problem may share a file, so it is only removed once none refers to it.
+    private void deleteIfUnused(Long problemId, String sha256){
+        try{
+            if(!attachmentRepository.existsByProblemIdAndSha256(problemId, sha256)){
+                Files.deleteIfExists(blob(problemId, sha256));
+            }
+        }catch (IOException | RuntimeException e){
+            log.warn("Could not remove attachment file {} of problem {}", sha256, problemId, e);
+        }
+    }
+
+    private Path blob(Long problemId, String sha256){
+        return root.resolve(String.valueOf(problemId)).resolve(sha256);
+    }
+
+    private AttachmentResponse toResponse(ProblemAttachment attachment){
+        Long problemId = attachment.getProblem().getId();
+        String url = "/api/problems/" + problemId + "/attachments/" + attachment.getName()
+                + "?v=" + attachment.getSha256().substring(0, 16);
+        return new AttachmentResponse(attachment.getName(), attachment.getContentType(), attachment.getSize(),
+                attachment.getSha256(), url, attachment.getUploadedAt());
+    }
+
+    // Browsers may send a full client-side path as the file name.
+    private static String baseName(String filename){
+        if(filename == null) return null;
+        return filename.substring(Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\')) + 1);
+    }
+
+    private static MessageDigest sha256(){
+        try{
+            return MessageDigest.getInstance("SHA-256");
+        }catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,18 +1,23 @@
 package com.project.code_judge.Service;
 
+import com.project.code_judge.Dto.AuthenticatedUser;
 import com.project.code_judge.Dto.RegisterUser;
 import com.project.code_judge.Dto.UserLogin;
 import com.project.code_judge.Dto.UserResponse;
 import com.project.code_judge.Entity.AuthProvider;
+import com.project.code_judge.Entity.Role;
 import com.project.code_judge.Entity.User;
 import com.project.code_judge.Repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class AuthService {
@@ -37,6 +42,12 @@ public class AuthService {
         return authenticationManager.authenticate( new UsernamePasswordAuthenticationToken( dto.getEmail(), dto.getPassword()));
     }
 
+    // What the session keeps for a logged-in user: id, email and role, nothing that needs the entity.
+    public Authentication sessionAuthentication(User user){
+        String role = (user.getRole() == null ? Role.USER : user.getRole()).name();
+        AuthenticatedUser principal = new AuthenticatedUser(user.getId(), user.getEmail(), role);
+        return UsernamePasswordAuthenticationToken.authenticated(principal, null, List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+    }
 
     public UserResponse mapper(User user){
         return new UserResponse(user.getUsername(), user.getEmail());
@@ -0,0 +1,205 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Config.JudgeMessageConverter;
+import com.project.code_judge.Config.RabbitMQConfig;
+import com.project.code_judge.Dto.DeadLetter;
+import com.project.code_judge.Dto.JournalEvent;
+import com.project.code_judge.Entity.SubmissionStatus;
+import com.project.code_judge.Repository.SubmissionRepository;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+
+/*
+ * Retry and dead-letter handling shared by the API's consumers, plus the admin operations on the
+ * dead-letter queues. Failed messages are republished to <queue>.retry.N (a TTL queue that
+ * dead-letters back to <queue>) with the attempt count in x-judge-retries; once the retries are
+ * used up, or the failure is permanent, they are parked in <queue>.dlq with the error attached.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeadLetterService {
+    private static final List<String> SOURCE_QUEUES = List.of(RabbitMQConfig.SUBMISSION_QUEUE, RabbitMQConfig.RESULT_QUEUE);
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final JudgeMessageConverter judgeMessageConverter;
+    private final SubmissionRepository submissionRepository;
+    private final SubmissionLeaseService submissionLeaseService;
+    private final VerdictJournalService verdictJournalService;
+    private final TransactionTemplate transactionTemplate;
+    private final SubmissionDispatcher submissionDispatcher;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+
+    @Value("${judge.retry.delays-ms:5000,30000,120000}")
+    private int[] retryDelaysMs;
+
+    public void retryOrDeadLetter(String queue, Message message, Exception cause, boolean permanent){
+        MessageProperties properties = message.getMessageProperties();
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        int retries = retries(properties);
+        try{
+            if(!permanent && retries < retryDelaysMs.length){
+                properties.setHeader(RabbitMQConfig.RETRY_HEADER, retries + 1);
+                rabbitTemplate.send("", RabbitMQConfig.retryQueue(queue, retries + 1), message);
+                log.warn("Message from {} failed (attempt {}), retrying in {} ms: {}",
+                        queue, retries + 1, retryDelaysMs[retries], cause.getMessage());
+                return;
+            }
+            properties.setHeader(RabbitMQConfig.ERROR_HEADER, truncate(String.valueOf(cause)));
+            properties.setHeader(RabbitMQConfig.FAILED_AT_HEADER, Instant.now().toString());
+            if(properties.getMessageId() == null) properties.setMessageId(UUID.randomUUID().toString());
+            rabbitTemplate.send("", RabbitMQConfig.deadLetterQueue(queue), message);
+            log.error("Message {} from {} dead-lettered after {} retries", properties.getMessageId(), queue, retries, cause);
+        }catch (AmqpException e){
+            // Could not park it anywhere: hand it back to the broker rather than drop it.
+            throw new ImmediateRequeueAmqpException("Failed to republish message from " + queue, e);
+        }
+    }
+
+    public Map<String, Long> counts(){
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for(String queue : SOURCE_QUEUES){
+            QueueInformation info = amqpAdmin.getQueueInfo(RabbitMQConfig.deadLetterQueue(queue));
+            counts.put(queue, info == null ? 0L : info.getMessageCount());
+        }
+        return counts;
+    }
+
+    // Reads up to limit messages and puts them all back, so peeking does not consume anything.
+    public List<DeadLetter> peek(String queue, int limit){
+        String deadLetterQueue = RabbitMQConfig.deadLetterQueue(checkQueue(queue));
+        return rabbitTemplate.execute(channel -> {
+            List<DeadLetter> letters = new ArrayList<>();
+            try{
+                for(int i = 0; i < limit; i++){
+                    GetResponse response = channel.basicGet(deadLetterQueue, false);
+                    if(response == null) break;
+                    letters.add(toDeadLetter(queue, toMessage(response)));
+                }
+            }finally {
+                channel.basicNack(0, true, true);
+            }
+            return letters;
+        });
+    }
+
+    // Moves dead letters back to their source queue with a fresh retry budget: the one with the
+    // given message id, or all of the first limit messages when id is null.
+    public int replay(String queue, String id, int limit){
+        String sourceQueue = checkQueue(queue);
+        String deadLetterQueue = RabbitMQConfig.deadLetterQueue(sourceQueue);
+        Integer replayed = rabbitTemplate.execute(channel -> {
+            int count = 0;
+            try{
+                for(int i = 0; i < limit; i++){
+                    GetResponse response = channel.basicGet(deadLetterQueue, false);
+                    if(response == null) break;
+                    Message message = toMessage(response);
+                    if(id != null && !id.equals(message.getMessageProperties().getMessageId())) continue;
+                    republish(channel, sourceQueue, message);
+                    channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                    count++;
+                    if(id != null) break;
+                }
+            }finally {
+                channel.basicNack(0, true, true);
+            }
+            return count;
+        });
+        log.info("Replayed {} dead letters to {}", replayed, sourceQueue);
+        return replayed == null ? 0 : replayed;
+    }
+
+    private void republish(Channel channel, String queue, Message message) throws IOException {
+        MessageProperties properties = message.getMessageProperties();
+        properties.getHeaders().remove(RabbitMQConfig.RETRY_HEADER);
+        properties.getHeaders().remove(RabbitMQConfig.ERROR_HEADER);
+        properties.getHeaders().remove(RabbitMQConfig.FAILED_AT_HEADER);
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        if(RabbitMQConfig.SUBMISSION_QUEUE.equals(queue)) markPending(message);
+        channel.basicPublish("", queue, propertiesConverter.fromMessageProperties(properties, StandardCharsets.UTF_8.name()), message.getBody());
+    }
+
+    // The worker reported INTERNAL_ERROR when it parked the submission; put it back to PENDING,
+    // make sure a large source is still on the shared volume, and give it a fresh lease.
+    private void markPending(Message message){
+        try{
+            Map<?, ?> payload = (Map<?, ?>) judgeMessageConverter.fromMessage(message, Map.class);
+            UUID submissionId = UUID.fromString(String.valueOf(payload.get("id")));
+            // Read-write, so the lookup and the save both go to the primary.
+            boolean reset = Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                    submissionRepository.findHotById(submissionId).map(submission -> {
+                        submissionDispatcher.restoreSource(submission);
+                        submission.setStatus(SubmissionStatus.PENDING);
+                        submission.setVerdict(null);
+                        submission.setError(null);
+                        submissionRepository.save(submission);
+                        verdictJournalService.record(JournalEvent.Type.REQUEUED, submission);
+                        return true;
+                    }).orElse(false)));
+            if(reset) submissionLeaseService.track(submissionId);
+        }catch (RuntimeException e){
+            log.warn("Could not reset submission for replayed message {}: {}", message.getMessageProperties().getMessageId(), e.getMessage());
+        }
+    }
+
+    private DeadLetter toDeadLetter(String queue, Message message){
+        MessageProperties properties = message.getMessageProperties();
+        Object payload;
+        try{
+            payload = judgeMessageConverter.fromMessage(message, Map.class);
+        }catch (RuntimeException e){
+            payload = truncate(new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+        Object error = properties.getHeaders().get(RabbitMQConfig.ERROR_HEADER);
+        Object failedAt = properties.getHeaders().get(RabbitMQConfig.FAILED_AT_HEADER);
+        return new DeadLetter(
+                properties.getMessageId(),
+                queue,
+                retries(properties),
+                error == null ? null : error.toString(),
+                failedAt == null ? null : failedAt.toString(),
+                properties.getContentType(),
+                payload
+        );
+    }
+
+    private Message toMessage(GetResponse response){
+        MessageProperties properties = propertiesConverter.toMessageProperties(
+                response.getProps(), response.getEnvelope(), StandardCharsets.UTF_8.name());
+        return new Message(response.getBody(), properties);
+    }
+
+    private static int retries(MessageProperties properties){
+        return properties.getHeaders().get(RabbitMQConfig.RETRY_HEADER) instanceof Number n ? n.intValue() : 0;
+    }
+
+    private static String checkQueue(String queue){
+        if(!SOURCE_QUEUES.contains(queue)){
+            throw new IllegalArgumentException("Unknown queue: " + queue + ". Expected one of " + SOURCE_QUEUES);
+        }
+        return queue;
+    }
+
+    private static String truncate(String value){
+        return value.length() <= MAX_ERROR_LENGTH ? value : value.substring(0, MAX_ERROR_LENGTH);
+    }
+}
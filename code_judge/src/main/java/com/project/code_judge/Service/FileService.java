@@ -4,28 +4,89 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
+/*
+ * Uploads are unzipped into a staging directory next to their destination and only moved into
+ * place once they have been checked, so judges never read a half-written or rejected upload.
+ */
 @Service
 public class FileService {
-    public void unzipAndSave(MultipartFile zipFile, Path destinationDir) throws IOException{
+    public Path unzipToStaging(MultipartFile zipFile, Path destinationDir) throws IOException{
         destinationDir = destinationDir.toAbsolutePath().normalize();
-        if(!Files.exists(destinationDir)){
-            Files.createDirectories(destinationDir);
+        Files.createDirectories(destinationDir.getParent());
+        Path staging = Files.createDirectory(sibling(destinationDir, "upload"));
+        try{
+            unzip(zipFile, staging);
+        }catch (IOException | RuntimeException e){
+            deleteDirectory(staging);
+            throw e;
         }
+        return staging;
+    }
+
+    // An empty directory inside parentDir, for a caller that stages several directories at once.
+    public Path createStagingDirectory(Path parentDir, String purpose) throws IOException{
+        parentDir = parentDir.toAbsolutePath().normalize();
+        Files.createDirectories(parentDir);
+        return Files.createDirectory(parentDir.resolve("." + purpose + "-" + UUID.randomUUID()));
+    }
+
+    // Extracts the given entries of an open zip with `prefix` stripped from their names; entries may be extracted concurrently.
+    public void extract(ZipFile zip, List<? extends ZipEntry> entries, String prefix, Path destinationDir) throws IOException{
+        destinationDir = destinationDir.toAbsolutePath().normalize();
+        Files.createDirectories(destinationDir);
+        for(ZipEntry entry : entries){
+            if(entry.isDirectory() || !entry.getName().startsWith(prefix)) continue;
+            Path path = resolveEntry(destinationDir, entry.getName().substring(prefix.length()));
+            Files.createDirectories(path.getParent());
+            try(InputStream in = zip.getInputStream(entry)){
+                Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    // Swaps the staged directory in; the previous contents, including files the new upload lacks, are removed.
+    public void replaceDirectory(Path staging, Path destinationDir) throws IOException{
+        destinationDir = destinationDir.toAbsolutePath().normalize();
+        Path previous = null;
+        if(Files.exists(destinationDir)){
+            previous = sibling(destinationDir, "previous");
+            Files.move(destinationDir, previous, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(staging, destinationDir, StandardCopyOption.ATOMIC_MOVE);
+        if(previous != null) deleteDirectory(previous);
+    }
+
+    public void deleteDirectory(Path dir) throws IOException{
+        if(!Files.exists(dir)) return;
+        List<Path> paths;
+        try(Stream<Path> walk = Files.walk(dir)){
+            paths = walk.sorted(Comparator.reverseOrder()).toList();
+        }
+        for(Path path : paths) Files.deleteIfExists(path);
+    }
+
+    // Not createTempDirectory: its owner-only permissions would lock the judge workers out.
+    private static Path sibling(Path dir, String purpose){
+        return dir.resolveSibling("." + dir.getFileName() + "." + purpose + "-" + UUID.randomUUID());
+    }
 
+    private void unzip(MultipartFile zipFile, Path destinationDir) throws IOException{
         try(ZipInputStream zis = new ZipInputStream(zipFile.getInputStream())) {
             ZipEntry zipEntry = zis.getNextEntry();
             while (zipEntry != null){
-                Path path = destinationDir.resolve(zipEntry.getName()).normalize();
-                if(!path.startsWith(destinationDir)){
-                    throw new IOException("Entry is outside of the target dir: " + zipEntry.getName());
-                }
-
+                Path path = resolveEntry(destinationDir, zipEntry.getName());
                 if(!zipEntry.isDirectory()){
                     Files.createDirectories(path.getParent());
                     Files.copy(zis, path, StandardCopyOption.REPLACE_EXISTING);
@@ -34,4 +95,12 @@ public class FileService {
             }
         }
     }
+
+    private static Path resolveEntry(Path destinationDir, String name) throws IOException{
+        Path path = destinationDir.resolve(name).normalize();
+        if(!path.startsWith(destinationDir)){
+            throw new IOException("Entry is outside of the target dir: " + name);
+        }
+        return path;
+    }
 }
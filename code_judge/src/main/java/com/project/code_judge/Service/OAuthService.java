@@ -2,17 +2,14 @@ package com.project.code_judge.Service;
 
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
 import com.project.code_judge.Entity.AuthProvider;
 import com.project.code_judge.Entity.User;
 import com.project.code_judge.Repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
 import java.util.UUID;
 
 @Service
@@ -20,17 +17,12 @@ import java.util.UUID;
 public class OAuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-
-    @Value("${spring.security.oauth2.client.registration.google.client-id}")
-    private String clientId;
+    private final ObjectProvider<GoogleIdTokenVerifier> googleIdTokenVerifier;
 
     public User googleLogin(String token){
         try {
             String tokenPrefix = token == null ? "null" : token.substring(0, Math.min(12, token.length()));
-            GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(new NetHttpTransport(), new GsonFactory())
-                    .setAudience(Collections.singletonList(clientId))
-                    .build();
-            GoogleIdToken gToken = verifier.verify(token);
+            GoogleIdToken gToken = googleIdTokenVerifier.getObject().verify(token);
             if ( gToken == null) throw new IllegalArgumentException("Invalid Google Token");
 
             GoogleIdToken.Payload payload = gToken.getPayload();
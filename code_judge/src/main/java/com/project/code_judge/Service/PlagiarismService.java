@@ -0,0 +1,211 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Dto.SimilarityCluster;
+import com.project.code_judge.Entity.Submission;
+import com.project.code_judge.Exception.ResourceNotFoundException;
+import com.project.code_judge.Util.CodeTokenizer;
+import com.project.code_judge.Util.LshIndex;
+import com.project.code_judge.Util.MinHash;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Near-duplicate detection for accepted submissions. Each accepted submission is tokenized with
+ * identifiers and literals normalized, shingled, and reduced to a 512-byte MinHash signature
+ * stored in submission_signatures. Queries go through a per-problem LSH index kept in memory and
+ * topped up from the table incrementally, so only bucket-mates are ever compared.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlagiarismService {
+    private static final int SHINGLE_SIZE = 4;
+    private static final int REBUILD_BATCH = 500;
+    // Rows committed slightly out of created_at order are still picked up on the next refresh.
+    private static final long REFRESH_OVERLAP_MS = 60_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, ProblemIndex> indexes = new ConcurrentHashMap<>();
+
+    @Value("${judge.plagiarism.min-tokens:50}")
+    private int minTokens;
+
+    // Per LSH bucket, how many cluster representatives a submission is compared against.
+    @Value("${judge.plagiarism.max-representatives:8}")
+    private int maxRepresentatives;
+
+    private record Source(UUID submissionId, Long problemId, Long userId, String language, String code) {
+    }
+
+    private static final class ProblemIndex {
+        final LshIndex<UUID> lsh = new LshIndex<>();
+        final Map<UUID, SimilarityCluster.Member> members = new HashMap<>();
+        Timestamp loadedUpTo = new Timestamp(0);
+    }
+
+    // Called for every accepted result; never fails the caller.
+    public void record(Submission submission){
+        try{
+            Source source = new Source(submission.getId(), submission.getProblem().getId(),
+                    submission.getUser() == null ? null : submission.getUser().getId(),
+                    submission.getLanguage(), submission.getCode());
+            int[] signature = signature(source.code(), source.language());
+            if(signature == null) return;
+            jdbcTemplate.update("INSERT INTO submission_signatures (submission_id, problem_id, user_id, language, created_at, signature) "
+                            + "VALUES (?, ?, ?, ?, now(), ?) ON CONFLICT (submission_id) DO NOTHING",
+                    source.submissionId(), source.problemId(), source.userId(), source.language(), MinHash.toBytes(signature));
+            ProblemIndex index = indexes.get(source.problemId());
+            if(index != null){
+                synchronized (index){
+                    add(index, source.submissionId(), source.userId(), source.language(), signature);
+                }
+            }
+        }catch (RuntimeException e){
+            log.warn("Could not index submission {} for similarity: {}", submission.getId(), e.getMessage());
+        }
+    }
+
+    public List<SimilarityCluster> clusters(Long problemId, double threshold, boolean includeSameUser){
+        checkThreshold(threshold);
+        ProblemIndex index = refresh(problemId);
+        List<LshIndex.Cluster<UUID>> clusters;
+        Map<UUID, SimilarityCluster.Member> members;
+        synchronized (index){
+            members = new HashMap<>(index.members);
+            clusters = index.lsh.clusters(threshold, maxRepresentatives, (a, b) -> includeSameUser
+                    || !Objects.equals(members.get(a).getUserId(), members.get(b).getUserId()));
+        }
+        return clusters.stream()
+                .map(cluster -> new SimilarityCluster(
+                        cluster.members().stream().map(members::get).toList(),
+                        cluster.matches().stream()
+                                .map(pair -> new SimilarityCluster.Match(pair.first(), pair.second(), pair.similarity()))
+                                .toList(),
+                        cluster.maxSimilarity()))
+                .sorted(Comparator.comparingDouble(SimilarityCluster::getMaxSimilarity).reversed())
+                .toList();
+    }
+
+    public List<SimilarityCluster.Match> similarTo(UUID submissionId, double threshold){
+        checkThreshold(threshold);
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT problem_id, signature FROM submission_signatures WHERE submission_id = ?", submissionId);
+        if(rows.isEmpty()) throw new ResourceNotFoundException("Submission is not indexed: " + submissionId);
+        Long problemId = ((Number) rows.get(0).get("problem_id")).longValue();
+        int[] signature = MinHash.fromBytes((byte[]) rows.get(0).get("signature"));
+        ProblemIndex index = refresh(problemId);
+        List<LshIndex.Pair<UUID>> pairs;
+        synchronized (index){
+            pairs = index.lsh.similarTo(submissionId, signature, threshold);
+        }
+        return pairs.stream()
+                .sorted(Comparator.comparingDouble((LshIndex.Pair<UUID> pair) -> pair.similarity()).reversed())
+                .map(pair -> new SimilarityCluster.Match(pair.first(), pair.second(), pair.similarity()))
+                .toList();
+    }
+
+    /*
+     * Recomputes the signatures of all accepted submissions (optionally for one problem). Rows are
+     * read in keyset-ordered batches and each batch is signed in parallel and written back in its
+     * own transaction, so no transaction or lock is held for the whole rescan. Signatures that were
+     * not rewritten (submissions no longer accepted) are removed at the end.
+     */
+    public long rebuild(Long problemId){
+        invalidate(problemId);
+        Timestamp started = jdbcTemplate.queryForObject("SELECT now()", Timestamp.class);
+        long indexed = 0;
+        UUID after = null;
+        while(true){
+            UUID from = after;
+            List<Source> batch = readBatch(problemId, from);
+            if(batch.isEmpty()) break;
+            indexed += Objects.requireNonNullElse(transactionTemplate.execute(status -> writeSignatures(batch)), 0L);
+            after = batch.getLast().submissionId();
+        }
+        if(problemId == null) jdbcTemplate.update("DELETE FROM submission_signatures WHERE created_at < ?", started);
+        else jdbcTemplate.update("DELETE FROM submission_signatures WHERE problem_id = ? AND created_at < ?", problemId, started);
+        // Indexes loaded while the rescan ran may hold signatures it has since replaced or removed.
+        invalidate(problemId);
+        log.info("Rebuilt {} submission signatures{}", indexed, problemId == null ? "" : " for problem " + problemId);
+        return indexed;
+    }
+
+    private List<Source> readBatch(Long problemId, UUID after){
+        StringBuilder sql = new StringBuilder("SELECT id, problem_id, user_id, language, code FROM submissions WHERE verdict = 'ACCEPTED'");
+        List<Object> args = new ArrayList<>();
+        if(problemId != null){ sql.append(" AND problem_id = ?"); args.add(problemId); }
+        if(after != null){ sql.append(" AND id > ?"); args.add(after); }
+        sql.append(" ORDER BY id LIMIT ").append(REBUILD_BATCH);
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new Source(rs.getObject("id", UUID.class),
+                rs.getObject("problem_id", Long.class), rs.getObject("user_id", Long.class),
+                rs.getString("language"), rs.getString("code")), args.toArray());
+    }
+
+    private void invalidate(Long problemId){
+        if(problemId == null) indexes.clear();
+        else indexes.remove(problemId);
+    }
+
+    private long writeSignatures(List<Source> batch){
+        List<Object[]> rows = batch.parallelStream()
+                .map(source -> {
+                    int[] signature = signature(source.code(), source.language());
+                    return signature == null ? null : new Object[]{source.submissionId(), source.problemId(),
+                            source.userId(), source.language(), MinHash.toBytes(signature)};
+                })
+                .filter(Objects::nonNull)
+                .toList();
+        if(rows.isEmpty()) return 0;
+        jdbcTemplate.batchUpdate("INSERT INTO submission_signatures (submission_id, problem_id, user_id, language, created_at, signature) "
+                + "VALUES (?, ?, ?, ?, now(), ?) ON CONFLICT (submission_id) DO UPDATE SET signature = EXCLUDED.signature, "
+                + "created_at = EXCLUDED.created_at", rows);
+        return rows.size();
+    }
+
+    private ProblemIndex refresh(Long problemId){
+        ProblemIndex index = indexes.computeIfAbsent(problemId, id -> new ProblemIndex());
+        synchronized (index){
+            Timestamp from = new Timestamp(Math.max(0, index.loadedUpTo.getTime() - REFRESH_OVERLAP_MS));
+            jdbcTemplate.query(
+                    "SELECT submission_id, user_id, language, created_at, signature FROM submission_signatures "
+                            + "WHERE problem_id = ? AND created_at >= ?",
+                    (RowCallbackHandler) rs -> {
+                        UUID id = rs.getObject("submission_id", UUID.class);
+                        Timestamp createdAt = rs.getTimestamp("created_at");
+                        if(createdAt.after(index.loadedUpTo)) index.loadedUpTo = createdAt;
+                        if(index.lsh.contains(id)) return;
+                        add(index, id, rs.getObject("user_id", Long.class), rs.getString("language"),
+                                MinHash.fromBytes(rs.getBytes("signature")));
+                    }, problemId, from);
+        }
+        return index;
+    }
+
+    private void add(ProblemIndex index, UUID id, Long userId, String language, int[] signature){
+        index.lsh.add(id, signature);
+        index.members.put(id, new SimilarityCluster.Member(id, userId, language));
+    }
+
+    private int[] signature(String code, String language){
+        if(code == null) return null;
+        long[] tokens = CodeTokenizer.tokenize(code, language);
+        if(tokens.length < minTokens) return null;
+        return MinHash.signature(CodeTokenizer.shingles(tokens, SHINGLE_SIZE));
+    }
+
+    private static void checkThreshold(double threshold){
+        if(!(threshold > 0 && threshold <= 1)){
+            throw new IllegalArgumentException("Threshold must be in (0, 1]");
+        }
+    }
+}
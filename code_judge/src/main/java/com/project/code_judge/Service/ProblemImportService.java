@@ -0,0 +1,457 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Dto.CreateProblem;
+import com.project.code_judge.Dto.ProblemImportProgress;
+import com.project.code_judge.Dto.TestGroup;
+import com.project.code_judge.Entity.JsonListConverter;
+import com.project.code_judge.Entity.Problem;
+import com.project.code_judge.Exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/*
+ * Imports a zip of many problems, one directory each holding a problem.json (the fields of
+ * CreateProblem) next to its test data in the layout uploadTestCases expects. Directories are
+ * extracted and validated in parallel on judge.import.parallelism threads; only when every one of
+ * them passed are the rows inserted in JDBC batches and the test data moved into place, all inside
+ * one transaction, so a failed import leaves nothing behind. Imports run one at a time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProblemImportService {
+    private static final String PROBLEM_MANIFEST = "problem.json";
+    private static final String INSERT_PROBLEM = "INSERT INTO problems (title, description, slug, difficulty, test_case_count, "
+            + "time_limit_seconds, memory_limit_mb, compare_mode, float_tolerance, test_groups) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final JsonListConverter.TestGroups TEST_GROUPS = new JsonListConverter.TestGroups();
+    private static final int MAX_ERRORS = 50;
+    private static final int RETAINED_IMPORTS = 100;
+
+    private final ProblemService problemService;
+    private final FileService fileService;
+    private final ProblemSearchService problemSearchService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final Validator validator;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${judge.data.path}")
+    private String storagePath;
+
+    @Value("${judge.import.parallelism:4}")
+    private int parallelism;
+
+    @Value("${judge.import.batch-size:100}")
+    private int batchSize;
+
+    @Value("${judge.import.max-problems:1000}")
+    private int maxProblems;
+
+    private final Map<String, ImportJob> imports = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest){
+            return size() > RETAINED_IMPORTS;
+        }
+    });
+
+    private ExecutorService coordinator;
+    private ExecutorService workers;
+
+    @PostConstruct
+    public void init(){
+        if(parallelism < 1) throw new IllegalStateException("judge.import.parallelism must be at least 1");
+        if(batchSize < 1) throw new IllegalStateException("judge.import.batch-size must be at least 1");
+        coordinator = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("problem-import").factory());
+        workers = Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().name("problem-import-", 1).factory());
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    // Keeps the package on disk and queues the import; follow it with get() or events().
+    public ProblemImportProgress start(MultipartFile file) throws IOException {
+        if(file == null || file.isEmpty()) throw new IllegalArgumentException("The import package is empty");
+        Path staging = fileService.createStagingDirectory(Paths.get(storagePath), "import");
+        Path upload = staging.resolve("package.zip");
+        try{
+            file.transferTo(upload);
+        }catch (IOException | RuntimeException e){
+            fileService.deleteDirectory(staging);
+            throw e;
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), staging);
+        imports.put(job.id, job);
+        coordinator.execute(() -> run(job, upload));
+        return job.snapshot();
+    }
+
+    public ProblemImportProgress get(String id){
+        return find(id).snapshot();
+    }
+
+    // Sends the current state right away, then every change until the import finishes.
+    public SseEmitter events(String id){
+        ImportJob job = find(id);
+        SseEmitter emitter = new SseEmitter();
+        ProblemImportProgress current;
+        synchronized (job){
+            current = job.snapshot();
+            if(!job.isFinished()) job.listeners.add(emitter);
+        }
+        emitter.onCompletion(() -> job.listeners.remove(emitter));
+        emitter.onTimeout(() -> job.listeners.remove(emitter));
+        emitter.onError(e -> job.listeners.remove(emitter));
+        send(job, emitter, current);
+        if(isFinished(current.getPhase())) emitter.complete();
+        return emitter;
+    }
+
+    private ImportJob find(String id){
+        ImportJob job = imports.get(id);
+        if(job == null) throw new ResourceNotFoundException("Import not found: " + id);
+        return job;
+    }
+
+    private void run(ImportJob job, Path upload){
+        long started = System.nanoTime();
+        try(ZipFile zip = new ZipFile(upload.toFile())){
+            List<PackageDir> dirs = listProblems(zip);
+            update(job, j -> {
+                j.phase = ProblemImportProgress.Phase.PREPARING;
+                j.total = dirs.size();
+            });
+            List<Prepared> problems = prepare(job, zip, dirs);
+            if(problems == null) return;
+            List<String> conflicts = findConflicts(problems);
+            if(!conflicts.isEmpty()){
+                fail(job, conflicts);
+                return;
+            }
+            update(job, j -> j.phase = ProblemImportProgress.Phase.PUBLISHING);
+            List<Long> ids = publish(problems);
+            for(int i = 0; i < problems.size(); i++){
+                problemSearchService.index(problems.get(i).toProblem(ids.get(i)));
+            }
+            meterRegistry.counter("judge.import.problems").increment(ids.size());
+            update(job, j -> {
+                j.phase = ProblemImportProgress.Phase.COMPLETED;
+                j.problemIds = ids;
+            });
+            log.info("Import {} published {} problems in {} ms", job.id, ids.size(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+        }catch (IllegalArgumentException e){
+            fail(job, List.of(e.getMessage()));
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            fail(job, List.of("Import interrupted by shutdown"));
+        }catch (Exception e){
+            log.error("Import {} failed", job.id, e);
+            fail(job, List.of("Import failed: " + e.getMessage()));
+        }finally {
+            meterRegistry.timer("judge.import.duration", "outcome", job.snapshot().getPhase().name().toLowerCase(Locale.ROOT))
+                    .record(Duration.ofNanos(System.nanoTime() - started));
+            try{
+                fileService.deleteDirectory(job.staging);
+            }catch (IOException e){
+                log.warn("Could not remove import staging directory {}", job.staging, e);
+            }
+        }
+    }
+
+    /*
+     * One problem per top-level directory. A zip made from a folder of problem directories has
+     * that folder as its only top-level entry, so a single wrapping directory without a
+     * problem.json of its own is looked through.
+     */
+    private List<PackageDir> listProblems(ZipFile zip){
+        List<ZipEntry> entries = zip.stream()
+                .filter(entry -> !entry.getName().startsWith("__MACOSX/"))
+                .collect(Collectors.toList());
+        Set<String> tops = entries.stream().map(entry -> topLevel(entry.getName(), "")).collect(Collectors.toSet());
+        String wrapper = tops.size() == 1 ? tops.iterator().next() : null;
+        String root = wrapper != null && zip.getEntry(wrapper + PROBLEM_MANIFEST) == null ? wrapper : "";
+
+        Map<String, List<ZipEntry>> byDir = new TreeMap<>();
+        for(ZipEntry entry : entries){
+            String dir = topLevel(entry.getName(), root);
+            if(dir == null){
+                if(entry.isDirectory() || entry.getName().equals(root)) continue;
+                throw new IllegalArgumentException(entry.getName() + " is not inside a problem directory");
+            }
+            byDir.computeIfAbsent(dir, d -> new ArrayList<>()).add(entry);
+        }
+        if(byDir.isEmpty()) throw new IllegalArgumentException("The import package contains no problem directories");
+        if(byDir.size() > maxProblems){
+            throw new IllegalArgumentException("The import package has " + byDir.size() + " problems; at most " + maxProblems + " are allowed");
+        }
+        List<PackageDir> dirs = new ArrayList<>();
+        byDir.forEach((dir, dirEntries) -> dirs.add(new PackageDir(dirs.size(), dir.substring(root.length(), dir.length() - 1), dir, dirEntries)));
+        return dirs;
+    }
+
+    // "root/dir/" for an entry below root/dir/, otherwise null.
+    private static String topLevel(String name, String root){
+        if(!name.startsWith(root)) return null;
+        int slash = name.indexOf('/', root.length());
+        return slash <= root.length() ? null : name.substring(0, slash + 1);
+    }
+
+    // All problems in package order, or null after failing the import with every error found.
+    private List<Prepared> prepare(ImportJob job, ZipFile zip, List<PackageDir> dirs) throws InterruptedException {
+        CompletionService<Prepared> completion = new ExecutorCompletionService<>(workers);
+        Map<Future<Prepared>, PackageDir> pending = new HashMap<>();
+        for(PackageDir dir : dirs){
+            pending.put(completion.submit(() -> prepareProblem(zip, dir, job.staging.resolve(String.valueOf(dir.index())))), dir);
+        }
+        Prepared[] prepared = new Prepared[dirs.size()];
+        List<String> errors = new ArrayList<>();
+        try{
+            for(int done = 0; done < dirs.size(); done++){
+                Future<Prepared> future = completion.take();
+                PackageDir dir = pending.remove(future);
+                try{
+                    prepared[dir.index()] = future.get();
+                }catch (ExecutionException e){
+                    Throwable cause = e.getCause();
+                    if(!(cause instanceof IllegalArgumentException)) log.warn("Import {} could not prepare {}", job.id, dir.name(), cause);
+                    errors.add(dir.name() + ": " + cause.getMessage());
+                }
+                update(job, j -> {
+                    j.prepared++;
+                    j.current = dir.name();
+                });
+            }
+        }finally {
+            pending.keySet().forEach(future -> future.cancel(true));
+        }
+        if(!errors.isEmpty()){
+            Collections.sort(errors);
+            fail(job, errors);
+            return null;
+        }
+        return Arrays.asList(prepared);
+    }
+
+    private Prepared prepareProblem(ZipFile zip, PackageDir dir, Path target) throws IOException {
+        fileService.extract(zip, dir.entries(), dir.prefix(), target);
+        Path manifest = target.resolve(PROBLEM_MANIFEST);
+        if(!Files.isRegularFile(manifest)) throw new IllegalArgumentException("Missing " + PROBLEM_MANIFEST);
+        CreateProblem problem;
+        try{
+            problem = jsonMapper.readValue(manifest.toFile(), CreateProblem.class);
+        }catch (JacksonException e){
+            throw new IllegalArgumentException("Invalid " + PROBLEM_MANIFEST + ": " + e.getOriginalMessage());
+        }
+        if(problem.getTitle() != null && (problem.getSlug() == null || problem.getSlug().isEmpty())){
+            problem.setSlug(ProblemService.slugFor(problem.getTitle()));
+        }
+        Set<ConstraintViolation<CreateProblem>> violations = validator.validate(problem);
+        if(!violations.isEmpty()){
+            throw new IllegalArgumentException(violations.stream().map(v -> v.getMessage().trim()).sorted().collect(Collectors.joining("; ")));
+        }
+        int count = problemService.prepareTestData(target);
+        return new Prepared(dir.name(), problem, target, count, problemService.readTestGroups(target, count));
+    }
+
+    // Slugs and titles have to be unique within the package and against existing problems.
+    private List<String> findConflicts(List<Prepared> problems){
+        Map<String, String> slugs = new HashMap<>();
+        Map<String, String> titles = new HashMap<>();
+        List<String> conflicts = new ArrayList<>();
+        for(Prepared problem : problems){
+            String slug = problem.dto().getSlug();
+            String title = problem.dto().getTitle();
+            String other = slugs.putIfAbsent(slug, problem.dir());
+            if(other != null) conflicts.add(problem.dir() + ": slug '" + slug + "' is also used by " + other);
+            other = titles.putIfAbsent(title, problem.dir());
+            if(other != null) conflicts.add(problem.dir() + ": title '" + title + "' is also used by " + other);
+        }
+        jdbcTemplate.queryForList("SELECT slug FROM problems WHERE slug = ANY (?)", String.class, (Object) slugs.keySet().toArray(String[]::new))
+                .forEach(slug -> conflicts.add(slugs.get(slug) + ": a problem with slug '" + slug + "' already exists"));
+        jdbcTemplate.queryForList("SELECT title FROM problems WHERE title = ANY (?)", String.class, (Object) titles.keySet().toArray(String[]::new))
+                .forEach(title -> conflicts.add(titles.get(title) + ": a problem titled '" + title + "' already exists"));
+        Collections.sort(conflicts);
+        return conflicts;
+    }
+
+    // Test data is moved into place inside the transaction; if it rolls back, the moved directories are removed again.
+    private List<Long> publish(List<Prepared> problems){
+        List<Path> moved = new ArrayList<>();
+        try{
+            return transactionTemplate.execute(status -> {
+                List<Long> ids = insert(problems);
+                for(int i = 0; i < problems.size(); i++){
+                    Path target = Paths.get(storagePath, String.valueOf(ids.get(i)));
+                    try{
+                        fileService.replaceDirectory(problems.get(i).path(), target);
+                    }catch (IOException e){
+                        throw new UncheckedIOException("Could not move test data of " + problems.get(i).dir() + " into place", e);
+                    }
+                    moved.add(target);
+                }
+                return ids;
+            });
+        }catch (RuntimeException e){
+            for(Path dir : moved){
+                try{
+                    fileService.deleteDirectory(dir);
+                }catch (IOException cleanup){
+                    log.warn("Could not remove {} after a failed import", dir, cleanup);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private List<Long> insert(List<Prepared> problems){
+        List<Long> ids = new ArrayList<>(problems.size());
+        for(int from = 0; from < problems.size(); from += batchSize){
+            List<Prepared> batch = problems.subList(from, Math.min(problems.size(), from + batchSize));
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_PROBLEM, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Prepared problem = batch.get(i);
+                            CreateProblem dto = problem.dto();
+                            ps.setString(1, dto.getTitle());
+                            ps.setString(2, dto.getDescription());
+                            ps.setString(3, dto.getSlug());
+                            ps.setString(4, dto.getDifficulty().name());
+                            ps.setInt(5, problem.testCaseCount());
+                            ps.setObject(6, dto.getTimeLimitSeconds(), Types.DOUBLE);
+                            ps.setObject(7, dto.getMemoryLimitMb(), Types.INTEGER);
+                            ps.setString(8, dto.getCompareMode() == null ? null : dto.getCompareMode().name());
+                            ps.setObject(9, dto.getFloatTolerance(), Types.DOUBLE);
+                            ps.setString(10, TEST_GROUPS.convertToDatabaseColumn(problem.groups()));
+                        }
+
+                        @Override
+                        public int getBatchSize(){
+                            return batch.size();
+                        }
+                    }, keys);
+            for(Map<String, Object> row : keys.getKeyList()){
+                ids.add(((Number) row.get("id")).longValue());
+            }
+        }
+        if(ids.size() != problems.size()){
+            throw new IllegalStateException("Inserted " + problems.size() + " problems but got " + ids.size() + " ids back");
+        }
+        return ids;
+    }
+
+    private void fail(ImportJob job, List<String> errors){
+        update(job, j -> {
+            j.phase = ProblemImportProgress.Phase.FAILED;
+            j.errors.addAll(errors.subList(0, Math.min(errors.size(), MAX_ERRORS)));
+            if(errors.size() > MAX_ERRORS) j.errors.add("... and " + (errors.size() - MAX_ERRORS) + " more");
+        });
+    }
+
+    private void update(ImportJob job, Consumer<ImportJob> change){
+        ProblemImportProgress current;
+        List<SseEmitter> listeners;
+        synchronized (job){
+            change.accept(job);
+            current = job.snapshot();
+            listeners = List.copyOf(job.listeners);
+            if(job.isFinished()) job.listeners.clear();
+        }
+        for(SseEmitter emitter : listeners){
+            send(job, emitter, current);
+            if(isFinished(current.getPhase())) emitter.complete();
+        }
+    }
+
+    private static void send(ImportJob job, SseEmitter emitter, ProblemImportProgress progress){
+        try{
+            emitter.send(SseEmitter.event().name("progress").data(progress, MediaType.APPLICATION_JSON));
+        }catch (IOException | IllegalStateException e){
+            job.listeners.remove(emitter);
+        }
+    }
+
+    private static boolean isFinished(ProblemImportProgress.Phase phase){
+        return phase == ProblemImportProgress.Phase.COMPLETED || phase == ProblemImportProgress.Phase.FAILED;
+    }
+
+    // entries are the zip entries below prefix ("dir/", or "root/dir/" in a wrapped package).
+    private record PackageDir(int index, String name, String prefix, List<ZipEntry> entries) {
+    }
+
+    private record Prepared(String dir, CreateProblem dto, Path path, int testCaseCount, List<TestGroup> groups) {
+        Problem toProblem(long id){
+            return new Problem(id, dto.getTitle(), dto.getDescription(), dto.getSlug(), testCaseCount,
+                    dto.getTimeLimitSeconds(), dto.getMemoryLimitMb(), dto.getDifficulty(), dto.getCompareMode(),
+                    dto.getFloatTolerance(), groups);
+        }
+    }
+
+    private static final class ImportJob {
+        final String id;
+        final Path staging;
+        final List<SseEmitter> listeners = new CopyOnWriteArrayList<>();
+        ProblemImportProgress.Phase phase = ProblemImportProgress.Phase.QUEUED;
+        int total;
+        int prepared;
+        String current;
+        List<Long> problemIds;
+        final List<String> errors = new ArrayList<>();
+
+        ImportJob(String id, Path staging){
+            this.id = id;
+            this.staging = staging;
+        }
+
+        boolean isFinished(){
+            return ProblemImportService.isFinished(phase);
+        }
+
+        synchronized ProblemImportProgress snapshot(){
+            return new ProblemImportProgress(id, phase, total, prepared, current, problemIds, List.copyOf(errors));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Dto.ProblemSearchResult;
+import com.project.code_judge.Entity.Difficulty;
+import com.project.code_judge.Entity.Problem;
+import com.project.code_judge.Repository.ProblemRepository;
+import com.project.code_judge.Util.ProblemSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+ * Keeps ProblemSearchIndex in step with the problems table. Creates and edits on this node update
+ * it at once; a periodic rebuild picks up edits made through other API nodes and drops the
+ * documents retired by edits.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProblemSearchService {
+    private static final int MAX_LIMIT = 100;
+
+    private final ProblemRepository problemRepository;
+    private volatile ProblemSearchIndex index = new ProblemSearchIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${judge.search.rebuild-ms:300000}", initialDelayString = "${judge.search.rebuild-ms:300000}")
+    // Synchronized with index() so a problem saved while the rebuild reads the table is not lost.
+    public synchronized void rebuild(){
+        ProblemSearchIndex rebuilt = new ProblemSearchIndex();
+        List<Problem> problems = problemRepository.findAll();
+        for(Problem problem : problems){
+            rebuilt.index(toDocument(problem), problem.getDescription());
+        }
+        index = rebuilt;
+        log.debug("Problem search index rebuilt with {} problems", problems.size());
+    }
+
+    public synchronized void index(Problem problem){
+        index.index(toDocument(problem), problem.getDescription());
+    }
+
+    public List<ProblemSearchResult> search(String query, Set<Difficulty> difficulties,
+                                            Double minTimeLimit, Double maxTimeLimit,
+                                            Integer minMemoryLimit, Integer maxMemoryLimit, int limit){
+        if(limit < 1 || limit > MAX_LIMIT){
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        Set<String> difficultyNames = difficulties == null ? null
+                : difficulties.stream().map(Enum::name).collect(Collectors.toSet());
+        ProblemSearchIndex.Filter filter = new ProblemSearchIndex.Filter(difficultyNames,
+                minTimeLimit, maxTimeLimit, minMemoryLimit, maxMemoryLimit);
+        return index.search(query, filter, limit).stream()
+                .map(hit -> {
+                    ProblemSearchIndex.Document document = hit.document();
+                    return new ProblemSearchResult(document.id(), document.title(), document.slug(),
+                            document.difficulty() == null ? null : Difficulty.valueOf(document.difficulty()),
+                            document.timeLimitSeconds(), document.memoryLimitMb(), hit.score());
+                })
+                .toList();
+    }
+
+    private static ProblemSearchIndex.Document toDocument(Problem problem){
+        return new ProblemSearchIndex.Document(problem.getId(), problem.getTitle(), problem.getSlug(),
+                problem.getDifficulty() == null ? null : problem.getDifficulty().name(),
+                problem.getTimeLimitSeconds(), problem.getMemoryLimitMb());
+    }
+}
@@ -1,36 +1,57 @@
 package com.project.code_judge.Service;
 
 import com.project.code_judge.Dto.CreateProblem;
+import com.project.code_judge.Dto.TestGroup;
 import com.project.code_judge.Entity.Problem;
 import com.project.code_judge.Repository.ProblemRepository;
-import jakarta.transaction.Transactional;
+import com.project.code_judge.Util.OutputFingerprint;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 @Service
 public class ProblemService {
+    private static final String GROUPS_MANIFEST = "groups.json";
+    private static final Pattern TEST_FILE = Pattern.compile("(\\d+)_(in|out)\\.txt");
+    private static final String OUTPUT_SUFFIX = "_out.txt";
+
     @Autowired
     private ProblemRepository problemRepository;
 
     @Autowired
     private FileService fileService;
 
+    @Autowired
+    private ProblemSearchService problemSearchService;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
     @Value("${judge.data.path}")
     private String storagePath;
 
     public Problem createProblem(CreateProblem dto){
         if(dto.getSlug() == null || dto.getSlug().isEmpty()){
-            String generatedSlug = dto.getTitle().toLowerCase().replaceAll("[^a-z0-9\\s]", "").replace(" ", "-");
-            dto.setSlug(generatedSlug);
+            dto.setSlug(slugFor(dto.getTitle()));
         }
 
         if(problemRepository.existsBySlug(dto.getSlug())){
@@ -45,7 +66,36 @@ public class ProblemService {
         newProblem.setTestCaseCount(0);
         newProblem.setMemoryLimitMb(dto.getMemoryLimitMb());
         newProblem.setTimeLimitSeconds(dto.getTimeLimitSeconds());
-        return problemRepository.save(newProblem);
+        newProblem.setCompareMode(dto.getCompareMode());
+        newProblem.setFloatTolerance(dto.getFloatTolerance());
+        Problem saved = problemRepository.save(newProblem);
+        problemSearchService.index(saved);
+        return saved;
+    }
+
+    static String slugFor(String title){
+        return title.toLowerCase().replaceAll("[^a-z0-9\\s]", "").replace(" ", "-");
+    }
+
+    public Problem updateProblem(Long id, CreateProblem dto){
+        Problem problem = problemRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Problem not found"));
+        if(dto.getSlug() != null && !dto.getSlug().isEmpty() && !dto.getSlug().equals(problem.getSlug())){
+            if(problemRepository.existsBySlug(dto.getSlug())){
+                throw new RuntimeException("Slug already exists: " + dto.getSlug());
+            }
+            problem.setSlug(dto.getSlug());
+        }
+        if(dto.getTitle() != null) problem.setTitle(dto.getTitle());
+        if(dto.getDescription() != null) problem.setDescription(dto.getDescription());
+        if(dto.getDifficulty() != null) problem.setDifficulty(dto.getDifficulty());
+        if(dto.getTimeLimitSeconds() != null) problem.setTimeLimitSeconds(dto.getTimeLimitSeconds());
+        if(dto.getMemoryLimitMb() != null) problem.setMemoryLimitMb(dto.getMemoryLimitMb());
+        if(dto.getCompareMode() != null) problem.setCompareMode(dto.getCompareMode());
+        if(dto.getFloatTolerance() != null) problem.setFloatTolerance(dto.getFloatTolerance());
+        Problem saved = problemRepository.save(problem);
+        problemSearchService.index(saved);
+        return saved;
     }
 
     @Transactional
@@ -53,18 +103,141 @@ public class ProblemService {
         Problem problem = problemRepository.findById(problemId)
                 .orElseThrow(() -> new RuntimeException("Problem not found"));
         Path targetDir = Paths.get(storagePath, String.valueOf(problemId));
-        fileService.unzipAndSave(zipFile, targetDir);
-        try(Stream<Path> files = Files.list(targetDir)){
-            long count = files.filter(p -> p.getFileName().toString().endsWith("_in.txt")).count();
-            problem.setTestCaseCount((int) count);
+        Path staging = fileService.unzipToStaging(zipFile, targetDir);
+        try{
+            int count = prepareTestData(staging);
+            List<TestGroup> groups = readTestGroups(staging, count);
+            fileService.replaceDirectory(staging, targetDir);
+            problem.setTestCaseCount(count);
+            problem.setTestGroups(groups);
+        }finally {
+            fileService.deleteDirectory(staging);
         }
         problemRepository.save(problem);
     }
 
+    /*
+     * Tests must be numbered 1..count with an N_in.txt and an N_out.txt each, and no file may mix
+     * "\n" and "\r\n" line endings. Every expected output gets an N_out.fp fingerprint next to it.
+     * Files are scanned in parallel. Returns the test count.
+     */
+    int prepareTestData(Path dir) throws IOException {
+        Map<Integer, Path> inputs = new HashMap<>();
+        Map<Integer, Path> outputs = new HashMap<>();
+        try(Stream<Path> files = Files.list(dir)){
+            for(Path file : (Iterable<Path>) files::iterator){
+                Matcher matcher = TEST_FILE.matcher(file.getFileName().toString());
+                if(!matcher.matches() || !Files.isRegularFile(file)) continue;
+                if(matcher.group(1).startsWith("0")){
+                    throw new IllegalArgumentException("Tests are numbered from 1 without leading zeros: " + file.getFileName());
+                }
+                (matcher.group(2).equals("in") ? inputs : outputs).put(Integer.parseInt(matcher.group(1)), file);
+            }
+        }
+        if(inputs.isEmpty()){
+            throw new IllegalArgumentException("No test cases found; expected 1_in.txt, 1_out.txt, ... at the top of the zip");
+        }
+        int count = Math.max(inputs.size(), outputs.size());
+        for(int test = 1; test <= count; test++){
+            if(!inputs.containsKey(test)) throw new IllegalArgumentException("Test " + test + " has no input file " + test + "_in.txt");
+            if(!outputs.containsKey(test)) throw new IllegalArgumentException("Test " + test + " has no expected output " + test + "_out.txt");
+        }
+
+        List<Path> files = new ArrayList<>();
+        for(int test = 1; test <= count; test++){
+            files.add(inputs.get(test));
+            files.add(outputs.get(test));
+        }
+        List<OutputFingerprint.Scan> scans;
+        try{
+            scans = files.parallelStream().map(file -> {
+                try{
+                    return OutputFingerprint.scan(file);
+                }catch (IOException e){
+                    throw new UncheckedIOException(e);
+                }
+            }).toList();
+        }catch (UncheckedIOException e){
+            throw e.getCause();
+        }
+        for(int i = 0; i < files.size(); i++){
+            Path file = files.get(i);
+            if(scans.get(i).lineEndings() == OutputFingerprint.LineEndings.MIXED){
+                throw new IllegalArgumentException(file.getFileName() + " mixes \\n and \\r\\n line endings");
+            }
+            String name = file.getFileName().toString();
+            if(name.endsWith(OUTPUT_SUFFIX)){
+                scans.get(i).fingerprint().write(file.resolveSibling(name.substring(0, name.length() - ".txt".length()) + ".fp"));
+            }
+        }
+        return count;
+    }
+
+    /*
+     * groups.json lists the subtasks in judging order, e.g.
+     *   [{"name": "small", "points": 30, "tests": [1, 2]}, {"name": "large", "points": 70, "tests": ["3-10"]}]
+     * A test may belong to several groups, but every test has to belong to at least one.
+     * Returns null when the directory has no manifest.
+     */
+    List<TestGroup> readTestGroups(Path dir, int testCaseCount) throws IOException {
+        Path manifest = dir.resolve(GROUPS_MANIFEST);
+        if(!Files.exists(manifest)) return null;
+        JsonNode root;
+        try{
+            root = jsonMapper.readTree(manifest.toFile());
+        }catch (JacksonException e){
+            throw new IllegalArgumentException("Invalid " + GROUPS_MANIFEST + ": " + e.getOriginalMessage());
+        }
+        if(!root.isArray() || root.isEmpty()){
+            throw new IllegalArgumentException(GROUPS_MANIFEST + " must be a non-empty array of groups");
+        }
+        List<TestGroup> groups = new ArrayList<>();
+        BitSet covered = new BitSet();
+        for(JsonNode node : root){
+            String name = node.path("name").asString(null);
+            if(name == null || name.isBlank()) name = "group " + (groups.size() + 1);
+            JsonNode points = node.path("points");
+            if(!points.canConvertToInt() || points.asInt() < 0){
+                throw new IllegalArgumentException("Group '" + name + "' needs a non-negative integer points value");
+            }
+            List<Integer> tests = new ArrayList<>();
+            for(JsonNode entry : node.path("tests")){
+                int from, to;
+                if(entry.isInt()){
+                    from = to = entry.asInt();
+                }else{
+                    String[] range = entry.asString("").split("-", 2);
+                    try{
+                        from = Integer.parseInt(range[0].trim());
+                        to = range.length == 2 ? Integer.parseInt(range[1].trim()) : from;
+                    }catch (NumberFormatException e){
+                        throw new IllegalArgumentException("Group '" + name + "' has an invalid test entry: " + entry);
+                    }
+                }
+                if(from < 1 || to > testCaseCount || from > to){
+                    throw new IllegalArgumentException("Group '" + name + "' refers to tests outside 1.." + testCaseCount + ": " + entry);
+                }
+                for(int test = from; test <= to; test++) tests.add(test);
+            }
+            if(tests.isEmpty()){
+                throw new IllegalArgumentException("Group '" + name + "' has no tests");
+            }
+            tests.forEach(covered::set);
+            groups.add(new TestGroup(name, points.asInt(), tests));
+        }
+        int missing = covered.nextClearBit(1);
+        if(missing <= testCaseCount){
+            throw new IllegalArgumentException("Test " + missing + " is not part of any group in " + GROUPS_MANIFEST);
+        }
+        return groups;
+    }
+
+    @Transactional(readOnly = true)
     public List<Problem> getAllProblems(){
         return problemRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Problem getProblem(Long id){
         return problemRepository.findById(id).orElseThrow(() -> new RuntimeException("Problem not found"));
     }
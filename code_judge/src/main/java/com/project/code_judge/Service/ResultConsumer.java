@@ -1,38 +1,96 @@
 package com.project.code_judge.Service;
 
+import com.project.code_judge.Config.JudgeMessageConverter;
 import com.project.code_judge.Config.RabbitMQConfig;
 import com.project.code_judge.Dto.ExecutionResult;
+import com.project.code_judge.Dto.JudgeProgress;
+import com.project.code_judge.Dto.JournalEvent;
 import com.project.code_judge.Entity.Submission;
 import com.project.code_judge.Entity.SubmissionStatus;
+import com.project.code_judge.Entity.Verdict;
 import com.project.code_judge.Repository.SubmissionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Objects;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class ResultConsumer {
     private final SubmissionRepository submissionRepository;
+    private final ScalingService scalingService;
+    private final JudgeMessageConverter judgeMessageConverter;
+    private final DeadLetterService deadLetterService;
+    private final SubmissionLeaseService submissionLeaseService;
+    private final PlagiarismService plagiarismService;
+    private final MeterRegistry meterRegistry;
+    private final VerdictJournalService verdictJournalService;
+    private final TransactionTemplate transactionTemplate;
 
+    // Takes the raw message so that neither a bad payload nor a failed update loses the verdict:
+    // undecodable results are dead-lettered at once, everything else goes through the retry tiers.
     @RabbitListener(queues = RabbitMQConfig.RESULT_QUEUE)
-    public void consumeResult(ExecutionResult result){
+    public void consumeResult(Message message){
+        ExecutionResult result;
+        try{
+            result = (ExecutionResult) judgeMessageConverter.fromMessage(message, ExecutionResult.class);
+        }catch (RuntimeException e){
+            deadLetterService.retryOrDeadLetter(RabbitMQConfig.RESULT_QUEUE, message, e, true);
+            return;
+        }
+        try{
+            applyResult(result);
+        }catch (RuntimeException e){
+            deadLetterService.retryOrDeadLetter(RabbitMQConfig.RESULT_QUEUE, message, e, false);
+        }
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.PROGRESS_QUEUE)
+    public void consumeProgress(JudgeProgress progress){
+        submissionLeaseService.renew(progress);
+    }
 
+    private void applyResult(ExecutionResult result){
         UUID submissionId = UUID.fromString(result.getId());
-        Submission submission = submissionRepository.findById(submissionId)
+        // A read-write transaction keeps the lookup on the primary; a replica may not have the
+        // submission yet, or may still show it unjudged.
+        Submission submission = transactionTemplate.execute(status -> store(submissionId, result));
+        submissionLeaseService.release(submissionId);
+        if(submission == null) return;
+        if(result.getVerdict() == Verdict.ACCEPTED) plagiarismService.record(submission);
+        scalingService.recordServiceTime(result.getJudge_ms());
+        if(result.getCompile_cache() != null){
+            meterRegistry.counter("judge.compile.cache", "result", result.getCompile_cache()).increment();
+        }
+    }
+
+    // Returns null when the result is a duplicate of what is already stored.
+    private Submission store(UUID submissionId, ExecutionResult result){
+        Submission submission = submissionRepository.findHotById(submissionId)
                 .orElseThrow(() -> new RuntimeException("Submission not found."));
+        SubmissionStatus status = result.getError() != null && !result.getError().isEmpty() ? SubmissionStatus.FAILED : SubmissionStatus.COMPLETED;
+        boolean alreadyJudged = submission.getStatus() == SubmissionStatus.COMPLETED || submission.getStatus() == SubmissionStatus.FAILED;
+        // Results are delivered at least once: a re-dispatched run whose first attempt still
+        // finished, or a redelivery after a later step failed. The first one already counted.
+        if(alreadyJudged && submission.getStatus() == status
+                && submission.getVerdict() == result.getVerdict()
+                && Objects.equals(submission.getScore(), result.getScore())){
+            return null;
+        }
         submission.setError(result.getError());
         submission.setVerdict(result.getVerdict());
         submission.setTimeTaken(result.getTime_ms());
         submission.setMemoryUsed(result.getMemory_kb());
-        
-        // Set status based on whether error occurred
-        if (result.getError() != null && !result.getError().isEmpty()) {
-            submission.setStatus(SubmissionStatus.FAILED);
-        } else {
-            submission.setStatus(SubmissionStatus.COMPLETED);
-        }
+        submission.setScore(result.getScore());
+        submission.setGroupScores(result.getGroups());
+        submission.setStatus(status);
         submissionRepository.save(submission);
+        verdictJournalService.record(alreadyJudged ? JournalEvent.Type.REJUDGED : JournalEvent.Type.JUDGED, submission);
+        return submission;
     }
 }
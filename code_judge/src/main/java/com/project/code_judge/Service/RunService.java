@@ -0,0 +1,61 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Config.RabbitMQConfig;
+import com.project.code_judge.Dto.RunMessage;
+import com.project.code_judge.Dto.RunRequest;
+import com.project.code_judge.Dto.RunResult;
+import com.project.code_judge.Exception.ServiceUnavailableException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/*
+ * Interactive "run with custom input". Runs go straight to the reserved runner workers over
+ * run_queue and the result comes back on RabbitMQ direct reply-to; nothing is stored.
+ */
+@Service
+@RequiredArgsConstructor
+public class RunService {
+    private static final ParameterizedTypeReference<RunResult> RESULT_TYPE = new ParameterizedTypeReference<>() {};
+
+    private final RabbitTemplate rabbitTemplate;
+
+    @Value("${judge.run.time-limit-seconds:2}")
+    private double timeLimitSeconds;
+
+    @Value("${judge.run.memory-limit-mb:256}")
+    private int memoryLimitMb;
+
+    @Value("${judge.run.output-limit-bytes:65536}")
+    private int outputLimitBytes;
+
+    @Value("${judge.run.reply-timeout-ms:5000}")
+    private long replyTimeoutMs;
+
+    public RunResult run(RunRequest request){
+        RunMessage message = new RunMessage(
+                UUID.randomUUID().toString(),
+                request.getLanguage(),
+                request.getCode(),
+                request.getInput() == null ? "" : request.getInput(),
+                timeLimitSeconds,
+                memoryLimitMb,
+                outputLimitBytes
+        );
+        // A run nobody picked up before the caller gave up is worthless, so let the broker drop it.
+        RunResult result = rabbitTemplate.convertSendAndReceiveAsType("", RabbitMQConfig.RUN_QUEUE, message, m -> {
+            m.getMessageProperties().setExpiration(String.valueOf(replyTimeoutMs));
+            m.getMessageProperties().setDeliveryMode(MessageDeliveryMode.NON_PERSISTENT);
+            return m;
+        }, RESULT_TYPE);
+        if(result == null){
+            throw new ServiceUnavailableException("No runner is available right now, please try again");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,179 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Config.RabbitMQConfig;
+import com.project.code_judge.Dto.ScalingStatus;
+import com.project.code_judge.Util.CapacitySimulator;
+import com.project.code_judge.Util.WorkerCapacityController;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/*
+ * Feeds WorkerCapacityController with live submission_queue depth, the submission arrival rate and
+ * the judge_ms reported by workers, and publishes the recommendation as the
+ * judge.workers.recommended gauge for an external scaler.
+ *
+ * Arrivals are counted in the shared judge:scaling:arrivals counter in Redis, and each node turns
+ * the change since its previous tick into a rate. Queue depth comes from the broker, so every API
+ * node sees the whole offered load and publishes about the same recommendation; a scaler can read
+ * any of them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScalingService {
+    private final AmqpAdmin amqpAdmin;
+    private final MeterRegistry meterRegistry;
+    private final StringRedisTemplate redisTemplate;
+
+    private static final String ARRIVALS_KEY = "judge:scaling:arrivals";
+
+    private WorkerCapacityController controller;
+    // Counter value at the previous tick; -1 until the first reading.
+    private long lastArrivalCount = -1;
+    private volatile ScalingStatus status = new ScalingStatus();
+
+    @Value("${judge.routing.shards:0}")
+    private int shards;
+
+    @Value("${judge.scaling.min-workers:1}")
+    private int minWorkers;
+
+    @Value("${judge.scaling.max-workers:50}")
+    private int maxWorkers;
+
+    @Value("${judge.scaling.target-wait-seconds:5}")
+    private double targetWaitSeconds;
+
+    @Value("${judge.scaling.drain-seconds:60}")
+    private double drainSeconds;
+
+    @Value("${judge.scaling.smoothing-seconds:30}")
+    private double smoothingSeconds;
+
+    @Value("${judge.scaling.scale-down-delay-seconds:300}")
+    private double scaleDownDelaySeconds;
+
+    @Value("${judge.scaling.default-service-ms:2000}")
+    private long defaultServiceMs;
+
+    @Value("${judge.scaling.interval-ms:5000}")
+    private long intervalMs;
+
+    @PostConstruct
+    public void init(){
+        controller = new WorkerCapacityController(settings());
+        status.setRecommendedWorkers(minWorkers);
+        Gauge.builder("judge.workers.recommended", this, s -> s.status.getRecommendedWorkers())
+                .description("Recommended number of judge workers")
+                .register(meterRegistry);
+        Gauge.builder("judge.workers.current", this, s -> s.status.getCurrentWorkers())
+                .description("Workers consuming submission_queue")
+                .register(meterRegistry);
+        Gauge.builder("judge.queue.depth", this, s -> s.status.getQueueDepth())
+                .description("Ready messages on submission_queue and its shards")
+                .register(meterRegistry);
+        Gauge.builder("judge.arrival.rate", this, s -> s.status.getArrivalRatePerSecond())
+                .description("Smoothed submissions per second")
+                .register(meterRegistry);
+        Gauge.builder("judge.service.time", this, s -> s.status.getServiceTimeMs() / 1000.0)
+                .baseUnit("seconds")
+                .description("Smoothed judge service time per submission")
+                .register(meterRegistry);
+    }
+
+    public void recordArrival(){
+        try{
+            redisTemplate.opsForValue().increment(ARRIVALS_KEY);
+        }catch (DataAccessException e){
+            log.warn("Could not count submission arrival: {}", e.getMessage());
+        }
+    }
+
+    public void recordServiceTime(Long judgeMs){
+        if(judgeMs != null) controller.observeServiceTime(judgeMs / 1000.0);
+    }
+
+    @Scheduled(fixedDelayString = "${judge.scaling.interval-ms:5000}")
+    public void update(){
+        QueueInformation shared = amqpAdmin.getQueueInfo(RabbitMQConfig.SUBMISSION_QUEUE);
+        if(shared == null){
+            log.warn("Queue {} not found; skipping scaling update", RabbitMQConfig.SUBMISSION_QUEUE);
+            return;
+        }
+        long depth = shared.getMessageCount();
+        for(int shard = 0; shard < shards; shard++){
+            QueueInformation info = amqpAdmin.getQueueInfo(RabbitMQConfig.submissionShardQueue(shard));
+            if(info != null) depth += info.getMessageCount();
+        }
+        long arrivals;
+        try{
+            arrivals = arrivalsSinceLastTick();
+        }catch (DataAccessException e){
+            log.warn("Could not read the arrival counter; skipping scaling update: {}", e.getMessage());
+            return;
+        }
+        long now = System.currentTimeMillis();
+        WorkerCapacityController.Decision decision = controller.update(now, arrivals, depth);
+        status = new ScalingStatus(
+                decision.recommendedWorkers(),
+                decision.desiredWorkers(),
+                shared.getConsumerCount(),
+                depth,
+                decision.arrivalRate(),
+                decision.serviceSeconds() * 1000,
+                decision.utilization(),
+                decision.expectedWaitSeconds() * 1000,
+                now
+        );
+    }
+
+    // A counter that went backwards was reset (for example Redis lost its data), so it all counts as new.
+    private long arrivalsSinceLastTick(){
+        String value = redisTemplate.opsForValue().get(ARRIVALS_KEY);
+        long count = value == null ? 0 : Long.parseLong(value);
+        long previous = lastArrivalCount;
+        lastArrivalCount = count;
+        if(previous < 0) return 0;
+        return count >= previous ? count - previous : count;
+    }
+
+    public ScalingStatus getStatus(){
+        return status;
+    }
+
+    public CapacitySimulator.Result simulate(MultipartFile trace, Long tickMs, long startupMs, Integer initialWorkers){
+        List<CapacitySimulator.Arrival> arrivalTrace;
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(trace.getInputStream(), StandardCharsets.UTF_8))){
+            arrivalTrace = CapacitySimulator.readTrace(reader, defaultServiceMs);
+        }catch (IOException e){
+            throw new UncheckedIOException("Failed to read arrival trace", e);
+        }
+        return CapacitySimulator.run(arrivalTrace, settings(),
+                tickMs == null ? intervalMs : tickMs,
+                startupMs,
+                initialWorkers == null ? minWorkers : initialWorkers);
+    }
+
+    private WorkerCapacityController.Settings settings(){
+        return new WorkerCapacityController.Settings(minWorkers, maxWorkers, targetWaitSeconds, drainSeconds,
+                smoothingSeconds, scaleDownDelaySeconds, defaultServiceMs / 1000.0);
+    }
+}
@@ -0,0 +1,72 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Dto.AuthenticatedUser;
+import com.project.code_judge.Util.StatelessToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/*
+ * Issues and checks the signed tokens that let polling clients read their submissions without a
+ * session lookup. Off unless judge.auth.stateless-token.enabled is set, which also needs a
+ * judge.auth.token-secret of at least 32 bytes shared by every API instance.
+ */
+@Service
+@RequiredArgsConstructor
+public class StatelessTokenService {
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Value("${judge.auth.stateless-token.enabled:false}")
+    private boolean enabled;
+
+    @Value("${judge.auth.token-secret:}")
+    private String secret;
+
+    @Value("${judge.auth.token-ttl-seconds:900}")
+    private long ttlSeconds;
+
+    @Value("${judge.auth.stateless-paths:/api/submissions/*}")
+    private List<String> statelessPaths;
+
+    private StatelessToken token;
+
+    @PostConstruct
+    public void init(){
+        if(!enabled) return;
+        byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+        if(key.length < MIN_SECRET_BYTES){
+            throw new IllegalStateException("judge.auth.token-secret must be at least " + MIN_SECRET_BYTES + " bytes when stateless tokens are enabled");
+        }
+        token = new StatelessToken(key);
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    public boolean coversPath(String path){
+        return enabled && statelessPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    public String issue(AuthenticatedUser user, long lsn){
+        if(!enabled) throw new IllegalStateException("Stateless tokens are disabled");
+        return token.sign(new StatelessToken.Claims(user.id(), user.email(), user.role(), lsn, Instant.now().plusSeconds(ttlSeconds)));
+    }
+
+    public Optional<StatelessToken.Claims> verify(String value){
+        Optional<StatelessToken.Claims> claims = enabled ? token.verify(value, Instant.now()) : Optional.empty();
+        meterRegistry.counter("judge.auth.stateless", "result", claims.isPresent() ? "accepted" : "rejected").increment();
+        return claims;
+    }
+}
@@ -0,0 +1,244 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Util.SubmissionArchiveFile;
+import com.project.code_judge.Util.TimeOrderedIds;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SubmissionArchiveService {
+    private static final String PARTITION_PREFIX = "submissions_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter ARCHIVE_SUFFIX = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final String ARCHIVE_EXTENSION = ".sca.gz";
+    private static final long ARCHIVE_LOCK_ID = 0x4A554447454152L;
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${judge.submissions.archive.path}")
+    private String archivePath;
+
+    @Value("${judge.submissions.archive.after-months:6}")
+    private int archiveAfterMonths;
+
+    @Value("${judge.submissions.partition.months-ahead:2}")
+    private int monthsAhead;
+
+    // Runs before the listener containers and the web server start, so the first insert on a fresh
+    // database already has a partition to land in.
+    @PostConstruct
+    public void createPartitions(){
+        if(!isPartitioned()) return;
+        YearMonth current = YearMonth.now();
+        for(int i = 0; i <= monthsAhead; i++){
+            createPartition(current.plusMonths(i));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${judge.submissions.partition.cron:0 15 3 * * *}")
+    public void maintainPartitions(){
+        if(!isPartitioned()){
+            log.warn("Table submissions is not range partitioned; skipping partition maintenance");
+            return;
+        }
+        createPartitions();
+        YearMonth current = YearMonth.now();
+        YearMonth cutoff = current.minusMonths(archiveAfterMonths);
+        for(YearMonth month : listPartitions()){
+            if(month.isBefore(cutoff)){
+                archivePartition(month);
+            }
+        }
+    }
+
+    public Optional<SubmissionArchiveFile.Row> find(UUID id){
+        for(Path file : candidateFiles(id)){
+            try{
+                Optional<SubmissionArchiveFile.Row> row = SubmissionArchiveFile.find(file, id);
+                if(row.isPresent()) return row;
+            }catch (IOException e){
+                throw new UncheckedIOException("Failed to read submission archive " + file, e);
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Archive files whose month overlaps [from, to), oldest first; a null bound is open.
+    public List<Path> archivesBetween(LocalDateTime from, LocalDateTime to){
+        Path dir = Paths.get(archivePath);
+        if(!Files.isDirectory(dir)) return List.of();
+        try(Stream<Path> files = Files.list(dir)){
+            return files.filter(file -> {
+                        YearMonth month = archiveMonth(file);
+                        return month != null
+                                && (from == null || !month.isBefore(YearMonth.from(from)))
+                                && (to == null || month.atDay(1).atStartOfDay().isBefore(to));
+                    })
+                    .sorted()
+                    .toList();
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean isPartitioned(){
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('submissions')", String.class);
+        return kinds.contains("p");
+    }
+
+    private void createPartition(YearMonth month){
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month)
+                + " PARTITION OF submissions FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+
+    private List<YearMonth> listPartitions(){
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'submissions'::regclass", String.class);
+        List<YearMonth> months = new ArrayList<>();
+        for(String name : names){
+            if(name.startsWith(PARTITION_PREFIX)){
+                months.add(YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX));
+            }
+        }
+        Collections.sort(months);
+        return months;
+    }
+
+    private void archivePartition(YearMonth month){
+        String partition = partitionName(month);
+        Path target = archiveFile(month);
+        transactionTemplate.executeWithoutResult(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ARCHIVE_LOCK_ID);
+            if(!Boolean.TRUE.equals(locked)) return;
+            long rows = writeArchive(partition, target);
+            jdbcTemplate.execute("ALTER TABLE submissions DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            log.info("Archived {} submissions from {} to {}", rows, partition, target);
+        });
+    }
+
+    private long writeArchive(String partition, Path target){
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try{
+            Files.createDirectories(target.getParent());
+            long rows;
+            try(OutputStream out = Files.newOutputStream(temp);
+                SubmissionArchiveFile.Writer writer = new SubmissionArchiveFile.Writer(out)){
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "SELECT id, user_id, problem_id, submission_time, language, status, verdict, "
+                                    + "time_taken, memory_used, score, group_scores, error, code FROM " + partition + " ORDER BY id");
+                    ps.setFetchSize(FETCH_SIZE);
+                    return ps;
+                }, (RowCallbackHandler) rs -> append(writer, rs));
+                rows = writer.getRowCount();
+            }
+            try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)){
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return rows;
+        }catch (IOException e){
+            throw new UncheckedIOException("Failed to archive partition " + partition, e);
+        }
+    }
+
+    private void append(SubmissionArchiveFile.Writer writer, ResultSet rs) throws SQLException {
+        Timestamp submissionTime = rs.getTimestamp("submission_time");
+        SubmissionArchiveFile.Row row = new SubmissionArchiveFile.Row(
+                rs.getObject("id", UUID.class),
+                rs.getObject("user_id", Long.class),
+                rs.getObject("problem_id", Long.class),
+                submissionTime.toLocalDateTime(),
+                rs.getString("language"),
+                rs.getString("status"),
+                rs.getString("verdict"),
+                rs.getObject("time_taken", Long.class),
+                rs.getObject("memory_used", Long.class),
+                rs.getObject("score", Integer.class),
+                rs.getString("group_scores"),
+                rs.getString("error"),
+                rs.getString("code"));
+        try{
+            writer.append(row);
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Path> candidateFiles(UUID id){
+        if(TimeOrderedIds.isTimeOrdered(id)){
+            LocalDateTime createdAt = TimeOrderedIds.createdAt(id);
+            Set<YearMonth> months = new LinkedHashSet<>();
+            months.add(YearMonth.from(createdAt));
+            months.add(YearMonth.from(createdAt.minusDays(1)));
+            months.add(YearMonth.from(createdAt.plusDays(1)));
+            return months.stream().map(this::archiveFile).filter(Files::exists).toList();
+        }
+        Path dir = Paths.get(archivePath);
+        if(!Files.isDirectory(dir)) return List.of();
+        try(Stream<Path> files = Files.list(dir)){
+            return files.filter(p -> p.getFileName().toString().endsWith(ARCHIVE_EXTENSION))
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path archiveFile(YearMonth month){
+        return Paths.get(archivePath, "submissions-" + month.format(ARCHIVE_SUFFIX) + ARCHIVE_EXTENSION);
+    }
+
+    private static YearMonth archiveMonth(Path file){
+        String name = file.getFileName().toString();
+        if(!name.startsWith("submissions-") || !name.endsWith(ARCHIVE_EXTENSION)) return null;
+        try{
+            return YearMonth.parse(name.substring("submissions-".length(), name.length() - ARCHIVE_EXTENSION.length()), ARCHIVE_SUFFIX);
+        }catch (DateTimeParseException e){
+            return null;
+        }
+    }
+
+    private static String partitionName(YearMonth month){
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,144 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Dto.SubmissionMessage;
+import com.project.code_judge.Entity.CompareMode;
+import com.project.code_judge.Entity.Problem;
+import com.project.code_judge.Entity.Submission;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SubmissionDispatcher {
+    private final RabbitTemplate rabbitTemplate;
+    private final SubmissionRouter submissionRouter;
+
+    @Value("${judge.wire.inline-source-limit:65536}")
+    private int inlineSourceLimit;
+
+    @Value("${judge.wire.source-path}")
+    private String sourcePath;
+
+    @Value("${judge.wire.source-max-age-ms:86400000}")
+    private long sourceMaxAgeMs;
+
+    public void dispatch(Submission submission){
+        String queue = submissionRouter.route(submission.getProblem().getId());
+        String id = submission.getId().toString();
+        // The submission id doubles as the message id, so a dead letter can be replayed by submission.
+        rabbitTemplate.convertAndSend(queue, toMessage(submission), message -> {
+            message.getMessageProperties().setMessageId(id);
+            return message;
+        });
+    }
+
+    public SubmissionMessage toMessage(Submission submission){
+        Problem problem = submission.getProblem();
+        byte[] source = submission.getCode().getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(source);
+
+        SubmissionMessage message = new SubmissionMessage();
+        message.setId(submission.getId().toString());
+        message.setLanguage(submission.getLanguage());
+        message.setCodeHash(hash);
+        if(source.length > inlineSourceLimit){
+            storeSource(hash, source);
+            message.setCodeRef(hash);
+        }else{
+            message.setCode(submission.getCode());
+        }
+        message.setTimeLimit(problem.getTimeLimitSeconds());
+        message.setMemoryLimit(problem.getMemoryLimitMb());
+        message.setProblemId(problem.getId());
+        message.setTestCaseCount(problem.getTestCaseCount());
+        message.setGroups(problem.getTestGroups());
+        if(problem.getCompareMode() == CompareMode.FLOAT){
+            message.setCompare("float");
+            message.setFloatTolerance(problem.getFloatTolerance());
+        }
+        return message;
+    }
+
+    // For messages republished as they are (dead-letter replays): puts back a source file the
+    // sweep may have removed since the submission was first dispatched.
+    public void restoreSource(Submission submission){
+        byte[] source = submission.getCode().getBytes(StandardCharsets.UTF_8);
+        if(source.length > inlineSourceLimit) storeSource(sha256(source), source);
+    }
+
+    /*
+     * Removes source files not stored or reused for judge.wire.source-max-age-ms. Retries and lease
+     * re-dispatches finish well inside that age (a re-dispatch stores the file again anyway), and
+     * dead-letter replays restore it, so only sources no queued message can still need are removed.
+     * Every API node may sweep the shared volume; deletes are idempotent.
+     */
+    @Scheduled(fixedDelayString = "${judge.wire.source-sweep-ms:3600000}", initialDelayString = "${judge.wire.source-sweep-ms:3600000}")
+    public void sweepSources(){
+        Path dir = Paths.get(sourcePath);
+        if(!Files.isDirectory(dir)) return;
+        FileTime cutoff = FileTime.from(Instant.now().minusMillis(sourceMaxAgeMs));
+        int removed = 0;
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(dir)){
+            for(Path file : files){
+                try{
+                    if(Files.getLastModifiedTime(file).compareTo(cutoff) < 0 && Files.deleteIfExists(file)) removed++;
+                }catch (NoSuchFileException e){
+                    // Removed by another node's sweep.
+                }
+            }
+        }catch (IOException e){
+            log.warn("Could not sweep submission sources in {}: {}", dir, e.getMessage());
+        }
+        if(removed > 0) log.info("Removed {} submission sources older than {} ms", removed, sourceMaxAgeMs);
+    }
+
+    // Sources are content addressed, so identical resubmissions share one file on the shared volume.
+    // Reusing a file refreshes its mtime so the sweep keeps it.
+    private void storeSource(String hash, byte[] source){
+        Path target = Paths.get(sourcePath, hash);
+        try{
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            return;
+        }catch (NoSuchFileException e){
+            // Not stored yet.
+        }catch (IOException e){
+            throw new UncheckedIOException("Failed to store submission source " + hash, e);
+        }
+        try{
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            Files.write(temp, source);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }catch (IOException e){
+            throw new UncheckedIOException("Failed to store submission source " + hash, e);
+        }
+    }
+
+    private static String sha256(byte[] data){
+        try{
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        }catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Entity.Verdict;
+import com.project.code_judge.Util.SubmissionArchiveFile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+ * Streams submissions out for offline analysis. Archived months overlapping the requested range
+ * come first, read from their columnar files one row group at a time with the same filters. Live
+ * rows follow, read in keyset-paginated chunks ordered by id, each chunk in its own short
+ * read-only transaction (so on a replica when one is configured) through a forward-only cursor,
+ * and written to the output as they arrive. Memory use does not depend on the number of rows, and
+ * no transaction outlives one chunk.
+ */
+@Service
+@RequiredArgsConstructor
+public class SubmissionExportService {
+    private static final int CHUNK_ROWS = 5000;
+    private static final int FETCH_SIZE = 500;
+    private static final String CSV_HEADER = "id,user_id,problem_id,submission_time,language,status,verdict,time_taken,memory_used,score,group_scores,error,code\r\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final JsonMapper jsonMapper;
+    private final SubmissionArchiveService submissionArchiveService;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv"),
+        COLUMNAR("application/octet-stream", "sca.gz");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension){
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType(){
+            return contentType;
+        }
+
+        public String getExtension(){
+            return extension;
+        }
+    }
+
+    public record Filter(Long problemId, LocalDateTime from, LocalDateTime to, Verdict verdict, boolean includeCode) {
+        public Filter {
+            if(from != null && to != null && from.isAfter(to)){
+                throw new IllegalArgumentException("from must not be after to");
+            }
+        }
+
+        // The same conditions readChunk puts in its WHERE clause, for archived rows.
+        boolean matches(SubmissionArchiveFile.Row row){
+            return (problemId == null || problemId.equals(row.problemId()))
+                    && (from == null || !row.submissionTime().isBefore(from))
+                    && (to == null || row.submissionTime().isBefore(to))
+                    && (verdict == null || verdict.name().equals(row.verdict()));
+        }
+    }
+
+    private interface RowWriter extends Closeable {
+        void write(SubmissionArchiveFile.Row row) throws IOException;
+    }
+
+    public void export(Filter filter, Format format, OutputStream target) throws IOException {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        OutputStream out = new BufferedOutputStream(new NonClosingOutputStream(target), 64 * 1024);
+
+        try(RowWriter writer = writer(format, out)){
+            for(Path archive : submissionArchiveService.archivesBetween(filter.from(), filter.to())){
+                SubmissionArchiveFile.scan(archive, filter.includeCode(), row -> {
+                    if(filter.matches(row)) writer.write(row);
+                });
+            }
+            UUID after = null;
+            while(true){
+                UUID from = after;
+                UUID last = readOnly.execute(status -> readChunk(filter, from, writer));
+                if(last == null) break;
+                after = last;
+            }
+        }catch (UncheckedIOException e){
+            throw e.getCause();
+        }
+    }
+
+    // Writes one chunk and returns the last id seen, or null when there were no more rows.
+    private UUID readChunk(Filter filter, UUID after, RowWriter writer){
+        StringBuilder sql = new StringBuilder("SELECT id, user_id, problem_id, submission_time, language, status, verdict, "
+                + "time_taken, memory_used, score, group_scores, error" + (filter.includeCode() ? ", code" : "") + " FROM submissions WHERE true");
+        List<Object> args = new ArrayList<>();
+        if(after != null){ sql.append(" AND id > ?"); args.add(after); }
+        if(filter.problemId() != null){ sql.append(" AND problem_id = ?"); args.add(filter.problemId()); }
+        if(filter.from() != null){ sql.append(" AND submission_time >= ?"); args.add(Timestamp.valueOf(filter.from())); }
+        if(filter.to() != null){ sql.append(" AND submission_time < ?"); args.add(Timestamp.valueOf(filter.to())); }
+        if(filter.verdict() != null){ sql.append(" AND verdict = ?"); args.add(filter.verdict().name()); }
+        sql.append(" ORDER BY id LIMIT ").append(CHUNK_ROWS);
+
+        UUID[] last = {null};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            for(int i = 0; i < args.size(); i++) ps.setObject(i + 1, args.get(i));
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            SubmissionArchiveFile.Row row = toRow(rs, filter.includeCode());
+            try{
+                writer.write(row);
+            }catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+            last[0] = row.id();
+        });
+        return last[0];
+    }
+
+    private static SubmissionArchiveFile.Row toRow(ResultSet rs, boolean includeCode) throws SQLException {
+        Timestamp submissionTime = rs.getTimestamp("submission_time");
+        return new SubmissionArchiveFile.Row(
+                rs.getObject("id", UUID.class),
+                rs.getObject("user_id", Long.class),
+                rs.getObject("problem_id", Long.class),
+                submissionTime == null ? null : submissionTime.toLocalDateTime(),
+                rs.getString("language"),
+                rs.getString("status"),
+                rs.getString("verdict"),
+                rs.getObject("time_taken", Long.class),
+                rs.getObject("memory_used", Long.class),
+                rs.getObject("score", Integer.class),
+                rs.getString("group_scores"),
+                rs.getString("error"),
+                includeCode ? rs.getString("code") : null);
+    }
+
+    private RowWriter writer(Format format, OutputStream out) throws IOException {
+        return switch (format){
+            case NDJSON -> new RowWriter() {
+                @Override
+                public void write(SubmissionArchiveFile.Row row) throws IOException {
+                    Map<String, Object> json = new LinkedHashMap<>();
+                    json.put("id", row.id());
+                    json.put("userId", row.userId());
+                    json.put("problemId", row.problemId());
+                    json.put("submissionTime", row.submissionTime() == null ? null : row.submissionTime().toString());
+                    json.put("language", row.language());
+                    json.put("status", row.status());
+                    json.put("verdict", row.verdict());
+                    json.put("timeTaken", row.timeTaken());
+                    json.put("memoryUsed", row.memoryUsed());
+                    json.put("score", row.score());
+                    json.put("groupScores", row.groupScores() == null ? null : jsonMapper.readTree(row.groupScores()));
+                    json.put("error", row.error());
+                    if(row.code() != null) json.put("code", row.code());
+                    out.write(jsonMapper.writeValueAsBytes(json));
+                    out.write('\n');
+                }
+
+                @Override
+                public void close() throws IOException {
+                    out.close();
+                }
+            };
+            case CSV -> new RowWriter() {
+                private final Writer csv = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                private boolean header;
+
+                @Override
+                public void write(SubmissionArchiveFile.Row row) throws IOException {
+                    if(!header){
+                        csv.write(CSV_HEADER);
+                        header = true;
+                    }
+                    Object[] values = {row.id(), row.userId(), row.problemId(), row.submissionTime(), row.language(),
+                            row.status(), row.verdict(), row.timeTaken(), row.memoryUsed(), row.score(), row.groupScores(), row.error(), row.code()};
+                    for(int i = 0; i < values.length; i++){
+                        if(i > 0) csv.write(',');
+                        if(values[i] != null) csv.write(csvField(values[i].toString()));
+                    }
+                    csv.write("\r\n");
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if(!header) csv.write(CSV_HEADER);
+                    csv.close();
+                }
+            };
+            case COLUMNAR -> new RowWriter() {
+                private final SubmissionArchiveFile.Writer columnar = new SubmissionArchiveFile.Writer(out);
+
+                @Override
+                public void write(SubmissionArchiveFile.Row row) throws IOException {
+                    columnar.append(row);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    columnar.close();
+                }
+            };
+        };
+    }
+
+    // The servlet container owns the response stream; the format writers only flush it.
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out){
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private static String csvField(String value){
+        if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0){
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,246 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Dto.JournalEvent;
+import com.project.code_judge.Dto.JudgeProgress;
+import com.project.code_judge.Entity.Submission;
+import com.project.code_judge.Entity.SubmissionStatus;
+import com.project.code_judge.Entity.Verdict;
+import com.project.code_judge.Repository.SubmissionRepository;
+import com.project.code_judge.Util.TimerWheel;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/*
+ * Leases on in-flight submissions. A lease starts when a submission is dispatched and is renewed
+ * by the worker's progress messages; when it runs out the submission is dispatched again, up to
+ * maxRedispatches times, and then failed with INTERNAL_ERROR.
+ *
+ * Deadlines live in a local TimerWheel, so detection costs nothing per pending submission, and are
+ * mirrored to the judge:leases sorted set in Redis. Expiry is claimed atomically in Redis, so only
+ * one API node acts on it, and a periodic ZRANGEBYSCORE sweep picks up leases whose owning node
+ * went away. Neither path touches the submissions table until a lease actually expires.
+ *
+ * A submission no worker has started yet is only presumed lost once the submission queues are
+ * empty; while the broker still holds a backlog its queued lease is extended, so a deep queue does
+ * not turn waiting submissions into duplicates and failures.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SubmissionLeaseService {
+    private static final String LEASES_KEY = "judge:leases";
+    private static final String ATTEMPTS_KEY = "judge:lease-attempts";
+    // Submissions dispatched but not yet started by a worker.
+    private static final String QUEUED_KEY = "judge:lease-queued";
+
+    // Returns -1 when the lease is gone, 0 when it was renewed past now, otherwise the attempt count.
+    private static final RedisScript<Long> CLAIM = new DefaultRedisScript<>("""
+            local deadline = redis.call('ZSCORE', KEYS[1], ARGV[1])
+            if not deadline then return -1 end
+            if tonumber(deadline) > tonumber(ARGV[2]) then return 0 end
+            redis.call('ZADD', KEYS[1], ARGV[3], ARGV[1])
+            return redis.call('HINCRBY', KEYS[2], ARGV[1], 1)
+            """, Long.class);
+
+    // Renews only leases that still exist, so a late heartbeat cannot revive a finished submission.
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>("""
+            if redis.call('ZSCORE', KEYS[1], ARGV[1]) then
+                redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final SubmissionRepository submissionRepository;
+    private final SubmissionDispatcher submissionDispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final VerdictJournalService verdictJournalService;
+    private final ScalingService scalingService;
+
+    private TimerWheel<UUID> wheel;
+
+    @Value("${judge.lease.queued-ms:600000}")
+    private long queuedLeaseMs;
+
+    @Value("${judge.lease.running-ms:60000}")
+    private long runningLeaseMs;
+
+    @Value("${judge.lease.max-redispatches:2}")
+    private int maxRedispatches;
+
+    @Value("${judge.lease.tick-ms:250}")
+    private long tickMs;
+
+    @Value("${judge.lease.sweep-batch:100}")
+    private int sweepBatch;
+
+    @PostConstruct
+    public void init(){
+        // 256 slots per level, three levels: about 48 days of range at the default tick.
+        wheel = new TimerWheel<>(tickMs, 8, 3, System.currentTimeMillis());
+    }
+
+    // Called before the submission is published, so even an immediate result finds the lease; until a
+    // worker reports progress it only has to survive its time in the queue.
+    public void track(UUID id){
+        long deadline = System.currentTimeMillis() + queuedLeaseMs;
+        wheel.schedule(id, deadline);
+        try{
+            redisTemplate.opsForHash().delete(ATTEMPTS_KEY, id.toString());
+            redisTemplate.opsForSet().add(QUEUED_KEY, id.toString());
+            redisTemplate.opsForZSet().add(LEASES_KEY, id.toString(), deadline);
+        }catch (DataAccessException e){
+            log.warn("Could not mirror lease for submission {}: {}", id, e.getMessage());
+        }
+    }
+
+    public void renew(JudgeProgress progress){
+        UUID id;
+        try{
+            id = UUID.fromString(progress.getId());
+        }catch (RuntimeException e){
+            return;
+        }
+        long deadline = System.currentTimeMillis();
+        boolean retry = JudgeProgress.PHASE_RETRY.equals(progress.getPhase());
+        if(retry){
+            deadline += queuedLeaseMs + Math.max(0, progress.getExtend_ms() == null ? 0 : progress.getExtend_ms());
+        }else{
+            deadline += runningLeaseMs;
+        }
+        try{
+            Long renewed = redisTemplate.execute(RENEW, List.of(LEASES_KEY), id.toString(), Long.toString(deadline));
+            if(renewed == null || renewed == 0) return;
+            // A retried submission goes back to waiting in a queue.
+            if(retry) redisTemplate.opsForSet().add(QUEUED_KEY, id.toString());
+            else redisTemplate.opsForSet().remove(QUEUED_KEY, id.toString());
+        }catch (DataAccessException e){
+            if(!wheel.contains(id)) return;
+        }
+        wheel.schedule(id, deadline);
+    }
+
+    public void release(UUID id){
+        wheel.cancel(id);
+        try{
+            redisTemplate.opsForZSet().remove(LEASES_KEY, id.toString());
+            redisTemplate.opsForHash().delete(ATTEMPTS_KEY, id.toString());
+            redisTemplate.opsForSet().remove(QUEUED_KEY, id.toString());
+        }catch (DataAccessException e){
+            log.warn("Could not release lease for submission {}: {}", id, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${judge.lease.tick-ms:250}")
+    public void tick(){
+        long now = System.currentTimeMillis();
+        for(UUID id : wheel.advance(now)){
+            expire(id, now);
+        }
+    }
+
+    // Catches leases tracked by API nodes that have since stopped; cost is proportional to the
+    // number of expired leases, not to the number in flight.
+    @Scheduled(fixedDelayString = "${judge.lease.sweep-ms:5000}")
+    public void sweep(){
+        long now = System.currentTimeMillis();
+        Set<String> expired;
+        try{
+            expired = redisTemplate.opsForZSet().rangeByScore(LEASES_KEY, 0, now, 0, sweepBatch);
+        }catch (DataAccessException e){
+            log.warn("Lease sweep skipped: {}", e.getMessage());
+            return;
+        }
+        if(expired == null) return;
+        for(String member : expired){
+            try{
+                expire(UUID.fromString(member), now);
+            }catch (IllegalArgumentException e){
+                redisTemplate.opsForZSet().remove(LEASES_KEY, member);
+            }
+        }
+    }
+
+    private void expire(UUID id, long now){
+        if(extendWhileQueued(id, now)) return;
+        Long attempt;
+        try{
+            attempt = redisTemplate.execute(CLAIM, List.of(LEASES_KEY, ATTEMPTS_KEY),
+                    id.toString(), Long.toString(now), Long.toString(now + queuedLeaseMs));
+        }catch (DataAccessException e){
+            // Without Redis there is no way to tell whether another node already acted; check again later.
+            log.warn("Could not claim expired lease for submission {}: {}", id, e.getMessage());
+            wheel.schedule(id, now + runningLeaseMs);
+            return;
+        }
+        if(attempt == null || attempt < 0){
+            wheel.cancel(id);
+            return;
+        }
+        if(attempt == 0){
+            Double deadline = redisTemplate.opsForZSet().score(LEASES_KEY, id.toString());
+            if(deadline != null) wheel.schedule(id, deadline.longValue());
+            return;
+        }
+        try{
+            boolean redispatched = Boolean.TRUE.equals(transactionTemplate.execute(status -> redispatchOrFail(id, attempt)));
+            if(redispatched) wheel.schedule(id, now + queuedLeaseMs);
+            else release(id);
+        }catch (RuntimeException e){
+            log.error("Handling expired lease for submission {} failed", id, e);
+            wheel.schedule(id, now + runningLeaseMs);
+        }
+    }
+
+    // A submission still waiting behind a backlog is not lost; give it another queued lease.
+    private boolean extendWhileQueued(UUID id, long now){
+        if(scalingService.getStatus().getQueueDepth() <= 0) return false;
+        long deadline = now + queuedLeaseMs;
+        try{
+            if(!Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(QUEUED_KEY, id.toString()))) return false;
+            Long renewed = redisTemplate.execute(RENEW, List.of(LEASES_KEY), id.toString(), Long.toString(deadline));
+            if(renewed == null || renewed == 0){
+                wheel.cancel(id);
+                return true;
+            }
+        }catch (DataAccessException e){
+            return false;
+        }
+        wheel.schedule(id, deadline);
+        return true;
+    }
+
+    private boolean redispatchOrFail(UUID id, long attempt){
+        Submission submission = submissionRepository.findHotById(id).orElse(null);
+        if(submission == null || submission.getStatus() != SubmissionStatus.PENDING){
+            return false;
+        }
+        if(attempt <= maxRedispatches){
+            log.warn("Lease expired for submission {}; dispatching again (attempt {} of {})", id, attempt, maxRedispatches);
+            redisTemplate.opsForSet().add(QUEUED_KEY, id.toString());
+            submissionDispatcher.dispatch(submission);
+            return true;
+        }
+        log.error("Lease expired for submission {} after {} re-dispatches; failing it", id, maxRedispatches);
+        submission.setStatus(SubmissionStatus.FAILED);
+        submission.setVerdict(Verdict.INTERNAL_ERROR);
+        submission.setError("Judging did not finish after " + attempt + " attempts");
+        submissionRepository.save(submission);
+        verdictJournalService.record(JournalEvent.Type.JUDGED, submission);
+        return false;
+    }
+}
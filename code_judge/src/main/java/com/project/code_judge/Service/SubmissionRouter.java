@@ -0,0 +1,71 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Config.RabbitMQConfig;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class SubmissionRouter {
+    private final AmqpAdmin amqpAdmin;
+    private final int shards;
+    private final long maxShardDepth;
+    private final long depthCacheMs;
+    private final Map<Integer, ShardSample> samples = new ConcurrentHashMap<>();
+
+    private record ShardSample(long depth, int consumers, long sampledAt) {
+    }
+
+    public SubmissionRouter(AmqpAdmin amqpAdmin,
+                            @Value("${judge.routing.shards:0}") int shards,
+                            @Value("${judge.routing.shard-max-depth:20}") long maxShardDepth,
+                            @Value("${judge.routing.depth-cache-ms:500}") long depthCacheMs){
+        this.amqpAdmin = amqpAdmin;
+        this.shards = shards;
+        this.maxShardDepth = maxShardDepth;
+        this.depthCacheMs = depthCacheMs;
+    }
+
+    public String route(Long problemId){
+        if(shards <= 0 || problemId == null){
+            return RabbitMQConfig.SUBMISSION_QUEUE;
+        }
+        int shard = jumpConsistentHash(problemId, shards);
+        ShardSample sample = sample(shard);
+        // A shard no worker consumes would only hold the submission until its TTL sends it to the shared queue.
+        if(sample.consumers() == 0 || sample.depth() >= maxShardDepth){
+            return RabbitMQConfig.SUBMISSION_QUEUE;
+        }
+        return RabbitMQConfig.submissionShardQueue(shard);
+    }
+
+    private ShardSample sample(int shard){
+        long now = System.currentTimeMillis();
+        ShardSample sample = samples.get(shard);
+        if(sample == null || now - sample.sampledAt() > depthCacheMs){
+            QueueInformation info = amqpAdmin.getQueueInfo(RabbitMQConfig.submissionShardQueue(shard));
+            sample = info == null
+                    ? new ShardSample(Long.MAX_VALUE, 0, now)
+                    : new ShardSample(info.getMessageCount(), info.getConsumerCount(), now);
+            samples.put(shard, sample);
+        }
+        return sample;
+    }
+
+    // Lamping & Veach jump consistent hash: changing the shard count only moves ~1/n of the problems.
+    static int jumpConsistentHash(long key, int buckets){
+        long k = key;
+        long b = -1;
+        long j = 0;
+        while(j < buckets){
+            b = j;
+            k = k * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((k >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -1,81 +1,109 @@
 package com.project.code_judge.Service;
 
-import com.project.code_judge.Config.RabbitMQConfig;
+import com.project.code_judge.Config.ReadYourWrites;
 import com.project.code_judge.Dto.*;
+import com.project.code_judge.Entity.JsonListConverter;
 import com.project.code_judge.Entity.Problem;
 import com.project.code_judge.Entity.Submission;
 import com.project.code_judge.Entity.SubmissionStatus;
-import com.project.code_judge.Entity.User;
+import com.project.code_judge.Entity.Verdict;
 import com.project.code_judge.Repository.SubmissionRepository;
 import com.project.code_judge.Repository.UserRepository;
 import com.project.code_judge.Repository.ProblemRepository;
+import com.project.code_judge.Util.SubmissionArchiveFile;
 import lombok.RequiredArgsConstructor;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class SubmissionService {
+    private static final JsonListConverter.GroupResults GROUP_RESULTS = new JsonListConverter.GroupResults();
+
     private final SubmissionRepository submissionRepository;
     private final UserRepository userRepository;
     private final ProblemRepository problemRepository;
-    private final RabbitTemplate rabbitTemplate;
+    private final SubmissionDispatcher submissionDispatcher;
+    private final SubmissionArchiveService submissionArchiveService;
+    private final ReadYourWrites readYourWrites;
+    private final ScalingService scalingService;
+    private final SubmissionLeaseService submissionLeaseService;
+    private final StatelessTokenService statelessTokenService;
+    private final VerdictJournalService verdictJournalService;
+    private final TransactionTemplate transactionTemplate;
 
     public SubmissionResponse submitCode(Long problemId, String language, String code){
-        Problem problem = problemRepository.findById(problemId)
-                .orElseThrow(() -> new RuntimeException("Problem not found"));
-
         var authentication = SecurityContextHolder.getContext().getAuthentication();
         if(authentication == null || !authentication.isAuthenticated())
             throw new RuntimeException("User not authenticated");
 
-        String username =  authentication.getName();
-
-        User user = userRepository.findByEmail(username).orElseThrow(() -> new RuntimeException("User not found"));
-        Submission submission = new Submission();
-        submission.setCode(code);
-        submission.setUser(user);
-        submission.setSubmissionTime(LocalDateTime.now());
-        submission.setStatus(SubmissionStatus.PENDING);
-        submission.setLanguage(language);
-        submission.setProblem(problem);
-        Submission savedSubmission = submissionRepository.save(submission);
-
-        Map<String, Object> message = new HashMap<>();
-        message.put("id", savedSubmission.getId().toString());
-        message.put("code", savedSubmission.getCode());
-        message.put("time_limit", submission.getProblem().getTimeLimitSeconds());
-        message.put("memory_limit", submission.getProblem().getMemoryLimitMb());
-        message.put("language", submission.getLanguage());
-        message.put("problem_id", submission.getProblem().getId());
-        message.put("test_case_count", submission.getProblem().getTestCaseCount());
-
-        rabbitTemplate.convertAndSend(RabbitMQConfig.SUBMISSION_QUEUE, message);
+        // One read-write transaction, so the problem lookup runs on the primary connection the
+        // insert needs. It commits before the message goes out, so the worker's result always
+        // finds the row.
+        Submission savedSubmission = transactionTemplate.execute(status -> {
+            Problem problem = problemRepository.findById(problemId)
+                    .orElseThrow(() -> new RuntimeException("Problem not found"));
+            Submission submission = new Submission();
+            submission.setCode(code);
+            submission.setUser(userRepository.getReferenceById(currentUserId()));
+            submission.setSubmissionTime(LocalDateTime.now());
+            submission.setStatus(SubmissionStatus.PENDING);
+            submission.setLanguage(language);
+            submission.setProblem(problem);
+            Submission saved = submissionRepository.save(submission);
+            verdictJournalService.record(JournalEvent.Type.SUBMITTED, saved);
+            return saved;
+        });
+        readYourWrites.recordWrite();
+
+        submissionLeaseService.track(savedSubmission.getId());
+        submissionDispatcher.dispatch(savedSubmission);
+        scalingService.recordArrival();
         System.out.println("Sent submission " + savedSubmission.getId() + " to Queue");
 
-        return mapToResponse(savedSubmission);
+        SubmissionResponse response = mapToResponse(savedSubmission);
+        if(statelessTokenService.isEnabled() && authentication.getPrincipal() instanceof AuthenticatedUser user){
+            response.setStatusToken(statelessTokenService.issue(user, ReadYourWrites.requiredLsn()));
+        }
+        return response;
     }
 
+    @Transactional(readOnly = true)
     public SubmissionResponse getSubmission(UUID id){
-        Submission submission = submissionRepository.findById(id)
+        long userId = currentUserId();
+
+        Optional<Submission> hot = submissionRepository.findHotById(id);
+        if (hot.isPresent()) {
+            Submission submission = hot.get();
+            checkOwner(submission.getUser() == null ? null : submission.getUser().getId(), userId);
+            return mapToResponse(submission);
+        }
+
+        SubmissionArchiveFile.Row archived = submissionArchiveService.find(id)
                 .orElseThrow(() -> new RuntimeException("Submission not found"));
+        checkOwner(archived.userId(), userId);
+        return mapToResponse(archived);
+    }
 
+    // Sessions created at login carry the user id; older ones only have the email.
+    private long currentUserId() {
         var authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user) return user.id();
+        return userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"))
+                .getId();
+    }
 
-        if (!submission.getUser().getId().equals(user.getId())) {
+    private void checkOwner(Long ownerId, long userId) {
+        if (ownerId == null || ownerId != userId) {
             throw new RuntimeException("Unauthorized: You cannot view this submission");
         }
-
-        return mapToResponse(submission);
     }
 
     private SubmissionResponse mapToResponse(Submission submission) {
@@ -87,6 +115,8 @@ public class SubmissionService {
         response.setTimeTaken(submission.getTimeTaken());
         response.setMemoryUsed(submission.getMemoryUsed());
         response.setError(submission.getError());
+        response.setScore(submission.getScore());
+        response.setGroupScores(submission.getGroupScores());
 
         if (submission.getProblem() != null) {
             response.setProblemId(submission.getProblem().getId());
@@ -96,4 +126,23 @@ public class SubmissionService {
         return response;
     }
 
+    private SubmissionResponse mapToResponse(SubmissionArchiveFile.Row archived) {
+        SubmissionResponse response = new SubmissionResponse();
+        response.setId(archived.id());
+        response.setStatus(archived.status() == null ? null : SubmissionStatus.valueOf(archived.status()));
+        response.setVerdict(archived.verdict() == null ? null : Verdict.valueOf(archived.verdict()));
+        response.setSubmissionTime(archived.submissionTime());
+        response.setTimeTaken(archived.timeTaken());
+        response.setMemoryUsed(archived.memoryUsed());
+        response.setError(archived.error());
+        response.setScore(archived.score());
+        response.setGroupScores(GROUP_RESULTS.convertToEntityAttribute(archived.groupScores()));
+        response.setProblemId(archived.problemId());
+        if (archived.problemId() != null) {
+            problemRepository.findById(archived.problemId())
+                    .ifPresent(problem -> response.setProblemTitle(problem.getTitle()));
+        }
+        return response;
+    }
+
 }
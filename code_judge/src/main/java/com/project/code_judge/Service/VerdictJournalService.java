@@ -0,0 +1,218 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Dto.JournalBatch;
+import com.project.code_judge.Dto.JournalEvent;
+import com.project.code_judge.Entity.Submission;
+import com.project.code_judge.Entity.SubmissionStatus;
+import com.project.code_judge.Entity.Verdict;
+import com.project.code_judge.Util.SegmentedJournal;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+ * Local journal of submission state changes (judge.journal.path). Every event carries the
+ * submission's state after the change, so standings, stats and similar views can be rebuilt by
+ * replaying the journal instead of querying Postgres. Compaction keeps the newest event of each
+ * submission in older segments. Each API instance journals the changes it made itself.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VerdictJournalService {
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long MAX_WAIT_MS = 30_000;
+    private static final int REPLAY_BATCH = 4096;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${judge.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${judge.journal.path:./verdict_journal}")
+    private String journalPath;
+
+    @Value("${judge.journal.segment-mb:64}")
+    private int segmentMb;
+
+    @Value("${judge.journal.compact-min-dirty:0.5}")
+    private double compactMinDirty;
+
+    private SegmentedJournal journal;
+
+    @PostConstruct
+    public void init(){
+        if(!enabled) return;
+        if(segmentMb <= 0 || segmentMb > 1024) throw new IllegalStateException("judge.journal.segment-mb must be between 1 and 1024");
+        try{
+            journal = new SegmentedJournal(Paths.get(journalPath), segmentMb * 1024 * 1024);
+        }catch (IOException e){
+            throw new UncheckedIOException("Cannot open verdict journal at " + journalPath, e);
+        }
+        Gauge.builder("judge.journal.end.offset", journal, SegmentedJournal::endOffset)
+                .description("Byte offset after the last verdict journal event")
+                .register(meterRegistry);
+        Gauge.builder("judge.journal.segments", journal, SegmentedJournal::segmentCount)
+                .description("Segment files in the verdict journal")
+                .register(meterRegistry);
+        log.info("Verdict journal at {} holds offsets {} to {}", journalPath, journal.startOffset(), journal.endOffset());
+    }
+
+    @PreDestroy
+    public void close(){
+        if(journal != null) journal.close();
+    }
+
+    // Appended once the surrounding transaction commits, so the journal never shows a rolled-back change.
+    public void record(JournalEvent.Type type, Submission submission){
+        if(journal == null) return;
+        JournalEvent event = new JournalEvent(0, type, Instant.now(), submission.getId(),
+                submission.getUser() == null ? null : submission.getUser().getId(),
+                submission.getProblem() == null ? null : submission.getProblem().getId(),
+                submission.getLanguage(), submission.getStatus(), submission.getVerdict(),
+                submission.getScore(), submission.getTimeTaken(), submission.getMemoryUsed());
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit(){
+                    append(event);
+                }
+            });
+        }else{
+            append(event);
+        }
+    }
+
+    // Judging goes on if the journal cannot be written; the gap shows up in judge.journal.append.failures.
+    private void append(JournalEvent event){
+        try{
+            journal.append(event.getSubmissionId(), encode(event));
+        }catch (IOException | RuntimeException e){
+            meterRegistry.counter("judge.journal.append.failures").increment();
+            log.error("Could not journal {} of submission {}", event.getType(), event.getSubmissionId(), e);
+        }
+    }
+
+    // Events from `from` on; with waitMs > 0 and nothing new yet, waits for the next append.
+    public JournalBatch read(long from, int limit, long waitMs){
+        SegmentedJournal current = requireJournal();
+        SegmentedJournal.Batch batch = current.read(from, limit);
+        if(batch.records().isEmpty() && waitMs > 0){
+            try{
+                if(current.awaitAppend(from, Math.min(waitMs, MAX_WAIT_MS))) batch = current.read(from, limit);
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<JournalEvent> events = batch.records().stream().map(VerdictJournalService::decode).toList();
+        return new JournalBatch(events, batch.nextOffset(), current.endOffset());
+    }
+
+    // Feeds every event from `from` up to the current end to `consumer`; returns the offset to resume from.
+    public long replay(long from, Consumer<JournalEvent> consumer){
+        SegmentedJournal current = requireJournal();
+        long end = current.endOffset();
+        long cursor = from;
+        while(cursor < end){
+            SegmentedJournal.Batch batch = current.read(cursor, REPLAY_BATCH);
+            batch.records().forEach(record -> consumer.accept(decode(record)));
+            if(batch.nextOffset() == cursor) break;
+            cursor = batch.nextOffset();
+        }
+        return cursor;
+    }
+
+    @Scheduled(fixedDelayString = "${judge.journal.flush-ms:1000}")
+    public void flush(){
+        if(journal != null) journal.flush();
+    }
+
+    @Scheduled(fixedDelayString = "${judge.journal.compact-ms:3600000}", initialDelayString = "${judge.journal.compact-ms:3600000}")
+    public void compact(){
+        if(journal == null) return;
+        try{
+            int changed = journal.compact(compactMinDirty);
+            if(changed > 0) log.info("Compacted {} verdict journal segments", changed);
+        }catch (IOException e){
+            log.error("Verdict journal compaction failed", e);
+        }
+    }
+
+    private SegmentedJournal requireJournal(){
+        if(journal == null) throw new IllegalArgumentException("Verdict journal is disabled");
+        return journal;
+    }
+
+    // Enums are stored by ordinal (0 for null), so new constants must only ever be appended.
+    private static byte[] encode(JournalEvent event){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try(DataOutputStream out = new DataOutputStream(bytes)){
+            out.writeByte(event.getType().ordinal());
+            out.writeLong(event.getTime().toEpochMilli());
+            out.writeLong(orNull(event.getUserId()));
+            out.writeLong(orNull(event.getProblemId()));
+            out.writeUTF(event.getLanguage() == null ? "" : event.getLanguage());
+            out.writeByte(event.getStatus() == null ? 0 : event.getStatus().ordinal() + 1);
+            out.writeByte(event.getVerdict() == null ? 0 : event.getVerdict().ordinal() + 1);
+            out.writeInt(event.getScore() == null ? NULL_INT : event.getScore());
+            out.writeLong(orNull(event.getTimeTaken()));
+            out.writeLong(orNull(event.getMemoryUsed()));
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static JournalEvent decode(SegmentedJournal.Record record){
+        try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.payload()))){
+            JournalEvent event = new JournalEvent();
+            event.setOffset(record.offset());
+            event.setSubmissionId(record.key());
+            event.setType(JournalEvent.Type.values()[in.readUnsignedByte()]);
+            event.setTime(Instant.ofEpochMilli(in.readLong()));
+            event.setUserId(toLong(in.readLong()));
+            event.setProblemId(toLong(in.readLong()));
+            String language = in.readUTF();
+            event.setLanguage(language.isEmpty() ? null : language);
+            int status = in.readUnsignedByte();
+            event.setStatus(status == 0 ? null : SubmissionStatus.values()[status - 1]);
+            int verdict = in.readUnsignedByte();
+            event.setVerdict(verdict == 0 ? null : Verdict.values()[verdict - 1]);
+            int score = in.readInt();
+            event.setScore(score == NULL_INT ? null : score);
+            event.setTimeTaken(toLong(in.readLong()));
+            event.setMemoryUsed(toLong(in.readLong()));
+            return event;
+        }catch (IOException e){
+            throw new UncheckedIOException("Corrupt verdict journal event at offset " + record.offset(), e);
+        }
+    }
+
+    private static long orNull(Long value){
+        return value == null ? NULL_LONG : value;
+    }
+
+    private static Long toLong(long value){
+        return value == NULL_LONG ? null : value;
+    }
+}
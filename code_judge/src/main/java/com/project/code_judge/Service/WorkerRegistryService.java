@@ -0,0 +1,92 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Dto.WorkerReport;
+import com.project.code_judge.Dto.WorkerStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Latest slot usage of every judge worker, built from the reports workers publish on the judge_workers
+ * fanout exchange; each API node consumes its own copy of every report.
+ * Utilization is the busy slot time between a worker's last two reports over the slot time that
+ * passed; a worker that stops reporting drops out after judge.workers.stale-ms.
+ */
+@Service
+@RequiredArgsConstructor
+public class WorkerRegistryService {
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, WorkerStatus> workers = new ConcurrentHashMap<>();
+    private final Map<String, WorkerReport> lastReports = new ConcurrentHashMap<>();
+
+    @Value("${judge.workers.stale-ms:30000}")
+    private long staleMs;
+
+    @PostConstruct
+    public void init(){
+        Gauge.builder("judge.worker.slots", this, s -> s.totalSlots(false))
+                .description("Execution slots of live judge workers")
+                .register(meterRegistry);
+        Gauge.builder("judge.worker.slots.busy", this, s -> s.totalSlots(true))
+                .description("Execution slots currently in use on live judge workers")
+                .register(meterRegistry);
+    }
+
+    @RabbitListener(queues = "#{workerStatusQueue.name}")
+    public void consumeReport(WorkerReport report){
+        if(report.getWorker() == null || report.getSlots() == null || report.getSlots() <= 0) return;
+        WorkerReport previous = lastReports.put(report.getWorker(), report);
+        int slots = report.getSlots();
+        long busyMs = nullToZero(report.getBusy_ms());
+        long uptimeMs = nullToZero(report.getUptime_ms());
+        long busyDelta = busyMs;
+        long uptimeDelta = uptimeMs;
+        // A worker that restarted reports smaller totals; then its whole uptime is the window.
+        if(previous != null && nullToZero(previous.getUptime_ms()) < uptimeMs && nullToZero(previous.getBusy_ms()) <= busyMs){
+            busyDelta = busyMs - nullToZero(previous.getBusy_ms());
+            uptimeDelta = uptimeMs - nullToZero(previous.getUptime_ms());
+        }
+        double utilization = uptimeDelta <= 0 ? 0 : Math.min(1.0, (double) busyDelta / ((double) slots * uptimeDelta));
+
+        workers.put(report.getWorker(), new WorkerStatus(
+                report.getWorker(),
+                report.getMode(),
+                slots,
+                report.getBusy_slots() == null ? 0 : report.getBusy_slots(),
+                utilization,
+                report.getIn_flight() == null ? 0 : report.getIn_flight(),
+                nullToZero(report.getHandled()),
+                Instant.now()));
+    }
+
+    public List<WorkerStatus> getWorkers(){
+        Instant cutoff = Instant.now().minusMillis(staleMs);
+        workers.values().removeIf(status -> status.getLastSeen().isBefore(cutoff));
+        lastReports.keySet().retainAll(workers.keySet());
+        return workers.values().stream()
+                .sorted(Comparator.comparing(WorkerStatus::getWorker))
+                .toList();
+    }
+
+    private double totalSlots(boolean busyOnly){
+        return getWorkers().stream()
+                .filter(status -> !"run".equals(status.getMode()))
+                .mapToInt(status -> busyOnly ? status.getBusySlots() : status.getSlots())
+                .sum();
+    }
+
+    private static long nullToZero(Long value){
+        return value == null ? 0 : value;
+    }
+}
@@ -0,0 +1,146 @@
+package com.project.code_judge.Util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.*;
+
+/*
+ * Replays a recorded arrival trace against WorkerCapacityController. Jobs are served FIFO by the
+ * simulated workers; new workers become available startupMs after the controller asks for them,
+ * and surplus workers stop once they finish their current job.
+ */
+public final class CapacitySimulator {
+    public static final long MIN_TICK_MS = 100;
+    // Longer runs keep every 2nd, 4th, ... tick so the timeline still covers the whole trace.
+    static final int MAX_TIMELINE = 10_000;
+    private static final long MAX_TICKS = 50_000_000;
+
+    public record Arrival(long atMs, long serviceMs) {
+    }
+
+    public record Interval(long atMs, long queueDepth, int activeWorkers, int recommendedWorkers, double arrivalRate) {
+    }
+
+    public record Result(long jobs, double meanWaitMs, double p95WaitMs, double maxWaitMs, double workerSeconds,
+                         List<Interval> timeline) {
+    }
+
+    private CapacitySimulator(){
+    }
+
+    /*
+     * One arrival per line: "arrival_ms[,service_ms]". Arrival times are relative or absolute
+     * milliseconds; lines that do not start with a digit (headers, comments) are skipped.
+     */
+    public static List<Arrival> readTrace(BufferedReader reader, long defaultServiceMs) throws IOException {
+        List<Arrival> arrivals = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while((line = reader.readLine()) != null){
+            lineNumber++;
+            line = line.trim();
+            if(line.isEmpty() || !Character.isDigit(line.charAt(0))) continue;
+            String[] fields = line.split(",");
+            try{
+                long at = Long.parseLong(fields[0].trim());
+                long service = fields.length > 1 && !fields[1].isBlank() ? Long.parseLong(fields[1].trim()) : defaultServiceMs;
+                arrivals.add(new Arrival(at, service));
+            }catch (NumberFormatException e){
+                throw new IllegalArgumentException("Invalid trace line " + lineNumber + ": " + line);
+            }
+        }
+        arrivals.sort(Comparator.comparingLong(Arrival::atMs));
+        return arrivals;
+    }
+
+    public static Result run(List<Arrival> arrivals, WorkerCapacityController.Settings settings,
+                             long tickMs, long startupMs, int initialWorkers){
+        if(tickMs < MIN_TICK_MS) throw new IllegalArgumentException("Tick must be at least " + MIN_TICK_MS + " ms");
+        if(startupMs < 0) throw new IllegalArgumentException("Startup must be non-negative");
+        if(!arrivals.isEmpty() && (arrivals.getLast().atMs() - arrivals.getFirst().atMs()) / tickMs > MAX_TICKS){
+            throw new IllegalArgumentException("The trace spans more than " + MAX_TICKS + " ticks; use a larger tickMs");
+        }
+        WorkerCapacityController controller = new WorkerCapacityController(settings);
+        List<Interval> timeline = new ArrayList<>();
+        List<Long> waits = new ArrayList<>(arrivals.size());
+        Deque<Arrival> queue = new ArrayDeque<>();
+        PriorityQueue<long[]> running = new PriorityQueue<>(Comparator.comparingLong(job -> job[0]));
+        PriorityQueue<Long> starting = new PriorityQueue<>();
+
+        long now = arrivals.isEmpty() ? 0 : arrivals.get(0).atMs();
+        long nextTick = now;
+        long arrivalsSinceTick = 0;
+        double workerMs = 0;
+        int active = Math.max(0, initialWorkers);
+        int retiring = 0;
+        int next = 0;
+        long ticks = 0;
+        int stride = 1;
+
+        while(next < arrivals.size() || !queue.isEmpty() || !running.isEmpty()){
+            long arrivalAt = next < arrivals.size() ? arrivals.get(next).atMs() : Long.MAX_VALUE;
+            long completionAt = running.isEmpty() ? Long.MAX_VALUE : running.peek()[0];
+            long startAt = starting.isEmpty() ? Long.MAX_VALUE : starting.peek();
+            long at = Math.min(Math.min(arrivalAt, completionAt), Math.min(startAt, nextTick));
+            workerMs += (double) active * (at - now);
+            now = at;
+
+            if(at == completionAt){
+                long[] job = running.poll();
+                controller.observeServiceTime(job[1] / 1000.0);
+                if(retiring > 0){
+                    retiring--;
+                    active--;
+                }
+            }else if(at == startAt){
+                starting.poll();
+                active++;
+            }else if(at == arrivalAt){
+                queue.add(arrivals.get(next++));
+                arrivalsSinceTick++;
+            }else{
+                WorkerCapacityController.Decision decision = controller.update(now, arrivalsSinceTick, queue.size());
+                arrivalsSinceTick = 0;
+                int target = decision.recommendedWorkers();
+                int planned = active - retiring + starting.size();
+                if(target > planned){
+                    int kept = Math.min(retiring, target - planned);
+                    retiring -= kept;
+                    planned += kept;
+                    for(int i = planned; i < target; i++) starting.add(now + startupMs);
+                }else if(target < planned){
+                    int surplus = planned - target;
+                    while(surplus > 0 && !starting.isEmpty()){
+                        starting.remove(Collections.max(starting));
+                        surplus--;
+                    }
+                    int idle = Math.min(surplus, active - running.size());
+                    active -= idle;
+                    retiring += surplus - idle;
+                }
+                if(ticks++ % stride == 0){
+                    timeline.add(new Interval(now, queue.size(), active - retiring, target, decision.arrivalRate()));
+                    if(timeline.size() > MAX_TIMELINE){
+                        List<Interval> kept = new ArrayList<>(MAX_TIMELINE / 2 + 1);
+                        for(int i = 0; i < timeline.size(); i += 2) kept.add(timeline.get(i));
+                        timeline = kept;
+                        stride *= 2;
+                    }
+                }
+                nextTick += tickMs;
+            }
+
+            while(!queue.isEmpty() && running.size() < active - retiring){
+                Arrival job = queue.poll();
+                waits.add(now - job.atMs());
+                running.add(new long[]{now + job.serviceMs(), job.serviceMs()});
+            }
+        }
+
+        Collections.sort(waits);
+        double mean = waits.stream().mapToLong(Long::longValue).average().orElse(0);
+        double p95 = waits.isEmpty() ? 0 : waits.get(Math.max(0, (int) Math.ceil(waits.size() * 0.95) - 1));
+        double max = waits.isEmpty() ? 0 : waits.get(waits.size() - 1);
+        return new Result(waits.size(), mean, p95, max, workerMs / 1000.0, timeline);
+    }
+}
@@ -0,0 +1,142 @@
+package com.project.code_judge.Util;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/*
+ * Turns source code into a stream of normalized token hashes for similarity checks. Comments and
+ * whitespace are dropped, every identifier becomes the same token and so does every string,
+ * character and number literal; keywords and operators are kept. Renaming variables, editing
+ * comments or changing constants therefore leaves the stream unchanged.
+ */
+public final class CodeTokenizer {
+    private static final long IDENTIFIER = 0x1D_0001L;
+    private static final long NUMBER = 0x1D_0002L;
+    private static final long STRING = 0x1D_0003L;
+
+    private static final Set<String> CPP_KEYWORDS = Set.of(
+            "auto", "bool", "break", "case", "catch", "char", "class", "const", "constexpr", "continue",
+            "default", "delete", "do", "double", "else", "enum", "false", "float", "for", "goto", "if",
+            "inline", "int", "long", "namespace", "new", "nullptr", "operator", "private", "protected",
+            "public", "return", "short", "signed", "sizeof", "static", "struct", "switch", "template",
+            "this", "throw", "true", "try", "typedef", "typename", "union", "unsigned", "using", "virtual",
+            "void", "volatile", "while");
+    private static final Set<String> JAVA_KEYWORDS = Set.of(
+            "abstract", "boolean", "break", "byte", "case", "catch", "char", "class", "continue", "default",
+            "do", "double", "else", "enum", "extends", "false", "final", "finally", "float", "for", "if",
+            "implements", "import", "instanceof", "int", "interface", "long", "new", "null", "package",
+            "private", "protected", "public", "return", "short", "static", "super", "switch", "this",
+            "throw", "throws", "true", "try", "var", "void", "while");
+    private static final Set<String> PYTHON_KEYWORDS = Set.of(
+            "False", "None", "True", "and", "as", "assert", "break", "class", "continue", "def", "del",
+            "elif", "else", "except", "finally", "for", "from", "global", "if", "import", "in", "is",
+            "lambda", "nonlocal", "not", "or", "pass", "raise", "return", "try", "while", "with", "yield");
+    private static final String[] OPERATORS = {
+            ">>=", "<<=", "**=", "//=", "...", "->", "::", "++", "--", "<<", ">>", "<=", ">=", "==", "!=",
+            "&&", "||", "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "**", "//"};
+
+    private CodeTokenizer(){
+    }
+
+    public static long[] tokenize(String code, String language){
+        boolean python = "python".equals(language);
+        Set<String> keywords = python ? PYTHON_KEYWORDS : "java".equals(language) ? JAVA_KEYWORDS : CPP_KEYWORDS;
+        long[] tokens = new long[Math.max(16, code.length() / 3)];
+        int count = 0;
+        int i = 0;
+        int n = code.length();
+        while(i < n){
+            char c = code.charAt(i);
+            if(Character.isWhitespace(c)){
+                i++;
+                continue;
+            }
+            long token;
+            if(python && c == '#'){
+                i = skipLine(code, i);
+                continue;
+            }else if(!python && c == '/' && i + 1 < n && code.charAt(i + 1) == '/'){
+                i = skipLine(code, i);
+                continue;
+            }else if(!python && c == '/' && i + 1 < n && code.charAt(i + 1) == '*'){
+                int end = code.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+                continue;
+            }else if(!python && c == '#'){
+                // Preprocessor lines (#include, #define) are boilerplate shared by everyone.
+                i = skipLine(code, i);
+                continue;
+            }else if(c == '"' || c == '\''){
+                i = skipString(code, i, python);
+                token = STRING;
+            }else if(Character.isDigit(c) || (c == '.' && i + 1 < n && Character.isDigit(code.charAt(i + 1)))){
+                while(i < n && (Character.isLetterOrDigit(code.charAt(i)) || code.charAt(i) == '.' || code.charAt(i) == '\'')) i++;
+                token = NUMBER;
+            }else if(Character.isJavaIdentifierStart(c)){
+                int start = i;
+                while(i < n && Character.isJavaIdentifierPart(code.charAt(i))) i++;
+                String word = code.substring(start, i);
+                token = keywords.contains(word) ? word.hashCode() : IDENTIFIER;
+            }else{
+                String op = matchOperator(code, i);
+                i += op.length();
+                token = op.hashCode();
+            }
+            if(count == tokens.length) tokens = Arrays.copyOf(tokens, tokens.length * 2);
+            tokens[count++] = token;
+        }
+        return Arrays.copyOf(tokens, count);
+    }
+
+    // Distinct hashes of every run of k consecutive tokens, sorted.
+    public static long[] shingles(long[] tokens, int k){
+        if(tokens.length == 0) return new long[0];
+        int size = Math.max(1, tokens.length - k + 1);
+        long[] shingles = new long[size];
+        for(int i = 0; i < size; i++){
+            long hash = 0xCBF29CE484222325L;
+            for(int j = i; j < Math.min(tokens.length, i + k); j++){
+                hash = (hash ^ tokens[j]) * 0x100000001B3L;
+            }
+            shingles[i] = hash;
+        }
+        Arrays.sort(shingles);
+        int distinct = 1;
+        for(int i = 1; i < shingles.length; i++){
+            if(shingles[i] != shingles[distinct - 1]) shingles[distinct++] = shingles[i];
+        }
+        return Arrays.copyOf(shingles, distinct);
+    }
+
+    private static int skipLine(String code, int i){
+        int end = code.indexOf('\n', i);
+        return end < 0 ? code.length() : end + 1;
+    }
+
+    private static int skipString(String code, int i, boolean python){
+        char quote = code.charAt(i);
+        if(python && code.startsWith(String.valueOf(quote).repeat(3), i)){
+            int end = code.indexOf(String.valueOf(quote).repeat(3), i + 3);
+            return end < 0 ? code.length() : end + 3;
+        }
+        i++;
+        while(i < code.length()){
+            char c = code.charAt(i);
+            if(c == '\\'){
+                i += 2;
+            }else if(c == quote || c == '\n'){
+                return i + 1;
+            }else{
+                i++;
+            }
+        }
+        return code.length();
+    }
+
+    private static String matchOperator(String code, int i){
+        for(String op : OPERATORS){
+            if(code.startsWith(op, i)) return op;
+        }
+        return String.valueOf(code.charAt(i));
+    }
+}
@@ -0,0 +1,126 @@
+package com.project.code_judge.Util;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+
+/*
+ * Locality-sensitive hashing over MinHash signatures: the signature is cut into BANDS bands of
+ * ROWS positions and each band is hashed to a bucket. Two signatures share at least one bucket
+ * with probability 1 - (1 - s^ROWS)^BANDS for similarity s (about 0.99 at s = 0.6, 0.003 at
+ * s = 0.1), so only bucket-mates are ever compared instead of every pair.
+ */
+public final class LshIndex<K> {
+    public static final int BANDS = 32;
+    public static final int ROWS = MinHash.SIZE / BANDS;
+
+    public record Pair<K>(K first, K second, double similarity) {
+    }
+
+    public record Cluster<K>(List<K> members, List<Pair<K>> matches) {
+        public double maxSimilarity(){
+            return matches.stream().mapToDouble(Pair::similarity).max().orElse(0);
+        }
+    }
+
+    private final Map<K, int[]> signatures = new HashMap<>();
+    private final Map<Long, List<K>> buckets = new HashMap<>();
+
+    public void add(K key, int[] signature){
+        if(signatures.putIfAbsent(key, signature) != null) return;
+        for(long bucket : buckets(signature)){
+            buckets.computeIfAbsent(bucket, b -> new ArrayList<>(2)).add(key);
+        }
+    }
+
+    public boolean contains(K key){
+        return signatures.containsKey(key);
+    }
+
+    public int size(){
+        return signatures.size();
+    }
+
+    // Keys whose signature shares a bucket with the given one and reaches the threshold.
+    public List<Pair<K>> similarTo(K key, int[] signature, double threshold){
+        Set<K> seen = new HashSet<>();
+        List<Pair<K>> matches = new ArrayList<>();
+        for(long bucket : buckets(signature)){
+            for(K other : buckets.getOrDefault(bucket, List.of())){
+                if(other.equals(key) || !seen.add(other)) continue;
+                double similarity = MinHash.similarity(signature, signatures.get(other));
+                if(similarity >= threshold) matches.add(new Pair<>(key, other, similarity));
+            }
+        }
+        return matches;
+    }
+
+    /*
+     * Groups bucket-mates into clusters without enumerating pairs. Within a bucket the first
+     * maxRepresentatives keys that matched nothing before them become representatives; every key
+     * is compared only against representatives not already in its cluster and unioned with each
+     * one it reaches the threshold with. A bucket of n keys therefore costs at most
+     * n * maxRepresentatives comparisons. A cluster's matches are the links that joined it;
+     * linkable can veto a link without a comparison.
+     */
+    public List<Cluster<K>> clusters(double threshold, int maxRepresentatives, BiPredicate<K, K> linkable){
+        Map<K, K> parent = new HashMap<>();
+        List<Pair<K>> matches = new ArrayList<>();
+        List<K> representatives = new ArrayList<>(maxRepresentatives);
+        for(List<K> bucket : buckets.values()){
+            if(bucket.size() < 2) continue;
+            representatives.clear();
+            for(K key : bucket){
+                boolean joined = false;
+                for(K representative : representatives){
+                    K root = find(parent, representative);
+                    if(root.equals(find(parent, key))){
+                        joined = true;
+                        continue;
+                    }
+                    if(!linkable.test(key, representative)) continue;
+                    double similarity = MinHash.similarity(signatures.get(key), signatures.get(representative));
+                    if(similarity >= threshold){
+                        parent.put(find(parent, key), root);
+                        matches.add(new Pair<>(key, representative, similarity));
+                        joined = true;
+                    }
+                }
+                if(!joined && representatives.size() < maxRepresentatives) representatives.add(key);
+            }
+        }
+
+        Map<K, Cluster<K>> clusters = new LinkedHashMap<>();
+        for(Pair<K> match : matches){
+            clusters.computeIfAbsent(find(parent, match.first()), root -> new Cluster<>(new ArrayList<>(), new ArrayList<>()))
+                    .matches().add(match);
+        }
+        for(K key : new ArrayList<>(parent.keySet())){
+            Cluster<K> cluster = clusters.get(find(parent, key));
+            if(cluster != null) cluster.members().add(key);
+        }
+        return new ArrayList<>(clusters.values());
+    }
+
+    private static <K> K find(Map<K, K> parent, K key){
+        K root = key;
+        while(true){
+            K next = parent.get(root);
+            if(next == null || next.equals(root)) break;
+            root = next;
+        }
+        parent.put(key, root);
+        return root;
+    }
+
+    private static long[] buckets(int[] signature){
+        long[] buckets = new long[BANDS];
+        for(int band = 0; band < BANDS; band++){
+            long hash = 0xCBF29CE484222325L ^ band;
+            for(int row = 0; row < ROWS; row++){
+                hash = (hash ^ signature[band * ROWS + row]) * 0x100000001B3L;
+            }
+            buckets[band] = hash;
+        }
+        return buckets;
+    }
+}
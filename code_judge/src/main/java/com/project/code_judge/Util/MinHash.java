@@ -0,0 +1,69 @@
+package com.project.code_judge.Util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+ * MinHash signatures over shingle sets. Each of the SIZE positions keeps the minimum of one hash
+ * function over the set, so the fraction of equal positions estimates Jaccard similarity. The hash
+ * seeds are fixed, so signatures stored by one node compare with those computed by another.
+ */
+public final class MinHash {
+    public static final int SIZE = 128;
+    public static final int BYTES = SIZE * Integer.BYTES;
+
+    private static final long[] MULTIPLIERS = new long[SIZE];
+    private static final long[] OFFSETS = new long[SIZE];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_CAFEL);
+        for(int i = 0; i < SIZE; i++){
+            MULTIPLIERS[i] = random.nextLong() | 1;
+            OFFSETS[i] = random.nextLong();
+        }
+    }
+
+    private MinHash(){
+    }
+
+    public static int[] signature(long[] shingles){
+        int[] signature = new int[SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for(long shingle : shingles){
+            for(int i = 0; i < SIZE; i++){
+                int h = (int) (mix(shingle * MULTIPLIERS[i] + OFFSETS[i]) >>> 33);
+                if(h < signature[i]) signature[i] = h;
+            }
+        }
+        return signature;
+    }
+
+    public static double similarity(int[] a, int[] b){
+        int equal = 0;
+        for(int i = 0; i < SIZE; i++){
+            if(a[i] == b[i]) equal++;
+        }
+        return (double) equal / SIZE;
+    }
+
+    public static byte[] toBytes(int[] signature){
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+        for(int value : signature) buffer.putInt(value);
+        return buffer.array();
+    }
+
+    public static int[] fromBytes(byte[] bytes){
+        if(bytes.length != BYTES) throw new IllegalArgumentException("Signature must be " + BYTES + " bytes");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int[] signature = new int[SIZE];
+        for(int i = 0; i < SIZE; i++) signature[i] = buffer.getInt();
+        return signature;
+    }
+
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
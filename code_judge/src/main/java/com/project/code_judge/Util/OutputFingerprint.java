@@ -0,0 +1,97 @@
+package com.project.code_judge.Util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * Summary of an expected output that the judge worker checks answers against instead of re-reading
+ * the file (CodeExecutor/fingerprint.h computes the same values). The normalized form of an output
+ * is its whitespace-separated tokens joined by single spaces. The hash reads that form as big-endian
+ * 7-byte words (the last one possibly shorter) and is a polynomial hash of them modulo 2^61-1.
+ *
+ * Sidecar layout (little-endian, 40 bytes): MAGIC, VERSION, flags, bytes, tokens, normalizedBytes, hash.
+ */
+public record OutputFingerprint(long bytes, long tokens, long normalizedBytes, long hash) {
+    static final byte[] MAGIC = {'J', 'F', 'P', '1'};
+    static final short VERSION = 1;
+    static final int SIDECAR_BYTES = 40;
+
+    private static final long MODULUS = (1L << 61) - 1;
+    private static final long BASE = 1099511628211L;
+    private static final int WORD_BYTES = 7;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Line endings of a scanned file; MIXED means both "\n" and "\r\n" lines occur.
+    public enum LineEndings { NONE, LF, CRLF, MIXED }
+
+    public record Scan(OutputFingerprint fingerprint, LineEndings lineEndings) {
+    }
+
+    public static Scan scan(Path file) throws IOException {
+        long bytes = 0, tokens = 0, normalized = 0, hash = 0, word = 0;
+        int wordBytes = 0;
+        boolean inToken = false, lf = false, crlf = false, afterCr = false;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try(InputStream in = Files.newInputStream(file)){
+            int read;
+            while((read = in.read(buffer)) > 0){
+                bytes += read;
+                for(int i = 0; i < read; i++){
+                    byte c = buffer[i];
+                    if(c == '\n'){
+                        if(afterCr) crlf = true;
+                        else lf = true;
+                    }
+                    afterCr = c == '\r';
+                    if(isSpace(c)){
+                        inToken = false;
+                        continue;
+                    }
+                    if(!inToken && tokens++ > 0){
+                        word = (word << 8) | ' ';
+                        normalized++;
+                        if(++wordBytes == WORD_BYTES){
+                            hash = combine(hash, word);
+                            word = wordBytes = 0;
+                        }
+                    }
+                    inToken = true;
+                    word = (word << 8) | (c & 0xff);
+                    normalized++;
+                    if(++wordBytes == WORD_BYTES){
+                        hash = combine(hash, word);
+                        word = wordBytes = 0;
+                    }
+                }
+            }
+        }
+        if(wordBytes > 0) hash = combine(hash, word);
+        LineEndings endings = lf && crlf ? LineEndings.MIXED : crlf ? LineEndings.CRLF : lf ? LineEndings.LF : LineEndings.NONE;
+        return new Scan(new OutputFingerprint(bytes, tokens, normalized, hash), endings);
+    }
+
+    public void write(Path sidecar) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(SIDECAR_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .put(MAGIC).putShort(VERSION).putShort((short) 0)
+                .putLong(bytes).putLong(tokens).putLong(normalizedBytes).putLong(hash);
+        Files.write(sidecar, data.array());
+    }
+
+    private static boolean isSpace(byte c){
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == 0x0b || c == '\f';
+    }
+
+    // hash * BASE + word mod 2^61-1, using the 128-bit product; a word is below 2^56.
+    private static long combine(long hash, long word){
+        long high = Math.multiplyHigh(hash, BASE);
+        long low = hash * BASE;
+        long sum = low + word;
+        if(Long.compareUnsigned(sum, low) < 0) high++;
+        long folded = (sum & MODULUS) + ((sum >>> 61) | (high << 3));
+        return folded >= MODULUS ? folded - MODULUS : folded;
+    }
+}
@@ -0,0 +1,152 @@
+package com.project.code_judge.Util;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * In-memory inverted index over problem titles, slugs and statements. Documents get dense internal
+ * numbers in insertion order, so every posting list is a sorted int array that grows by appending.
+ * Title and slug terms live in a separate dictionary from statement terms so that title hits rank
+ * higher. Both dictionaries are sorted, which makes a prefix one contiguous range of terms.
+ *
+ * Re-indexing a problem retires its old document number and appends a new one; dead documents
+ * are skipped at query time and dropped on the next rebuild.
+ */
+public final class ProblemSearchIndex {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int BODY_WEIGHT = 1;
+
+    public record Document(long id, String title, String slug, String difficulty,
+                           Double timeLimitSeconds, Integer memoryLimitMb) {
+    }
+
+    public record Filter(Set<String> difficulties, Double minTimeLimitSeconds, Double maxTimeLimitSeconds,
+                         Integer minMemoryLimitMb, Integer maxMemoryLimitMb) {
+        boolean accepts(Document document){
+            if(difficulties != null && !difficulties.isEmpty() && !difficulties.contains(document.difficulty())) return false;
+            if(minTimeLimitSeconds != null && (document.timeLimitSeconds() == null || document.timeLimitSeconds() < minTimeLimitSeconds)) return false;
+            if(maxTimeLimitSeconds != null && (document.timeLimitSeconds() == null || document.timeLimitSeconds() > maxTimeLimitSeconds)) return false;
+            if(minMemoryLimitMb != null && (document.memoryLimitMb() == null || document.memoryLimitMb() < minMemoryLimitMb)) return false;
+            return maxMemoryLimitMb == null || (document.memoryLimitMb() != null && document.memoryLimitMb() <= maxMemoryLimitMb);
+        }
+    }
+
+    public record Hit(Document document, int score) {
+    }
+
+    // Growable sorted int array; doc numbers only ever increase, so add() is an append.
+    private static final class Postings {
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc){
+            if(size > 0 && docs[size - 1] == doc) return;
+            if(size == docs.length) docs = Arrays.copyOf(docs, size * 2);
+            docs[size++] = doc;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> titleTerms = new TreeMap<>();
+    private final TreeMap<String, Postings> bodyTerms = new TreeMap<>();
+    private final Map<Long, Integer> docByProblem = new HashMap<>();
+    private Document[] documents = new Document[64];
+    private final BitSet live = new BitSet();
+    private int docCount;
+
+    public void index(Document document, String description){
+        lock.writeLock().lock();
+        try{
+            Integer previous = docByProblem.get(document.id());
+            if(previous != null) live.clear(previous);
+            int doc = docCount++;
+            if(doc == documents.length) documents = Arrays.copyOf(documents, doc * 2);
+            documents[doc] = document;
+            live.set(doc);
+            docByProblem.put(document.id(), doc);
+            for(String term : tokenize(document.title() + " " + document.slug())){
+                titleTerms.computeIfAbsent(term, t -> new Postings()).add(doc);
+            }
+            for(String term : tokenize(description)){
+                bodyTerms.computeIfAbsent(term, t -> new Postings()).add(doc);
+            }
+        }finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Every query token must match the title, slug or statement. The last token also matches as a
+     * prefix, so partial input finds results while it is being typed. An empty query lists all
+     * problems that pass the filter, in id order.
+     */
+    public List<Hit> search(String query, Filter filter, int limit){
+        List<String> tokens = tokenize(query);
+        lock.readLock().lock();
+        try{
+            int[] scores = null;
+            for(int i = 0; i < tokens.size(); i++){
+                boolean prefix = i == tokens.size() - 1;
+                int[] tokenScores = new int[docCount];
+                collect(titleTerms, tokens.get(i), prefix, TITLE_WEIGHT, tokenScores);
+                collect(bodyTerms, tokens.get(i), prefix, BODY_WEIGHT, tokenScores);
+                if(scores == null){
+                    scores = tokenScores;
+                }else{
+                    for(int doc = 0; doc < docCount; doc++){
+                        scores[doc] = scores[doc] == 0 || tokenScores[doc] == 0 ? 0 : scores[doc] + tokenScores[doc];
+                    }
+                }
+            }
+
+            // Bounded min-heap of the best hits so far; its head is the first one to drop.
+            Comparator<Hit> ranking = Comparator.comparingInt(Hit::score).reversed()
+                    .thenComparingLong(hit -> hit.document().id());
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, ranking.reversed());
+            for(int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)){
+                int score = scores == null ? 1 : scores[doc];
+                if(score == 0) continue;
+                Hit worst = top.size() == limit ? top.peek() : null;
+                if(worst != null && (score < worst.score() || (score == worst.score() && documents[doc].id() > worst.document().id()))) continue;
+                if(!filter.accepts(documents[doc])) continue;
+                top.add(new Hit(documents[doc], score));
+                if(top.size() > limit) top.poll();
+            }
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(ranking);
+            return hits;
+        }finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Each matching doc scores the weight once per token, however many terms the prefix expands to.
+    private static void collect(TreeMap<String, Postings> terms, String token, boolean prefix, int weight, int[] scores){
+        Collection<Postings> matches = prefix
+                ? terms.subMap(token, true, token + Character.MAX_VALUE, false).values()
+                : Optional.ofNullable(terms.get(token)).map(List::of).orElse(List.of());
+        for(Postings postings : matches){
+            for(int i = 0; i < postings.size; i++){
+                int doc = postings.docs[i];
+                scores[doc] = Math.max(scores[doc], weight);
+            }
+        }
+    }
+
+    public static List<String> tokenize(String text){
+        List<String> tokens = new ArrayList<>();
+        if(text == null) return tokens;
+        int start = -1;
+        for(int i = 0; i <= text.length(); i++){
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if(word && start < 0){
+                start = i;
+            }else if(!word && start >= 0){
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
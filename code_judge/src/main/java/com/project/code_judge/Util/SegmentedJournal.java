@@ -0,0 +1,370 @@
+package com.project.code_judge.Util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/*
+ * Append-only log of keyed binary records, split into memory-mapped segment files named after the
+ * offset of their first record.
+ *
+ * Segment layout: MAGIC, VERSION, flags, baseOffset, then records of
+ * [framedLength, crc32c, offset, keyMsb, keyLsb, payload] up to a zero length. Offsets are byte
+ * positions in the log as written, so in a plain segment a record sits at HEADER + (offset - base).
+ * Compaction rewrites sealed segments keeping only the newest record of each key; records keep
+ * their offsets, so compacted segments are scanned instead of indexed. A single writer appends;
+ * any number of threads read without locking, up to the last complete record.
+ */
+public final class SegmentedJournal implements Closeable {
+    static final int MAGIC = 0x564A524E;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_HEADER_BYTES = 32;
+
+    private static final short COMPACTED = 1;
+    private static final String EXTENSION = ".log";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    public record Record(long offset, UUID key, byte[] payload) {
+        public long nextOffset(){
+            return offset + RECORD_HEADER_BYTES + payload.length;
+        }
+    }
+
+    // nextOffset is where the following read should start.
+    public record Batch(List<Record> records, long nextOffset) {
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Object compactionLock = new Object();
+    private volatile Segment active;
+    private volatile long endOffset;
+    private volatile boolean closed;
+
+    public SegmentedJournal(Path directory, int segmentBytes) throws IOException {
+        if(segmentBytes < HEADER_BYTES + RECORD_HEADER_BYTES) throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try(Stream<Path> listing = Files.list(directory)){
+            for(Path file : (Iterable<Path>) listing::iterator){
+                String name = file.getFileName().toString();
+                // Left behind by a crash while rolling or compacting; the original is still in place.
+                if(name.endsWith(TEMP_SUFFIX)) Files.delete(file);
+                else if(name.endsWith(EXTENSION)) files.add(file);
+            }
+        }
+        files.sort(null);
+        for(int i = 0; i < files.size(); i++){
+            boolean last = i == files.size() - 1;
+            Segment segment = Segment.open(files.get(i), last);
+            // Compaction may have removed the segments after this one, so the next base is not its end.
+            if(!last && !segment.compacted) segment.dataEnd = segment.base + segment.validBytes();
+            segments.put(segment.base, segment);
+        }
+        Segment last = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if(last != null && !last.compacted){
+            active = last;
+            endOffset = active.recover();
+        }else{
+            endOffset = last == null ? 0 : last.scanEnd();
+            active = createSegment(endOffset);
+        }
+        sealEnds();
+    }
+
+    public long startOffset(){
+        return segments.firstKey();
+    }
+
+    public long endOffset(){
+        return endOffset;
+    }
+
+    public int segmentCount(){
+        return segments.size();
+    }
+
+    public synchronized long append(UUID key, byte[] payload) throws IOException {
+        if(closed) throw new IllegalStateException("Journal is closed");
+        int framed = RECORD_HEADER_BYTES + payload.length;
+        if(framed > segmentBytes - HEADER_BYTES) throw new IllegalArgumentException("Journal record too large: " + payload.length + " bytes");
+        if(HEADER_BYTES + (endOffset - active.base) + framed > active.buffer.capacity()) roll();
+
+        long offset = endOffset;
+        int position = HEADER_BYTES + (int) (offset - active.base);
+        MappedByteBuffer buffer = active.buffer;
+        buffer.putLong(position + 8, offset);
+        buffer.putLong(position + 16, key.getMostSignificantBits());
+        buffer.putLong(position + 24, key.getLeastSignificantBits());
+        buffer.put(position + RECORD_HEADER_BYTES, payload);
+        buffer.putInt(position + 4, checksum(buffer, position, framed));
+        // The length goes in last: a record without one was never completely written.
+        buffer.putInt(position, framed);
+        endOffset = offset + framed;
+        notifyAll();
+        return offset;
+    }
+
+    // Blocks until something is appended at or after `offset`, or the timeout passes.
+    public synchronized boolean awaitAppend(long offset, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        long remaining = timeoutMs;
+        while(endOffset <= offset && remaining > 0 && !closed){
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return endOffset > offset;
+    }
+
+    public Batch read(long from, int limit){
+        if(limit <= 0) throw new IllegalArgumentException("Limit must be positive");
+        long end = endOffset;
+        if(from > end) throw new IllegalArgumentException("Offset " + from + " is past the end of the journal (" + end + ")");
+        List<Record> records = new ArrayList<>(Math.min(limit, 1024));
+        long cursor = from;
+        Long floor = segments.floorKey(from);
+        for(Segment segment : segments.tailMap(floor == null ? Long.MIN_VALUE : floor, true).values()){
+            if(records.size() >= limit || segment.base >= end) break;
+            // Skips the gap left by a segment that compaction emptied and removed.
+            cursor = Math.max(cursor, segment.base);
+            cursor = segment.read(cursor, Math.min(segment.end, end), limit, records);
+        }
+        return new Batch(records, Math.min(cursor, end));
+    }
+
+    public void flush(){
+        Segment segment = active;
+        if(segment != null) segment.buffer.force();
+    }
+
+    /*
+     * Rewrites sealed segments in which at least `minDeadRatio` of the records have a newer record
+     * with the same key, and deletes segments left with none. Appends continue meanwhile; only
+     * sealed segments are touched. Returns the number of segments rewritten or removed.
+     */
+    public int compact(double minDeadRatio) throws IOException {
+        synchronized (compactionLock){
+            long end = endOffset;
+            long activeBase = active.base;
+            Map<UUID, Long> latest = new HashMap<>();
+            for(long cursor = startOffset(); cursor < end; ){
+                Batch batch = read(cursor, 4096);
+                for(Record record : batch.records()) latest.put(record.key(), record.offset());
+                if(batch.nextOffset() == cursor) break;
+                cursor = batch.nextOffset();
+            }
+
+            int changed = 0;
+            for(Segment segment : List.copyOf(segments.headMap(activeBase).values())){
+                List<Record> records = new ArrayList<>();
+                segment.read(segment.base, segment.end, Integer.MAX_VALUE, records);
+                List<Record> live = records.stream().filter(r -> Long.valueOf(r.offset()).equals(latest.get(r.key()))).toList();
+                if(records.isEmpty() || live.size() == records.size()
+                        || (double) (records.size() - live.size()) / records.size() < minDeadRatio) continue;
+                if(live.isEmpty()){
+                    segments.remove(segment.base);
+                    Files.deleteIfExists(segment.path);
+                }else{
+                    segments.put(segment.base, rewrite(segment, live));
+                }
+                changed++;
+            }
+            return changed;
+        }
+    }
+
+    @Override
+    public synchronized void close(){
+        if(closed) return;
+        closed = true;
+        flush();
+        notifyAll();
+    }
+
+    private void roll() throws IOException {
+        active.buffer.force();
+        active.dataEnd = endOffset;
+        active = createSegment(endOffset);
+        sealEnds();
+    }
+
+    // A sealed segment ends at its last record or where the next one starts, whichever is first; the
+    // active one ends at the last append.
+    private void sealEnds(){
+        Segment next = null;
+        for(Segment segment : segments.descendingMap().values()){
+            segment.end = next == null ? Long.MAX_VALUE : Math.min(next.base, segment.dataEnd);
+            next = segment;
+        }
+    }
+
+    private Segment createSegment(long base) throws IOException {
+        Path path = directory.resolve(fileName(base));
+        Path temp = directory.resolve(fileName(base) + TEMP_SUFFIX);
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+            channel.write(header(base, (short) 0), 0);
+            channel.write(ByteBuffer.allocate(1), segmentBytes - 1);
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        Segment segment = Segment.open(path, true);
+        segments.put(base, segment);
+        return segment;
+    }
+
+    private Segment rewrite(Segment segment, List<Record> live) throws IOException {
+        Path temp = directory.resolve(segment.path.getFileName() + TEMP_SUFFIX);
+        int size = HEADER_BYTES + live.stream().mapToInt(r -> RECORD_HEADER_BYTES + r.payload().length).sum();
+        ByteBuffer content = ByteBuffer.allocate(size);
+        content.put(header(segment.base, COMPACTED));
+        for(Record record : live){
+            int position = content.position();
+            int framed = RECORD_HEADER_BYTES + record.payload().length;
+            content.putInt(framed).putInt(0)
+                    .putLong(record.offset())
+                    .putLong(record.key().getMostSignificantBits())
+                    .putLong(record.key().getLeastSignificantBits())
+                    .put(record.payload());
+            content.putInt(position + 4, checksum(content, position, framed));
+        }
+        content.flip();
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)){
+            while(content.hasRemaining()) channel.write(content);
+            channel.force(true);
+        }
+        // Readers still holding the old mapping keep reading the replaced file.
+        Files.move(temp, segment.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Segment compacted = Segment.open(segment.path, false);
+        compacted.end = segment.end;
+        return compacted;
+    }
+
+    private static ByteBuffer header(long base, short flags){
+        return ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putShort(VERSION).putShort(flags).putLong(base).flip();
+    }
+
+    private static String fileName(long base){
+        return String.format("%020d%s", base, EXTENSION);
+    }
+
+    // Covers everything after the length and checksum fields.
+    private static int checksum(ByteBuffer buffer, int position, int framed){
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(position + 8, framed - 8));
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        final Path path;
+        final long base;
+        final boolean compacted;
+        final MappedByteBuffer buffer;
+        volatile long end = Long.MAX_VALUE;
+        // Offset just past the last record of a sealed plain segment; compacted segments are scanned instead.
+        volatile long dataEnd = Long.MAX_VALUE;
+
+        private Segment(Path path, long base, boolean compacted, MappedByteBuffer buffer){
+            this.path = path;
+            this.base = base;
+            this.compacted = compacted;
+            this.buffer = buffer;
+        }
+
+        // The writable mapping stays valid after the channel is closed.
+        static Segment open(Path path, boolean writable) throws IOException {
+            MappedByteBuffer buffer;
+            try(FileChannel channel = writable
+                    ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(path, StandardOpenOption.READ)){
+                buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if(buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) throw new IOException("Not a journal segment: " + path);
+            short version = buffer.getShort(4);
+            if(version != VERSION) throw new IOException("Unsupported journal version " + version + ": " + path);
+            return new Segment(path, buffer.getLong(8), (buffer.getShort(6) & COMPACTED) != 0, buffer);
+        }
+
+        // Finds the end of the last complete record after a restart and clears whatever follows it.
+        long recover(){
+            int position = HEADER_BYTES + validBytes();
+            for(int i = position; i < buffer.capacity(); i++){
+                if(buffer.get(i) != 0) buffer.put(i, (byte) 0);
+            }
+            return base + position - HEADER_BYTES;
+        }
+
+        // Length of the run of complete records at the start of a plain segment.
+        int validBytes(){
+            int position = HEADER_BYTES;
+            while(position + RECORD_HEADER_BYTES <= buffer.capacity()){
+                int framed = buffer.getInt(position);
+                if(framed < RECORD_HEADER_BYTES || position + framed > buffer.capacity()
+                        || buffer.getLong(position + 8) != base + position - HEADER_BYTES
+                        || buffer.getInt(position + 4) != checksum(buffer, position, framed)) break;
+                position += framed;
+            }
+            return position - HEADER_BYTES;
+        }
+
+        long scanEnd(){
+            List<Record> records = new ArrayList<>();
+            read(base, Long.MAX_VALUE, Integer.MAX_VALUE, records);
+            return records.isEmpty() ? base : records.getLast().nextOffset();
+        }
+
+        // Appends records at or after `cursor` and below `upper` until `out` holds `limit`; returns the next cursor.
+        long read(long cursor, long upper, int limit, List<Record> out){
+            if(!compacted){
+                long offset = cursor;
+                while(offset < upper && out.size() < limit){
+                    int position = HEADER_BYTES + (int) (offset - base);
+                    int framed = buffer.getInt(position);
+                    if(framed < RECORD_HEADER_BYTES || buffer.getLong(position + 8) != offset){
+                        throw new IllegalArgumentException("No journal record starts at offset " + offset);
+                    }
+                    out.add(record(position, framed));
+                    offset += framed;
+                }
+                return offset;
+            }
+            int position = HEADER_BYTES;
+            while(position + RECORD_HEADER_BYTES <= buffer.capacity()){
+                int framed = buffer.getInt(position);
+                if(framed == 0) break;
+                long offset = buffer.getLong(position + 8);
+                if(offset >= upper) return upper;
+                if(offset >= cursor){
+                    if(out.size() >= limit) return offset;
+                    out.add(record(position, framed));
+                }
+                position += framed;
+            }
+            return upper;
+        }
+
+        private Record record(int position, int framed){
+            byte[] payload = new byte[framed - RECORD_HEADER_BYTES];
+            buffer.get(position + RECORD_HEADER_BYTES, payload);
+            return new Record(buffer.getLong(position + 8),
+                    new UUID(buffer.getLong(position + 16), buffer.getLong(position + 24)), payload);
+        }
+    }
+}
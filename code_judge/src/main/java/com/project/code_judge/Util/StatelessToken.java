@@ -0,0 +1,91 @@
+package com.project.code_judge.Util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/*
+ * HMAC-SHA256 signed bearer token: base64url(claims) "." base64url(signature). The claims are
+ * binary and versioned; a token is only accepted with a valid signature and before it expires.
+ */
+public final class StatelessToken {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // lsn is the primary WAL position the holder's reads must see, 0 for none.
+    public record Claims(long userId, String email, String role, long lsn, Instant expiresAt) {
+    }
+
+    private final Mac prototype;
+
+    public StatelessToken(byte[] secret){
+        try{
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(secret, ALGORITHM));
+        }catch (GeneralSecurityException e){
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    public String sign(Claims claims){
+        byte[] payload = encode(claims);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac().doFinal(payload));
+    }
+
+    public Optional<Claims> verify(String token, Instant now){
+        int dot = token.indexOf('.');
+        if(dot <= 0 || dot != token.lastIndexOf('.')) return Optional.empty();
+        try{
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if(!MessageDigest.isEqual(signature, mac().doFinal(payload))) return Optional.empty();
+            Claims claims = decode(payload);
+            return claims.expiresAt().isAfter(now) ? Optional.of(claims) : Optional.empty();
+        }catch (IllegalArgumentException | IOException e){
+            return Optional.empty();
+        }
+    }
+
+    // Mac is not thread-safe; a clone of the initialised prototype skips the key setup.
+    private Mac mac(){
+        try{
+            return (Mac) prototype.clone();
+        }catch (CloneNotSupportedException e){
+            throw new IllegalStateException("HMAC-SHA256 implementation cannot be cloned", e);
+        }
+    }
+
+    private static byte[] encode(Claims claims){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try(DataOutputStream out = new DataOutputStream(bytes)){
+            out.writeByte(VERSION);
+            out.writeLong(claims.userId());
+            out.writeUTF(claims.email());
+            out.writeUTF(claims.role());
+            out.writeLong(claims.lsn());
+            out.writeLong(claims.expiresAt().getEpochSecond());
+        }catch (IOException e){
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Claims decode(byte[] payload) throws IOException{
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        if(in.readByte() != VERSION) throw new IOException("Unknown token version");
+        Claims claims = new Claims(in.readLong(), in.readUTF(), in.readUTF(), in.readLong(), Instant.ofEpochSecond(in.readLong()));
+        if(in.available() > 0) throw new IOException("Trailing token bytes");
+        return claims;
+    }
+}
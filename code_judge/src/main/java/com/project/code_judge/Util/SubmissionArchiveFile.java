@@ -0,0 +1,307 @@
+package com.project.code_judge.Util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Gzip-compressed columnar file holding the rows of one archived submissions partition.
+ *
+ * Layout: MAGIC, VERSION, then row groups of [rowCount, (columnLength, columnBytes) x COLUMNS],
+ * terminated by a rowCount of 0. Every column is length-prefixed so readers can skip whole
+ * columns of a group once the id column tells them the row is not there. Version 1 files lack the
+ * score and group_scores columns and are still readable.
+ */
+public final class SubmissionArchiveFile {
+    static final int MAGIC = 0x53554241;
+    static final short VERSION = 2;
+    static final int COLUMNS = 13;
+    private static final short VERSION_WITHOUT_SCORES = 1;
+    private static final int COLUMNS_WITHOUT_SCORES = 11;
+
+    private static final int MAX_GROUP_ROWS = 4096;
+    private static final long MAX_GROUP_BYTES = 8L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    public record Row(UUID id, Long userId, Long problemId, LocalDateTime submissionTime, String language,
+                      String status, String verdict, Long timeTaken, Long memoryUsed, Integer score, String groupScores,
+                      String error, String code) {
+    }
+
+    public interface RowHandler {
+        void accept(Row row) throws IOException;
+    }
+
+    private SubmissionArchiveFile(){
+    }
+
+    public static Optional<Row> find(Path file, UUID id) throws IOException {
+        try(DataInputStream in = openReader(file)){
+            boolean scores = in.readShort() == VERSION;
+            int columns = scores ? COLUMNS : COLUMNS_WITHOUT_SCORES;
+            int rows;
+            while((rows = in.readInt()) > 0){
+                byte[] ids = readColumn(in);
+                int index = indexOf(ids, rows, id);
+                if(index < 0){
+                    for(int c = 1; c < columns; c++) skipColumn(in);
+                    continue;
+                }
+                return Optional.of(readRow(in, id, rows, index, scores));
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Hands every row to the handler in file order, decoding one row group at a time. Without code
+    // the code column is skipped rather than decoded.
+    public static void scan(Path file, boolean includeCode, RowHandler handler) throws IOException {
+        try(DataInputStream in = openReader(file)){
+            boolean scores = in.readShort() == VERSION;
+            int rows;
+            while((rows = in.readInt()) > 0){
+                long[] ids = longs(readColumn(in), rows * 2);
+                long[] userIds = longs(readColumn(in), rows);
+                long[] problemIds = longs(readColumn(in), rows);
+                long[] micros = longs(readColumn(in), rows);
+                String[] languages = strings(readColumn(in), rows);
+                String[] statuses = strings(readColumn(in), rows);
+                String[] verdicts = strings(readColumn(in), rows);
+                long[] timesTaken = longs(readColumn(in), rows);
+                long[] memoryUsed = longs(readColumn(in), rows);
+                long[] scoreValues = scores ? longs(readColumn(in), rows) : null;
+                String[] groupScores = scores ? strings(readColumn(in), rows) : null;
+                String[] errors = strings(readColumn(in), rows);
+                String[] codes = null;
+                if(includeCode) codes = strings(readColumn(in), rows);
+                else skipColumn(in);
+                for(int i = 0; i < rows; i++){
+                    Long score = scoreValues == null ? null : fromNullable(scoreValues[i]);
+                    handler.accept(new Row(new UUID(ids[i * 2], ids[i * 2 + 1]), fromNullable(userIds[i]),
+                            fromNullable(problemIds[i]), fromEpochMicros(micros[i]), languages[i], statuses[i], verdicts[i],
+                            fromNullable(timesTaken[i]), fromNullable(memoryUsed[i]), score == null ? null : score.intValue(),
+                            groupScores == null ? null : groupScores[i], errors[i], codes == null ? null : codes[i]));
+                }
+            }
+        }
+    }
+
+    // Checks the header and leaves the version to be read by the caller.
+    private static DataInputStream openReader(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+        try{
+            if(in.readInt() != MAGIC) throw new IOException("Not a submission archive: " + file);
+            in.mark(Short.BYTES);
+            short version = in.readShort();
+            if(version != VERSION && version != VERSION_WITHOUT_SCORES){
+                throw new IOException("Unsupported archive version " + version + ": " + file);
+            }
+            in.reset();
+            return in;
+        }catch (IOException e){
+            in.close();
+            throw e;
+        }
+    }
+
+    private static byte[] readColumn(DataInputStream in) throws IOException {
+        byte[] column = new byte[in.readInt()];
+        in.readFully(column);
+        return column;
+    }
+
+    private static void skipColumn(DataInputStream in) throws IOException {
+        in.skipNBytes(in.readInt());
+    }
+
+    private static int indexOf(byte[] ids, int rows, UUID id){
+        DataInputStream column = new DataInputStream(new ByteArrayInputStream(ids));
+        try{
+            for(int i = 0; i < rows; i++){
+                long msb = column.readLong();
+                long lsb = column.readLong();
+                if(msb == id.getMostSignificantBits() && lsb == id.getLeastSignificantBits()) return i;
+            }
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        return -1;
+    }
+
+    private static Row readRow(DataInputStream in, UUID id, int rows, int index, boolean scores) throws IOException {
+        Long userId = fromNullable(longAt(readColumn(in), index));
+        Long problemId = fromNullable(longAt(readColumn(in), index));
+        long micros = longAt(readColumn(in), index);
+        String language = stringAt(readColumn(in), rows, index);
+        String status = stringAt(readColumn(in), rows, index);
+        String verdict = stringAt(readColumn(in), rows, index);
+        Long timeTaken = fromNullable(longAt(readColumn(in), index));
+        Long memoryUsed = fromNullable(longAt(readColumn(in), index));
+        Long score = scores ? fromNullable(longAt(readColumn(in), index)) : null;
+        String groupScores = scores ? stringAt(readColumn(in), rows, index) : null;
+        String error = stringAt(readColumn(in), rows, index);
+        String code = stringAt(readColumn(in), rows, index);
+        return new Row(id, userId, problemId, fromEpochMicros(micros), language, status, verdict,
+                timeTaken, memoryUsed, score == null ? null : score.intValue(), groupScores, error, code);
+    }
+
+    private static long[] longs(byte[] column, int count){
+        long[] values = new long[count];
+        for(int i = 0; i < count; i++) values[i] = longAt(column, i);
+        return values;
+    }
+
+    private static String[] strings(byte[] column, int rows) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(column));
+        String[] values = new String[rows];
+        for(int i = 0; i < rows; i++){
+            int length = in.readInt();
+            if(length < 0) continue;
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static long longAt(byte[] column, int index){
+        long value = 0;
+        for(int i = index * Long.BYTES; i < (index + 1) * Long.BYTES; i++){
+            value = (value << 8) | (column[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static String stringAt(byte[] column, int rows, int index) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(column));
+        for(int i = 0; i < rows; i++){
+            int length = in.readInt();
+            if(i == index){
+                if(length < 0) return null;
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            if(length > 0) in.skipNBytes(length);
+        }
+        throw new IOException("Row " + index + " missing from string column");
+    }
+
+    private static Long fromNullable(long value){
+        return value == NULL_LONG ? null : value;
+    }
+
+    private static long toEpochMicros(LocalDateTime time){
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros){
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream columnBuffer = new ByteArrayOutputStream(BUFFER_SIZE);
+        private final DataOutputStream column = new DataOutputStream(columnBuffer);
+        private final List<Row> group = new ArrayList<>(MAX_GROUP_ROWS);
+        private long groupBytes;
+        private long rowCount;
+
+        public Writer(OutputStream target) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(target, BUFFER_SIZE), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+        }
+
+        public void append(Row row) throws IOException {
+            group.add(row);
+            groupBytes += 104 + length(row.code()) + length(row.error()) + length(row.groupScores());
+            rowCount++;
+            if(group.size() >= MAX_GROUP_ROWS || groupBytes >= MAX_GROUP_BYTES) flushGroup();
+        }
+
+        public long getRowCount(){
+            return rowCount;
+        }
+
+        private void flushGroup() throws IOException {
+            if(group.isEmpty()) return;
+            out.writeInt(group.size());
+            for(Row row : group){
+                column.writeLong(row.id().getMostSignificantBits());
+                column.writeLong(row.id().getLeastSignificantBits());
+            }
+            writeColumn();
+            for(Row row : group) column.writeLong(toNullable(row.userId()));
+            writeColumn();
+            for(Row row : group) column.writeLong(toNullable(row.problemId()));
+            writeColumn();
+            for(Row row : group) column.writeLong(toEpochMicros(row.submissionTime()));
+            writeColumn();
+            for(Row row : group) writeString(row.language());
+            writeColumn();
+            for(Row row : group) writeString(row.status());
+            writeColumn();
+            for(Row row : group) writeString(row.verdict());
+            writeColumn();
+            for(Row row : group) column.writeLong(toNullable(row.timeTaken()));
+            writeColumn();
+            for(Row row : group) column.writeLong(toNullable(row.memoryUsed()));
+            writeColumn();
+            for(Row row : group) column.writeLong(toNullable(row.score() == null ? null : row.score().longValue()));
+            writeColumn();
+            for(Row row : group) writeString(row.groupScores());
+            writeColumn();
+            for(Row row : group) writeString(row.error());
+            writeColumn();
+            for(Row row : group) writeString(row.code());
+            writeColumn();
+            group.clear();
+            groupBytes = 0;
+        }
+
+        private void writeColumn() throws IOException {
+            column.flush();
+            out.writeInt(columnBuffer.size());
+            columnBuffer.writeTo(out);
+            columnBuffer.reset();
+        }
+
+        private void writeString(String value) throws IOException {
+            if(value == null){
+                column.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            column.writeInt(bytes.length);
+            column.write(bytes);
+        }
+
+        private static long toNullable(Long value){
+            return value == null ? NULL_LONG : value;
+        }
+
+        private static long length(String value){
+            return value == null ? 0 : value.length();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushGroup();
+            out.writeInt(0);
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.project.code_judge.Util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+public final class TimeOrderedIds {
+
+    private TimeOrderedIds(){
+    }
+
+    public static boolean isTimeOrdered(UUID id){
+        return id.variant() == 2 && id.version() == 7;
+    }
+
+    // UUIDv7 keeps the unix epoch milliseconds in the top 48 bits.
+    public static Instant timestampOf(UUID id){
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    }
+
+    public static LocalDateTime createdAt(UUID id){
+        return LocalDateTime.ofInstant(timestampOf(id), ZoneId.systemDefault());
+    }
+}
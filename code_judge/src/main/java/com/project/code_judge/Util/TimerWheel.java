@@ -0,0 +1,169 @@
+package com.project.code_judge.Util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Hierarchical timer wheel keyed by K. Each level has 2^bits slots; a level-L slot covers
+ * 2^(bits*L) ticks, and a timer sits in the lowest level whose next-level period it shares with
+ * the current tick. When the clock enters a new level-L period that slot is cascaded down. Timers
+ * beyond the top level wait in an overflow list that is re-placed each time the top level wraps.
+ *
+ * schedule, cancel and each expiry are O(1); advance also costs one step per elapsed tick, so the
+ * work per tick depends on how many timers fall due, not on how many are pending.
+ */
+public final class TimerWheel<K> {
+
+    private static final class Timer<K> {
+        final K key;
+        long deadlineTick;
+        Timer<K> prev;
+        Timer<K> next;
+        Slot<K> slot;
+
+        Timer(K key){
+            this.key = key;
+        }
+    }
+
+    private static final class Slot<K> {
+        Timer<K> head;
+
+        void add(Timer<K> timer){
+            timer.slot = this;
+            timer.prev = null;
+            timer.next = head;
+            if(head != null) head.prev = timer;
+            head = timer;
+        }
+
+        void remove(Timer<K> timer){
+            if(timer.prev != null) timer.prev.next = timer.next;
+            else head = timer.next;
+            if(timer.next != null) timer.next.prev = timer.prev;
+            timer.prev = timer.next = null;
+            timer.slot = null;
+        }
+
+        Timer<K> drain(){
+            Timer<K> first = head;
+            head = null;
+            return first;
+        }
+    }
+
+    private final long tickMs;
+    private final int bits;
+    private final int mask;
+    private final Slot<K>[][] levels;
+    private final Slot<K> overflow = new Slot<>();
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+    private final List<K> due = new ArrayList<>();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMs, int bits, int levelCount, long nowMs){
+        if(tickMs <= 0 || bits < 1 || levelCount < 1 || (long) bits * levelCount > 62){
+            throw new IllegalArgumentException("Invalid timer wheel geometry");
+        }
+        this.tickMs = tickMs;
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.levels = new Slot[levelCount][1 << bits];
+        for(Slot<K>[] level : levels){
+            for(int i = 0; i < level.length; i++) level[i] = new Slot<>();
+        }
+        this.currentTick = nowMs / tickMs;
+    }
+
+    // Adds or moves the timer for key; a deadline that has already passed fires on the next advance.
+    public synchronized void schedule(K key, long deadlineMs){
+        Timer<K> timer = timers.get(key);
+        if(timer == null){
+            timer = new Timer<>(key);
+            timers.put(key, timer);
+        }else if(timer.slot != null){
+            timer.slot.remove(timer);
+        }else{
+            due.remove(key);
+        }
+        timer.deadlineTick = Math.floorDiv(deadlineMs + tickMs - 1, tickMs);
+        place(timer);
+    }
+
+    public synchronized boolean cancel(K key){
+        Timer<K> timer = timers.remove(key);
+        if(timer == null) return false;
+        if(timer.slot != null) timer.slot.remove(timer);
+        else due.remove(key);
+        return true;
+    }
+
+    public synchronized boolean contains(K key){
+        return timers.containsKey(key);
+    }
+
+    public synchronized int size(){
+        return timers.size();
+    }
+
+    // Moves the clock to nowMs and returns the keys whose deadline has passed, removing their timers.
+    public synchronized List<K> advance(long nowMs){
+        long target = nowMs / tickMs;
+        while(currentTick < target){
+            currentTick++;
+            int top = 0;
+            while(top < levels.length && (currentTick & ((1L << (bits * (top + 1))) - 1)) == 0) top++;
+            for(int level = top; level >= 1; level--){
+                Slot<K> slot = level == levels.length
+                        ? overflow
+                        : levels[level][(int) ((currentTick >>> (bits * level)) & mask)];
+                cascade(slot);
+            }
+            expire(levels[0][(int) (currentTick & mask)]);
+        }
+        List<K> expired = new ArrayList<>(due);
+        due.clear();
+        for(K key : expired) timers.remove(key);
+        return expired;
+    }
+
+    private void place(Timer<K> timer){
+        if(timer.deadlineTick <= currentTick){
+            timer.slot = null;
+            due.add(timer.key);
+            return;
+        }
+        for(int level = 0; level < levels.length; level++){
+            int shift = bits * (level + 1);
+            if((timer.deadlineTick >>> shift) == (currentTick >>> shift)){
+                levels[level][(int) ((timer.deadlineTick >>> (bits * level)) & mask)].add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+
+    private void cascade(Slot<K> slot){
+        Timer<K> timer = slot.drain();
+        while(timer != null){
+            Timer<K> next = timer.next;
+            timer.prev = timer.next = null;
+            place(timer);
+            timer = next;
+        }
+    }
+
+    private void expire(Slot<K> slot){
+        Timer<K> timer = slot.drain();
+        while(timer != null){
+            Timer<K> next = timer.next;
+            timer.prev = timer.next = null;
+            timer.slot = null;
+            due.add(timer.key);
+            timer = next;
+        }
+    }
+}
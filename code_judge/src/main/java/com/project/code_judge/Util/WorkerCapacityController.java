@@ -0,0 +1,106 @@
+package com.project.code_judge.Util;
+
+/*
+ * Recommends a judge worker count from queue depth, arrival rate and judge service time.
+ *
+ * Each tick smooths the arrival rate with a time-based EWMA, then looks for the smallest worker
+ * count c that (1) covers the offered load plus draining the current backlog within drainSeconds
+ * and (2) keeps the M/M/c (Erlang C) expected queueing delay under targetWaitSeconds.
+ * Scaling up takes effect at once; scaling down only after the desired count has stayed below the
+ * current recommendation for scaleDownDelaySeconds, and then only to the highest count desired
+ * during that window, so short lulls do not cause flapping.
+ */
+public final class WorkerCapacityController {
+    private static final double SERVICE_TIME_ALPHA = 0.1;
+
+    public record Settings(int minWorkers, int maxWorkers, double targetWaitSeconds, double drainSeconds,
+                           double smoothingSeconds, double scaleDownDelaySeconds, double defaultServiceSeconds) {
+        public Settings {
+            if(minWorkers < 0 || maxWorkers < Math.max(1, minWorkers)){
+                throw new IllegalArgumentException("Worker bounds must satisfy 0 <= min <= max and max >= 1");
+            }
+            if(targetWaitSeconds <= 0 || drainSeconds <= 0 || smoothingSeconds <= 0 || defaultServiceSeconds <= 0){
+                throw new IllegalArgumentException("Wait, drain, smoothing and service times must be positive");
+            }
+        }
+    }
+
+    public record Decision(int recommendedWorkers, int desiredWorkers, double arrivalRate, double serviceSeconds,
+                           double utilization, double expectedWaitSeconds) {
+    }
+
+    private final Settings settings;
+    private double arrivalRate;
+    private double serviceSeconds;
+    private long lastTickMs = -1;
+    private int recommended;
+    private long belowSinceMs = -1;
+    private int highestDesiredWhileBelow;
+
+    public WorkerCapacityController(Settings settings){
+        this.settings = settings;
+        this.serviceSeconds = settings.defaultServiceSeconds();
+        this.recommended = settings.minWorkers();
+    }
+
+    public synchronized void observeServiceTime(double seconds){
+        if(seconds <= 0) return;
+        serviceSeconds += SERVICE_TIME_ALPHA * (seconds - serviceSeconds);
+    }
+
+    public synchronized Decision update(long nowMs, long arrivalsSinceLastTick, long queueDepth){
+        if(lastTickMs >= 0 && nowMs > lastTickMs){
+            double elapsed = (nowMs - lastTickMs) / 1000.0;
+            double alpha = 1 - Math.exp(-elapsed / settings.smoothingSeconds());
+            arrivalRate += alpha * (arrivalsSinceLastTick / elapsed - arrivalRate);
+        }
+        lastTickMs = nowMs;
+
+        int desired = desiredWorkers(arrivalRate, serviceSeconds, queueDepth);
+        if(desired >= recommended){
+            recommended = desired;
+            belowSinceMs = -1;
+        }else if(belowSinceMs < 0){
+            belowSinceMs = nowMs;
+            highestDesiredWhileBelow = desired;
+        }else{
+            highestDesiredWhileBelow = Math.max(highestDesiredWhileBelow, desired);
+            if(nowMs - belowSinceMs >= settings.scaleDownDelaySeconds() * 1000){
+                recommended = highestDesiredWhileBelow;
+                belowSinceMs = -1;
+            }
+        }
+
+        double load = arrivalRate * serviceSeconds;
+        return new Decision(recommended, desired, arrivalRate, serviceSeconds,
+                recommended == 0 ? 0 : load / recommended,
+                expectedWaitSeconds(recommended, arrivalRate, serviceSeconds));
+    }
+
+    public synchronized int getRecommendedWorkers(){
+        return recommended;
+    }
+
+    int desiredWorkers(double rate, double service, long queueDepth){
+        double load = rate * service;
+        int workers = (int) Math.ceil(load + queueDepth * service / settings.drainSeconds());
+        workers = Math.max(workers, settings.minWorkers());
+        while(workers < settings.maxWorkers() && expectedWaitSeconds(workers, rate, service) > settings.targetWaitSeconds()){
+            workers++;
+        }
+        return Math.min(workers, settings.maxWorkers());
+    }
+
+    // Expected time in queue for M/M/c: ErlangC(c, a) * S / (c - a), with a = rate * S.
+    public static double expectedWaitSeconds(int workers, double rate, double serviceSeconds){
+        if(rate <= 0) return 0;
+        double load = rate * serviceSeconds;
+        if(workers <= load) return Double.POSITIVE_INFINITY;
+        double erlangB = 1;
+        for(int k = 1; k <= workers; k++){
+            erlangB = load * erlangB / (k + load * erlangB);
+        }
+        double erlangC = workers * erlangB / (workers - load * (1 - erlangB));
+        return erlangC * serviceSeconds / (workers - load);
+    }
+}
@@ -0,0 +1,31 @@
+CREATE TABLE IF NOT EXISTS submissions (
+    id uuid NOT NULL,
+    submission_time timestamp(6) NOT NULL,
+    code text,
+    language varchar(255),
+    status varchar(255),
+    verdict varchar(255),
+    error text,
+    problem_id bigint NOT NULL,
+    user_id bigint,
+    submission_history bigint,
+    time_taken bigint,
+    memory_used bigint,
+    score integer,
+    group_scores text,
+    PRIMARY KEY (id, submission_time)
+) PARTITION BY RANGE (submission_time);
+
+ALTER TABLE submissions ADD COLUMN IF NOT EXISTS score integer;
+ALTER TABLE submissions ADD COLUMN IF NOT EXISTS group_scores text;
+
+CREATE TABLE IF NOT EXISTS submission_signatures (
+    submission_id uuid PRIMARY KEY,
+    problem_id bigint NOT NULL,
+    user_id bigint,
+    language varchar(32),
+    created_at timestamp(6) NOT NULL,
+    signature bytea NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS submission_signatures_problem_idx ON submission_signatures (problem_id, created_at);
@@ -0,0 +1,84 @@
+package com.project.code_judge.Config;
+
+import com.project.code_judge.Dto.AuthenticatedUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactSessionSerializerTest {
+	private static final AuthenticatedUser USER = new AuthenticatedUser(42, "ada@example.com", "USER");
+
+	private final CompactSessionSerializer serializer = new CompactSessionSerializer(new SimpleMeterRegistry());
+
+	@Test
+	void roundTripsACompactSecurityContext() {
+		SecurityContext context = context(USER);
+		byte[] bytes = serializer.serialize(context);
+		assertNotEquals((byte) 0xAC, bytes[0]);
+		assertTrue(bytes.length < 40, "compact context took " + bytes.length + " bytes");
+		assertEquals(context, serializer.deserialize(bytes));
+	}
+
+	@Test
+	void roundTripsSimpleAttributes() {
+		for (Object value : List.of(1_700_000_000_000L, 1800, "", "read-your-writes ✓")) {
+			byte[] bytes = serializer.serialize(value);
+			assertNotEquals((byte) 0xAC, bytes[0]);
+			assertEquals(value, serializer.deserialize(bytes));
+		}
+		assertEquals(0, serializer.serialize(null).length);
+		assertNull(serializer.deserialize(new byte[0]));
+		assertNull(serializer.deserialize(null));
+	}
+
+	@Test
+	void loadsJdkSerializedSessions() {
+		// What sessions held before the compact codec: a Spring Security User as the principal.
+		User principal = new User("ada@example.com", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+		SecurityContext legacy = new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(principal, null,
+				principal.getAuthorities()));
+		byte[] bytes = new SerializingConverter().convert(legacy);
+		assertEquals((byte) 0xAC, bytes[0]);
+		assertEquals(legacy, serializer.deserialize(bytes));
+
+		assertEquals(1_700_000_000_000L, serializer.deserialize(new SerializingConverter().convert(1_700_000_000_000L)));
+	}
+
+	@Test
+	void fallsBackToJdkForContextsItCannotRebuild() {
+		UsernamePasswordAuthenticationToken withDetails = UsernamePasswordAuthenticationToken.authenticated(USER, null,
+				List.of(new SimpleGrantedAuthority("ROLE_USER")));
+		withDetails.setDetails("127.0.0.1");
+		SecurityContext extraAuthority = new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(USER, null,
+				List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"))));
+		SecurityContext stringPrincipal = new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated("ada@example.com", null,
+				List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+
+		for (SecurityContext context : List.of(new SecurityContextImpl(withDetails), extraAuthority, stringPrincipal)) {
+			byte[] bytes = serializer.serialize(context);
+			assertEquals((byte) 0xAC, bytes[0]);
+			assertEquals(context, serializer.deserialize(bytes));
+		}
+	}
+
+	@Test
+	void rejectsUnknownTags() {
+		assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{99, 0, 0}));
+		assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{1, 0}));
+	}
+
+	private static SecurityContext context(AuthenticatedUser user) {
+		return new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(user, null,
+				List.of(new SimpleGrantedAuthority("ROLE_" + user.role()))));
+	}
+}
@@ -0,0 +1,120 @@
+package com.project.code_judge.Service;
+
+import com.project.code_judge.Dto.TestGroup;
+import com.project.code_judge.Util.OutputFingerprint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProblemServiceTest {
+	@TempDir
+	Path dir;
+
+	private final ProblemService service = new ProblemService();
+
+	ProblemServiceTest() {
+		ReflectionTestUtils.setField(service, "jsonMapper", JsonMapper.builder().build());
+	}
+
+	@Test
+	void readsGroupsWithRanges() throws IOException {
+		manifest("""
+				[{"name": "small", "points": 30, "tests": [1, "2"]},
+				 {"points": 70, "tests": ["3-5", " 2 - 3 "]}]
+				""");
+		assertEquals(List.of(
+				new TestGroup("small", 30, List.of(1, 2)),
+				new TestGroup("group 2", 70, List.of(3, 4, 5, 2, 3))
+		), service.readTestGroups(dir, 5));
+	}
+
+	@Test
+	void returnsNullWithoutAManifest() throws IOException {
+		assertNull(service.readTestGroups(dir, 3));
+	}
+
+	@Test
+	void rejectsUncoveredTests() throws IOException {
+		manifest("""
+				[{"name": "a", "points": 50, "tests": ["1-2"]}, {"name": "b", "points": 50, "tests": [4]}]
+				""");
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.readTestGroups(dir, 4));
+		assertTrue(e.getMessage().startsWith("Test 3 "), e.getMessage());
+	}
+
+	@Test
+	void rejectsMalformedEntries() throws IOException {
+		for (String manifest : List.of(
+				"{\"name\": \"a\"}",
+				"[]",
+				"[{\"name\": \"a\", \"points\": 10,",
+				"[{\"name\": \"a\", \"tests\": [1, 2, 3]}]",
+				"[{\"name\": \"a\", \"points\": -1, \"tests\": [1, 2, 3]}]",
+				"[{\"name\": \"a\", \"points\": 10, \"tests\": []}]",
+				"[{\"name\": \"a\", \"points\": 10, \"tests\": [\"1-x\"]}]",
+				"[{\"name\": \"a\", \"points\": 10, \"tests\": [\"3-1\"]}]",
+				"[{\"name\": \"a\", \"points\": 10, \"tests\": [0, 1, 2, 3]}]",
+				"[{\"name\": \"a\", \"points\": 10, \"tests\": [\"1-4\"]}]")) {
+			manifest(manifest);
+			assertThrows(IllegalArgumentException.class, () -> service.readTestGroups(dir, 3), manifest);
+		}
+	}
+
+	@Test
+	void fingerprintsExpectedOutputs() throws IOException {
+		test(1, "1 2\n", "3\n");
+		test(2, "5 7\r\n", "12\r\n");
+
+		assertEquals(2, service.prepareTestData(dir));
+		for (int test = 1; test <= 2; test++) {
+			Path output = dir.resolve(test + "_out.txt");
+			Path expected = dir.resolve("expected.fp");
+			OutputFingerprint.scan(output).fingerprint().write(expected);
+			assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(dir.resolve(test + "_out.fp")));
+			assertFalse(Files.exists(dir.resolve(test + "_in.fp")));
+		}
+	}
+
+	@Test
+	void rejectsIncompleteTestData() throws IOException {
+		assertThrows(IllegalArgumentException.class, () -> service.prepareTestData(dir));
+
+		test(1, "1\n", "1\n");
+		Files.writeString(dir.resolve("3_in.txt"), "3\n");
+		IllegalArgumentException gap = assertThrows(IllegalArgumentException.class, () -> service.prepareTestData(dir));
+		assertTrue(gap.getMessage().startsWith("Test 2 "), gap.getMessage());
+
+		Files.delete(dir.resolve("3_in.txt"));
+		Files.writeString(dir.resolve("2_out.txt"), "2\n");
+		assertThrows(IllegalArgumentException.class, () -> service.prepareTestData(dir));
+	}
+
+	@Test
+	void rejectsLeadingZerosAndMixedLineEndings() throws IOException {
+		test(1, "1\n", "1\n");
+		Files.writeString(dir.resolve("01_in.txt"), "1\n");
+		assertThrows(IllegalArgumentException.class, () -> service.prepareTestData(dir));
+
+		Files.delete(dir.resolve("01_in.txt"));
+		Files.writeString(dir.resolve("1_out.txt"), "1\r\n2\n");
+		IllegalArgumentException mixed = assertThrows(IllegalArgumentException.class, () -> service.prepareTestData(dir));
+		assertTrue(mixed.getMessage().startsWith("1_out.txt "), mixed.getMessage());
+	}
+
+	private void test(int number, String input, String output) throws IOException {
+		Files.writeString(dir.resolve(number + "_in.txt"), input);
+		Files.writeString(dir.resolve(number + "_out.txt"), output);
+	}
+
+	private void manifest(String json) throws IOException {
+		Files.writeString(dir.resolve("groups.json"), json);
+	}
+}
@@ -0,0 +1,59 @@
+package com.project.code_judge.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeTokenizerTest {
+	private static final String ORIGINAL = """
+			#include <bits/stdc++.h>
+			// sums the input
+			int main() {
+			    long long total = 0;
+			    int n; std::cin >> n;
+			    for (int i = 0; i < n; i++) { int x; std::cin >> x; total += x; }
+			    std::cout << total << "\\n";
+			}
+			""";
+	private static final String RENAMED = """
+			#include <iostream>
+			int main() {
+			    /* accumulator */
+			    long long acc = 42;
+			    int count; std::cin >> count;
+			    for (int k = 1; k < count; k++) { int v; std::cin >> v; acc += v; }
+			    std::cout << acc << '\\n';
+			}
+			""";
+
+	@Test
+	void ignoresNamesLiteralsAndComments() {
+		assertArrayEquals(CodeTokenizer.tokenize(ORIGINAL, "cpp"), CodeTokenizer.tokenize(RENAMED, "cpp"));
+	}
+
+	@Test
+	void keepsKeywordsAndOperators() {
+		assertFalse(Arrays.equals(
+				CodeTokenizer.tokenize("while (a < b) a++;", "java"),
+				CodeTokenizer.tokenize("if (a <= b) a--;", "java")));
+	}
+
+	@Test
+	void treatsHashAsACommentInPython() {
+		assertArrayEquals(
+				CodeTokenizer.tokenize("total = 0  # running sum\nfor x in xs: total += x\n", "python"),
+				CodeTokenizer.tokenize("s = 10\nfor item in values: s += item  # add\n", "python"));
+	}
+
+	@Test
+	void shinglesAreSortedAndDistinct() {
+		long[] tokens = {1, 2, 3, 1, 2, 3, 1, 2};
+		long[] shingles = CodeTokenizer.shingles(tokens, 3);
+		assertEquals(3, shingles.length);
+		for (int i = 1; i < shingles.length; i++) assertTrue(shingles[i - 1] < shingles[i]);
+		assertEquals(1, CodeTokenizer.shingles(new long[]{7, 8}, 4).length);
+		assertEquals(0, CodeTokenizer.shingles(new long[0], 4).length);
+	}
+}
@@ -0,0 +1,105 @@
+package com.project.code_judge.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LshIndexTest {
+	private static final String SOLUTION = """
+			int main() {
+			    int n; std::cin >> n;
+			    std::vector<long long> dp(n + 1, 0);
+			    dp[0] = 1;
+			    for (int i = 1; i <= n; i++) {
+			        dp[i] = dp[i - 1];
+			        if (i >= 2) dp[i] += dp[i - 2];
+			    }
+			    std::cout << dp[n] << std::endl;
+			}
+			""";
+	private static final String RENAMED = """
+			int main() {
+			    int size; std::cin >> size;
+			    std::vector<long long> ways(size + 1, 0);
+			    ways[0] = 1;
+			    for (int k = 1; k <= size; k++) {
+			        ways[k] = ways[k - 1];
+			        if (k >= 2) ways[k] += ways[k - 2];
+			    }
+			    std::cout << ways[size] << std::endl;
+			}
+			""";
+	private static final String UNRELATED = """
+			int main() {
+			    std::string s; std::cin >> s;
+			    std::map<char, int> seen;
+			    while (!s.empty()) { seen[s.back()]++; s.pop_back(); }
+			    return seen.size() > 3 ? 1 : 0;
+			}
+			""";
+
+	@Test
+	void findsRenamedCopies() {
+		LshIndex<String> index = new LshIndex<>();
+		index.add("original", signature(SOLUTION));
+		index.add("renamed", signature(RENAMED));
+		index.add("unrelated", signature(UNRELATED));
+
+		List<LshIndex.Cluster<String>> clusters = index.clusters(0.8, 8, (a, b) -> true);
+		assertEquals(1, clusters.size());
+		LshIndex.Cluster<String> cluster = clusters.getFirst();
+		assertEquals(Set.of("original", "renamed"), Set.copyOf(cluster.members()));
+		assertEquals(1, cluster.matches().size());
+		assertEquals(1.0, cluster.maxSimilarity());
+
+		List<LshIndex.Pair<String>> similar = index.similarTo("renamed", signature(RENAMED), 0.8);
+		assertEquals(List.of(new LshIndex.Pair<>("renamed", "original", 1.0)), similar);
+	}
+
+	@Test
+	void ignoresARepeatedKey() {
+		LshIndex<String> index = new LshIndex<>();
+		index.add("a", signature(SOLUTION));
+		index.add("a", signature(SOLUTION));
+		assertEquals(1, index.size());
+		assertTrue(index.contains("a"));
+		assertTrue(index.clusters(0.0, 8, (a, b) -> true).isEmpty());
+	}
+
+	@Test
+	void linksALargeBucketWithoutComparingEveryPair() {
+		LshIndex<Integer> index = new LshIndex<>();
+		int[] signature = signature(SOLUTION);
+		for (int i = 0; i < 1000; i++) index.add(i, signature);
+
+		int[] comparisons = {0};
+		List<LshIndex.Cluster<Integer>> clusters = index.clusters(0.8, 4, (a, b) -> {
+			comparisons[0]++;
+			return true;
+		});
+		assertEquals(1, clusters.size());
+		assertEquals(1000, clusters.getFirst().members().size());
+		assertEquals(999, clusters.getFirst().matches().size());
+		assertTrue(comparisons[0] < 1000 * LshIndex.BANDS);
+	}
+
+	@Test
+	void honoursVetoedLinks() {
+		LshIndex<String> index = new LshIndex<>();
+		index.add("alice-1", signature(SOLUTION));
+		index.add("alice-2", signature(RENAMED));
+		index.add("bob", signature(SOLUTION));
+
+		List<LshIndex.Cluster<String>> clusters = index.clusters(0.8, 8, (a, b) -> a.charAt(0) != b.charAt(0));
+		assertEquals(1, clusters.size());
+		assertEquals(Set.of("alice-1", "alice-2", "bob"), Set.copyOf(clusters.getFirst().members()));
+		assertTrue(clusters.getFirst().matches().stream().noneMatch(m -> m.first().charAt(0) == m.second().charAt(0)));
+	}
+
+	private static int[] signature(String code) {
+		return MinHash.signature(CodeTokenizer.shingles(CodeTokenizer.tokenize(code, "cpp"), 4));
+	}
+}
@@ -0,0 +1,40 @@
+package com.project.code_judge.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashTest {
+
+	@Test
+	void renamedIdentifiersKeepFullSimilarity() {
+		int[] a = signature("int f(int a, int b) { return a * b + 1; }");
+		int[] b = signature("int mul(int x, int y) { return x * y + 7; }");
+		assertEquals(1.0, MinHash.similarity(a, b));
+	}
+
+	@Test
+	void estimatesJaccardSimilarity() {
+		// 1000 shared shingles out of 1500 distinct: Jaccard 2/3.
+		long[] a = LongStream.range(0, 1250).toArray();
+		long[] b = LongStream.range(250, 1500).toArray();
+		assertEquals(2.0 / 3, MinHash.similarity(MinHash.signature(a), MinHash.signature(b)), 0.12);
+		assertEquals(0.0, MinHash.similarity(MinHash.signature(LongStream.range(0, 500).toArray()),
+				MinHash.signature(LongStream.range(10_000, 10_500).toArray())), 0.05);
+	}
+
+	@Test
+	void roundTripsThroughBytes() {
+		int[] signature = signature("for (int i = 0; i < n; i++) sum += a[i];");
+		byte[] bytes = MinHash.toBytes(signature);
+		assertEquals(MinHash.BYTES, bytes.length);
+		assertArrayEquals(signature, MinHash.fromBytes(bytes));
+		assertThrows(IllegalArgumentException.class, () -> MinHash.fromBytes(new byte[MinHash.BYTES - 1]));
+	}
+
+	private static int[] signature(String code) {
+		return MinHash.signature(CodeTokenizer.shingles(CodeTokenizer.tokenize(code, "cpp"), 4));
+	}
+}
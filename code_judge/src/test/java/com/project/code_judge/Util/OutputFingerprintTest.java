@@ -0,0 +1,92 @@
+package com.project.code_judge.Util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * The expected values were produced by CodeExecutor's NormalizedHasher (fingerprint.cpp), fed the
+ * same bytes in 13-byte chunks. A mismatch means the worker would reject every correct answer.
+ */
+class OutputFingerprintTest {
+	@TempDir
+	Path dir;
+
+	@Test
+	void matchesTheWorkerForKnownOutputs() throws IOException {
+		assertFingerprint("", 0, 0, 0L);
+		assertFingerprint("42\n", 1, 2, 13362L);
+		assertFingerprint("1 2 3\n", 3, 5, 210993553459L);
+		assertFingerprint("  hello\t\tworld \r\n", 2, 11, 37381470988401154L);
+		assertFingerprint("Case #1: 3.1415926535\nCase #2: -17\n", 6, 34, 1358213765862262335L);
+	}
+
+	@Test
+	void matchesTheWorkerAcrossReadBuffers() throws IOException {
+		StringBuilder big = new StringBuilder();
+		for (int i = 0; i < 100000; i++) big.append(i * 7919 % 100003).append(i % 10 == 9 ? "\n" : " ");
+		assertTrue(big.length() > 64 * 1024);
+		assertFingerprint(big.toString(), 100000, 588892, 1095185668270568430L);
+	}
+
+	@Test
+	void ignoresWhitespaceDifferences() throws IOException {
+		OutputFingerprint a = scan("1 2\n3\n").fingerprint();
+		OutputFingerprint b = scan("1\t 2\r\n3").fingerprint();
+		assertEquals(a.tokens(), b.tokens());
+		assertEquals(a.normalizedBytes(), b.normalizedBytes());
+		assertEquals(a.hash(), b.hash());
+		assertNotEquals(a.bytes(), b.bytes());
+		assertNotEquals(a.hash(), scan("1 2\n4\n").fingerprint().hash());
+	}
+
+	@Test
+	void reportsLineEndings() throws IOException {
+		assertEquals(OutputFingerprint.LineEndings.NONE, scan("1 2").lineEndings());
+		assertEquals(OutputFingerprint.LineEndings.LF, scan("1\n2\n").lineEndings());
+		assertEquals(OutputFingerprint.LineEndings.CRLF, scan("1\r\n2\r\n").lineEndings());
+		assertEquals(OutputFingerprint.LineEndings.MIXED, scan("1\r\n2\n").lineEndings());
+	}
+
+	@Test
+	void writesTheSidecarLayoutTheWorkerLoads() throws IOException {
+		OutputFingerprint fingerprint = new OutputFingerprint(3, 1, 2, 13362L);
+		Path sidecar = dir.resolve("1_out.fp");
+		fingerprint.write(sidecar);
+
+		byte[] data = Files.readAllBytes(sidecar);
+		assertEquals(OutputFingerprint.SIDECAR_BYTES, data.length);
+		ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+		byte[] magic = new byte[4];
+		buffer.get(magic);
+		assertArrayEquals(OutputFingerprint.MAGIC, magic);
+		assertEquals(OutputFingerprint.VERSION, buffer.getShort());
+		assertEquals(0, buffer.getShort());
+		assertEquals(3, buffer.getLong());
+		assertEquals(1, buffer.getLong());
+		assertEquals(2, buffer.getLong());
+		assertEquals(13362L, buffer.getLong());
+	}
+
+	private void assertFingerprint(String output, long tokens, long normalizedBytes, long hash) throws IOException {
+		OutputFingerprint fingerprint = scan(output).fingerprint();
+		assertEquals(output.getBytes(StandardCharsets.UTF_8).length, fingerprint.bytes());
+		assertEquals(tokens, fingerprint.tokens());
+		assertEquals(normalizedBytes, fingerprint.normalizedBytes());
+		assertEquals(hash, fingerprint.hash());
+	}
+
+	private OutputFingerprint.Scan scan(String output) throws IOException {
+		Path file = Files.createTempFile(dir, "out", ".txt");
+		Files.writeString(file, output, StandardCharsets.UTF_8);
+		return OutputFingerprint.scan(file);
+	}
+}
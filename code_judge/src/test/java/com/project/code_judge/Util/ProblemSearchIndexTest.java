@@ -0,0 +1,69 @@
+package com.project.code_judge.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProblemSearchIndexTest {
+	private static final ProblemSearchIndex.Filter NO_FILTER = new ProblemSearchIndex.Filter(null, null, null, null, null);
+
+	private final ProblemSearchIndex index = new ProblemSearchIndex();
+
+	ProblemSearchIndexTest() {
+		index.index(doc(1, "Two Sum", "two-sum", "EASY", 1.0, 256), "Find two numbers in an array that add up to a target.");
+		index.index(doc(2, "Longest Path", "longest-path", "HARD", 3.0, 512), "Given a tree, print the length of the longest path.");
+		index.index(doc(3, "Array Rotation", "array-rotation", "MEDIUM", 2.0, 256), "Rotate the array by k steps.");
+	}
+
+	@Test
+	void matchesTheLastTokenAsAPrefix() {
+		assertEquals(List.of(2L), ids(index.search("long", NO_FILTER, 10)));
+		assertEquals(List.of(2L), ids(index.search("longest pa", NO_FILTER, 10)));
+		// Only the last token is a prefix.
+		assertTrue(index.search("long path", NO_FILTER, 10).isEmpty());
+	}
+
+	@Test
+	void ranksTitleHitsAboveStatementHits() {
+		List<ProblemSearchIndex.Hit> hits = index.search("array", NO_FILTER, 10);
+		assertEquals(List.of(3L, 1L), ids(hits));
+		assertTrue(hits.get(0).score() > hits.get(1).score());
+		assertEquals(List.of(3L), ids(index.search("array", NO_FILTER, 1)));
+	}
+
+	@Test
+	void appliesFilters() {
+		ProblemSearchIndex.Filter easyOrMedium = new ProblemSearchIndex.Filter(Set.of("EASY", "MEDIUM"), null, null, null, null);
+		assertEquals(List.of(1L, 3L), ids(index.search("", easyOrMedium, 10)));
+		assertEquals(List.of(2L), ids(index.search("", new ProblemSearchIndex.Filter(null, 2.5, null, null, null), 10)));
+		assertEquals(List.of(1L, 3L), ids(index.search("", new ProblemSearchIndex.Filter(null, null, null, null, 256), 10)));
+		assertTrue(index.search("longest", easyOrMedium, 10).isEmpty());
+	}
+
+	@Test
+	void reindexingRetiresTheOldDocument() {
+		index.index(doc(2, "Shortest Path", "shortest-path", "MEDIUM", 3.0, 512), "Print the length of the shortest path.");
+		assertTrue(index.search("longest", NO_FILTER, 10).isEmpty());
+		List<ProblemSearchIndex.Hit> hits = index.search("shortest", NO_FILTER, 10);
+		assertEquals(List.of(2L), ids(hits));
+		assertEquals("MEDIUM", hits.get(0).document().difficulty());
+		assertEquals(List.of(1L, 2L, 3L), ids(index.search("", NO_FILTER, 10)));
+	}
+
+	@Test
+	void tokenizesOnNonAlphanumerics() {
+		assertEquals(List.of("two", "sum", "ii", "2"), ProblemSearchIndex.tokenize("Two-Sum (II): 2"));
+		assertTrue(ProblemSearchIndex.tokenize(null).isEmpty());
+	}
+
+	private static ProblemSearchIndex.Document doc(long id, String title, String slug, String difficulty, double time, int memory) {
+		return new ProblemSearchIndex.Document(id, title, slug, difficulty, time, memory);
+	}
+
+	private static List<Long> ids(List<ProblemSearchIndex.Hit> hits) {
+		return hits.stream().map(hit -> hit.document().id()).toList();
+	}
+}
@@ -0,0 +1,183 @@
+package com.project.code_judge.Util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedJournalTest {
+	// Room for three 40-byte records per segment.
+	private static final int SEGMENT_BYTES = SegmentedJournal.HEADER_BYTES + 3 * 40;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void readsAcrossSegmentRolls() throws IOException {
+		List<Long> offsets = new ArrayList<>();
+		try (SegmentedJournal journal = new SegmentedJournal(dir, SEGMENT_BYTES)) {
+			for (int i = 0; i < 10; i++) {
+				offsets.add(journal.append(new UUID(0, i), payload(i)));
+			}
+			assertEquals(4, journal.segmentCount());
+
+			SegmentedJournal.Batch all = journal.read(0, 100);
+			assertEquals(10, all.records().size());
+			for (int i = 0; i < 10; i++) {
+				SegmentedJournal.Record record = all.records().get(i);
+				assertEquals(offsets.get(i), record.offset());
+				assertEquals(new UUID(0, i), record.key());
+				assertArrayEquals(payload(i), record.payload());
+			}
+			assertEquals(journal.endOffset(), all.nextOffset());
+
+			// A page that starts mid-segment and stops in a later one.
+			SegmentedJournal.Batch page = journal.read(offsets.get(2), 4);
+			assertEquals(List.of(2L, 3L, 4L, 5L), page.records().stream().map(r -> r.key().getLeastSignificantBits()).toList());
+			assertEquals(offsets.get(6), page.nextOffset());
+		}
+	}
+
+	@Test
+	void reopensWhereTheLastRecordEnded() throws IOException {
+		long end;
+		try (SegmentedJournal journal = new SegmentedJournal(dir, SEGMENT_BYTES)) {
+			for (int i = 0; i < 5; i++) journal.append(new UUID(0, i), payload(i));
+			end = journal.endOffset();
+		}
+		try (SegmentedJournal journal = new SegmentedJournal(dir, SEGMENT_BYTES)) {
+			assertEquals(end, journal.endOffset());
+			assertEquals(end, journal.append(new UUID(0, 5), payload(5)));
+			assertEquals(6, journal.read(0, 100).records().size());
+		}
+	}
+
+	@Test
+	void dropsATornRecordOnRecovery() throws IOException {
+		long lastOffset;
+		try (SegmentedJournal journal = new SegmentedJournal(dir, SEGMENT_BYTES)) {
+			for (int i = 0; i < 4; i++) journal.append(new UUID(0, i), payload(i));
+			lastOffset = journal.append(new UUID(0, 4), payload(4));
+		}
+		// The active segment starts at the fourth record; corrupt the payload of the fifth, as if
+		// the process died while writing it.
+		Path active = lastSegment();
+		long base = 3 * 40;
+		int position = SegmentedJournal.HEADER_BYTES + (int) (lastOffset - base) + SegmentedJournal.RECORD_HEADER_BYTES;
+		try (FileChannel channel = FileChannel.open(active, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[]{'x', 'x'}), position);
+		}
+
+		try (SegmentedJournal journal = new SegmentedJournal(dir, SEGMENT_BYTES)) {
+			assertEquals(lastOffset, journal.endOffset());
+			List<SegmentedJournal.Record> records = journal.read(0, 100).records();
+			assertEquals(4, records.size());
+			assertEquals(new UUID(0, 3), records.getLast().key());
+
+			// The torn bytes were cleared, so the next append takes the same slot and survives a reopen.
+			assertEquals(lastOffset, journal.append(new UUID(0, 9), payload(9)));
+		}
+		try (SegmentedJournal journal = new SegmentedJournal(dir, SEGMENT_BYTES)) {
+			List<SegmentedJournal.Record> records = journal.read(0, 100).records();
+			assertEquals(5, records.size());
+			assertEquals(new UUID(0, 9), records.getLast().key());
+		}
+	}
+
+	@Test
+	void readsAcrossCompactedSegments() throws IOException {
+		UUID a = new UUID(0, 1);
+		UUID b = new UUID(0, 2);
+		UUID c = new UUID(0, 3);
+		try (SegmentedJournal journal = new SegmentedJournal(dir, SEGMENT_BYTES)) {
+			// Segment 0: b, a, c (all superseded). Segment 1: a, a, c (only c live). Segment 2 (active): a, b.
+			journal.append(b, payload(0));
+			journal.append(a, payload(1));
+			journal.append(c, payload(2));
+			journal.append(a, payload(3));
+			long staleA = journal.append(a, payload(4));
+			long lastC = journal.append(c, payload(5));
+			long lastA = journal.append(a, payload(6));
+			long lastB = journal.append(b, payload(7));
+			assertEquals(3, journal.segmentCount());
+
+			assertEquals(2, journal.compact(0.1));
+			assertEquals(2, journal.segmentCount());
+			assertEquals(3 * 40, journal.startOffset());
+
+			SegmentedJournal.Batch all = journal.read(0, 100);
+			assertEquals(List.of(lastC, lastA, lastB), offsets(all));
+			assertArrayEquals(payload(5), all.records().getFirst().payload());
+			assertEquals(journal.endOffset(), all.nextOffset());
+
+			// Offsets handed out before compaction stay valid cursors, including ones in the removed segment.
+			assertEquals(List.of(lastC, lastA, lastB), offsets(journal.read(40, 100)));
+			SegmentedJournal.Batch page = journal.read(staleA, 1);
+			assertEquals(List.of(lastC), offsets(page));
+			assertEquals(List.of(lastA, lastB), offsets(journal.read(page.nextOffset(), 100)));
+		}
+		try (SegmentedJournal journal = new SegmentedJournal(dir, SEGMENT_BYTES)) {
+			assertEquals(3, journal.read(0, 100).records().size());
+			assertEquals(8 * 40, journal.endOffset());
+		}
+	}
+
+	@Test
+	void reopensAfterCompactionRemovedAMiddleSegment() throws IOException {
+		UUID a = new UUID(0, 1);
+		UUID b = new UUID(0, 2);
+		UUID c = new UUID(0, 3);
+		UUID d = new UUID(0, 4);
+		try (SegmentedJournal journal = new SegmentedJournal(dir, SEGMENT_BYTES)) {
+			// Segment 0: a, b, c (all live). Segment 1: d, d, d (all superseded). Segment 2 (active): d.
+			journal.append(a, payload(0));
+			journal.append(b, payload(1));
+			journal.append(c, payload(2));
+			for (int i = 3; i < 6; i++) journal.append(d, payload(i));
+			journal.append(d, payload(6));
+
+			assertEquals(1, journal.compact(0.1));
+			assertEquals(2, journal.segmentCount());
+			assertEquals(List.of(0L, 40L, 80L, 6 * 40L), offsets(journal.read(0, 100)));
+		}
+		try (SegmentedJournal journal = new SegmentedJournal(dir, SEGMENT_BYTES)) {
+			SegmentedJournal.Batch all = journal.read(0, 100);
+			assertEquals(List.of(0L, 40L, 80L, 6 * 40L), offsets(all));
+			assertEquals(journal.endOffset(), all.nextOffset());
+
+			// A page that stops at the end of segment 0 resumes past the gap.
+			SegmentedJournal.Batch page = journal.read(0, 3);
+			assertEquals(3 * 40, page.nextOffset());
+			assertEquals(List.of(6 * 40L), offsets(journal.read(page.nextOffset(), 100)));
+
+			assertEquals(0, journal.compact(0.1));
+		}
+	}
+
+	private static List<Long> offsets(SegmentedJournal.Batch batch) {
+		return batch.records().stream().map(SegmentedJournal.Record::offset).toList();
+	}
+
+	// Eight bytes, so every record is 40 bytes framed.
+	private static byte[] payload(int i) {
+		return String.format("rec-%04d", i).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private Path lastSegment() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.filter(p -> p.toString().endsWith(".log")).max(Path::compareTo).orElseThrow();
+		}
+	}
+}
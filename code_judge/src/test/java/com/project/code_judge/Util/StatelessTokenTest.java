@@ -0,0 +1,105 @@
+package com.project.code_judge.Util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatelessTokenTest {
+	private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+	private static final Instant NOW = Instant.parse("2026-03-01T12:00:00Z");
+	private static final StatelessToken.Claims CLAIMS =
+			new StatelessToken.Claims(42, "ada@example.com", "ADMIN", 0x1A2B3C4DL, NOW.plusSeconds(900));
+
+	private final StatelessToken token = new StatelessToken(SECRET);
+
+	@Test
+	void verifiesWhatItSigned() {
+		String signed = token.sign(CLAIMS);
+		assertEquals(Optional.of(CLAIMS), token.verify(signed, NOW));
+		assertEquals(Optional.of(CLAIMS), new StatelessToken(SECRET.clone()).verify(signed, NOW));
+		assertFalse(signed.contains("=") || signed.contains("+") || signed.contains("/"), "not url-safe: " + signed);
+	}
+
+	@Test
+	void rejectsExpiredTokens() {
+		String signed = token.sign(CLAIMS);
+		assertTrue(token.verify(signed, CLAIMS.expiresAt().minusSeconds(1)).isPresent());
+		assertTrue(token.verify(signed, CLAIMS.expiresAt()).isEmpty());
+		assertTrue(token.verify(signed, CLAIMS.expiresAt().plusSeconds(1)).isEmpty());
+	}
+
+	@Test
+	void rejectsAnotherKeysSignature() {
+		byte[] other = SECRET.clone();
+		other[0] ^= 1;
+		assertTrue(new StatelessToken(other).verify(token.sign(CLAIMS), NOW).isEmpty());
+	}
+
+	@Test
+	void rejectsTamperedClaimsOrSignature() {
+		String signed = token.sign(CLAIMS);
+		int dot = signed.indexOf('.');
+		byte[] payload = Base64.getUrlDecoder().decode(signed.substring(0, dot));
+		byte[] signature = Base64.getUrlDecoder().decode(signed.substring(dot + 1));
+
+		for (int i = 0; i < payload.length; i++) {
+			byte[] changed = payload.clone();
+			changed[i] ^= 1;
+			assertTrue(token.verify(encode(changed) + "." + encode(signature), NOW).isEmpty(), "payload byte " + i);
+		}
+		byte[] changed = signature.clone();
+		changed[changed.length - 1] ^= 1;
+		assertTrue(token.verify(encode(payload) + "." + encode(changed), NOW).isEmpty());
+		assertTrue(token.verify(encode(payload) + "." + encode(Arrays.copyOf(signature, 16)), NOW).isEmpty());
+	}
+
+	@Test
+	void rejectsCorrectlySignedPayloadsItCannotParse() throws Exception {
+		byte[] payload = Base64.getUrlDecoder().decode(token.sign(CLAIMS).split("\\.")[0]);
+
+		byte[] trailing = Arrays.copyOf(payload, payload.length + 1);
+		assertTrue(token.verify(signWithSecret(trailing), NOW).isEmpty());
+
+		byte[] otherVersion = payload.clone();
+		otherVersion[0] = 2;
+		assertTrue(token.verify(signWithSecret(otherVersion), NOW).isEmpty());
+
+		assertTrue(token.verify(signWithSecret(Arrays.copyOf(payload, 10)), NOW).isEmpty());
+		assertTrue(token.verify(signWithSecret(payload), NOW).isPresent());
+	}
+
+	@Test
+	void rejectsMalformedTokens() {
+		String signed = token.sign(CLAIMS);
+		for (String malformed : new String[]{"", ".", "abc", signed.replace(".", ""), "." + signed, signed + ".x",
+				signed.replace('.', '!'), "!!!!" + signed, signed.substring(0, signed.indexOf('.') + 1)}) {
+			assertTrue(token.verify(malformed, NOW).isEmpty(), malformed);
+		}
+	}
+
+	@Test
+	void canBeUsedFromManyThreads() {
+		String signed = token.sign(CLAIMS);
+		assertTrue(IntStream.range(0, 10_000).parallel()
+				.allMatch(i -> token.verify(i % 2 == 0 ? signed : token.sign(CLAIMS), NOW).isPresent()));
+	}
+
+	private static String signWithSecret(byte[] payload) throws Exception {
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(SECRET, "HmacSHA256"));
+		return encode(payload) + "." + encode(mac.doFinal(payload));
+	}
+
+	private static String encode(byte[] bytes) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+}
@@ -0,0 +1,149 @@
+package com.project.code_judge.Util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubmissionArchiveFileTest {
+	private static final LocalDateTime TIME = LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535_897_000);
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void findsRowsAcrossGroups() throws IOException {
+		Path file = dir.resolve("archive.bin.gz");
+		try (OutputStream out = Files.newOutputStream(file);
+			 SubmissionArchiveFile.Writer writer = new SubmissionArchiveFile.Writer(out)) {
+			// More than one row group's worth.
+			for (int i = 0; i < 5000; i++) writer.append(row(i));
+			assertEquals(5000, writer.getRowCount());
+		}
+
+		assertEquals(Optional.of(row(0)), SubmissionArchiveFile.find(file, id(0)));
+		assertEquals(Optional.of(row(4321)), SubmissionArchiveFile.find(file, id(4321)));
+		assertEquals(Optional.empty(), SubmissionArchiveFile.find(file, id(5000)));
+	}
+
+	@Test
+	void scansEveryRowInOrder() throws IOException {
+		Path file = dir.resolve("scan.bin.gz");
+		try (OutputStream out = Files.newOutputStream(file);
+			 SubmissionArchiveFile.Writer writer = new SubmissionArchiveFile.Writer(out)) {
+			for (int i = 0; i < 5000; i++) writer.append(row(i));
+		}
+
+		List<SubmissionArchiveFile.Row> rows = new ArrayList<>();
+		SubmissionArchiveFile.scan(file, true, rows::add);
+		assertEquals(5000, rows.size());
+		assertEquals(row(0), rows.getFirst());
+		assertEquals(row(4999), rows.getLast());
+
+		List<SubmissionArchiveFile.Row> withoutCode = new ArrayList<>();
+		SubmissionArchiveFile.scan(file, false, withoutCode::add);
+		assertNull(withoutCode.get(17).code());
+		assertEquals(row(17).verdict(), withoutCode.get(17).verdict());
+	}
+
+	@Test
+	void keepsNulls() throws IOException {
+		SubmissionArchiveFile.Row sparse = new SubmissionArchiveFile.Row(id(1), null, null, TIME, "python",
+				"PENDING", null, null, null, null, null, null, "");
+		Path file = dir.resolve("sparse.bin.gz");
+		try (OutputStream out = Files.newOutputStream(file);
+			 SubmissionArchiveFile.Writer writer = new SubmissionArchiveFile.Writer(out)) {
+			writer.append(sparse);
+		}
+		assertEquals(Optional.of(sparse), SubmissionArchiveFile.find(file, id(1)));
+		List<SubmissionArchiveFile.Row> rows = new ArrayList<>();
+		SubmissionArchiveFile.scan(file, true, rows::add);
+		assertEquals(List.of(sparse), rows);
+	}
+
+	@Test
+	void readsVersionOneArchivesWithoutScores() throws IOException {
+		Path file = dir.resolve("v1.bin.gz");
+		try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(SubmissionArchiveFile.MAGIC);
+			out.writeShort(1);
+			out.writeInt(2);
+			column(out, c -> { for (int i = 1; i <= 2; i++) { c.writeLong(id(i).getMostSignificantBits()); c.writeLong(id(i).getLeastSignificantBits()); } });
+			column(out, c -> { c.writeLong(7); c.writeLong(8); });
+			column(out, c -> { c.writeLong(42); c.writeLong(42); });
+			long micros = TIME.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + TIME.getNano() / 1_000;
+			column(out, c -> { c.writeLong(micros); c.writeLong(micros); });
+			column(out, c -> { string(c, "cpp"); string(c, "java"); });
+			column(out, c -> { string(c, "COMPLETED"); string(c, "FAILED"); });
+			column(out, c -> { string(c, "ACCEPTED"); string(c, "COMPILATION_ERROR"); });
+			column(out, c -> { c.writeLong(120); c.writeLong(Long.MIN_VALUE); });
+			column(out, c -> { c.writeLong(2048); c.writeLong(Long.MIN_VALUE); });
+			column(out, c -> { string(c, null); string(c, "error: ';' expected"); });
+			column(out, c -> { string(c, "int main(){}"); string(c, "class Main {"); });
+			out.writeInt(0);
+		}
+
+		assertEquals(Optional.of(new SubmissionArchiveFile.Row(id(2), 8L, 42L, TIME, "java", "FAILED", "COMPILATION_ERROR",
+				null, null, null, null, "error: ';' expected", "class Main {")), SubmissionArchiveFile.find(file, id(2)));
+		assertEquals(Optional.of(new SubmissionArchiveFile.Row(id(1), 7L, 42L, TIME, "cpp", "COMPLETED", "ACCEPTED",
+				120L, 2048L, null, null, null, "int main(){}")), SubmissionArchiveFile.find(file, id(1)));
+	}
+
+	@Test
+	void rejectsOtherFiles() throws IOException {
+		Path file = dir.resolve("other.gz");
+		try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(SubmissionArchiveFile.MAGIC);
+			out.writeShort(SubmissionArchiveFile.VERSION + 1);
+		}
+		assertThrows(IOException.class, () -> SubmissionArchiveFile.find(file, id(1)));
+	}
+
+	private interface ColumnWriter {
+		void write(DataOutputStream column) throws IOException;
+	}
+
+	private static void column(DataOutputStream out, ColumnWriter writer) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream column = new DataOutputStream(bytes);
+		writer.write(column);
+		column.flush();
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+	}
+
+	private static void string(DataOutputStream column, String value) throws IOException {
+		if (value == null) {
+			column.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		column.writeInt(bytes.length);
+		column.write(bytes);
+	}
+
+	private static UUID id(int i) {
+		return new UUID(0x0190_0000_0000_7000L, i);
+	}
+
+	private static SubmissionArchiveFile.Row row(int i) {
+		return new SubmissionArchiveFile.Row(id(i), (long) i % 17, 42L, TIME.plusSeconds(i), i % 2 == 0 ? "cpp" : "java",
+				"COMPLETED", "WRONG_ANSWER", (long) i, 1024L + i, i % 101, "[{\"group\":1,\"score\":" + i % 101 + "}]",
+				null, "// submission " + i);
+	}
+}
@@ -0,0 +1,108 @@
+package com.project.code_judge.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+	@Test
+	void firesOnTheTickAfterTheDeadline() {
+		TimerWheel<String> wheel = new TimerWheel<>(10, 4, 3, 1000);
+		wheel.schedule("a", 1025);
+		assertEquals(List.of(), wheel.advance(1020));
+		assertEquals(List.of(), wheel.advance(1029));
+		assertEquals(List.of("a"), wheel.advance(1030));
+		assertFalse(wheel.contains("a"));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void pastDeadlinesFireOnTheNextAdvance() {
+		TimerWheel<String> wheel = new TimerWheel<>(10, 4, 3, 1000);
+		wheel.schedule("late", 500);
+		assertTrue(wheel.contains("late"));
+		assertEquals(List.of("late"), wheel.advance(1000));
+	}
+
+	@Test
+	void rescheduleAndCancel() {
+		TimerWheel<String> wheel = new TimerWheel<>(10, 4, 3, 0);
+		wheel.schedule("a", 100);
+		wheel.schedule("b", 100);
+		wheel.schedule("a", 5000);
+		assertTrue(wheel.cancel("b"));
+		assertFalse(wheel.cancel("b"));
+		assertEquals(List.of(), wheel.advance(4990));
+		assertEquals(List.of("a"), wheel.advance(5000));
+
+		// A timer that is already due can still be moved or cancelled before it is collected.
+		wheel.schedule("c", 0);
+		wheel.schedule("c", 6000);
+		wheel.schedule("d", 0);
+		assertTrue(wheel.cancel("d"));
+		assertEquals(List.of(), wheel.advance(5990));
+		assertEquals(List.of("c"), wheel.advance(6000));
+	}
+
+	@Test
+	void cascadesThroughEveryLevelAndTheOverflow() {
+		// 4 slots per level and 3 levels cover 64 ticks; the rest waits in the overflow list.
+		TimerWheel<Integer> wheel = new TimerWheel<>(1, 2, 3, 0);
+		for (int deadline = 1; deadline <= 300; deadline++) wheel.schedule(deadline, deadline);
+		for (int now = 1; now <= 300; now++) {
+			assertEquals(List.of(now), wheel.advance(now), "at tick " + now);
+		}
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void agreesWithAPlainMapUnderRandomOperations() {
+		Random random = new Random(42);
+		long tickMs = 10;
+		long now = 123_456;
+		TimerWheel<Integer> wheel = new TimerWheel<>(tickMs, 3, 3, now);
+		Map<Integer, Long> deadlines = new HashMap<>();
+
+		for (int step = 0; step < 20_000; step++) {
+			int key = random.nextInt(500);
+			switch (random.nextInt(4)) {
+				case 0, 1 -> {
+					// Mostly within the wheel, sometimes past its 512-tick span or already due.
+					long deadline = now + random.nextLong(-200, random.nextBoolean() ? 3_000 : 20_000);
+					wheel.schedule(key, deadline);
+					deadlines.put(key, deadline);
+				}
+				case 2 -> assertEquals(deadlines.remove(key) != null, wheel.cancel(key));
+				default -> {
+					now += random.nextLong(0, 400);
+					long tick = now / tickMs;
+					Set<Integer> expected = new HashSet<>();
+					deadlines.entrySet().removeIf(e -> {
+						boolean due = Math.floorDiv(e.getValue() + tickMs - 1, tickMs) <= tick;
+						if (due) expected.add(e.getKey());
+						return due;
+					});
+					List<Integer> fired = wheel.advance(now);
+					assertEquals(expected.size(), fired.size(), "duplicate or missing expiry at step " + step);
+					assertEquals(expected, new HashSet<>(fired), "at step " + step);
+				}
+			}
+			assertEquals(deadlines.size(), wheel.size());
+		}
+	}
+
+	@Test
+	void rejectsInvalidGeometry() {
+		assertThrows(IllegalArgumentException.class, () -> new TimerWheel<>(0, 4, 3, 0));
+		assertThrows(IllegalArgumentException.class, () -> new TimerWheel<>(10, 0, 3, 0));
+		assertThrows(IllegalArgumentException.class, () -> new TimerWheel<>(10, 16, 4, 0));
+	}
+}
@@ -0,0 +1,90 @@
+package com.project.code_judge.Util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkerCapacityControllerTest {
+	// One-second jobs, drained within a minute, scaled down after a minute below.
+	private static final WorkerCapacityController.Settings SETTINGS =
+			new WorkerCapacityController.Settings(1, 50, 5, 60, 30, 60, 1);
+
+	@Test
+	void expectedWaitMatchesClosedForms() {
+		// M/M/1: Wq = rho * S / (1 - rho).
+		assertEquals(1.0, WorkerCapacityController.expectedWaitSeconds(1, 0.5, 1), 1e-9);
+		assertEquals(0.45 * 1.5 / 0.55, WorkerCapacityController.expectedWaitSeconds(1, 0.3, 1.5), 1e-9);
+		// M/M/2 with a = 1: ErlangC = 1/3, Wq = 1/3 * S / (c - a).
+		assertEquals(1.0 / 3, WorkerCapacityController.expectedWaitSeconds(2, 1, 1), 1e-9);
+		assertEquals(0, WorkerCapacityController.expectedWaitSeconds(3, 0, 1));
+		assertEquals(Double.POSITIVE_INFINITY, WorkerCapacityController.expectedWaitSeconds(2, 2, 1));
+	}
+
+	@Test
+	void desiredWorkersCoverLoadBacklogAndWaitTarget() {
+		WorkerCapacityController controller = new WorkerCapacityController(SETTINGS);
+		assertEquals(1, controller.desiredWorkers(0, 1, 0));
+		// 600 queued one-second jobs drained within 60 s.
+		assertEquals(10, controller.desiredWorkers(0, 1, 600));
+		// 8 jobs/s needs more than 8 workers to keep the wait under 5 s.
+		int workers = controller.desiredWorkers(8, 1, 0);
+		assertTrue(workers > 8);
+		assertTrue(WorkerCapacityController.expectedWaitSeconds(workers, 8, 1) <= 5);
+		assertTrue(WorkerCapacityController.expectedWaitSeconds(workers - 1, 8, 1) > 5);
+		assertEquals(50, controller.desiredWorkers(1000, 1, 0));
+	}
+
+	@Test
+	void scalesUpAtOnceAndDownAfterTheDelay() {
+		WorkerCapacityController controller = new WorkerCapacityController(SETTINGS);
+		assertEquals(10, controller.update(0, 0, 600).recommendedWorkers());
+
+		assertEquals(10, controller.update(10_000, 0, 120).recommendedWorkers());
+		assertEquals(10, controller.update(20_000, 0, 180).recommendedWorkers());
+		for (long t = 30_000; t <= 60_000; t += 10_000) {
+			WorkerCapacityController.Decision decision = controller.update(t, 0, 60);
+			assertEquals(10, decision.recommendedWorkers());
+			assertEquals(1, decision.desiredWorkers());
+		}
+		// A minute below: down to the highest count wanted during that minute, not the latest.
+		assertEquals(3, controller.update(70_000, 0, 60).recommendedWorkers());
+		assertEquals(3, controller.getRecommendedWorkers());
+
+		assertEquals(10, controller.update(80_000, 0, 600).recommendedWorkers());
+	}
+
+	@Test
+	void aSpikeRestartsTheScaleDownWindow() {
+		WorkerCapacityController controller = new WorkerCapacityController(SETTINGS);
+		controller.update(0, 0, 600);
+		controller.update(10_000, 0, 60);
+		controller.update(40_000, 0, 600);
+		assertEquals(10, controller.update(80_000, 0, 60).recommendedWorkers());
+		assertEquals(10, controller.update(130_000, 0, 60).recommendedWorkers());
+		assertEquals(1, controller.update(140_000, 0, 60).recommendedWorkers());
+	}
+
+	@Test
+	void smoothsTheArrivalRateAndServiceTime() {
+		WorkerCapacityController controller = new WorkerCapacityController(SETTINGS);
+		controller.update(0, 0, 0);
+		WorkerCapacityController.Decision decision = null;
+		for (long t = 1_000; t <= 300_000; t += 1_000) decision = controller.update(t, 4, 0);
+		assertEquals(4, decision.arrivalRate(), 0.01);
+
+		for (int i = 0; i < 200; i++) controller.observeServiceTime(2);
+		controller.observeServiceTime(0);
+		decision = controller.update(301_000, 4, 0);
+		assertEquals(2, decision.serviceSeconds(), 0.01);
+		assertTrue(decision.recommendedWorkers() > 8);
+		assertEquals(decision.arrivalRate() * decision.serviceSeconds() / decision.recommendedWorkers(), decision.utilization(), 1e-9);
+	}
+
+	@Test
+	void rejectsInvalidSettings() {
+		assertThrows(IllegalArgumentException.class, () -> new WorkerCapacityController.Settings(5, 4, 5, 60, 30, 60, 1));
+		assertThrows(IllegalArgumentException.class, () -> new WorkerCapacityController.Settings(0, 0, 5, 60, 30, 60, 1));
+		assertThrows(IllegalArgumentException.class, () -> new WorkerCapacityController.Settings(1, 4, 0, 60, 30, 60, 1));
+		assertThrows(IllegalArgumentException.class, () -> new WorkerCapacityController.Settings(1, 4, 5, 60, 30, 60, 0));
+	}
+}
@@ -0,0 +1,5 @@
+#!/bin/sh
+# Lets the streaming replica (docker compose --profile replica) connect for replication.
+# Runs only when the primary's data volume is first initialised.
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
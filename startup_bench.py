@@ -0,0 +1,126 @@
+import os
+import re
+import shlex
+import statistics
+import subprocess
+import threading
+import time
+
+import requests
+
+# Measures how long a code_judge instance takes to start and to answer its first
+# request. Each command in COMMANDS ("label=command;label=command") is launched
+# RUNS times; every run records the "Started ... in N seconds" time Spring logs
+# and the wall time until HEALTH_URL returns 200. Infrastructure (Postgres, Redis,
+# RabbitMQ) must already be running, and nothing else may listen on the port.
+JAR = "code_judge/target/code_judge-0.0.1-SNAPSHOT.jar"
+FAST_DIR = "code_judge/target/fast-startup"
+DEFAULT_COMMANDS = (
+    f"default=java -jar {JAR};"
+    f"fast=java -XX:AOTCache={FAST_DIR}/app.aot -Dspring.aot.enabled=true -jar {FAST_DIR}/code_judge-0.0.1-SNAPSHOT.jar"
+)
+COMMANDS = os.getenv("COMMANDS", DEFAULT_COMMANDS)
+RUNS = int(os.getenv("RUNS", "5"))
+HEALTH_URL = os.getenv("HEALTH_URL", "http://localhost:8081/actuator/health")
+FIRST_REQUEST_URL = os.getenv("FIRST_REQUEST_URL", "http://localhost:8080/api/problems/")
+TIMEOUT_SEC = float(os.getenv("TIMEOUT_SEC", "120"))
+# Fail (exit 1) when a mode's median time to first request exceeds this, e.g. in CI.
+MAX_FIRST_REQUEST_MS = int(os.getenv("MAX_FIRST_REQUEST_MS", "0"))
+
+STARTED_PATTERN = re.compile(r"Started \w+ in ([0-9.]+) seconds")
+
+
+def parse_commands(spec):
+    commands = []
+    for entry in spec.split(";"):
+        if not entry.strip():
+            continue
+        label, _, command = entry.partition("=")
+        commands.append((label.strip(), command.strip()))
+    return commands
+
+
+def wait_for(url, proc, deadline):
+    while time.time() < deadline:
+        if proc.poll() is not None:
+            return False
+        try:
+            if requests.get(url, timeout=1).status_code == 200:
+                return True
+        except requests.RequestException:
+            pass
+        time.sleep(0.02)
+    return False
+
+
+def run_once(command):
+    started_sec = [None]
+    launched = time.time()
+    proc = subprocess.Popen(shlex.split(command), stdout=subprocess.PIPE, stderr=subprocess.STDOUT, text=True)
+
+    def read_log():
+        for line in proc.stdout:
+            match = STARTED_PATTERN.search(line)
+            if match and started_sec[0] is None:
+                started_sec[0] = float(match.group(1))
+
+    reader = threading.Thread(target=read_log, daemon=True)
+    reader.start()
+    try:
+        ready = wait_for(HEALTH_URL, proc, launched + TIMEOUT_SEC)
+        ready_ms = (time.time() - launched) * 1000 if ready else None
+        first_ms = None
+        if ready:
+            start = time.time()
+            try:
+                requests.get(FIRST_REQUEST_URL, timeout=TIMEOUT_SEC)
+                first_ms = ready_ms + (time.time() - start) * 1000
+            except requests.RequestException:
+                pass
+        return started_sec[0], ready_ms, first_ms
+    finally:
+        proc.terminate()
+        try:
+            proc.wait(timeout=30)
+        except subprocess.TimeoutExpired:
+            proc.kill()
+            proc.wait()
+        reader.join(timeout=5)
+
+
+def median(values):
+    values = [v for v in values if v is not None]
+    return statistics.median(values) if values else None
+
+
+def fmt(value, scale=1.0):
+    return f"{value * scale:>10.0f}" if value is not None else f"{'-':>10}"
+
+
+def run_benchmark():
+    print("--- STARTUP BENCHMARK ---")
+    print(f"Runs per mode: {RUNS}")
+    print(f"Health: {HEALTH_URL}  First request: {FIRST_REQUEST_URL}")
+    print("-" * 60)
+    print(f"{'mode':<12} {'spring ms':>10} {'ready ms':>10} {'first ms':>10} {'failed':>7}")
+
+    regressed = False
+    for label, command in parse_commands(COMMANDS):
+        results = [run_once(command) for _ in range(RUNS)]
+        failed = sum(1 for _, ready, _ in results if ready is None)
+        spring = median([r[0] for r in results])
+        ready = median([r[1] for r in results])
+        first = median([r[2] for r in results])
+        print(f"{label:<12} {fmt(spring, 1000)} {fmt(ready)} {fmt(first)} {failed:>7}")
+        if MAX_FIRST_REQUEST_MS and (first is None or first > MAX_FIRST_REQUEST_MS):
+            regressed = True
+
+    print("-" * 60)
+    print("Medians. spring = time Spring reports; ready = launch to healthy; first = ready plus first API call.")
+    if regressed:
+        print(f"FAIL: median time to first request above {MAX_FIRST_REQUEST_MS} ms")
+        raise SystemExit(1)
+
+
+if __name__ == "__main__":
+    run_benchmark()
@@ -0,0 +1,84 @@
+import concurrent.futures
+import os
+import threading
+import time
+
+import requests
+
+# Compares platform-thread and virtual-thread modes. Start the backend with
+# VIRTUAL_THREADS=false, run this script, restart with VIRTUAL_THREADS=true and
+# run it again with a different MODE_LABEL.
+API_BASE_URL = os.getenv("API_BASE_URL", "http://localhost:8080")
+TARGET_PATH = os.getenv("TARGET_PATH", "/api/problems/")
+MODE_LABEL = os.getenv("MODE_LABEL", "unlabelled")
+LEVELS = [int(x) for x in os.getenv("LEVELS", "50,200,800,1600").split(",")]
+DURATION_SEC = int(os.getenv("DURATION_SEC", "20"))
+REQUEST_TIMEOUT_SEC = float(os.getenv("REQUEST_TIMEOUT_SEC", "10"))
+SLO_P99_MS = int(os.getenv("SLO_P99_MS", "1000"))
+
+
+def percentile(sorted_values, pct):
+    if not sorted_values:
+        return 0
+    index = min(len(sorted_values) - 1, max(0, int(round(pct / 100.0 * len(sorted_values))) - 1))
+    return sorted_values[index]
+
+
+def client_loop(url, deadline, latencies, errors, lock):
+    with requests.Session() as session:
+        while time.time() < deadline:
+            start = time.time()
+            try:
+                resp = session.get(url, timeout=REQUEST_TIMEOUT_SEC)
+                ok = resp.status_code == 200
+            except requests.RequestException:
+                ok = False
+            latency_ms = (time.time() - start) * 1000
+            with lock:
+                if ok:
+                    latencies.append(latency_ms)
+                else:
+                    errors[0] += 1
+
+
+def run_level(url, concurrency):
+    latencies = []
+    errors = [0]
+    lock = threading.Lock()
+    deadline = time.time() + DURATION_SEC
+    with concurrent.futures.ThreadPoolExecutor(max_workers=concurrency) as executor:
+        for _ in range(concurrency):
+            executor.submit(client_loop, url, deadline, latencies, errors, lock)
+    latencies.sort()
+    return {
+        "concurrency": concurrency,
+        "ok": len(latencies),
+        "errors": errors[0],
+        "rps": len(latencies) / DURATION_SEC,
+        "p50": percentile(latencies, 50),
+        "p99": percentile(latencies, 99),
+    }
+
+
+def run_benchmark():
+    url = f"{API_BASE_URL}{TARGET_PATH}"
+    print("--- THREAD MODE BENCHMARK ---")
+    print(f"Mode: {MODE_LABEL}")
+    print(f"Target: {url}")
+    print(f"Levels: {LEVELS}, {DURATION_SEC}s each")
+    print("-" * 50)
+    print(f"{'conc':>6} {'ok':>8} {'errors':>7} {'req/s':>8} {'p50 ms':>8} {'p99 ms':>8}")
+
+    capacity = 0
+    for concurrency in LEVELS:
+        r = run_level(url, concurrency)
+        print(f"{r['concurrency']:>6} {r['ok']:>8} {r['errors']:>7} {r['rps']:>8.1f} {r['p50']:>8.0f} {r['p99']:>8.0f}")
+        if r["errors"] == 0 and r["p99"] <= SLO_P99_MS:
+            capacity = concurrency
+
+    print("-" * 50)
+    print(f"Highest level with no errors and p99 <= {SLO_P99_MS} ms: {capacity or 'none'}")
+
+
+if __name__ == "__main__":
+    run_benchmark()